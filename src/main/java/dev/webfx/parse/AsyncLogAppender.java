@@ -0,0 +1,299 @@
+package dev.webfx.parse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Log appender that hands lines to a single writer thread through a
+ * preallocated ring buffer, so logging threads neither format into nor
+ * wait on the output stream. Producers claim a slot with a compare and
+ * set on the tail sequence and publish the line into it, the writer
+ * takes lines in sequence order, writes them and flushes once the
+ * buffer is drained.
+ * 
+ * When the buffer is full the overflow policy blocks, drops or samples
+ * info and lower lines, warnings and errors always block. The writer
+ * reports the number of dropped lines in the output.
+ * 
+ * @author Alexander Belch
+ */
+public class AsyncLogAppender implements LogAppender {
+	
+	private static final int DEFAULT_CAPACITY = 8192;
+	private static final int DEFAULT_SAMPLE_RATE = 16;
+	
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	
+	private final AtomicReferenceArray<String> slots;
+	private final int capacity;
+	private final int mask;
+	
+	private final AtomicLong tailSequence;
+	private volatile long headSequence;
+	private volatile long flushedSequence;
+	
+	private final LogOverflowPolicy logOverflowPolicy;
+	private final int sampleRate;
+	private final AtomicLong sampleCount;
+	private final LongAdder droppedCount;
+	private long reportedDroppedCount;
+	
+	private final Writer writer;
+	private final boolean closeWriter;
+	private final Thread writerThread;
+	private volatile boolean writerParked;
+	private volatile boolean closed;
+	
+	/**
+	 * Parameter constructor, starts the writer thread
+	 * 
+	 * @param writer Destination, written only by the writer thread
+	 * @param closeWriter True to close the destination on close
+	 * @param capacity Lines the buffer holds, rounded up to a power of 2
+	 * @param logOverflowPolicy What to do when the buffer is full
+	 * @param sampleRate One in this many lines kept when sampling
+	 */
+	public AsyncLogAppender(final Writer writer,
+			                final boolean closeWriter,
+			                final int capacity,
+			                final LogOverflowPolicy logOverflowPolicy,
+			                final int sampleRate) {
+		this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+		mask = this.capacity - 1;
+		slots = new AtomicReferenceArray<>(this.capacity);
+		
+		tailSequence = new AtomicLong();
+		
+		this.logOverflowPolicy = logOverflowPolicy;
+		this.sampleRate = Math.max(1, sampleRate);
+		sampleCount = new AtomicLong();
+		droppedCount = new LongAdder();
+		
+		this.writer = writer;
+		this.closeWriter = closeWriter;
+		
+		writerThread = new Thread(this::writeLines, "AsyncLogAppender");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	
+	/**
+	 * Create an appender to standard output
+	 * 
+	 * @param logOverflowPolicy What to do when the buffer is full
+	 * 
+	 * @return The appender
+	 */
+	public static AsyncLogAppender toConsole(final LogOverflowPolicy logOverflowPolicy) {
+		return new AsyncLogAppender(new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset())), // NOSONAR
+				                    false, DEFAULT_CAPACITY, logOverflowPolicy, DEFAULT_SAMPLE_RATE);
+	}
+	
+	/**
+	 * Create an appender to a file, lines are appended to any content
+	 * 
+	 * @param pathFile The log file
+	 * @param logOverflowPolicy What to do when the buffer is full
+	 * 
+	 * @return The appender
+	 * 
+	 * @throws IOException Thrown if the file cannot be opened
+	 */
+	public static AsyncLogAppender toFile(final Path pathFile,
+			                              final LogOverflowPolicy logOverflowPolicy) throws IOException {
+		return new AsyncLogAppender(Files.newBufferedWriter(pathFile, StandardCharsets.UTF_8, 
+				                                            StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+				                    true, DEFAULT_CAPACITY, logOverflowPolicy, DEFAULT_SAMPLE_RATE);
+	}
+	
+	@Override
+	public void append(final LogType logType,
+			           final String line) {
+		if (closed) {
+			droppedCount.increment();
+			return;
+		}
+		
+		final boolean mayDrop = logType.getLevel() > LogType.WARN.getLevel() && 
+		                        logOverflowPolicy != LogOverflowPolicy.BLOCK;
+		
+		if (mayDrop && logOverflowPolicy == LogOverflowPolicy.SAMPLE && 
+			tailSequence.get() - headSequence > capacity / 2 && 
+			sampleCount.incrementAndGet() % sampleRate != 0) {
+			droppedCount.increment();
+			return;
+		}
+		
+		while (! tryPublish(line)) {
+			if (mayDrop || closed) {
+				droppedCount.increment();
+				return;
+			}
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(this, FULL_PARK_NANOS);
+		}
+	}
+	
+	@Override
+	public void flush() {
+		final long targetSequence = tailSequence.get();
+		while (flushedSequence < targetSequence && writerThread.isAlive()) {
+			LockSupport.unpark(writerThread);
+			LockSupport.parkNanos(this, FULL_PARK_NANOS);
+		}
+	}
+	
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(writerThread);
+		try {
+			writerThread.join();
+		}
+		catch (final InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * @return Lines dropped on overflow or after close
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+	
+	/**
+	 * @return Lines the buffer holds
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Claim the next slot and publish a line into it
+	 * 
+	 * @param line The line
+	 * 
+	 * @return False if the buffer is full
+	 */
+	private boolean tryPublish(final String line) {
+		while (true) {
+			final long sequence = tailSequence.get();
+			if (sequence - headSequence >= capacity) {
+				return false;
+			}
+			if (tailSequence.compareAndSet(sequence, sequence + 1)) {
+				// A slot within capacity of the head was cleared by the writer
+				slots.set((int) sequence & mask, line);
+				if (writerParked) {
+					LockSupport.unpark(writerThread);
+				}
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Writer thread, takes lines in sequence order until closed and drained
+	 */
+	private void writeLines() {
+		long sequence = headSequence;
+		boolean written = false;
+		
+		while (true) {
+			final int slot = (int) sequence & mask;
+			final String line = slots.get(slot);
+			
+			if (line != null) {
+				// Clear before moving the head so producers never see a full slot as free
+				slots.set(slot, null);
+				headSequence = ++sequence;
+				write(line);
+				written = true;
+				continue;
+			}
+			
+			if (written) {
+				reportDroppedLines();
+				flushWriter();
+				flushedSequence = sequence;
+				written = false;
+			}
+			
+			if (closed && tailSequence.get() == sequence) {
+				break;
+			}
+			
+			writerParked = true;
+			if (slots.get(slot) == null) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			writerParked = false;
+		}
+		
+		reportDroppedLines();
+		flushWriter();
+		flushedSequence = sequence;
+		
+		if (closeWriter) {
+			try {
+				writer.close();
+			}
+			catch (final IOException ioe) {
+				System.err.println("AsyncLogAppender.writeLines: IOException " + ioe.getMessage()); // NOSONAR
+			}
+		}
+	}
+	
+	/**
+	 * Write a line noting the lines dropped since the last note
+	 */
+	private void reportDroppedLines() {
+		final long dropped = droppedCount.sum();
+		if (dropped > reportedDroppedCount) {
+			write("[" + LogType.WARN.getText() + "] AsyncLogAppender: dropped " + 
+			      (dropped - reportedDroppedCount) + " log lines");
+			reportedDroppedCount = dropped;
+		}
+	}
+	
+	/**
+	 * Write one line and a line separator
+	 * 
+	 * @param line The line
+	 */
+	private void write(final String line) {
+		try {
+			writer.write(line);
+			writer.write(System.lineSeparator());
+		}
+		catch (final IOException ioe) {
+			System.err.println("AsyncLogAppender.write: IOException " + ioe.getMessage()); // NOSONAR
+		}
+	}
+	
+	/**
+	 * Flush the destination
+	 */
+	private void flushWriter() {
+		try {
+			writer.flush();
+		}
+		catch (final IOException ioe) {
+			System.err.println("AsyncLogAppender.flushWriter: IOException " + ioe.getMessage()); // NOSONAR
+		}
+	}
+}
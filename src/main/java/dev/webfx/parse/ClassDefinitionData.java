@@ -1,38 +1,56 @@
 package dev.webfx.parse;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
+ * Names are interned in the symbol dictionary, package and primary
+ * class names are held as ids
+ * 
  * @author Alexander Belch
  */
 public class ClassDefinitionData {
 
+	private final SymbolDictionary symbolDictionary;
+	
 	private final String pathFile;
 	
-    private String packageName;
+    private int packageNameId;
     private final List<ImportData> importList;
     
-    private String primaryClassName;
+    private int primaryClassNameId;
     private final Set<String> secondaryClassNameHashSet;
+    private final Set<String> nestedClassNameHashSet;
     
     private final Set<String> genericHashSet;
     
-    private final List<PackageClassData> packageClassList;
+    private PackageClassStore packageClassStore;
+    private int fileIndex;
+    private int packageClassStart;
+    private int packageClassCount;
+    
+    private ModuleDescriptorData moduleDescriptorData;
     
 	/**
 	 * Parameter constructor
 	 *  
 	 * @param pathFile
+	 * @param symbolDictionary Dictionary of the run the names are interned in
 	 */
-	public ClassDefinitionData(final String pathFile) {
+	public ClassDefinitionData(final String pathFile,
+			                   final SymbolDictionary symbolDictionary) {
+		this.symbolDictionary = symbolDictionary;
 		this.pathFile = pathFile;
+		this.packageNameId = SymbolDictionary.NO_ID;
+		this.primaryClassNameId = SymbolDictionary.NO_ID;
 		this.importList = new ArrayList<>();
 		this.secondaryClassNameHashSet = new HashSet<>();
+		this.nestedClassNameHashSet = new HashSet<>();
 		this.genericHashSet = new HashSet<>();
-		this.packageClassList = new ArrayList<>();
+		this.packageClassStore = new PackageClassStore(symbolDictionary);
 	}
 	
 	/**
@@ -42,18 +60,46 @@ public class ClassDefinitionData {
 		return pathFile;
 	}
 	
+	/**
+	 * @return Dictionary the names are interned in
+	 */
+	public SymbolDictionary getSymbolDictionary() {
+		return symbolDictionary;
+	}
+	
+	/**
+	 * @return Directives of a module-info file, null for other files
+	 */
+	public ModuleDescriptorData getModuleDescriptorData() {
+		return moduleDescriptorData;
+	}
+	
+	/**
+	 * @param moduleDescriptorData Directives of a module-info file
+	 */
+	public void setModuleDescriptorData(final ModuleDescriptorData moduleDescriptorData) {
+		this.moduleDescriptorData = moduleDescriptorData;
+	}
+	
 	/**
 	 * @param packageName
 	 */
 	public void setPackageName(final String packageName) {
-		this.packageName = packageName;
+		this.packageNameId = symbolDictionary.intern(packageName);
 	}
 	
 	/**
 	 * @return the packageName
 	 */
 	public String getPackageName() {
-		return packageName;
+		return symbolDictionary.getName(packageNameId);
+	}
+	
+	/**
+	 * @return the packageName id or SymbolDictionary.NO_ID for the default package
+	 */
+	public int getPackageNameId() {
+		return packageNameId;
 	}
 
 	/**
@@ -69,7 +115,7 @@ public class ClassDefinitionData {
 	 * @param typeName The type name to store in the set
 	 */
 	public void addTypeNameToGenericHashSet(final String typeName) {
-		genericHashSet.add(typeName);
+		genericHashSet.add(symbolDictionary.internName(typeName));
 	}
 
 	/**
@@ -87,14 +133,14 @@ public class ClassDefinitionData {
 	 * @return the primaryClassName
 	 */
 	public String getPrimaryClassName() {
-		return primaryClassName;
+		return symbolDictionary.getName(primaryClassNameId);
 	}
 
 	/**
 	 * @param primaryClassName the primaryClassName to set
 	 */
 	public void setPrimaryClassName(String primaryClassName) {
-		this.primaryClassName = primaryClassName;
+		this.primaryClassNameId = symbolDictionary.intern(primaryClassName);
 	}
 
 	/**
@@ -112,7 +158,26 @@ public class ClassDefinitionData {
 	 * @param className The class name to add to the secondary class set collection
 	 */
 	public void addClassNameToSecondaryClassNameHashSet(final String className) {
-		secondaryClassNameHashSet.add(className);
+		secondaryClassNameHashSet.add(symbolDictionary.internName(className));
+	}
+
+	/**
+	 * Return the nested class name set collection, each name is
+	 * relative to the package e.g. Outer.Inner
+	 * 
+	 * @return Nested class name set collection
+	 */
+	public Set<String> getNestedClassNameHashSet() {
+		return nestedClassNameHashSet;
+	}
+
+	/**
+	 * Add a nested class name to the nested class set collection
+	 * 
+	 * @param className The dotted class name e.g. Outer.Inner
+	 */
+	public void addClassNameToNestedClassNameHashSet(final String className) {
+		nestedClassNameHashSet.add(symbolDictionary.internName(className));
 	}
 
 	/**
@@ -121,19 +186,85 @@ public class ClassDefinitionData {
 	 * @param className Class name / can sometimes have package name in also
 	 */
 	public void addClassNameToPackageClassList(final String className) {
-		for (final PackageClassData packageClassData : packageClassList) {	
-			if (packageClassData.getClassName().equals(className)) {
-				return;
-			}	
+		final int classNameId = symbolDictionary.intern(className);
+		final int packageClassEnd = packageClassStart + packageClassCount;
+		if (packageClassStore.indexOfClassNameId(packageClassStart, packageClassEnd, classNameId) >= 0) {
+			return;
+		}
+		
+		if (packageClassStore.size() != packageClassEnd) {
+			throw new IllegalStateException("Package class records are shared, cannot add className=" + className);
 		}
 		
-		packageClassList.add(new PackageClassData(null, className, false));
+		packageClassStore.add(fileIndex, SymbolDictionary.NO_ID, classNameId, false);
+		packageClassCount++;
 	}
 	
 	/**
+	 * Return a view of the package class records, each element
+	 * reads and writes the record in the package class store
+	 * 
 	 * @return the packageClassList
 	 */
 	public List<PackageClassData> getPackageClassList() {
-		return packageClassList;
+		return new AbstractList<>() {
+			@Override
+			public PackageClassData get(final int index) {
+				if (index < 0 || index >= packageClassCount) {
+					throw new IndexOutOfBoundsException(index);
+				}
+				return new PackageClassData(packageClassStore, packageClassStart + index);
+			}
+
+			@Override
+			public int size() {
+				return packageClassCount;
+			}
+		};
+	}
+	
+	/**
+	 * @return Store holding the package class records
+	 */
+	public PackageClassStore getPackageClassStore() {
+		return packageClassStore;
+	}
+	
+	/**
+	 * @return Index of the first package class record in the store
+	 */
+	public int getPackageClassStart() {
+		return packageClassStart;
+	}
+	
+	/**
+	 * @return Number of package class records
+	 */
+	public int getPackageClassCount() {
+		return packageClassCount;
+	}
+	
+	/**
+	 * @return Index of the file in the package class store
+	 */
+	public int getFileIndex() {
+		return fileIndex;
+	}
+	
+	/**
+	 * Move the package class records into a shared store, views taken
+	 * from getPackageClassList before the move are no longer updated
+	 * 
+	 * @param targetPackageClassStore The shared store
+	 * @param targetFileIndex Index of the file in the shared store
+	 */
+	public void movePackageClassRecords(final PackageClassStore targetPackageClassStore,
+			                            final int targetFileIndex) {
+		packageClassStart = targetPackageClassStore.addAll(packageClassStore,
+				                                           packageClassStart,
+				                                           packageClassStart + packageClassCount,
+				                                           targetFileIndex);
+		packageClassStore = targetPackageClassStore;
+		fileIndex = targetFileIndex;
 	}
 }
@@ -0,0 +1,460 @@
+package dev.webfx.parse;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read the class names referenced by a compiled class straight from its
+ * constant pool, without loading the class. Used for dependencies that
+ * are only available as .class files in a directory or jar.
+ *
+ * A class inside a jar is addressed as /path/lib.jar!/com/abc/SomeClass.class
+ *
+ * @author Alexander Belch
+ */
+public class ClassFileParse {
+
+	public static final String CLASS_FILE_SUFFIX = ".class";
+	public static final String JAR_ENTRY_SEPARATOR = "!/";
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	private static final String INNER_CLASSES_ATTRIBUTE = "InnerClasses";
+
+	private final Log log;
+
+	/**
+	 * Default constructor
+	 */
+	public ClassFileParse() {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+	}
+
+	/**
+	 * Test if the path and file is a compiled class
+	 *
+	 * @param pathFile Path and file
+	 *
+	 * @return True if a .class file, false if not
+	 */
+	public static boolean isClassFile(final String pathFile) {
+		return pathFile.endsWith(CLASS_FILE_SUFFIX);
+	}
+
+	/**
+	 * Parse a class file and the class files of its nested classes into
+	 * a class definition, names are interned in a dictionary of their own
+	 *
+	 * @param pathFile The path and file of the class, may be a jar entry
+	 *
+	 * @return The class definition or null for a missing, truncated or invalid file
+	 */
+	public ClassDefinitionData parse(final String pathFile) {
+		return parse(pathFile, new SymbolDictionary());
+	}
+
+	/**
+	 * Parse a class file and the class files of its nested classes into
+	 * a class definition, as if they were one source file
+	 *
+	 * @param pathFile The path and file of the class, may be a jar entry
+	 * @param symbolDictionary Dictionary of the run the names are interned in
+	 *
+	 * @return The class definition or null for a missing, truncated or invalid file
+	 */
+	public ClassDefinitionData parse(final String pathFile,
+			                         final SymbolDictionary symbolDictionary) {
+		log.indent();
+		log.verbose("parse: pathFile=" + pathFile);
+
+		final ClassDefinitionData classDefinitionData = new ClassDefinitionData(pathFile, symbolDictionary);
+
+		final int index = pathFile.indexOf(JAR_ENTRY_SEPARATOR);
+		try {
+			if (index >= 0) {
+				try (final ZipFile zipFile = new ZipFile(pathFile.substring(0, index))) {
+					parseNested(pathFile.substring(index + JAR_ENTRY_SEPARATOR.length()),
+							    entryName -> readZipEntry(zipFile, entryName),
+							    classDefinitionData);
+				}
+			}
+			else {
+				final Path path = Path.of(pathFile);
+				final Path directory = path.getParent();
+				parseNested(path.getFileName().toString(),
+						    fileName -> Files.readAllBytes(directory.resolve(fileName)),
+						    classDefinitionData);
+			}
+		}
+		catch (final IOException | RuntimeException e) {
+			// Truncated or malformed class files fail alone, not the run
+			log.error("parse: pathFile=" + pathFile + ", Exception " + e);
+			log.outdent();
+			return null;
+		}
+
+		log.outdent();
+
+		return classDefinitionData;
+	}
+
+	/**
+	 * Parse a class then each of its nested classes in turn
+	 *
+	 * @param name The class file name relative to the reader
+	 * @param classFileReader Reads class file bytes by name
+	 * @param classDefinitionData The class definition to fill in
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	private void parseNested(final String name,
+			                 final ClassFileReader classFileReader,
+			                 final ClassDefinitionData classDefinitionData) throws IOException {
+		final String prefix = name.substring(0, name.lastIndexOf('/') + 1);
+
+		final List<String> pendingNameList = new ArrayList<>();
+		pendingNameList.add(name);
+
+		for (int i = 0; i < pendingNameList.size(); i++) {
+			final byte[] bytes;
+			try {
+				bytes = classFileReader.read(pendingNameList.get(i));
+			}
+			catch (final IOException ioe) {
+				if (i == 0) {
+					throw ioe;
+				}
+				log.warn("parseNested: Skip nested class name=" + pendingNameList.get(i) + ", IOException " + ioe.getMessage());
+				continue;
+			}
+			
+			for (final String nestedInternalName : parseClass(bytes, classDefinitionData, i > 0)) {
+				final String nestedName = prefix + nestedInternalName.substring(nestedInternalName.lastIndexOf('/') + 1) + CLASS_FILE_SUFFIX;
+				if (! pendingNameList.contains(nestedName)) {
+					pendingNameList.add(nestedName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parse one class file, adding referenced classes to the class definition
+	 *
+	 * @param bytes The class file bytes
+	 * @param classDefinitionData The class definition to fill in
+	 * @param nestedClass True if a nested class of the class being parsed
+	 *
+	 * @return Internal names of the classes nested directly within this class
+	 *
+	 * @throws IOException Thrown on invalid class file
+	 */
+	private List<String> parseClass(final byte[] bytes, // NOSONAR
+			                        final ClassDefinitionData classDefinitionData,
+			                        final boolean nestedClass) throws IOException {
+		final ClassFileBuffer buffer = new ClassFileBuffer(bytes);
+
+		if (buffer.readInt() != MAGIC) {
+			throw new IOException("Not a class file");
+		}
+		buffer.skip(4);
+
+		// Constant pool, remember where each entry starts
+		final int constantPoolCount = buffer.readUnsignedShort();
+		if (constantPoolCount == 0) {
+			throw new IOException("Invalid constant pool count=0");
+		}
+		final int[] tags = new int[constantPoolCount];
+		final int[] offsets = new int[constantPoolCount];
+
+		for (int i = 1; i < constantPoolCount; i++) {
+			tags[i] = buffer.readUnsignedByte();
+			offsets[i] = buffer.position();
+
+			switch (tags[i]) {
+				case CONSTANT_UTF8 -> buffer.skip(buffer.readUnsignedShort());
+				case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE -> buffer.skip(2);
+				case CONSTANT_METHOD_HANDLE -> buffer.skip(3);
+				case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELDREF, CONSTANT_METHODREF,
+				     CONSTANT_INTERFACE_METHODREF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+				     CONSTANT_INVOKE_DYNAMIC -> buffer.skip(4);
+				case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+					buffer.skip(8);
+					i++;
+				}
+				default -> throw new IOException("Invalid constant pool tag=" + tags[i]);
+			}
+		}
+
+		buffer.skip(2);
+		final String thisInternalName = readClassName(buffer, buffer.readUnsignedShort(), tags, offsets);
+
+		if (! nestedClass) {
+			final int index = thisInternalName.lastIndexOf('/');
+			classDefinitionData.setPackageName(index >= 0 ? thisInternalName.substring(0, index).replace('/', '.') : null);
+			classDefinitionData.setPrimaryClassName(getTopLevelClassName(thisInternalName.substring(index + 1)));
+		}
+
+		final String topLevelInternalName = getTopLevelClassName(thisInternalName);
+
+		// Every class, descriptor and method type in the pool
+		for (int i = 1; i < constantPoolCount; i++) {
+			if (tags[i] == CONSTANT_CLASS) {
+				addReferencedName(readClassName(buffer, i, tags, offsets), topLevelInternalName, classDefinitionData);
+			}
+			else if (tags[i] == CONSTANT_NAME_AND_TYPE) {
+				addDescriptorNames(readUtf8(buffer, buffer.getUnsignedShort(offsets[i] + 2), tags, offsets),
+						           topLevelInternalName, classDefinitionData);
+			}
+			else if (tags[i] == CONSTANT_METHOD_TYPE) {
+				addDescriptorNames(readUtf8(buffer, buffer.getUnsignedShort(offsets[i]), tags, offsets),
+						           topLevelInternalName, classDefinitionData);
+			}
+		}
+
+		// Super class and interfaces are class constants already seen
+		buffer.skip(2);
+		buffer.skip(2 * buffer.readUnsignedShort());
+
+		// Field then method descriptors
+		for (int member = 0; member < 2; member++) {
+			final int memberCount = buffer.readUnsignedShort();
+			for (int i = 0; i < memberCount; i++) {
+				buffer.skip(4);
+				addDescriptorNames(readUtf8(buffer, buffer.readUnsignedShort(), tags, offsets),
+						           topLevelInternalName, classDefinitionData);
+				skipAttributes(buffer);
+			}
+		}
+
+		// Nested classes declared within this class
+		final List<String> nestedInternalNameList = new ArrayList<>();
+
+		final int attributeCount = buffer.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			final String attributeName = readUtf8(buffer, buffer.readUnsignedShort(), tags, offsets);
+			final int length = buffer.readInt();
+			final int end = buffer.position() + length;
+
+			if (INNER_CLASSES_ATTRIBUTE.equals(attributeName)) {
+				final int classCount = buffer.readUnsignedShort();
+				for (int j = 0; j < classCount; j++) {
+					final String innerInternalName = readClassName(buffer, buffer.readUnsignedShort(), tags, offsets);
+					buffer.skip(6);
+					if (innerInternalName.startsWith(thisInternalName + "$")) {
+						nestedInternalNameList.add(innerInternalName);
+					}
+				}
+			}
+			buffer.seek(end);
+		}
+
+		return nestedInternalNameList;
+	}
+
+	/**
+	 * Add each class named in a field or method descriptor
+	 * e.g. (Ljava/lang/String;I)Ljava/util/List;
+	 *
+	 * @param descriptor The descriptor
+	 * @param topLevelInternalName Internal name of the class being parsed
+	 * @param classDefinitionData The class definition to fill in
+	 */
+	private void addDescriptorNames(final String descriptor,
+			                        final String topLevelInternalName,
+			                        final ClassDefinitionData classDefinitionData) {
+		int index = descriptor.indexOf('L');
+		while (index >= 0) {
+			final int end = descriptor.indexOf(';', index);
+			if (end < 0) {
+				return;
+			}
+			addReferencedName(descriptor.substring(index + 1, end), topLevelInternalName, classDefinitionData);
+			index = descriptor.indexOf('L', end);
+		}
+	}
+
+	/**
+	 * Add a referenced class by its top level dotted name, array
+	 * descriptors are unwrapped and self references skipped
+	 *
+	 * @param internalName The internal name e.g. java/util/Map$Entry or [Ljava/lang/String;
+	 * @param topLevelInternalName Internal name of the class being parsed
+	 * @param classDefinitionData The class definition to fill in
+	 */
+	private void addReferencedName(final String internalName,
+			                       final String topLevelInternalName,
+			                       final ClassDefinitionData classDefinitionData) {
+		if (internalName.startsWith("[")) {
+			addDescriptorNames(internalName, topLevelInternalName, classDefinitionData);
+			return;
+		}
+
+		final String referencedInternalName = getTopLevelClassName(internalName);
+		if (! referencedInternalName.equals(topLevelInternalName)) {
+			classDefinitionData.addClassNameToPackageClassList(referencedInternalName.replace('/', '.'));
+		}
+	}
+
+	/**
+	 * Remove any nested class part from a class name
+	 *
+	 * @param className Internal or simple class name e.g. java/util/Map$Entry
+	 *
+	 * @return The top level class name e.g. java/util/Map
+	 */
+	private static String getTopLevelClassName(final String className) {
+		final int index = className.indexOf('$', className.lastIndexOf('/') + 2);
+		return index > 0 ? className.substring(0, index) : className;
+	}
+
+	/**
+	 * Read the internal name of a class constant
+	 */
+	private static String readClassName(final ClassFileBuffer buffer,
+			                            final int index,
+			                            final int[] tags,
+			                            final int[] offsets) throws IOException {
+		if (index <= 0 || index >= tags.length || tags[index] != CONSTANT_CLASS) {
+			throw new IOException("Expected class constant at index=" + index);
+		}
+		return readUtf8(buffer, buffer.getUnsignedShort(offsets[index]), tags, offsets);
+	}
+
+	/**
+	 * Decode a modified UTF-8 constant
+	 */
+	private static String readUtf8(final ClassFileBuffer buffer,
+			                       final int index,
+			                       final int[] tags,
+			                       final int[] offsets) throws IOException {
+		if (index <= 0 || index >= tags.length || tags[index] != CONSTANT_UTF8) {
+			throw new IOException("Expected utf8 constant at index=" + index);
+		}
+		return buffer.getUtf8(offsets[index]);
+	}
+
+	/**
+	 * Skip an attribute table
+	 */
+	private static void skipAttributes(final ClassFileBuffer buffer) throws IOException {
+		final int attributeCount = buffer.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+			buffer.skip(2);
+			buffer.skip(buffer.readInt());
+		}
+	}
+
+	/**
+	 * Read a zip entry fully
+	 */
+	private static byte[] readZipEntry(final ZipFile zipFile,
+			                           final String entryName) throws IOException {
+		final ZipEntry zipEntry = zipFile.getEntry(entryName);
+		if (zipEntry == null) {
+			throw new IOException("Missing entry=" + entryName);
+		}
+		try (final InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+			return inputStream.readAllBytes();
+		}
+	}
+
+	/**
+	 * Reads class file bytes by name
+	 */
+	@FunctionalInterface
+	private interface ClassFileReader {
+		byte[] read(String name) throws IOException;
+	}
+
+	/**
+	 * Big endian reader over class file bytes, reads and moves past the
+	 * end of the bytes throw rather than index out of the array
+	 */
+	private static class ClassFileBuffer {
+		private final byte[] bytes;
+		private int position;
+
+		private ClassFileBuffer(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		private int position() {
+			return position;
+		}
+
+		private void seek(final int newPosition) throws IOException {
+			if (newPosition < 0 || newPosition > bytes.length) {
+				throw new IOException("Truncated class file, position=" + newPosition + ", length=" + bytes.length);
+			}
+			position = newPosition;
+		}
+
+		private void skip(final int count) throws IOException {
+			seek(position + count);
+		}
+
+		private int readUnsignedByte() throws IOException {
+			checkBounds(position, 1);
+			return bytes[position++] & 0xFF;
+		}
+
+		private int readUnsignedShort() throws IOException {
+			final int value = getUnsignedShort(position);
+			position += 2;
+			return value;
+		}
+
+		private int readInt() throws IOException {
+			final int value = (getUnsignedShort(position) << 16) | getUnsignedShort(position + 2);
+			position += 4;
+			return value;
+		}
+
+		private int getUnsignedShort(final int offset) throws IOException {
+			checkBounds(offset, 2);
+			return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+		}
+
+		private String getUtf8(final int offset) throws IOException {
+			final int length = getUnsignedShort(offset);
+			checkBounds(offset, length + 2);
+			try (final DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(bytes, offset, length + 2))) {
+				return dataInputStream.readUTF();
+			}
+		}
+
+		private void checkBounds(final int offset,
+				                 final int length) throws IOException {
+			if (offset < 0 || offset > bytes.length - length) {
+				throw new IOException("Truncated class file, offset=" + offset + ", length=" + bytes.length);
+			}
+		}
+	}
+}
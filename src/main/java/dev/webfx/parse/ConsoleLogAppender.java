@@ -0,0 +1,23 @@
+package dev.webfx.parse;
+
+/**
+ * Writes each line to standard output on the calling thread,
+ * the default log appender
+ * 
+ * @author Alexander Belch
+ */
+public class ConsoleLogAppender implements LogAppender {
+	
+	/**
+	 * Default constructor
+	 */
+	public ConsoleLogAppender() {
+		// Nothing to set
+	}
+	
+	@Override
+	public void append(final LogType logType,
+			           final String line) {
+		System.out.println(line); // NOSONAR
+	}
+}
@@ -0,0 +1,483 @@
+package dev.webfx.parse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File level dependency graph of a process run. Each edge is a reference
+ * from a source file to a type, with the package the type resolved to and
+ * the file it resolved to if any. Edges are held in compressed adjacency
+ * arrays ordered by source file, with a reverse index of the files that
+ * depend on each file, built on first query after edges are added.
+ *
+ * Names are symbol dictionary ids, files are indexes in this graph.
+ *
+ * @author Alexander Belch
+ */
+public class DependencyGraph {
+
+	/**
+	 * Target file of an edge resolved without a file e.g. JDK, or unresolved
+	 */
+	public static final int NO_FILE = -1;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final SymbolDictionary symbolDictionary;
+
+	private final List<String> pathFileList;
+	private final Map<String, Integer> fileIndexLookup;
+
+	private int[] edgeSourceFiles;
+	private int[] edgePackageNameIds;
+	private int[] edgeClassNameIds;
+	private int[] edgeTargetFiles;
+	private BitSet edgeResolvedBitSet;
+	private int edgeCount;
+
+	private int[] edgeOffsets;
+	private int[] reverseOffsets;
+	private int[] reverseSourceFiles;
+	private boolean indexed;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param symbolDictionary Dictionary the name ids belong to
+	 */
+	public DependencyGraph(final SymbolDictionary symbolDictionary) {
+		this.symbolDictionary = symbolDictionary;
+
+		pathFileList = new ArrayList<>();
+		fileIndexLookup = new HashMap<>();
+
+		edgeSourceFiles = new int[INITIAL_CAPACITY];
+		edgePackageNameIds = new int[INITIAL_CAPACITY];
+		edgeClassNameIds = new int[INITIAL_CAPACITY];
+		edgeTargetFiles = new int[INITIAL_CAPACITY];
+		edgeResolvedBitSet = new BitSet(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Add a file node
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return The file index
+	 */
+	public int addFile(final String pathFile) {
+		final Integer fileIndex = fileIndexLookup.get(pathFile);
+		if (fileIndex != null) {
+			return fileIndex;
+		}
+
+		pathFileList.add(pathFile);
+		fileIndexLookup.put(pathFile, pathFileList.size() - 1);
+		indexed = false;
+
+		return pathFileList.size() - 1;
+	}
+
+	/**
+	 * Add a reference edge
+	 *
+	 * @param sourcePathFile File holding the reference
+	 * @param packageNameId Package name id the type resolved to or SymbolDictionary.NO_ID
+	 * @param classNameId Class name id
+	 * @param resolved Resolved state
+	 * @param targetPathFile File the type resolved to or null
+	 */
+	public void addEdge(final String sourcePathFile,
+			            final int packageNameId,
+			            final int classNameId,
+			            final boolean resolved,
+			            final String targetPathFile) {
+		final int sourceFile = addFile(sourcePathFile);
+		final int targetFile = targetPathFile != null ? addFile(targetPathFile) : NO_FILE;
+
+		if (edgeCount == edgeSourceFiles.length) {
+			final int capacity = edgeCount * 2;
+			edgeSourceFiles = Arrays.copyOf(edgeSourceFiles, capacity);
+			edgePackageNameIds = Arrays.copyOf(edgePackageNameIds, capacity);
+			edgeClassNameIds = Arrays.copyOf(edgeClassNameIds, capacity);
+			edgeTargetFiles = Arrays.copyOf(edgeTargetFiles, capacity);
+		}
+
+		edgeSourceFiles[edgeCount] = sourceFile;
+		edgePackageNameIds[edgeCount] = packageNameId;
+		edgeClassNameIds[edgeCount] = classNameId;
+		edgeTargetFiles[edgeCount] = targetFile;
+		edgeResolvedBitSet.set(edgeCount, resolved);
+		edgeCount++;
+
+		indexed = false;
+	}
+
+	/**
+	 * Remove the edges of source files so they can be added again once
+	 * the files are re-resolved. The files keep their nodes, and edges
+	 * from other files to them are kept
+	 *
+	 * @param sourcePathFiles Files whose edges are removed
+	 */
+	public void removeEdges(final Collection<String> sourcePathFiles) {
+		final BitSet sourceFileBitSet = new BitSet(pathFileList.size());
+		for (final String sourcePathFile : sourcePathFiles) {
+			final Integer fileIndex = fileIndexLookup.get(sourcePathFile);
+			if (fileIndex != null) {
+				sourceFileBitSet.set(fileIndex);
+			}
+		}
+		if (sourceFileBitSet.isEmpty()) {
+			return;
+		}
+
+		int count = 0;
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (! sourceFileBitSet.get(edgeSourceFiles[edge])) {
+				edgeSourceFiles[count] = edgeSourceFiles[edge];
+				edgePackageNameIds[count] = edgePackageNameIds[edge];
+				edgeClassNameIds[count] = edgeClassNameIds[edge];
+				edgeTargetFiles[count] = edgeTargetFiles[edge];
+				edgeResolvedBitSet.set(count, edgeResolvedBitSet.get(edge));
+				count++;
+			}
+		}
+		edgeResolvedBitSet.clear(count, edgeCount);
+		edgeCount = count;
+
+		indexed = false;
+	}
+
+	/**
+	 * Copy the graph with files numbered in path and file order and edges
+	 * grouped by source file in that order, so the graph does not depend
+	 * on the order files were added in e.g. by concurrent processing
+	 *
+	 * @return The sorted copy
+	 */
+	public DependencyGraph sortedCopy() {
+		final List<String> sortedPathFileList = new ArrayList<>(pathFileList);
+		Collections.sort(sortedPathFileList);
+
+		final DependencyGraph dependencyGraph = new DependencyGraph(symbolDictionary);
+		for (final String pathFile : sortedPathFileList) {
+			dependencyGraph.addFile(pathFile);
+		}
+
+		index();
+
+		for (final String pathFile : sortedPathFileList) {
+			final int fileIndex = fileIndexLookup.get(pathFile);
+			for (int edge = edgeOffsets[fileIndex]; edge < edgeOffsets[fileIndex + 1]; edge++) {
+				final int targetFile = edgeTargetFiles[edge];
+				dependencyGraph.addEdge(pathFile, edgePackageNameIds[edge], edgeClassNameIds[edge], edgeResolvedBitSet.get(edge),
+						                targetFile != NO_FILE ? pathFileList.get(targetFile) : null);
+			}
+		}
+
+		return dependencyGraph;
+	}
+
+	/**
+	 * @return Dictionary the name ids belong to
+	 */
+	public SymbolDictionary getSymbolDictionary() {
+		return symbolDictionary;
+	}
+
+	/**
+	 * @return Number of files
+	 */
+	public int getFileCount() {
+		return pathFileList.size();
+	}
+
+	/**
+	 * @return Number of edges
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @param pathFile The path and file
+	 *
+	 * @return The file index or NO_FILE if not in the graph
+	 */
+	public int getFileIndex(final String pathFile) {
+		final Integer fileIndex = fileIndexLookup.get(pathFile);
+		return fileIndex != null ? fileIndex : NO_FILE;
+	}
+
+	/**
+	 * @param fileIndex The file index
+	 *
+	 * @return The path and file
+	 */
+	public String getPathFile(final int fileIndex) {
+		return pathFileList.get(fileIndex);
+	}
+
+	/**
+	 * @param fileIndex The file index
+	 *
+	 * @return First edge of the file
+	 */
+	public int getEdgeStart(final int fileIndex) {
+		index();
+		return edgeOffsets[fileIndex];
+	}
+
+	/**
+	 * @param fileIndex The file index
+	 *
+	 * @return Edge after the last edge of the file
+	 */
+	public int getEdgeEnd(final int fileIndex) {
+		index();
+		return edgeOffsets[fileIndex + 1];
+	}
+
+	/**
+	 * @param edge The edge, between getEdgeStart and getEdgeEnd of a file
+	 *
+	 * @return Package name id or SymbolDictionary.NO_ID
+	 */
+	public int getEdgePackageNameId(final int edge) {
+		index();
+		return edgePackageNameIds[edge];
+	}
+
+	/**
+	 * @param edge The edge
+	 *
+	 * @return Class name id
+	 */
+	public int getEdgeClassNameId(final int edge) {
+		index();
+		return edgeClassNameIds[edge];
+	}
+
+	/**
+	 * @param edge The edge
+	 *
+	 * @return Target file index or NO_FILE
+	 */
+	public int getEdgeTargetFile(final int edge) {
+		index();
+		return edgeTargetFiles[edge];
+	}
+
+	/**
+	 * @param edge The edge
+	 *
+	 * @return Resolved state
+	 */
+	public boolean isEdgeResolved(final int edge) {
+		index();
+		return edgeResolvedBitSet.get(edge);
+	}
+
+	/**
+	 * Return the files a file depends on
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return Distinct files its references resolved to, excluding itself
+	 */
+	public List<String> getDependencyPathFiles(final String pathFile) {
+		final int fileIndex = getFileIndex(pathFile);
+		if (fileIndex == NO_FILE) {
+			return Collections.emptyList();
+		}
+
+		index();
+
+		final BitSet targetFileBitSet = new BitSet(pathFileList.size());
+		for (int edge = edgeOffsets[fileIndex]; edge < edgeOffsets[fileIndex + 1]; edge++) {
+			if (edgeTargetFiles[edge] != NO_FILE && edgeTargetFiles[edge] != fileIndex) {
+				targetFileBitSet.set(edgeTargetFiles[edge]);
+			}
+		}
+
+		return toPathFileList(targetFileBitSet);
+	}
+
+	/**
+	 * Return the files that depend directly on a file
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return Distinct files with a reference resolved to it
+	 */
+	public List<String> getDependentPathFiles(final String pathFile) {
+		final int fileIndex = getFileIndex(pathFile);
+		if (fileIndex == NO_FILE) {
+			return Collections.emptyList();
+		}
+
+		index();
+
+		final List<String> dependentPathFileList = new ArrayList<>();
+		for (int i = reverseOffsets[fileIndex]; i < reverseOffsets[fileIndex + 1]; i++) {
+			dependentPathFileList.add(pathFileList.get(reverseSourceFiles[i]));
+		}
+		return dependentPathFileList;
+	}
+
+	/**
+	 * Return every file that depends on a file directly or through other
+	 * files, the files affected by a change to it
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return Distinct dependent files, excluding the file itself
+	 */
+	public List<String> getTransitiveDependentPathFiles(final String pathFile) {
+		final int fileIndex = getFileIndex(pathFile);
+		if (fileIndex == NO_FILE) {
+			return Collections.emptyList();
+		}
+
+		index();
+
+		final BitSet visitedBitSet = new BitSet(pathFileList.size());
+		final Deque<Integer> fileDeque = new ArrayDeque<>();
+		visitedBitSet.set(fileIndex);
+		fileDeque.add(fileIndex);
+
+		while (! fileDeque.isEmpty()) {
+			final int file = fileDeque.poll();
+			for (int i = reverseOffsets[file]; i < reverseOffsets[file + 1]; i++) {
+				if (! visitedBitSet.get(reverseSourceFiles[i])) {
+					visitedBitSet.set(reverseSourceFiles[i]);
+					fileDeque.add(reverseSourceFiles[i]);
+				}
+			}
+		}
+
+		visitedBitSet.clear(fileIndex);
+		return toPathFileList(visitedBitSet);
+	}
+
+	/**
+	 * Return the files with a resolved reference into a package
+	 *
+	 * @param packageName The package name
+	 *
+	 * @return Distinct referencing files
+	 */
+	public List<String> getReferencingPathFiles(final String packageName) {
+		final int packageNameId = symbolDictionary.getId(packageName);
+		if (packageNameId == SymbolDictionary.NO_ID) {
+			return Collections.emptyList();
+		}
+
+		final BitSet sourceFileBitSet = new BitSet(pathFileList.size());
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (edgePackageNameIds[edge] == packageNameId && edgeResolvedBitSet.get(edge)) {
+				sourceFileBitSet.set(edgeSourceFiles[edge]);
+			}
+		}
+
+		return toPathFileList(sourceFileBitSet);
+	}
+
+	private List<String> toPathFileList(final BitSet fileBitSet) {
+		final List<String> list = new ArrayList<>(fileBitSet.cardinality());
+		for (int file = fileBitSet.nextSetBit(0); file >= 0; file = fileBitSet.nextSetBit(file + 1)) {
+			list.add(pathFileList.get(file));
+		}
+		return list;
+	}
+
+	/**
+	 * Order the edges by source file, keeping the order within a file, and
+	 * build the reverse index with a counting sort by target file
+	 */
+	private void index() {
+		if (indexed) {
+			return;
+		}
+
+		final int fileCount = pathFileList.size();
+
+		edgeOffsets = new int[fileCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			edgeOffsets[edgeSourceFiles[edge] + 1]++;
+		}
+		for (int file = 0; file < fileCount; file++) {
+			edgeOffsets[file + 1] += edgeOffsets[file];
+		}
+
+		final int[] position = Arrays.copyOf(edgeOffsets, fileCount);
+		final int capacity = Math.max(INITIAL_CAPACITY, edgeSourceFiles.length);
+		final int[] sourceFiles = new int[capacity];
+		final int[] packageNameIds = new int[capacity];
+		final int[] classNameIds = new int[capacity];
+		final int[] targetFiles = new int[capacity];
+		final BitSet resolvedBitSet = new BitSet(capacity);
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			final int sortedEdge = position[edgeSourceFiles[edge]]++;
+			sourceFiles[sortedEdge] = edgeSourceFiles[edge];
+			packageNameIds[sortedEdge] = edgePackageNameIds[edge];
+			classNameIds[sortedEdge] = edgeClassNameIds[edge];
+			targetFiles[sortedEdge] = edgeTargetFiles[edge];
+			resolvedBitSet.set(sortedEdge, edgeResolvedBitSet.get(edge));
+		}
+
+		edgeSourceFiles = sourceFiles;
+		edgePackageNameIds = packageNameIds;
+		edgeClassNameIds = classNameIds;
+		edgeTargetFiles = targetFiles;
+		edgeResolvedBitSet = resolvedBitSet;
+
+		// Sources arrive in ascending order per target so duplicates are adjacent
+		final int[] reverseCounts = new int[fileCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (edgeTargetFiles[edge] != NO_FILE && edgeTargetFiles[edge] != edgeSourceFiles[edge]) {
+				reverseCounts[edgeTargetFiles[edge] + 1]++;
+			}
+		}
+		for (int file = 0; file < fileCount; file++) {
+			reverseCounts[file + 1] += reverseCounts[file];
+		}
+
+		final int[] reversePosition = Arrays.copyOf(reverseCounts, fileCount);
+		final int[] reverseSources = new int[reverseCounts[fileCount]];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			final int targetFile = edgeTargetFiles[edge];
+			if (targetFile != NO_FILE && targetFile != edgeSourceFiles[edge]) {
+				final int start = reverseCounts[targetFile];
+				final int end = reversePosition[targetFile];
+				if (end == start || reverseSources[end - 1] != edgeSourceFiles[edge]) {
+					reverseSources[reversePosition[targetFile]++] = edgeSourceFiles[edge];
+				}
+			}
+		}
+
+		// Compact out the duplicate slots
+		reverseOffsets = new int[fileCount + 1];
+		int count = 0;
+		for (int file = 0; file < fileCount; file++) {
+			reverseOffsets[file] = count;
+			for (int i = reverseCounts[file]; i < reversePosition[file]; i++) {
+				reverseSources[count++] = reverseSources[i];
+			}
+		}
+		reverseOffsets[fileCount] = count;
+		reverseSourceFiles = Arrays.copyOf(reverseSources, count);
+
+		indexed = true;
+	}
+}
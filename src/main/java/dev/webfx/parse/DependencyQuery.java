@@ -0,0 +1,221 @@
+package dev.webfx.parse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Answers whether files depend, directly or through other files, on a
+ * target package or on a reference matching a predicate. The files are
+ * processed breadth first from the start files and the run stops at the
+ * first reference found, so a positive answer costs only the files
+ * processed up to it. The answer is the chain of files that leads to the
+ * reference, a negative answer processes the whole closure. A negative
+ * is definite only if nothing was left out of the closure, see
+ * DependencyQueryResultData, and only a definite negative may be cached.
+ *
+ * A query runs on a new processor of the engine each time, answers are
+ * not kept as the files may change between queries.
+ *
+ * @author Alexander Belch
+ */
+public class DependencyQuery {
+
+	private final Log log;
+
+	private final ProcessorEngine processorEngine;
+
+	private PackageResolveCallback cliPackageResolveCallback;
+	private TraversalScope traversalScope;
+
+	private final Set<String> targetPackageNameSet;
+	private Predicate<PackageClassData> targetPredicate;
+
+	private int processedFileCount;
+
+	/**
+	 * Default constructor
+	 */
+	public DependencyQuery() {
+		this(new ProcessorEngine());
+	}
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param processorEngine The engine, may be shared
+	 */
+	public DependencyQuery(final ProcessorEngine processorEngine) {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		this.processorEngine = processorEngine;
+		targetPackageNameSet = new HashSet<>();
+	}
+
+	/**
+	 * Set the CLI resolver of the processors run
+	 *
+	 * @param cliPackageResolveCallback The resolver
+	 */
+	public void setCliPackageResolveCallback(final PackageResolveCallback cliPackageResolveCallback) {
+		this.cliPackageResolveCallback = cliPackageResolveCallback;
+	}
+
+	/**
+	 * Set the scope of files followed
+	 *
+	 * @param traversalScope The scope or null to follow every file
+	 */
+	public void setTraversalScope(final TraversalScope traversalScope) {
+		this.traversalScope = traversalScope;
+	}
+
+	/**
+	 * Add a package whose types are targets
+	 *
+	 * @param packageName The package name e.g. java.sql
+	 */
+	public void addTargetPackageName(final String packageName) {
+		targetPackageNameSet.add(packageName);
+	}
+
+	/**
+	 * Set a predicate on resolved references, a reference it accepts
+	 * is a target as are the types of the target packages
+	 *
+	 * @param targetPredicate The predicate or null for the target packages only
+	 */
+	public void setTargetPredicate(final Predicate<PackageClassData> targetPredicate) {
+		this.targetPredicate = targetPredicate;
+	}
+
+	/**
+	 * @return Number of files processed by the last query
+	 */
+	public int getProcessedFileCount() {
+		return processedFileCount;
+	}
+
+	/**
+	 * Process the start files breadth first until a target is found
+	 *
+	 * @param startPathFiles Java source or class path and files to start from
+	 *
+	 * @return The chain of files to the first target found, or a negative
+	 *         answer telling whether the whole closure was processed
+	 */
+	public DependencyQueryResultData query(final Collection<String> startPathFiles) {
+		final Processor processor = processorEngine.createProcessor();
+		processor.setCliPackageResolveCallback(cliPackageResolveCallback);
+		processor.setTraversalScope(traversalScope);
+		processor.setBreadthFirst(true);
+
+		final ProcessorCancelToken cancelToken = new ProcessorCancelToken();
+		processor.setCancelToken(cancelToken);
+
+		final DependencyQueryListener dependencyQueryListener = new DependencyQueryListener(startPathFiles, cancelToken);
+		processor.addProcessorListener(dependencyQueryListener);
+
+		startPathFiles.forEach(processor::addFile);
+		processor.process();
+
+		processedFileCount = dependencyQueryListener.processedFileCount;
+
+		final DependencyQueryResultData dependencyQueryResultData =
+			new DependencyQueryResultData(dependencyQueryListener.dependencyWitnessData,
+					                      processedFileCount,
+					                      ! processor.getFrontierPathFileList().isEmpty(),
+					                      processor.getSkippedProbeList().size(),
+					                      processor.getUnresolvedClassNameList().size(),
+					                      processor.getExcludedPathFileList());
+
+		log.verbose("DependencyQuery.query: startPathFiles=" + startPathFiles + ", " + dependencyQueryResultData);
+
+		return dependencyQueryResultData;
+	}
+
+	/**
+	 * Test if a resolved reference is a target
+	 *
+	 * @param packageClassData The reference
+	 *
+	 * @return True if in a target package or accepted by the predicate
+	 */
+	private boolean isTarget(final PackageClassData packageClassData) {
+		return targetPackageNameSet.contains(packageClassData.getPackageName()) ||
+			   (targetPredicate != null && targetPredicate.test(packageClassData));
+	}
+
+	/**
+	 * Checks each class definition as the processor publishes it, called
+	 * under the processor's resolve lock. Keeps the file each file was
+	 * first reached from, breadth first that is on a shortest chain
+	 */
+	private class DependencyQueryListener implements ProcessorListener {
+		private final Set<String> startPathFileSet;
+		private final ProcessorCancelToken cancelToken;
+		private final Map<String, String> parentPathFileLookup;
+
+		private int processedFileCount;
+		private DependencyWitnessData dependencyWitnessData;
+
+		private DependencyQueryListener(final Collection<String> startPathFiles,
+				                        final ProcessorCancelToken cancelToken) {
+			this.startPathFileSet = new HashSet<>(startPathFiles);
+			this.cancelToken = cancelToken;
+			parentPathFileLookup = new HashMap<>();
+		}
+
+		@Override
+		public void onClassDefinition(final ClassDefinitionData classDefinitionData) {
+			if (dependencyWitnessData != null) {
+				return;
+			}
+			processedFileCount++;
+
+			final String pathFile = classDefinitionData.getPathFile();
+			for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
+				if (! packageClassData.isResolved()) {
+					continue;
+				}
+
+				if (isTarget(packageClassData)) {
+					dependencyWitnessData = new DependencyWitnessData(getPathFileChain(pathFile),
+							                                          packageClassData.getPackageName(),
+							                                          packageClassData.getClassName());
+					cancelToken.cancel();
+					return;
+				}
+
+				final String dependencyPathFile = packageClassData.getPathFile();
+				if (dependencyPathFile != null && ! startPathFileSet.contains(dependencyPathFile)) {
+					parentPathFileLookup.putIfAbsent(dependencyPathFile, pathFile);
+				}
+			}
+		}
+
+		/**
+		 * Follow the parents of a file back to a start file
+		 *
+		 * @param pathFile The file holding the target reference
+		 *
+		 * @return Files from the start file to it
+		 */
+		private List<String> getPathFileChain(final String pathFile) {
+			final List<String> pathFileChain = new ArrayList<>();
+			for (String chainPathFile = pathFile; chainPathFile != null;
+				 chainPathFile = parentPathFileLookup.get(chainPathFile)) {
+				pathFileChain.add(chainPathFile);
+			}
+			Collections.reverse(pathFileChain);
+			return pathFileChain;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package dev.webfx.parse;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer of a dependency query. A query either found a target, with the
+ * chain of files to it, or did not. Not finding one is a definite negative
+ * only if the run saw the whole closure of the start files: it was not
+ * stopped with files left, no CLI resolver probe was skipped, every
+ * reference resolved and no file was left out by the traversal scope.
+ * Otherwise the negative is partial, a target may be behind a file or a
+ * reference the run did not follow.
+ *
+ * Only a definite negative may be cached as a negative answer, a partial
+ * one must be queried again.
+ *
+ * @author Alexander Belch
+ */
+public class DependencyQueryResultData {
+
+	private final DependencyWitnessData dependencyWitnessData;
+	private final int processedFileCount;
+	private final boolean stopped;
+	private final int skippedProbeCount;
+	private final int unresolvedCount;
+	private final List<String> excludedPathFileList;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param dependencyWitnessData Chain of files to the target found or null if none
+	 * @param processedFileCount Files processed by the query
+	 * @param stopped True if the run stopped with files left to process
+	 * @param skippedProbeCount CLI resolver probes skipped during the run
+	 * @param unresolvedCount Class names that failed to resolve
+	 * @param excludedPathFileList Files reached but not followed, outside the traversal scope
+	 */
+	public DependencyQueryResultData(final DependencyWitnessData dependencyWitnessData,
+			                         final int processedFileCount,
+			                         final boolean stopped,
+			                         final int skippedProbeCount,
+			                         final int unresolvedCount,
+			                         final List<String> excludedPathFileList) {
+		this.dependencyWitnessData = dependencyWitnessData;
+		this.processedFileCount = processedFileCount;
+		this.stopped = stopped;
+		this.skippedProbeCount = skippedProbeCount;
+		this.unresolvedCount = unresolvedCount;
+		this.excludedPathFileList = excludedPathFileList;
+	}
+
+	/**
+	 * @return True if a target was found
+	 */
+	public boolean isFound() {
+		return dependencyWitnessData != null;
+	}
+
+	/**
+	 * Return whether no target was found but the run did not see the whole
+	 * closure, stopped, with skipped probes, unresolved references or
+	 * files outside the traversal scope
+	 *
+	 * @return True if the negative is partial, false if found or definite
+	 */
+	public boolean isPartialResult() {
+		return dependencyWitnessData == null &&
+			   (stopped || skippedProbeCount > 0 || unresolvedCount > 0 || ! excludedPathFileList.isEmpty());
+	}
+
+	/**
+	 * Return whether the files do not depend on a target, the only
+	 * negative answer that may be cached
+	 *
+	 * @return True if not found over the whole closure
+	 */
+	public boolean isDefiniteNegative() {
+		return dependencyWitnessData == null && ! isPartialResult();
+	}
+
+	/**
+	 * @return the chain of files to the target found or null if none
+	 */
+	public DependencyWitnessData getDependencyWitnessData() {
+		return dependencyWitnessData;
+	}
+
+	/**
+	 * @return the number of files processed by the query
+	 */
+	public int getProcessedFileCount() {
+		return processedFileCount;
+	}
+
+	/**
+	 * @return True if the run stopped with files left to process
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @return the number of CLI resolver probes skipped
+	 */
+	public int getSkippedProbeCount() {
+		return skippedProbeCount;
+	}
+
+	/**
+	 * @return the number of class names that failed to resolve
+	 */
+	public int getUnresolvedCount() {
+		return unresolvedCount;
+	}
+
+	/**
+	 * @return the sorted files reached but not followed
+	 */
+	public List<String> getExcludedPathFileList() {
+		return Collections.unmodifiableList(excludedPathFileList);
+	}
+
+	@Override
+	public String toString() {
+		if (dependencyWitnessData != null) {
+			return "found " + dependencyWitnessData + ", processedFileCount=" + processedFileCount;
+		}
+		return (isPartialResult() ? "partial" : "definite") + " negative, processedFileCount=" + processedFileCount +
+			   ", stopped=" + stopped + ", skippedProbeCount=" + skippedProbeCount +
+			   ", unresolvedCount=" + unresolvedCount + ", excludedPathFileCount=" + excludedPathFileList.size();
+	}
+}
@@ -0,0 +1,58 @@
+package dev.webfx.parse;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer of a dependency query that found a target, the chain of files
+ * from a start file to the file holding the reference and the reference
+ * 
+ * @author Alexander Belch
+ */
+public class DependencyWitnessData {
+	
+	private final List<String> pathFileList;
+	private final String packageName;
+	private final String className;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param pathFileList Files from a start file to the file holding the reference
+	 * @param packageName Package name the reference resolved to
+	 * @param className Class name referenced
+	 */
+	public DependencyWitnessData(final List<String> pathFileList,
+			                     final String packageName,
+			                     final String className) {
+		this.pathFileList = pathFileList;
+		this.packageName = packageName;
+		this.className = className;
+	}
+	
+	/**
+	 * @return the files from a start file to the file holding the reference
+	 */
+	public List<String> getPathFileList() {
+		return Collections.unmodifiableList(pathFileList);
+	}
+	
+	/**
+	 * @return the packageName
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+	
+	/**
+	 * @return the className
+	 */
+	public String getClassName() {
+		return className;
+	}
+	
+	@Override
+	public String toString() {
+		return String.join(" -> ", pathFileList) + " -> " + packageName + "." + className;
+	}
+}
@@ -1,10 +1,14 @@
 package dev.webfx.parse;
 
 /**
+ * Import name is held as a symbol dictionary id
+ * 
  * @author Alexander Belch
  */
 public class ImportData {
-    private final String importName;
+    private final SymbolDictionary symbolDictionary;
+	
+    private final int importNameId;
     private final ImportType importType;
      
 	/**
@@ -12,9 +16,11 @@ public class ImportData {
 	 * 
 	 * @param importName
 	 * @param importType
+	 * @param symbolDictionary Dictionary of the run the name is interned in
 	 */
-	public ImportData(final String importName, final ImportType importType) {
-		this.importName = importName;
+	public ImportData(final String importName, final ImportType importType, final SymbolDictionary symbolDictionary) {
+		this.symbolDictionary = symbolDictionary;
+		this.importNameId = symbolDictionary.intern(importName);
 		this.importType = importType;
 	}
 
@@ -22,7 +28,14 @@ public class ImportData {
 	 * @return the importName
 	 */
 	public String getImportName() {
-		return importName;
+		return symbolDictionary.getName(importNameId);
+	}
+	
+	/**
+	 * @return the importName id
+	 */
+	public int getImportNameId() {
+		return importNameId;
 	}
 	
 	/**
@@ -3,8 +3,10 @@ package dev.webfx.parse;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import javax.lang.model.element.Modifier;
@@ -20,6 +22,7 @@ import com.sun.source.tree.BlockTree;
 import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.DirectiveTree;
+import com.sun.source.tree.ExportsTree;
 import com.sun.source.tree.ExpressionStatementTree;
 import com.sun.source.tree.ExpressionTree;
 import com.sun.source.tree.IdentifierTree;
@@ -32,13 +35,17 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.ModifiersTree;
 import com.sun.source.tree.ModuleTree;
 import com.sun.source.tree.NewClassTree;
+import com.sun.source.tree.OpensTree;
 import com.sun.source.tree.PackageTree;
 import com.sun.source.tree.ParameterizedTypeTree;
 import com.sun.source.tree.PrimitiveTypeTree;
+import com.sun.source.tree.ProvidesTree;
+import com.sun.source.tree.RequiresTree;
 import com.sun.source.tree.ReturnTree;
 import com.sun.source.tree.StatementTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.UsesTree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.JavacTask;
 
@@ -48,13 +55,21 @@ import com.sun.source.util.JavacTask;
 public class JavaParse {
 	private static final boolean LOG_ADD_CLASS = false;
 	
+	// Nodes visited between checks of the cancel token, a deadline check reads the clock
+	private static final int CANCEL_CHECK_NODE_MASK = 0xFF;
+	
 	private final Log log;
 	
 	private final JavaCompiler javaCompiler;
-	private final StandardJavaFileManager standardJavaFileManager;
+	private StandardJavaFileManager standardJavaFileManager;
 	
 	private Deque<Tree> treeStack;
+	private Deque<String> classNameStack;
 	private ClassDefinitionData classDefinitionData;
+	private int visitedNodeCount;
+	
+	private ProcessorCancelToken cancelToken;
+	private boolean parseCancelled;
 	
 	/**
 	 * Create compiler and file manager instance
@@ -66,16 +81,80 @@ public class JavaParse {
 	    log.setLogLevel(LogType.INFO);
 	}
 	
+	/**
+	 * Release the file objects cached by the file manager, it keeps
+	 * every file read. Closing alone leaves the path caches of the closed
+	 * manager reachable, so a new manager replaces it
+	 */
+	public void clearFileManagerCache() {
+		try {
+			standardJavaFileManager.close();
+			standardJavaFileManager = javaCompiler.getStandardFileManager(null, null, null);
+		}
+		catch (final IOException ioe) {
+			log.warn ("clearFileManagerCache: IOException " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * @return Number of syntax tree nodes visited by the last parse
+	 */
+	public int getVisitedNodeCount() {
+		return visitedNodeCount;
+	}
+	
+	/**
+	 * Set the token checked between syntax subtrees, a parse that finds
+	 * it stopped is abandoned and returns null
+	 * 
+	 * @param cancelToken The token or null for none
+	 */
+	public void setCancelToken(final ProcessorCancelToken cancelToken) {
+		this.cancelToken = cancelToken;
+	}
+	
+	/**
+	 * @return True if the last parse was abandoned on the cancel token
+	 */
+	public boolean isParseCancelled() {
+		return parseCancelled;
+	}
+	
+	/**
+	 * Parse java file and extract the detail that we need, names are
+	 * interned in a dictionary of their own
+	 * 
+	 * @param pathFile The start path and file to parse
+	 * 
+	 * @return The details extracted from the java files or null for invalid
+	 *         file or cancelled parse
+	 */
+	public ClassDefinitionData parse(final String pathFile) {
+		return parse(pathFile, new SymbolDictionary());
+	}
+	
 	/**
 	 * Parse java file and extract the detail that we need
 	 * 
 	 * @param pathFile The start path and file to parse
+	 * @param symbolDictionary Dictionary of the run the names are interned in
 	 * 
-	 * @return The details extracted from the java files or null for invalid file
+	 * @return The details extracted from the java files or null for invalid
+	 *         file or cancelled parse
 	 */
-	public ClassDefinitionData parse(final String pathFile) { // NOSONAR
+	public ClassDefinitionData parse(final String pathFile, final SymbolDictionary symbolDictionary) { // NOSONAR
+		parseCancelled = false;
+		if (cancelToken != null && cancelToken.isStopped()) {
+			parseCancelled = true;
+			return null;
+		}
+		
+		final int logIndent = log.getIndent();
 		log.indent();
 		
+		final JavaParseEvent javaParseEvent = new JavaParseEvent();
+		javaParseEvent.begin();
+		
 		final Iterable<? extends JavaFileObject> javaFileObjects = 
 			standardJavaFileManager.getJavaFileObjects(new File(pathFile));
 		final JavacTask javacTask = (JavacTask) 
@@ -94,12 +173,30 @@ public class JavaParse {
 		log.verbose ("parse: pathFile=" + pathFile);
 		
 		treeStack = new ArrayDeque<>();
-		classDefinitionData = new ClassDefinitionData(pathFile);
+		classNameStack = new ArrayDeque<>();
+		visitedNodeCount = 0;
+		classDefinitionData = new ClassDefinitionData(pathFile, symbolDictionary);
 		
-		for (final CompilationUnitTree compilationUnitTree : compilationUnitTrees) {
-		 	treeStack.push(compilationUnitTree);
-			processCompilationUnitTree(compilationUnitTree);
-		    treeStack.pop();
+		try {
+			for (final CompilationUnitTree compilationUnitTree : compilationUnitTrees) {
+			 	treeStackPush(compilationUnitTree);
+				processCompilationUnitTree(compilationUnitTree);
+			    treeStack.pop();
+			}
+		}
+		catch (final ParseCancelledException pce) {
+			log.verbose ("parse: cancelled pathFile=" + pathFile + ", visitedNodeCount=" + visitedNodeCount);
+			log.setIndent(logIndent);
+			parseCancelled = true;
+			classDefinitionData = null;
+			return null;
+		}
+		
+		if (javaParseEvent.shouldCommit()) {
+			javaParseEvent.pathFile = pathFile;
+			javaParseEvent.bytes = new File(pathFile).length();
+			javaParseEvent.nodeCount = visitedNodeCount;
+			javaParseEvent.commit();
 		}
 		
 		log.outdent();
@@ -118,14 +215,14 @@ public class JavaParse {
         
         final Tree annotationType = annotationTree.getAnnotationType();
         if (annotationType != null) {
-            treeStack.push(annotationType);      
+            treeStackPush(annotationType);      
             final String annotationClassName = annotationType.toString();
             classDefinitionData.addClassNameToPackageClassList(annotationClassName);
             treeStack.pop();
         }
         
         for (final ExpressionTree expressionTree : annotationTree.getArguments()) {
-        	treeStack.push(expressionTree);
+        	treeStackPush(expressionTree);
         	processExpressionTree(expressionTree);
         	treeStack.pop();
         }
@@ -157,14 +254,14 @@ public class JavaParse {
     	
     	final ExpressionTree variableExpressionTree = assignmentTree.getVariable();
     	if (variableExpressionTree != null) {
-    		treeStack.push(variableExpressionTree);
+    		treeStackPush(variableExpressionTree);
     		processExpressionTree(variableExpressionTree);
     		treeStack.pop();
     	}
     	
     	final ExpressionTree expressionTree = assignmentTree.getExpression();
     	if (expressionTree != null) {
-    	    treeStack.push(expressionTree);
+    	    treeStackPush(expressionTree);
             processExpressionTree(expressionTree);
             treeStack.pop();
     	}
@@ -182,7 +279,7 @@ public class JavaParse {
      	log.verbose ("processBlockTree: " + blockTree.getKind());
 
          for (final StatementTree statementTree : blockTree.getStatements()) {
-         	treeStack.push(statementTree);
+         	treeStackPush(statementTree);
              processStatementTree(statementTree);        	
              treeStack.pop();
          }
@@ -203,7 +300,7 @@ public class JavaParse {
     	
     	final ModifiersTree modifiersTree = classTree.getModifiers();
     	if (modifiersTree != null) {
-    	    treeStack.push(modifiersTree);
+    	    treeStackPush(modifiersTree);
     	    processModifiersTree(modifiersTree);
     	    treeStack.pop();
     	}
@@ -225,8 +322,15 @@ public class JavaParse {
 
     	log.verbose ("processClassTree: Add className=" + className);
     	
+    	classNameStack.addLast(className);
+    	if (nestedClass && ! classNameStack.contains("")) {
+    		final String nestedClassName = String.join(".", classNameStack);
+    		classDefinitionData.addClassNameToNestedClassNameHashSet(nestedClassName);
+    		log.verbose ("processClassTree: Add nestedClassName=" + nestedClassName);
+    	}
+    	
     	for (final TypeParameterTree typeParameterTree : classTree.getTypeParameters()) {
-    		treeStack.push(typeParameterTree);
+    		treeStackPush(typeParameterTree);
     		processTypeParameterTree(typeParameterTree);
     		treeStack.pop();
     	}
@@ -234,7 +338,7 @@ public class JavaParse {
     	final Tree extendsTree = classTree.getExtendsClause();
     	if (extendsTree != null) {
     	    if (extendsTree instanceof IdentifierTree identifierTree) {
-    		    treeStack.push(extendsTree);
+    		    treeStackPush(extendsTree);
     		    processIdentifierTree(identifierTree);    		
     	        treeStack.pop();
     	    }
@@ -244,7 +348,7 @@ public class JavaParse {
     	}
     	
     	for (final Tree tree : classTree.getImplementsClause()) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
     		if (tree instanceof IdentifierTree identifierTree) {
     	        processIdentifierTree(identifierTree);
     	    }
@@ -255,13 +359,13 @@ public class JavaParse {
     	}
 
     	for (final Tree tree : classTree.getPermitsClause()) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
             log.verbose("processClassTree: [Permits] Skip=" + tree.getKind() + ", " + tree);
     		treeStack.pop();
        	}
     	
     	for (final Tree tree : classTree.getMembers()) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
     		
     		if (tree instanceof ClassTree innerClassTree) {          	
             	processClassTree(innerClassTree);
@@ -279,6 +383,8 @@ public class JavaParse {
             treeStack.pop();
 		}
 
+    	classNameStack.removeLast();
+    	
     	log.outdent();
     }
 
@@ -293,39 +399,39 @@ public class JavaParse {
 		
 		final ModuleTree moduleTree = compilationUnitTree.getModule();
 		if (moduleTree != null) {
-			treeStack.push(moduleTree);
+			treeStackPush(moduleTree);
 			processModuleTree(moduleTree);
 			treeStack.pop();
 		}
 		
 		for (final AnnotationTree annotationTree : compilationUnitTree.getPackageAnnotations()) {
-		    treeStack.push(annotationTree);
+		    treeStackPush(annotationTree);
 			processAnnotationTree(annotationTree);
 			treeStack.pop();
 		}
 		
 		final ExpressionTree expressionTree = compilationUnitTree.getPackageName();
 		if (expressionTree != null) {
-			treeStack.push(expressionTree);
+			treeStackPush(expressionTree);
 			processExpressionTree(expressionTree);
 			treeStack.pop();
 		}
 		
 		final PackageTree packageTree = compilationUnitTree.getPackage();
 		if (packageTree != null) {
-			treeStack.push(packageTree);
+			treeStackPush(packageTree);
 			processPackageTree(packageTree);
 			treeStack.pop();
 		}
 
 		for (final ImportTree importTree : compilationUnitTree.getImports()) {
-			treeStack.push(importTree);
+			treeStackPush(importTree);
 			processImportTree(importTree);
 			treeStack.pop();
 		}
 		
 		for (final Tree treeDecls : compilationUnitTree.getTypeDecls()) {
-			treeStack.push(treeDecls);	
+			treeStackPush(treeDecls);	
 			if (treeDecls instanceof ClassTree classTree) {
 		        processClassTree(classTree);
 			}
@@ -346,9 +452,50 @@ public class JavaParse {
 	private void processDirectiveTree(final DirectiveTree directiveTree) {
 		log.indent();
 		log.verbose("processDirectiveTree: " + directiveTree.getKind() + ", " + directiveTree);
+		
+		final ModuleDescriptorData moduleDescriptorData = classDefinitionData.getModuleDescriptorData();
+		
+		if (directiveTree instanceof RequiresTree requiresTree) {
+			moduleDescriptorData.addRequires(requiresTree.getModuleName().toString(), 
+					                         requiresTree.isTransitive(), 
+					                         requiresTree.isStatic());
+		}
+		else if (directiveTree instanceof ExportsTree exportsTree) {
+			moduleDescriptorData.addExports(exportsTree.getPackageName().toString(), 
+					                        toNameList(exportsTree.getModuleNames()));
+		}
+		else if (directiveTree instanceof OpensTree opensTree) {
+			moduleDescriptorData.addOpens(opensTree.getPackageName().toString(), 
+					                      toNameList(opensTree.getModuleNames()));
+		}
+		else if (directiveTree instanceof UsesTree usesTree) {
+			moduleDescriptorData.addUses(usesTree.getServiceName().toString());
+		}
+		else if (directiveTree instanceof ProvidesTree providesTree) {
+			moduleDescriptorData.addProvides(providesTree.getServiceName().toString(), 
+					                         toNameList(providesTree.getImplementationNames()));
+		}
+		
 		log.outdent();
 	}
 	
+	/**
+	 * Names of a directive's module, package or type expressions
+	 * 
+	 * @param expressionTrees The name expressions, null for none
+	 * 
+	 * @return The names as written
+	 */
+	private static List<String> toNameList(final List<? extends ExpressionTree> expressionTrees) {
+		final List<String> nameList = new ArrayList<>();
+		if (expressionTrees != null) {
+			for (final ExpressionTree expressionTree : expressionTrees) {
+				nameList.add(expressionTree.toString());
+			}
+		}
+		return nameList;
+	}
+	
 	/**
      * Process expression statement tree
      * 
@@ -360,7 +507,7 @@ public class JavaParse {
         
         final ExpressionTree expressionTree = expressionStatementTree.getExpression();
         if (expressionTree != null) {
-            treeStack.push(expressionTree);
+            treeStackPush(expressionTree);
             processExpressionTree(expressionTree);
             treeStack.pop();
         }
@@ -437,10 +584,10 @@ public class JavaParse {
 		int index = importStr.indexOf(".*");
 		if (index >= 0) {
 			importStr = importStr.substring(0, index);
-			classDefinitionData.getImportList().add(new ImportData(importStr, ImportType.WILDCARD));
+			classDefinitionData.getImportList().add(new ImportData(importStr, ImportType.WILDCARD, classDefinitionData.getSymbolDictionary()));
 		}
 		else {
-			classDefinitionData.getImportList().add(new ImportData(importStr, ImportType.CLASS_NAME));
+			classDefinitionData.getImportList().add(new ImportData(importStr, ImportType.CLASS_NAME, classDefinitionData.getSymbolDictionary()));
 		}
 		
 		log.outdent();
@@ -456,14 +603,14 @@ public class JavaParse {
         log.verbose("processLambdaExpressionTree: " + lambdaExpressionTree.getKind() + " [" + lambdaExpressionTree + "]");
 	 
     	for (final VariableTree variableTree : lambdaExpressionTree.getParameters()) {
-    		treeStack.push(variableTree);
+    		treeStackPush(variableTree);
     		processVariableTree(variableTree);
     		treeStack.pop();
     	}
     	
     	final Tree tree = lambdaExpressionTree.getBody();
     	if (tree != null) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
     	    if (tree instanceof BlockTree blockTree) {
                 processBlockTree(blockTree);
             }
@@ -505,7 +652,7 @@ public class JavaParse {
         
         final ExpressionTree expressionTree = memberSelectTree.getExpression();
         if (expressionTree != null) {
-        	treeStack.push(expressionTree);
+        	treeStackPush(expressionTree);
         	processExpressionTree(expressionTree);
         	treeStack.pop();
         }
@@ -527,7 +674,7 @@ public class JavaParse {
         
         final ModifiersTree modifiersTree = methodTree.getModifiers();
         if (modifiersTree != null) {
-            treeStack.push(modifiersTree);
+            treeStackPush(modifiersTree);
             processModifiersTree(modifiersTree);
             treeStack.pop();
         }
@@ -535,7 +682,7 @@ public class JavaParse {
         // Get the return type class
         final Tree returnType = methodTree.getReturnType();
         if (returnType != null) {
-        	treeStack.push(returnType);
+        	treeStackPush(returnType);
         	
             if (returnType instanceof IdentifierTree identifierTree) {
                 processIdentifierTree(identifierTree);
@@ -554,28 +701,28 @@ public class JavaParse {
         }
         
         for (TypeParameterTree typeParameterTree : methodTree.getTypeParameters()) {
-        	treeStack.push(typeParameterTree);
+        	treeStackPush(typeParameterTree);
         	processTypeParameterTree(typeParameterTree);
             treeStack.pop();
         }
 
         // Get the parameters for the method
         for (final VariableTree variableTree : methodTree.getParameters()) {
-        	treeStack.push(variableTree);
+        	treeStackPush(variableTree);
         	processVariableTree(variableTree);
             treeStack.pop();
         }
 
         final VariableTree receiverVariableTree = methodTree.getReceiverParameter();
         if (receiverVariableTree != null) {
-        	treeStack.push(receiverVariableTree);
+        	treeStackPush(receiverVariableTree);
         	processVariableTree(receiverVariableTree);
             treeStack.pop();
         }
         
         // Get throws for the method
         for (final ExpressionTree expressionTree : methodTree.getThrows()) {
-        	treeStack.push(expressionTree);
+        	treeStackPush(expressionTree);
         	processExpressionTree(expressionTree);
             treeStack.pop();
         }
@@ -583,7 +730,7 @@ public class JavaParse {
         // Method body
         final BlockTree blockTree = methodTree.getBody();
         if (blockTree != null) {
-            treeStack.push(blockTree);
+            treeStackPush(blockTree);
             processBlockTree(blockTree);
             treeStack.pop();
         }
@@ -601,20 +748,20 @@ public class JavaParse {
     	log.verbose("processMethodInvocationTree: " + methodInvocationTree.getKind() + " [" + methodInvocationTree + "]");
         
     	for (final Tree tree : methodInvocationTree.getTypeArguments()) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
     		log.verbose("processMethodInvocationTree: [TypeArguments] Skip=" + tree.getKind() + ", " + tree);
     		treeStack.pop();
     	}
     	
         final ExpressionTree expressionTree = methodInvocationTree.getMethodSelect();
         if (expressionTree != null) {
-            treeStack.push(expressionTree);
+            treeStackPush(expressionTree);
             processExpressionTree(expressionTree);
             treeStack.pop();
         }
         
         for (final ExpressionTree argExpressionTree : methodInvocationTree.getArguments()) {
-            treeStack.push(argExpressionTree);
+            treeStackPush(argExpressionTree);
         	processExpressionTree(argExpressionTree);
         	treeStack.pop();
         }
@@ -632,7 +779,7 @@ public class JavaParse {
         log.verbose("processModifiersTree: " + modifiersTree.getKind());
         
     	for (final AnnotationTree annotationTree : modifiersTree.getAnnotations()) {
-		    treeStack.push(annotationTree);
+		    treeStackPush(annotationTree);
 		    processAnnotationTree(annotationTree);
 		    treeStack.pop();
 	    }
@@ -649,20 +796,23 @@ public class JavaParse {
 		log.verbose("processModuleTree: " + moduleTree.getKind() + ", " + moduleTree);
 		
 		for (final AnnotationTree annotationTree : moduleTree.getAnnotations()) {
-			treeStack.push(annotationTree);
+			treeStackPush(annotationTree);
 			processAnnotationTree(annotationTree);
 			treeStack.pop();
 		}
 		
 	    final ExpressionTree expressionTree = moduleTree.getName();
+	    classDefinitionData.setModuleDescriptorData(
+	    	new ModuleDescriptorData(String.valueOf(expressionTree), 
+	    			                 moduleTree.getModuleType() == ModuleTree.ModuleKind.OPEN));
 	    if (expressionTree != null) {
-	        treeStack.push(expressionTree);
+	        treeStackPush(expressionTree);
 	    	processExpressionTree(expressionTree);
 	    	treeStack.pop();
 	    }
 		
 	    for (final DirectiveTree directiveTree : moduleTree.getDirectives()) {
-	    	treeStack.push(directiveTree);
+	    	treeStackPush(directiveTree);
 	    	processDirectiveTree(directiveTree);
 	    	treeStack.pop();
 	    }
@@ -681,33 +831,33 @@ public class JavaParse {
 
     	final ExpressionTree enclosingExpressionTree = newClassTree.getEnclosingExpression();
     	if (enclosingExpressionTree != null) {
-    		treeStack.push(enclosingExpressionTree);
+    		treeStackPush(enclosingExpressionTree);
     		processExpressionTree(enclosingExpressionTree);
     		treeStack.pop();
     	}
     	
     	for (final Tree tree : newClassTree.getTypeArguments()) {
-    		treeStack.push(tree);
+    		treeStackPush(tree);
     		log.verbose ("processNewClassTree: [TypeArguments] Skip=" + tree.getKind() + ", " + tree);
     		treeStack.pop();
     	}
     	
         final ExpressionTree identifierExpressionTree = newClassTree.getIdentifier();
         if (identifierExpressionTree != null) {
-        	treeStack.push(identifierExpressionTree);
+        	treeStackPush(identifierExpressionTree);
             processExpressionTree(identifierExpressionTree);
             treeStack.pop();
         }
         
         for (final ExpressionTree expressionTree : newClassTree.getArguments()) {
-        	treeStack.push(expressionTree);
+        	treeStackPush(expressionTree);
         	processExpressionTree(expressionTree);
         	treeStack.pop();
         }
         
         final ClassTree classTree = newClassTree.getClassBody();
         if (classTree != null) {
-        	treeStack.push(classTree);
+        	treeStackPush(classTree);
         	processClassTree(classTree);
         	treeStack.pop();
         }
@@ -729,7 +879,7 @@ public class JavaParse {
     	classDefinitionData.setPackageName(packageName);
 
     	for (final AnnotationTree annotationTree : packageTree.getAnnotations()) {
-            treeStack.push(annotationTree);
+            treeStackPush(annotationTree);
         	processAnnotationTree(annotationTree);
         	treeStack.pop();
         }
@@ -747,13 +897,13 @@ public class JavaParse {
     	log.verbose("processParameterizedTypeTree: " + parameterizedTypeTree.getKind());
     	
         final Tree typeTree = parameterizedTypeTree.getType();
-        treeStack.push(typeTree);
+        treeStackPush(typeTree);
         final String className = typeTree.toString();
         addClassNameToPackageClassList(className, "processParameterizedTypeTree");
         treeStack.pop();
         
         for (final Tree tree : parameterizedTypeTree.getTypeArguments()) {
-        	treeStack.push(typeTree);
+        	treeStackPush(typeTree);
         	log.verbose("processParameterizedTypeTree: [TypeArguments] Skip=" + tree.getKind() + ", " + tree);
         	treeStack.pop();
         }
@@ -783,7 +933,7 @@ public class JavaParse {
 
          final ExpressionTree expressionTree = returnTree.getExpression();
          if (expressionTree != null) {
-             treeStack.push(expressionTree);
+             treeStackPush(expressionTree);
              processExpressionTree(expressionTree);
              treeStack.pop();
          }
@@ -830,13 +980,13 @@ public class JavaParse {
 		classDefinitionData.addTypeNameToGenericHashSet(typeName);
 
 		for (final Tree tree : typeParameterTree.getBounds()) { 
-			treeStack.push(tree);
+			treeStackPush(tree);
 			log.verbose("processTypeParameterTree: [Bounds] Skip=" + tree.getKind() + ", " + tree);
 			treeStack.pop();
 		}
 		
     	for (final AnnotationTree annotationTree : typeParameterTree.getAnnotations()) {
-            treeStack.push(annotationTree);
+            treeStackPush(annotationTree);
         	processAnnotationTree(annotationTree);
         	treeStack.pop();
         }
@@ -854,20 +1004,20 @@ public class JavaParse {
         log.verbose("processVariableTree: " + variableTree.getKind());
         
         final ModifiersTree modifiersTree = variableTree.getModifiers();
-        treeStack.push(modifiersTree);
+        treeStackPush(modifiersTree);
         processModifiersTree(modifiersTree);
         treeStack.pop();
         
         final ExpressionTree nameExpressionTree = variableTree.getNameExpression();
         if (nameExpressionTree != null) {
-        	treeStack.push(nameExpressionTree);
+        	treeStackPush(nameExpressionTree);
         	processExpressionTree(nameExpressionTree);
         	treeStack.pop();
         }
         
         final Tree tree = variableTree.getType();
         if (tree != null) {
-            treeStack.push(tree);
+            treeStackPush(tree);
         
             if (tree instanceof ArrayTypeTree arrayTypeTree) {
             	processArrayTypeTree(arrayTypeTree);
@@ -892,7 +1042,7 @@ public class JavaParse {
 
         final ExpressionTree initializerExpressionTree = variableTree.getInitializer();
         if (initializerExpressionTree != null) {
-        	treeStack.push(initializerExpressionTree);
+        	treeStackPush(initializerExpressionTree);
         	processExpressionTree(initializerExpressionTree);
         	treeStack.pop();
         }
@@ -1024,6 +1174,21 @@ public class JavaParse {
     	return true;
     }
 
+    /**
+     * Push a tree node being visited onto the tree stack
+     * 
+     * @param tree The tree node
+     */
+    private void treeStackPush(final Tree tree) {
+    	visitedNodeCount++;
+    	if (cancelToken != null && 
+    		(visitedNodeCount & CANCEL_CHECK_NODE_MASK) == 0 && 
+    		cancelToken.isStopped()) {
+    		throw new ParseCancelledException();
+    	}
+    	treeStack.push(tree);
+    }
+
     /**
      * Count number of occurrences of a next class
      * 
@@ -1065,4 +1230,15 @@ public class JavaParse {
     	
     	log.info(sb.toString());
     }
+    
+    /**
+     * Unwinds the syntax tree walk when the cancel token is stopped
+     */
+    private static class ParseCancelledException extends RuntimeException {
+    	private static final long serialVersionUID = 1L;
+    	
+    	private ParseCancelledException() {
+    		super(null, null, false, false);
+    	}
+    }
 }
@@ -0,0 +1,36 @@
+package dev.webfx.parse;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the parse of one Java source file,
+ * disabled unless enabled by a recording e.g. with processor.jfc
+ *
+ * @author Alexander Belch
+ */
+@Name("dev.webfx.parse.JavaParse")
+@Label("Java Parse")
+@Description("Parse of one Java source file")
+@Category({ "WebFX", "Parse" })
+@Enabled(false)
+@StackTrace(false)
+final class JavaParseEvent extends Event {
+
+	@Label("Path and File")
+	String pathFile;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Node Count")
+	@Description("Syntax tree nodes visited")
+	int nodeCount;
+}
@@ -0,0 +1,351 @@
+package dev.webfx.parse;
+
+import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Index of the exported packages and top level class names of the JDK
+ * modules (java.*, javafx.* and jdk.*). The index is generated ahead of
+ * time into a resource keyed by JDK feature version, so a cold start
+ * reads it with one read instead of walking jrt:/. When the runtime JDK
+ * version differs from the prebuilt one the modules are scanned live.
+ *
+ * The pom is managed by WebFX, so the index is not written by the build.
+ * It is generated with the JDK it indexes, as a separate step, and the
+ * resource is committed under src/main/resources for the build to copy
+ * next to the classes. Each supported JDK needs its own resource:
+ * java -cp target/classes dev.webfx.parse.JdkPackageIndex src/main/resources/dev/webfx/parse
+ *
+ * @author Alexander Belch
+ */
+public class JdkPackageIndex implements PackageResolveIndex {
+
+	private static final int MAGIC = 0x57464A49;
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String RESOURCE_NAME_PREFIX = "jdk-package-index-";
+	private static final String RESOURCE_NAME_SUFFIX = ".bin";
+
+	private static final String[] MODULE_NAME_PREFIXES = { "java.", "javafx.", "jdk." };
+
+	private final int featureVersion;
+	private final boolean prebuilt;
+
+	private final Set<String> moduleNameSet;
+	private final Map<String, String[]> packageClassNameLookup;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param featureVersion JDK feature version the index was built from
+	 * @param prebuilt True if read from the prebuilt resource
+	 * @param moduleNameSet Indexed module names
+	 * @param packageClassNameLookup Package name to sorted class names
+	 */
+	private JdkPackageIndex(final int featureVersion,
+			                final boolean prebuilt,
+			                final Set<String> moduleNameSet,
+			                final Map<String, String[]> packageClassNameLookup) {
+		this.featureVersion = featureVersion;
+		this.prebuilt = prebuilt;
+		this.moduleNameSet = moduleNameSet;
+		this.packageClassNameLookup = packageClassNameLookup;
+	}
+
+	/**
+	 * Return the index for the runtime JDK, loaded once
+	 *
+	 * @return The JDK package index
+	 */
+	public static JdkPackageIndex getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	/**
+	 * @return JDK feature version the index was built from
+	 */
+	public int getFeatureVersion() {
+		return featureVersion;
+	}
+
+	/**
+	 * @return True if read from the prebuilt resource, false if scanned live
+	 */
+	public boolean isPrebuilt() {
+		return prebuilt;
+	}
+
+	/**
+	 * Test if a module is indexed
+	 *
+	 * @param moduleName The module name
+	 *
+	 * @return True if indexed
+	 */
+	public boolean containsModuleName(final String moduleName) {
+		return moduleNameSet.contains(moduleName);
+	}
+
+	/**
+	 * Test if a package is an indexed JDK package
+	 *
+	 * @param packageName The package name
+	 *
+	 * @return True if indexed
+	 */
+	public boolean containsPackageName(final String packageName) {
+		return packageClassNameLookup.containsKey(packageName);
+	}
+
+	/**
+	 * Test if a class is in an indexed JDK package
+	 *
+	 * @param packageName The package name
+	 * @param className The top level class name
+	 *
+	 * @return True if indexed
+	 */
+	public boolean containsClassName(final String packageName,
+			                         final String className) {
+		final String[] classNames = packageClassNameLookup.get(packageName);
+		return classNames != null && Arrays.binarySearch(classNames, className) >= 0;
+	}
+
+	/**
+	 * Supply every indexed package and class name
+	 *
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	@Override
+	public void forEachPackageClassName(final BiConsumer<String, String> packageClassNameConsumer) {
+		for (final Map.Entry<String, String[]> entry : packageClassNameLookup.entrySet()) {
+			for (final String className : entry.getValue()) {
+				packageClassNameConsumer.accept(entry.getKey(), className);
+			}
+		}
+	}
+
+	/**
+	 * Scan the runtime JDK system modules
+	 *
+	 * @return The JDK package index
+	 */
+	public static JdkPackageIndex scan() {
+		final Set<String> moduleNameSet = new HashSet<>();
+		final Map<String, List<String>> packageClassNameListLookup = new HashMap<>();
+
+		for (final ModuleReference moduleReference : ModuleFinder.ofSystem().findAll()) {
+			final ModuleDescriptor moduleDescriptor = moduleReference.descriptor();
+			if (! isJdkModuleName(moduleDescriptor.name())) {
+				continue;
+			}
+			moduleNameSet.add(moduleDescriptor.name());
+
+			final Set<String> exportedPackageNameSet = new HashSet<>();
+			for (final ModuleDescriptor.Exports exports : moduleDescriptor.exports()) {
+				if (! exports.isQualified()) {
+					exportedPackageNameSet.add(exports.source());
+					packageClassNameListLookup.computeIfAbsent(exports.source(), key -> new ArrayList<>());
+				}
+			}
+
+			try (final ModuleReader moduleReader = moduleReference.open();
+				 final Stream<String> resourceNames = moduleReader.list()) {
+				resourceNames.forEach(resourceName ->
+					PackageResolveOnClassPath.acceptClassResourceName(resourceName, (packageName, className) -> {
+						if (exportedPackageNameSet.contains(packageName)) {
+							packageClassNameListLookup.get(packageName).add(className);
+						}
+					}));
+			}
+			catch (final IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+		}
+
+		final Map<String, String[]> packageClassNameLookup = new HashMap<>();
+		for (final Map.Entry<String, List<String>> entry : packageClassNameListLookup.entrySet()) {
+			final String[] classNames = entry.getValue().toArray(new String[0]);
+			Arrays.sort(classNames);
+			packageClassNameLookup.put(entry.getKey(), classNames);
+		}
+
+		return new JdkPackageIndex(Runtime.version().feature(), false, moduleNameSet, packageClassNameLookup);
+	}
+
+	/**
+	 * Read an index written by write
+	 *
+	 * @param bytes The index bytes
+	 *
+	 * @return The JDK package index
+	 *
+	 * @throws IOException Thrown on invalid index
+	 */
+	public static JdkPackageIndex read(final byte[] bytes) throws IOException {
+		try (final DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			if (dataInputStream.readInt() != MAGIC || dataInputStream.readInt() != FORMAT_VERSION) {
+				throw new IOException("Invalid JDK package index");
+			}
+
+			final int featureVersion = dataInputStream.readInt();
+
+			final Set<String> moduleNameSet = new HashSet<>();
+			final int moduleCount = dataInputStream.readInt();
+			for (int i = 0; i < moduleCount; i++) {
+				moduleNameSet.add(dataInputStream.readUTF());
+			}
+
+			final Map<String, String[]> packageClassNameLookup = new HashMap<>();
+			final int packageCount = dataInputStream.readInt();
+			for (int i = 0; i < packageCount; i++) {
+				final String packageName = dataInputStream.readUTF();
+				final String[] classNames = new String[dataInputStream.readInt()];
+				for (int j = 0; j < classNames.length; j++) {
+					classNames[j] = dataInputStream.readUTF();
+				}
+				packageClassNameLookup.put(packageName, classNames);
+			}
+
+			return new JdkPackageIndex(featureVersion, true, moduleNameSet, packageClassNameLookup);
+		}
+	}
+
+	/**
+	 * Write the index, packages and class names are in sorted order
+	 *
+	 * @param outputStream Stream to write to
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	public void write(final OutputStream outputStream) throws IOException {
+		final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+		dataOutputStream.writeInt(MAGIC);
+		dataOutputStream.writeInt(FORMAT_VERSION);
+		dataOutputStream.writeInt(featureVersion);
+
+		dataOutputStream.writeInt(moduleNameSet.size());
+		for (final String moduleName : moduleNameSet.stream().sorted().toList()) {
+			dataOutputStream.writeUTF(moduleName);
+		}
+
+		final Map<String, String[]> sortedLookup = new TreeMap<>(packageClassNameLookup);
+		dataOutputStream.writeInt(sortedLookup.size());
+		for (final Map.Entry<String, String[]> entry : sortedLookup.entrySet()) {
+			dataOutputStream.writeUTF(entry.getKey());
+			dataOutputStream.writeInt(entry.getValue().length);
+			for (final String className : entry.getValue()) {
+				dataOutputStream.writeUTF(className);
+			}
+		}
+
+		dataOutputStream.flush();
+	}
+
+	/**
+	 * @param featureVersion JDK feature version
+	 *
+	 * @return Resource name for the prebuilt index of a JDK version
+	 */
+	public static String getResourceName(final int featureVersion) {
+		return RESOURCE_NAME_PREFIX + featureVersion + RESOURCE_NAME_SUFFIX;
+	}
+
+	/**
+	 * Test for a JDK module name
+	 *
+	 * @param moduleName The module name
+	 *
+	 * @return True if java.*, javafx.* or jdk.*
+	 */
+	private static boolean isJdkModuleName(final String moduleName) {
+		for (final String moduleNamePrefix : MODULE_NAME_PREFIXES) {
+			if (moduleName.startsWith(moduleNamePrefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Load the prebuilt index for a JDK version or scan the runtime JDK
+	 *
+	 * @param classLoader Class loader of the prebuilt resources
+	 * @param runtimeFeatureVersion JDK feature version to load the index of
+	 *
+	 * @return The JDK package index
+	 */
+	static JdkPackageIndex load(final ClassLoader classLoader,
+			                    final int runtimeFeatureVersion) {
+		final Log log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		final String resourceName = JdkPackageIndex.class.getPackageName().replace('.', '/') + "/" +
+		                            getResourceName(runtimeFeatureVersion);
+
+		try (final InputStream inputStream = classLoader.getResourceAsStream(resourceName)) {
+			if (inputStream != null) {
+				final JdkPackageIndex jdkPackageIndex = read(inputStream.readAllBytes());
+				if (jdkPackageIndex.getFeatureVersion() == runtimeFeatureVersion) {
+					log.verbose("JdkPackageIndex.load: prebuilt featureVersion=" + runtimeFeatureVersion);
+					return jdkPackageIndex;
+				}
+			}
+		}
+		catch (final IOException ioe) {
+			log.warn("JdkPackageIndex.load: IOException " + ioe.getMessage());
+		}
+
+		log.verbose("JdkPackageIndex.load: scan featureVersion=" + runtimeFeatureVersion);
+		return scan();
+	}
+
+	/**
+	 * Generation entry point, writes the index for the running JDK
+	 *
+	 * @param args Output directory for the resource
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	public static void main(final String[] args) throws IOException {
+		final Path outputDirectory = Path.of(args[0]);
+		Files.createDirectories(outputDirectory);
+
+		final JdkPackageIndex jdkPackageIndex = scan();
+		final Path outputPathFile = outputDirectory.resolve(getResourceName(jdkPackageIndex.getFeatureVersion()));
+
+		try (final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(outputPathFile))) {
+			jdkPackageIndex.write(outputStream);
+		}
+	}
+
+	/**
+	 * Lazy holder, loaded on first use
+	 */
+	private static class InstanceHolder {
+		private static final JdkPackageIndex INSTANCE = load(JdkPackageIndex.class.getClassLoader(), Runtime.version().feature());
+	}
+}
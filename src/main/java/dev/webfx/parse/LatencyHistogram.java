@@ -0,0 +1,212 @@
+package dev.webfx.parse;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with a bucket per power of two nanoseconds, bucket n
+ * holds times from 2^(n-1) up to 2^n - 1. Recording is a few adder
+ * increments so it can be called on every file from any thread.
+ *
+ * @author Alexander Belch
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKET_COUNT = 64;
+
+	private final LongAdder[] bucketAdders;
+	private final LongAdder countAdder;
+	private final LongAdder totalNanosAdder;
+	private final LongAccumulator maxNanosAccumulator;
+
+	/**
+	 * Default constructor
+	 */
+	public LatencyHistogram() {
+		bucketAdders = new LongAdder[BUCKET_COUNT];
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			bucketAdders[bucket] = new LongAdder();
+		}
+		countAdder = new LongAdder();
+		totalNanosAdder = new LongAdder();
+		maxNanosAccumulator = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * Record a time
+	 *
+	 * @param nanos Time in nanoseconds, negative times count as 0
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(0, nanos);
+		bucketAdders[Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value))].increment();
+		countAdder.increment();
+		totalNanosAdder.add(value);
+		maxNanosAccumulator.accumulate(value);
+	}
+
+	/**
+	 * Clear all recorded times
+	 */
+	public void reset() {
+		for (final LongAdder bucketAdder : bucketAdders) {
+			bucketAdder.reset();
+		}
+		countAdder.reset();
+		totalNanosAdder.reset();
+		maxNanosAccumulator.reset();
+	}
+
+	/**
+	 * Take a copy of the recorded times, a copy taken while times are
+	 * recorded may be out by the times in flight
+	 *
+	 * @return The snapshot
+	 */
+	public Snapshot snapshot() {
+		final long[] bucketCounts = new long[BUCKET_COUNT];
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			bucketCounts[bucket] = bucketAdders[bucket].sum();
+		}
+		return new Snapshot(bucketCounts, countAdder.sum(), totalNanosAdder.sum(), maxNanosAccumulator.get());
+	}
+
+	/**
+	 * Immutable copy of a latency histogram
+	 */
+	public static class Snapshot {
+		private final long[] bucketCounts;
+		private final long count;
+		private final long totalNanos;
+		private final long maxNanos;
+
+		private Snapshot(final long[] bucketCounts,
+				         final long count,
+				         final long totalNanos,
+				         final long maxNanos) {
+			this.bucketCounts = bucketCounts;
+			this.count = count;
+			this.totalNanos = totalNanos;
+			this.maxNanos = maxNanos;
+		}
+
+		/**
+		 * @return Number of times recorded
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Sum of the times recorded in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return totalNanos;
+		}
+
+		/**
+		 * @return Longest time recorded in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return maxNanos;
+		}
+
+		/**
+		 * @return Mean time in nanoseconds, 0 if none recorded
+		 */
+		public double getMeanNanos() {
+			return count == 0 ? 0 : (double) totalNanos / count;
+		}
+
+		/**
+		 * @return Median time in nanoseconds, the upper bound of its bucket
+		 */
+		public long getMedianNanos() {
+			return getPercentileNanos(50);
+		}
+
+		/**
+		 * @return 99th percentile time in nanoseconds, the upper bound of its bucket
+		 */
+		public long getP99Nanos() {
+			return getPercentileNanos(99);
+		}
+
+		/**
+		 * @return Count of times per bucket, bucket n holds times below 2^n nanoseconds
+		 */
+		public long[] getBucketCounts() {
+			return bucketCounts.clone();
+		}
+
+		/**
+		 * Return a percentile, accurate to the power of two bucket it falls in
+		 *
+		 * @param percentile Percentile from 0 to 100
+		 *
+		 * @return Upper bound in nanoseconds of the bucket holding the
+		 *         percentile, at most the longest time, 0 if none recorded
+		 */
+		public long getPercentileNanos(final double percentile) {
+			final long rank = (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100);
+			long cumulativeCount = 0;
+			for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+				cumulativeCount += bucketCounts[bucket];
+				if (cumulativeCount >= rank && cumulativeCount > 0) {
+					return Math.min(maxNanos, getBucketUpperNanos(bucket));
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Return the times recorded since an earlier snapshot, the longest
+		 * time is bounded by the highest bucket recorded since
+		 *
+		 * @param snapshot The earlier snapshot of the same histogram
+		 *
+		 * @return The difference
+		 */
+		public Snapshot minus(final Snapshot snapshot) {
+			final long[] differenceBucketCounts = new long[BUCKET_COUNT];
+			int highestBucket = -1;
+			for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+				differenceBucketCounts[bucket] = bucketCounts[bucket] - snapshot.bucketCounts[bucket];
+				if (differenceBucketCounts[bucket] > 0) {
+					highestBucket = bucket;
+				}
+			}
+
+			final long differenceMaxNanos = highestBucket < 0 ? 0 : Math.min(maxNanos, getBucketUpperNanos(highestBucket));
+			return new Snapshot(differenceBucketCounts, count - snapshot.count, totalNanos - snapshot.totalNanos, differenceMaxNanos);
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", meanMicros=" + Math.round(getMeanNanos() / 1000) +
+			       ", medianMicros=" + getMedianNanos() / 1000 + ", p99Micros=" + getP99Nanos() / 1000 +
+			       ", maxMicros=" + maxNanos / 1000;
+		}
+
+		@Override
+		public boolean equals(final Object object) {
+			return object instanceof Snapshot snapshot && count == snapshot.count && totalNanos == snapshot.totalNanos &&
+			       maxNanos == snapshot.maxNanos && Arrays.equals(bucketCounts, snapshot.bucketCounts);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(bucketCounts);
+		}
+
+		/**
+		 * @param bucket The bucket
+		 *
+		 * @return Longest time held by the bucket
+		 */
+		private static long getBucketUpperNanos(final int bucket) {
+			return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+		}
+	}
+}
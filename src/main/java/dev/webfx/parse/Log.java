@@ -1,19 +1,49 @@
 package dev.webfx.parse;
 
 /**
+ * Indented log, the indent is kept per thread so objects shared between
+ * threads log their nesting independently. Lines go to the log appender
+ * set for all logs, standard output by default.
+ * 
  * @author Alexander Belch
  */
 public class Log {
 
-	private LogType requiredLogType;
+	private static volatile LogAppender logAppender = new ConsoleLogAppender();
+
+	private volatile LogType requiredLogType;
 	
-	private int indent;
+	// Single element holder to update without boxing
+	private final ThreadLocal<int[]> indentThreadLocal;
 	
 	/**
 	 * Public constructor
 	 */
 	public Log() {
 		requiredLogType = LogType.INFO;
+		indentThreadLocal = ThreadLocal.withInitial(() -> new int[1]);
+	}
+	
+	/**
+	 * Set the appender all logs write to, e.g. an AsyncLogAppender to keep
+	 * output off the logging threads. The previous appender is returned
+	 * and not closed.
+	 * 
+	 * @param newLogAppender The appender
+	 * 
+	 * @return The previous appender
+	 */
+	public static LogAppender setLogAppender(final LogAppender newLogAppender) {
+		final LogAppender previousLogAppender = logAppender;
+		logAppender = newLogAppender;
+		return previousLogAppender;
+	}
+	
+	/**
+	 * @return The appender all logs write to
+	 */
+	public static LogAppender getLogAppender() {
+		return logAppender;
 	}
 	
 	/**
@@ -29,14 +59,30 @@ public class Log {
 	 * Indent logging by 1 space
 	 */
 	public void indent() {
-		indent++;
+		indentThreadLocal.get()[0]++;
 	}
 	
 	/**
 	 * Outdent logging by 1 space
 	 */
 	public void outdent() {
-		indent--;
+		indentThreadLocal.get()[0]--;
+	}
+	
+	/**
+	 * @return Current indent of the calling thread
+	 */
+	public int getIndent() {
+		return indentThreadLocal.get()[0];
+	}
+	
+	/**
+	 * Restore an indent, e.g. after an exception skipped outdents
+	 * 
+	 * @param indent Indent to restore
+	 */
+	public void setIndent(final int indent) {
+		indentThreadLocal.get()[0] = indent;
 	}
 	
 	/**
@@ -101,11 +147,12 @@ public class Log {
 		    sb.append(logLevel.getText());
 		    sb.append("] ");
 		
+		    final int indent = indentThreadLocal.get()[0];
 		    for (int i = 0; i < indent; i++) {
 			    sb.append("  ");
 		    }
 		    sb.append(text);
-		    System.out.println (sb.toString()); // NOSONAR
+		    logAppender.append(logLevel, sb.toString());
 		}
 	}
 	
@@ -0,0 +1,34 @@
+package dev.webfx.parse;
+
+/**
+ * Destination of formatted log lines, set for all logs with
+ * Log.setLogAppender
+ * 
+ * @author Alexander Belch
+ */
+public interface LogAppender {
+	
+	/**
+	 * Append a formatted line, called from any thread
+	 * 
+	 * @param logType Level of the line
+	 * @param line The line without line separator
+	 */
+	public void append(final LogType logType,
+			           final String line);
+	
+	/**
+	 * Wait until the lines appended so far are written
+	 */
+	public default void flush() {
+		// Written on append
+	}
+	
+	/**
+	 * Write the lines appended so far and release the destination,
+	 * lines appended after are not written
+	 */
+	public default void close() {
+		flush();
+	}
+}
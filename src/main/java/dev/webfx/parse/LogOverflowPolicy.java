@@ -0,0 +1,23 @@
+package dev.webfx.parse;
+
+/**
+ * What an asynchronous log appender does with a line when its buffer is
+ * full, warnings and errors always block
+ * 
+ * @author Alexander Belch
+ */
+public enum LogOverflowPolicy {
+	/**
+	 * Wait for the writer thread to make room
+	 */
+	BLOCK,
+	/**
+	 * Drop the line
+	 */
+	DROP,
+	/**
+	 * Once the buffer is half full keep one line in the sample rate,
+	 * drop the line when full
+	 */
+	SAMPLE
+}
@@ -0,0 +1,77 @@
+package dev.webfx.parse;
+
+/**
+ * A reference from a source module to a package of a system module it
+ * does not read, the module is missing a requires directive
+ * 
+ * @author Alexander Belch
+ */
+public class MissingRequiresData {
+	
+	private final String moduleName;
+	private final String pathFile;
+	private final String packageName;
+	private final String className;
+	private final String requiredModuleName;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param moduleName The source module name
+	 * @param pathFile File holding the reference
+	 * @param packageName The package name referenced
+	 * @param className The class name referenced
+	 * @param requiredModuleName The module that would need to be required
+	 */
+	public MissingRequiresData(final String moduleName,
+			                   final String pathFile,
+			                   final String packageName,
+			                   final String className,
+			                   final String requiredModuleName) {
+		this.moduleName = moduleName;
+		this.pathFile = pathFile;
+		this.packageName = packageName;
+		this.className = className;
+		this.requiredModuleName = requiredModuleName;
+	}
+	
+	/**
+	 * @return the source module name
+	 */
+	public String getModuleName() {
+		return moduleName;
+	}
+	
+	/**
+	 * @return the file holding the reference
+	 */
+	public String getPathFile() {
+		return pathFile;
+	}
+	
+	/**
+	 * @return the packageName
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+	
+	/**
+	 * @return the className
+	 */
+	public String getClassName() {
+		return className;
+	}
+	
+	/**
+	 * @return the module that would need to be required
+	 */
+	public String getRequiredModuleName() {
+		return requiredModuleName;
+	}
+	
+	@Override
+	public String toString() {
+		return moduleName + " does not require " + requiredModuleName + " for " + packageName + "." + className;
+	}
+}
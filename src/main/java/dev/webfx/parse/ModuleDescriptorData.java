@@ -0,0 +1,242 @@
+package dev.webfx.parse;
+
+import java.lang.module.ModuleDescriptor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Directives of a parsed module-info.java, module names, package names
+ * and type names as written in the source
+ * 
+ * @author Alexander Belch
+ */
+public class ModuleDescriptorData {
+	
+	private final String moduleName;
+	private final boolean open;
+	
+	private final Set<String> requiredModuleNameSet;
+	private final Set<String> transitiveModuleNameSet;
+	private final Set<String> staticModuleNameSet;
+	
+	private final Map<String, List<String>> exportedPackageLookup;
+	private final Map<String, List<String>> openedPackageLookup;
+	
+	private final List<String> usedServiceNameList;
+	private final Map<String, List<String>> providedServiceLookup;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param moduleName The module name
+	 * @param open True for an open module
+	 */
+	public ModuleDescriptorData(final String moduleName,
+			                    final boolean open) {
+		this.moduleName = moduleName;
+		this.open = open;
+		
+		requiredModuleNameSet = new LinkedHashSet<>();
+		transitiveModuleNameSet = new LinkedHashSet<>();
+		staticModuleNameSet = new LinkedHashSet<>();
+		
+		exportedPackageLookup = new LinkedHashMap<>();
+		openedPackageLookup = new LinkedHashMap<>();
+		
+		usedServiceNameList = new ArrayList<>();
+		providedServiceLookup = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * @return the module name
+	 */
+	public String getModuleName() {
+		return moduleName;
+	}
+	
+	/**
+	 * @return True for an open module
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+	
+	/**
+	 * Add a requires directive
+	 * 
+	 * @param requiredModuleName The required module name
+	 * @param transitive True for requires transitive
+	 * @param staticRequires True for requires static
+	 */
+	public void addRequires(final String requiredModuleName,
+			                final boolean transitive,
+			                final boolean staticRequires) {
+		requiredModuleNameSet.add(requiredModuleName);
+		if (transitive) {
+			transitiveModuleNameSet.add(requiredModuleName);
+		}
+		if (staticRequires) {
+			staticModuleNameSet.add(requiredModuleName);
+		}
+	}
+	
+	/**
+	 * Add an exports directive
+	 * 
+	 * @param packageName The exported package name
+	 * @param targetModuleNameList Modules exported to, empty for all
+	 */
+	public void addExports(final String packageName,
+			               final List<String> targetModuleNameList) {
+		exportedPackageLookup.put(packageName, new ArrayList<>(targetModuleNameList));
+	}
+	
+	/**
+	 * Add an opens directive
+	 * 
+	 * @param packageName The opened package name
+	 * @param targetModuleNameList Modules opened to, empty for all
+	 */
+	public void addOpens(final String packageName,
+			             final List<String> targetModuleNameList) {
+		openedPackageLookup.put(packageName, new ArrayList<>(targetModuleNameList));
+	}
+	
+	/**
+	 * Add a uses directive
+	 * 
+	 * @param serviceName The service type name
+	 */
+	public void addUses(final String serviceName) {
+		usedServiceNameList.add(serviceName);
+	}
+	
+	/**
+	 * Add a provides directive
+	 * 
+	 * @param serviceName The service type name
+	 * @param implementationNameList The implementation type names
+	 */
+	public void addProvides(final String serviceName,
+			                final List<String> implementationNameList) {
+		providedServiceLookup.put(serviceName, new ArrayList<>(implementationNameList));
+	}
+	
+	/**
+	 * @return Required module names in declaration order
+	 */
+	public Set<String> getRequiredModuleNameSet() {
+		return Collections.unmodifiableSet(requiredModuleNameSet);
+	}
+	
+	/**
+	 * @param requiredModuleName The required module name
+	 * 
+	 * @return True if required transitive
+	 */
+	public boolean isTransitive(final String requiredModuleName) {
+		return transitiveModuleNameSet.contains(requiredModuleName);
+	}
+	
+	/**
+	 * @param requiredModuleName The required module name
+	 * 
+	 * @return True if required static
+	 */
+	public boolean isStatic(final String requiredModuleName) {
+		return staticModuleNameSet.contains(requiredModuleName);
+	}
+	
+	/**
+	 * @return Exported package names with the modules exported to, empty for all
+	 */
+	public Map<String, List<String>> getExportedPackageLookup() {
+		return Collections.unmodifiableMap(exportedPackageLookup);
+	}
+	
+	/**
+	 * @return Opened package names with the modules opened to, empty for all
+	 */
+	public Map<String, List<String>> getOpenedPackageLookup() {
+		return Collections.unmodifiableMap(openedPackageLookup);
+	}
+	
+	/**
+	 * @return Used service type names
+	 */
+	public List<String> getUsedServiceNameList() {
+		return Collections.unmodifiableList(usedServiceNameList);
+	}
+	
+	/**
+	 * @return Provided service type names with their implementation type names
+	 */
+	public Map<String, List<String>> getProvidedServiceLookup() {
+		return Collections.unmodifiableMap(providedServiceLookup);
+	}
+	
+	/**
+	 * Test if a package is exported to a module
+	 * 
+	 * @param packageName The package name
+	 * @param toModuleName The reading module name
+	 * 
+	 * @return True if exported to all or to the module
+	 */
+	public boolean isExported(final String packageName,
+			                  final String toModuleName) {
+		final List<String> targetModuleNameList = exportedPackageLookup.get(packageName);
+		return targetModuleNameList != null && 
+			   (targetModuleNameList.isEmpty() || targetModuleNameList.contains(toModuleName));
+	}
+	
+	/**
+	 * Build the descriptor the module system reads from the compiled
+	 * module, from the requires and exports directives
+	 * 
+	 * @return The module descriptor
+	 * 
+	 * @throws IllegalArgumentException For a name that is not a legal module or package name
+	 * @throws IllegalStateException For a repeated directive
+	 */
+	public ModuleDescriptor toModuleDescriptor() {
+		final ModuleDescriptor.Builder builder = ModuleDescriptor.newModule(moduleName, 
+			open ? EnumSet.of(ModuleDescriptor.Modifier.OPEN) : EnumSet.noneOf(ModuleDescriptor.Modifier.class));
+		
+		for (final String requiredModuleName : requiredModuleNameSet) {
+			final Set<ModuleDescriptor.Requires.Modifier> modifierSet = EnumSet.noneOf(ModuleDescriptor.Requires.Modifier.class);
+			if (transitiveModuleNameSet.contains(requiredModuleName)) {
+				modifierSet.add(ModuleDescriptor.Requires.Modifier.TRANSITIVE);
+			}
+			if (staticModuleNameSet.contains(requiredModuleName)) {
+				modifierSet.add(ModuleDescriptor.Requires.Modifier.STATIC);
+			}
+			builder.requires(modifierSet, requiredModuleName);
+		}
+		
+		for (final Map.Entry<String, List<String>> entry : exportedPackageLookup.entrySet()) {
+			if (entry.getValue().isEmpty()) {
+				builder.exports(entry.getKey());
+			}
+			else {
+				builder.exports(entry.getKey(), new HashSet<>(entry.getValue()));
+			}
+		}
+		
+		return builder.build();
+	}
+	
+	@Override
+	public String toString() {
+		return (open ? "open module " : "module ") + moduleName + 
+			   " requires=" + requiredModuleNameSet + 
+			   ", exports=" + exportedPackageLookup.keySet();
+	}
+}
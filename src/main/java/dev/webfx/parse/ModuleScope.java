@@ -0,0 +1,137 @@
+package dev.webfx.parse;
+
+import java.lang.module.ModuleDescriptor;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Packages a source module can read, from its module descriptor and the
+ * descriptors of the system modules and of the other modules found. The
+ * module reads java.base, the modules it requires and the modules those
+ * require transitively, and can use the packages they export to all or
+ * to it. A package of a system module it does not read is outside its
+ * scope, packages of no system module, its own or from the CLI and class
+ * path, are always in scope.
+ * 
+ * A module read whose descriptor is not found may require a system
+ * module transitively, the scope is then incomplete and not to be
+ * used to prune or report.
+ * 
+ * @author Alexander Belch
+ */
+public class ModuleScope {
+	
+	private static final String JAVA_BASE_MODULE_NAME = "java.base";
+	
+	private final ModuleDescriptorData moduleDescriptorData;
+	private final Map<String, String> systemPackageModuleLookup;
+	
+	private final Set<String> readModuleNameSet;
+	private final Set<String> readablePackageNameSet;
+	private final Set<String> unknownModuleNameSet;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param moduleDescriptorData Directives of the source module
+	 * @param processorEngine Engine holding the system module descriptors
+	 * @param moduleDescriptorLookup Descriptors of other modules by module name
+	 */
+	public ModuleScope(final ModuleDescriptorData moduleDescriptorData,
+			           final ProcessorEngine processorEngine,
+			           final Map<String, ModuleDescriptor> moduleDescriptorLookup) {
+		this.moduleDescriptorData = moduleDescriptorData;
+		systemPackageModuleLookup = processorEngine.getSystemPackageModuleLookup();
+		
+		final Map<String, ModuleDescriptor> systemModuleDescriptorLookup = processorEngine.getSystemModuleDescriptorLookup();
+		readModuleNameSet = new LinkedHashSet<>();
+		readablePackageNameSet = new HashSet<>();
+		unknownModuleNameSet = new LinkedHashSet<>();
+		
+		final Deque<String> moduleNameDeque = new ArrayDeque<>();
+		moduleNameDeque.add(JAVA_BASE_MODULE_NAME);
+		moduleNameDeque.addAll(moduleDescriptorData.getRequiredModuleNameSet());
+		
+		while (! moduleNameDeque.isEmpty()) {
+			final String moduleName = moduleNameDeque.pop();
+			if (! readModuleNameSet.add(moduleName)) {
+				continue;
+			}
+			
+			ModuleDescriptor moduleDescriptor = systemModuleDescriptorLookup.get(moduleName);
+			if (moduleDescriptor == null) {
+				moduleDescriptor = moduleDescriptorLookup.get(moduleName);
+			}
+			if (moduleDescriptor == null) {
+				unknownModuleNameSet.add(moduleName);
+				continue;
+			}
+			
+			for (final ModuleDescriptor.Requires requires : moduleDescriptor.requires()) {
+				if (requires.modifiers().contains(ModuleDescriptor.Requires.Modifier.TRANSITIVE)) {
+					moduleNameDeque.add(requires.name());
+				}
+			}
+			
+			for (final ModuleDescriptor.Exports exports : moduleDescriptor.exports()) {
+				if (! exports.isQualified() || exports.targets().contains(moduleDescriptorData.getModuleName())) {
+					readablePackageNameSet.add(exports.source());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return Directives of the source module
+	 */
+	public ModuleDescriptorData getModuleDescriptorData() {
+		return moduleDescriptorData;
+	}
+	
+	/**
+	 * @return Names of the modules read, java.base, required and implied
+	 */
+	public Set<String> getReadModuleNameSet() {
+		return Collections.unmodifiableSet(readModuleNameSet);
+	}
+	
+	/**
+	 * @return Names of the modules read whose descriptors were not found
+	 */
+	public Set<String> getUnknownModuleNameSet() {
+		return Collections.unmodifiableSet(unknownModuleNameSet);
+	}
+	
+	/**
+	 * @return True if the descriptor of every module read was found
+	 */
+	public boolean isComplete() {
+		return unknownModuleNameSet.isEmpty();
+	}
+	
+	/**
+	 * @param packageName The package name
+	 * 
+	 * @return Name of the system module holding the package or null if none
+	 */
+	public String getSystemModuleName(final String packageName) {
+		return systemPackageModuleLookup.get(packageName);
+	}
+	
+	/**
+	 * Test if a package is in scope
+	 * 
+	 * @param packageName The package name
+	 * 
+	 * @return True if of no system module or exported by a module read
+	 */
+	public boolean isReadable(final String packageName) {
+		return ! systemPackageModuleLookup.containsKey(packageName) || 
+			   readablePackageNameSet.contains(packageName);
+	}
+}
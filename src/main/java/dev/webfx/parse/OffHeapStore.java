@@ -0,0 +1,766 @@
+package dev.webfx.parse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Store of interned names, per file summaries and reference edges held
+ * outside the Java heap, in memory mapped files so it persists across
+ * restarts, or in direct buffers for a daemon that does not persist.
+ * Readers get ids and counts from the buffers and only decode the names
+ * they need, no object graph is built.
+ *
+ * Each region is a file in the store directory with a 16 byte header
+ * of magic, format version, used count and a region specific value.
+ * Names are UTF-8 with an id index and an open addressing hash index.
+ * Files are fixed length records. Types, edges (package, class, resolved,
+ * resolved path and file), dependencies and stamped files (path and file,
+ * modified time, size) of a file are runs of ints in the data region.
+ * Re-storing a file appends a new record and the old one becomes unreachable.
+ *
+ * A summary is only current while its file, the files its references
+ * resolved to and the resolver fingerprint it was resolved under are
+ * unchanged, see isSummaryCurrent.
+ *
+ * A region holds at most 2GB, the store is not safe against a crash
+ * part way through a write.
+ *
+ * @author Alexander Belch
+ */
+public class OffHeapStore implements AutoCloseable {
+
+	private static final int MAGIC = 0x57465853;
+	private static final int FORMAT_VERSION = 3;
+
+	private static final int HEADER_LENGTH = 16;
+	private static final int HEADER_USED = 8;
+	private static final int HEADER_VALUE = 12;
+
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+	private static final int INITIAL_HASH_SLOT_COUNT = 4096;
+
+	private static final int FILE_RECORD_LENGTH = 64;
+	private static final int FILE_PATH_ID = 0;
+	private static final int FILE_PACKAGE_ID = 4;
+	private static final int FILE_LAST_MODIFIED = 8;
+	private static final int FILE_SIZE = 16;
+	private static final int FILE_TYPE_START = 24;
+	private static final int FILE_TYPE_COUNT = 28;
+	private static final int FILE_EDGE_START = 32;
+	private static final int FILE_EDGE_COUNT = 36;
+	private static final int FILE_DEPENDENCY_START = 40;
+	private static final int FILE_DEPENDENCY_COUNT = 44;
+	private static final int FILE_STAMP_START = 48;
+	private static final int FILE_STAMP_COUNT = 52;
+	private static final int FILE_RESOLVER_FINGERPRINT = 56;
+
+	private static final int EDGE_LENGTH = 4;
+	private static final int STAMP_LENGTH = 5;
+
+	private final Region names;
+	private final Region nameOffsets;
+	private final Region nameHash;
+	private final Region fileRecords;
+	private final Region fileByPathId;
+	private final Region fileByTypeId;
+	private final Region data;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param directory Store directory or null for direct buffers
+	 *
+	 * @throws IOException Thrown on error or invalid store
+	 */
+	private OffHeapStore(final Path directory) throws IOException {
+		names = new Region(directory, "names.dat");
+		nameOffsets = new Region(directory, "name-offsets.dat");
+		nameHash = new Region(directory, "name-hash.dat");
+		fileRecords = new Region(directory, "files.dat");
+		fileByPathId = new Region(directory, "file-by-path.dat");
+		fileByTypeId = new Region(directory, "file-by-type.dat");
+		data = new Region(directory, "data.dat");
+
+		if (nameHash.getValue() == 0) {
+			nameHash.ensureCapacity(INITIAL_HASH_SLOT_COUNT * 4L);
+			nameHash.setValue(INITIAL_HASH_SLOT_COUNT);
+		}
+	}
+
+	/**
+	 * Open or create a store persisted in a directory
+	 *
+	 * @param directory The store directory
+	 *
+	 * @return The store
+	 *
+	 * @throws IOException Thrown on error or invalid store
+	 */
+	public static OffHeapStore open(final Path directory) throws IOException {
+		Files.createDirectories(directory);
+		return new OffHeapStore(directory);
+	}
+
+	/**
+	 * Create a store in direct buffers, it is not persisted
+	 *
+	 * @return The store
+	 */
+	public static OffHeapStore createInMemory() {
+		try {
+			return new OffHeapStore(null);
+		}
+		catch (final IOException ioe) {
+			throw new IllegalStateException(ioe);
+		}
+	}
+
+	/**
+	 * Return the id for a name, adding it if new
+	 *
+	 * @param name The name, may be null
+	 *
+	 * @return The id or SymbolDictionary.NO_ID for null
+	 */
+	public synchronized int intern(final String name) {
+		if (name == null) {
+			return SymbolDictionary.NO_ID;
+		}
+
+		final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		final int slot = findSlot(nameBytes);
+		final int slotValue = nameHash.getInt(slot);
+		if (slotValue != 0) {
+			return slotValue - 1;
+		}
+
+		final int id = nameOffsets.getUsed();
+		final int offset = names.getUsed();
+		names.ensureCapacity(offset + 4L + nameBytes.length);
+		names.putInt(offset, nameBytes.length);
+		names.putBytes(offset + 4, nameBytes);
+		names.setUsed(offset + 4 + nameBytes.length);
+		nameOffsets.addInt(offset);
+
+		nameHash.putInt(slot, id + 1);
+		nameHash.setUsed(nameHash.getUsed() + 1);
+		if (nameHash.getUsed() * 2 > nameHash.getValue()) {
+			rehash(nameHash.getValue() * 2);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Return the id for a name without adding it
+	 *
+	 * @param name The name
+	 *
+	 * @return The id or SymbolDictionary.NO_ID if not in the store
+	 */
+	public synchronized int getNameId(final String name) {
+		if (name == null) {
+			return SymbolDictionary.NO_ID;
+		}
+
+		final int slotValue = nameHash.getInt(findSlot(name.getBytes(StandardCharsets.UTF_8)));
+		return slotValue - 1;
+	}
+
+	/**
+	 * Decode a name
+	 *
+	 * @param id The name id
+	 *
+	 * @return The name or null for SymbolDictionary.NO_ID
+	 */
+	public synchronized String getName(final int id) {
+		if (id == SymbolDictionary.NO_ID) {
+			return null;
+		}
+
+		final int offset = nameOffsets.getIntAt(id);
+		return new String(names.getBytes(offset + 4, names.getInt(offset)), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return Number of names
+	 */
+	public synchronized int getNameCount() {
+		return nameOffsets.getUsed();
+	}
+
+	/**
+	 * Store the summary of a resolved file: its package, declared types,
+	 * references and the files its references resolved to. The stamps of
+	 * those files and of any further files the resolution depended on are
+	 * stored with it
+	 *
+	 * @param classDefinitionData The resolved class definition
+	 * @param dependencyPathFileList Path and files the references resolved to
+	 * @param stampPathFileList Further path and files the resolution depended on e.g. module-info.java
+	 * @param resolverFingerprint Fingerprint of the resolvers the file was resolved with
+	 *
+	 * @return The file record
+	 */
+	public synchronized int putFileSummary(final ClassDefinitionData classDefinitionData,
+			                               final List<String> dependencyPathFileList,
+			                               final List<String> stampPathFileList,
+			                               final long resolverFingerprint) {
+		final SymbolDictionary symbolDictionary = classDefinitionData.getSymbolDictionary();
+
+		final String pathFile = classDefinitionData.getPathFile();
+		final String packageName = classDefinitionData.getPackageName();
+		final long[] fileStamp = readFileStamp(pathFile);
+
+		final List<String> typeNameList = new ArrayList<>();
+		if (classDefinitionData.getPrimaryClassName() != null) {
+			typeNameList.add(classDefinitionData.getPrimaryClassName());
+		}
+		typeNameList.addAll(classDefinitionData.getSecondaryClassNameHashSet());
+		typeNameList.addAll(classDefinitionData.getNestedClassNameHashSet());
+
+		final int typeStart = data.getUsed();
+		for (final String typeName : typeNameList) {
+			data.addInt(intern(typeName));
+		}
+
+		final PackageClassStore packageClassStore = classDefinitionData.getPackageClassStore();
+		final int packageClassEnd = classDefinitionData.getPackageClassStart() + classDefinitionData.getPackageClassCount();
+
+		final int edgeStart = data.getUsed();
+		for (int record = classDefinitionData.getPackageClassStart(); record < packageClassEnd; record++) {
+			data.addInt(intern(symbolDictionary.getName(packageClassStore.getPackageNameId(record))));
+			data.addInt(intern(symbolDictionary.getName(packageClassStore.getClassNameId(record))));
+			data.addInt(packageClassStore.isResolved(record) ? 1 : 0);
+			data.addInt(intern(symbolDictionary.getName(packageClassStore.getPathFileId(record))));
+		}
+
+		final int dependencyStart = data.getUsed();
+		for (final String dependencyPathFile : dependencyPathFileList) {
+			data.addInt(intern(dependencyPathFile));
+		}
+
+		final int stampStart = data.getUsed();
+		final List<String> stampedPathFileList = new ArrayList<>(dependencyPathFileList);
+		stampedPathFileList.addAll(stampPathFileList);
+		for (final String stampedPathFile : stampedPathFileList) {
+			final long[] stampedFileStamp = readFileStamp(stampedPathFile);
+			data.addInt(intern(stampedPathFile));
+			addDataLong(stampedFileStamp[0]);
+			addDataLong(stampedFileStamp[1]);
+		}
+
+		final int fileRecord = fileRecords.getUsed() / FILE_RECORD_LENGTH;
+		final int offset = fileRecords.getUsed();
+		fileRecords.ensureCapacity(offset + (long) FILE_RECORD_LENGTH);
+		fileRecords.putInt(offset + FILE_PATH_ID, intern(pathFile));
+		fileRecords.putInt(offset + FILE_PACKAGE_ID, intern(packageName));
+		fileRecords.putLong(offset + FILE_LAST_MODIFIED, fileStamp[0]);
+		fileRecords.putLong(offset + FILE_SIZE, fileStamp[1]);
+		fileRecords.putInt(offset + FILE_TYPE_START, typeStart);
+		fileRecords.putInt(offset + FILE_TYPE_COUNT, typeNameList.size());
+		fileRecords.putInt(offset + FILE_EDGE_START, edgeStart);
+		fileRecords.putInt(offset + FILE_EDGE_COUNT, classDefinitionData.getPackageClassCount());
+		fileRecords.putInt(offset + FILE_DEPENDENCY_START, dependencyStart);
+		fileRecords.putInt(offset + FILE_DEPENDENCY_COUNT, dependencyPathFileList.size());
+		fileRecords.putInt(offset + FILE_STAMP_START, stampStart);
+		fileRecords.putInt(offset + FILE_STAMP_COUNT, stampedPathFileList.size());
+		fileRecords.putLong(offset + FILE_RESOLVER_FINGERPRINT, resolverFingerprint);
+		fileRecords.setUsed(offset + FILE_RECORD_LENGTH);
+
+		fileByPathId.putIntAt(intern(pathFile), fileRecord + 1);
+		for (final String typeName : typeNameList) {
+			fileByTypeId.putIntAt(intern(SymbolTable.toQualifiedName(packageName, typeName)), fileRecord + 1);
+		}
+
+		return fileRecord;
+	}
+
+	/**
+	 * Find the latest record of a file
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return The file record or -1 if not stored
+	 */
+	public synchronized int getFileRecord(final String pathFile) {
+		return getRecordByNameId(fileByPathId, getNameId(pathFile));
+	}
+
+	/**
+	 * Find the record of the file declaring a type
+	 *
+	 * @param qualifiedName Fully qualified type name e.g. com.abc.Outer.Inner
+	 *
+	 * @return The file record or -1 if not stored
+	 */
+	public synchronized int getTypeFileRecord(final String qualifiedName) {
+		return getRecordByNameId(fileByTypeId, getNameId(qualifiedName));
+	}
+
+	/**
+	 * Test a stored file is unchanged on disk
+	 *
+	 * @param fileRecord The file record
+	 *
+	 * @return True if modified time and size match the stored summary
+	 */
+	public boolean isFileCurrent(final int fileRecord) {
+		final long[] fileStamp = readFileStamp(getPathFile(fileRecord));
+		synchronized (this) {
+			final int offset = fileRecord * FILE_RECORD_LENGTH;
+			return fileStamp[0] != 0 &&
+				   fileRecords.getLong(offset + FILE_LAST_MODIFIED) == fileStamp[0] &&
+				   fileRecords.getLong(offset + FILE_SIZE) == fileStamp[1];
+		}
+	}
+
+	/**
+	 * Test a stored summary can be used in place of parsing and resolving
+	 * its file: the file and every stamped file are unchanged on disk and
+	 * the references would be resolved by the same resolvers
+	 *
+	 * @param fileRecord The file record
+	 * @param resolverFingerprint Fingerprint of the current resolvers
+	 *
+	 * @return True if the summary is current
+	 */
+	public boolean isSummaryCurrent(final int fileRecord,
+			                        final long resolverFingerprint) {
+		if (! isFileCurrent(fileRecord)) {
+			return false;
+		}
+
+		final List<String> stampedPathFileList = new ArrayList<>();
+		final List<long[]> storedFileStampList = new ArrayList<>();
+		synchronized (this) {
+			if (fileRecords.getLong(fileRecord * FILE_RECORD_LENGTH + FILE_RESOLVER_FINGERPRINT) != resolverFingerprint) {
+				return false;
+			}
+
+			final int stampStart = getFileInt(fileRecord, FILE_STAMP_START);
+			final int stampCount = getFileInt(fileRecord, FILE_STAMP_COUNT);
+			for (int i = 0; i < stampCount; i++) {
+				final int index = stampStart + i * STAMP_LENGTH;
+				stampedPathFileList.add(getName(data.getIntAt(index)));
+				storedFileStampList.add(new long[] { getDataLong(index + 1), getDataLong(index + 3) });
+			}
+		}
+
+		// File system reads outside the lock, as for isFileCurrent
+		for (int i = 0; i < stampedPathFileList.size(); i++) {
+			final long[] fileStamp = readFileStamp(stampedPathFileList.get(i));
+			if (fileStamp[0] != storedFileStampList.get(i)[0] || fileStamp[1] != storedFileStampList.get(i)[1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 *
+	 * @return The path and file
+	 */
+	public synchronized String getPathFile(final int fileRecord) {
+		return getName(getFileInt(fileRecord, FILE_PATH_ID));
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 *
+	 * @return Package name id or SymbolDictionary.NO_ID for the default package
+	 */
+	public synchronized int getPackageNameId(final int fileRecord) {
+		return getFileInt(fileRecord, FILE_PACKAGE_ID);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 *
+	 * @return Number of types declared in the file
+	 */
+	public synchronized int getTypeCount(final int fileRecord) {
+		return getFileInt(fileRecord, FILE_TYPE_COUNT);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Type index
+	 *
+	 * @return Name id of the type relative to the package e.g. Outer.Inner
+	 */
+	public synchronized int getTypeNameId(final int fileRecord,
+			                              final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_TYPE_START) + index);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 *
+	 * @return Number of references in the file
+	 */
+	public synchronized int getEdgeCount(final int fileRecord) {
+		return getFileInt(fileRecord, FILE_EDGE_COUNT);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Reference index
+	 *
+	 * @return Package name id of the reference or SymbolDictionary.NO_ID
+	 */
+	public synchronized int getEdgePackageNameId(final int fileRecord,
+			                                     final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_EDGE_START) + index * EDGE_LENGTH);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Reference index
+	 *
+	 * @return Class name id of the reference
+	 */
+	public synchronized int getEdgeClassNameId(final int fileRecord,
+			                                   final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_EDGE_START) + index * EDGE_LENGTH + 1);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Reference index
+	 *
+	 * @return True if the reference was resolved
+	 */
+	public synchronized boolean isEdgeResolved(final int fileRecord,
+			                                   final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_EDGE_START) + index * EDGE_LENGTH + 2) != 0;
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Reference index
+	 *
+	 * @return Name id of the path and file the reference resolved to or
+	 *         SymbolDictionary.NO_ID if resolved without a file
+	 */
+	public synchronized int getEdgePathFileId(final int fileRecord,
+			                                  final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_EDGE_START) + index * EDGE_LENGTH + 3);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 *
+	 * @return Number of files the references resolved to
+	 */
+	public synchronized int getDependencyCount(final int fileRecord) {
+		return getFileInt(fileRecord, FILE_DEPENDENCY_COUNT);
+	}
+
+	/**
+	 * @param fileRecord The file record
+	 * @param index Dependency index
+	 *
+	 * @return Name id of the dependency path and file
+	 */
+	public synchronized int getDependencyPathFileId(final int fileRecord,
+			                                        final int index) {
+		return data.getIntAt(getFileInt(fileRecord, FILE_DEPENDENCY_START) + index);
+	}
+
+	/**
+	 * @return Number of file records, including replaced records
+	 */
+	public synchronized int getFileRecordCount() {
+		return fileRecords.getUsed() / FILE_RECORD_LENGTH;
+	}
+
+	/**
+	 * Flush mapped regions to disk
+	 */
+	public synchronized void force() {
+		for (final Region region : getRegions()) {
+			region.force();
+		}
+	}
+
+	/**
+	 * Flush and close the store
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		force();
+		for (final Region region : getRegions()) {
+			region.close();
+		}
+	}
+
+	/**
+	 * Read modified time and size, for a jar entry those of the jar
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return Modified time and size, zero if the file is missing
+	 */
+	private static long[] readFileStamp(final String pathFile) {
+		final int index = pathFile.indexOf(ClassFileParse.JAR_ENTRY_SEPARATOR);
+		final Path path = Path.of(index >= 0 ? pathFile.substring(0, index) : pathFile);
+		try {
+			return new long[] { Files.getLastModifiedTime(path).toMillis(), Files.size(path) };
+		}
+		catch (final IOException ioe) {
+			return new long[] { 0, 0 };
+		}
+	}
+
+	private int getFileInt(final int fileRecord,
+			               final int field) {
+		return fileRecords.getInt(fileRecord * FILE_RECORD_LENGTH + field);
+	}
+
+	private void addDataLong(final long value) {
+		data.addInt((int) (value >>> 32));
+		data.addInt((int) value);
+	}
+
+	private long getDataLong(final int index) {
+		return ((long) data.getIntAt(index) << 32) | (data.getIntAt(index + 1) & 0xFFFFFFFFL);
+	}
+
+	private static int getRecordByNameId(final Region region,
+			                             final int nameId) {
+		if (nameId == SymbolDictionary.NO_ID || nameId >= region.getUsed()) {
+			return -1;
+		}
+		return region.getIntAt(nameId) - 1;
+	}
+
+	/**
+	 * Find the hash slot holding a name or the empty slot it belongs in
+	 *
+	 * @param nameBytes UTF-8 name
+	 *
+	 * @return Byte offset of the slot
+	 */
+	private int findSlot(final byte[] nameBytes) {
+		final int mask = nameHash.getValue() - 1;
+		int slotIndex = hash(nameBytes) & mask;
+
+		while (true) {
+			final int slotValue = nameHash.getIntAt(slotIndex);
+			if (slotValue == 0 || nameEquals(slotValue - 1, nameBytes)) {
+				return slotIndex * 4;
+			}
+			slotIndex = (slotIndex + 1) & mask;
+		}
+	}
+
+	/**
+	 * Rebuild the hash index with more slots
+	 *
+	 * @param slotCount New number of slots, a power of two
+	 */
+	private void rehash(final int slotCount) {
+		nameHash.ensureCapacity(slotCount * 4L);
+		for (int slotIndex = 0; slotIndex < slotCount; slotIndex++) {
+			nameHash.putInt(slotIndex * 4, 0);
+		}
+		nameHash.setValue(slotCount);
+
+		final int nameCount = nameOffsets.getUsed();
+		for (int id = 0; id < nameCount; id++) {
+			final int offset = nameOffsets.getIntAt(id);
+			final int slot = findSlot(names.getBytes(offset + 4, names.getInt(offset)));
+			nameHash.putInt(slot, id + 1);
+		}
+		nameHash.setUsed(nameCount);
+	}
+
+	private boolean nameEquals(final int id,
+			                   final byte[] nameBytes) {
+		final int offset = nameOffsets.getIntAt(id);
+		if (names.getInt(offset) != nameBytes.length) {
+			return false;
+		}
+		for (int i = 0; i < nameBytes.length; i++) {
+			if (names.getByte(offset + 4 + i) != nameBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * FNV-1a hash of the UTF-8 bytes, so the index can be rebuilt from
+	 * the stored names without decoding them
+	 */
+	private static int hash(final byte[] nameBytes) {
+		int hash = 0x811C9DC5;
+		for (final byte nameByte : nameBytes) {
+			hash ^= nameByte & 0xFF;
+			hash *= 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	private Region[] getRegions() {
+		return new Region[] { names, nameOffsets, nameHash, fileRecords, fileByPathId, fileByTypeId, data };
+	}
+
+	/**
+	 * Growable region of a memory mapped file or a direct buffer,
+	 * offsets exclude the header
+	 */
+	private static class Region {
+		private final FileChannel fileChannel;
+		private ByteBuffer buffer;
+
+		private Region(final Path directory,
+				       final String fileName) throws IOException {
+			if (directory == null) {
+				fileChannel = null;
+				buffer = ByteBuffer.allocateDirect(HEADER_LENGTH + INITIAL_CAPACITY);
+				writeHeader();
+				return;
+			}
+
+			fileChannel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.CREATE,
+					                       StandardOpenOption.READ, StandardOpenOption.WRITE);
+			final boolean created = fileChannel.size() == 0;
+			buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+					                 Math.max(fileChannel.size(), HEADER_LENGTH + INITIAL_CAPACITY));
+
+			if (created) {
+				writeHeader();
+			}
+			else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+				fileChannel.close();
+				throw new IOException("Invalid store region " + fileName);
+			}
+		}
+
+		private void writeHeader() {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, FORMAT_VERSION);
+		}
+
+		private int getUsed() {
+			return buffer.getInt(HEADER_USED);
+		}
+
+		private void setUsed(final int used) {
+			buffer.putInt(HEADER_USED, used);
+		}
+
+		private int getValue() {
+			return buffer.getInt(HEADER_VALUE);
+		}
+
+		private void setValue(final int value) {
+			buffer.putInt(HEADER_VALUE, value);
+		}
+
+		private void ensureCapacity(final long length) {
+			if (HEADER_LENGTH + length <= buffer.capacity()) {
+				return;
+			}
+
+			final long capacity = Math.max(HEADER_LENGTH + length, 2L * buffer.capacity());
+			if (capacity > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Store region is full");
+			}
+
+			try {
+				if (fileChannel != null) {
+					buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+				}
+				else {
+					final ByteBuffer newBuffer = ByteBuffer.allocateDirect((int) capacity);
+					newBuffer.put(buffer.duplicate().clear());
+					buffer = newBuffer;
+				}
+			}
+			catch (final IOException ioe) {
+				throw new IllegalStateException(ioe);
+			}
+		}
+
+		private int getInt(final int offset) {
+			return buffer.getInt(HEADER_LENGTH + offset);
+		}
+
+		private void putInt(final int offset,
+				            final int value) {
+			buffer.putInt(HEADER_LENGTH + offset, value);
+		}
+
+		private long getLong(final int offset) {
+			return buffer.getLong(HEADER_LENGTH + offset);
+		}
+
+		private void putLong(final int offset,
+				             final long value) {
+			buffer.putLong(HEADER_LENGTH + offset, value);
+		}
+
+		private byte getByte(final int offset) {
+			return buffer.get(HEADER_LENGTH + offset);
+		}
+
+		private byte[] getBytes(final int offset,
+				                final int length) {
+			final byte[] bytes = new byte[length];
+			buffer.get(HEADER_LENGTH + offset, bytes);
+			return bytes;
+		}
+
+		private void putBytes(final int offset,
+				              final byte[] bytes) {
+			buffer.put(HEADER_LENGTH + offset, bytes);
+		}
+
+		private int getIntAt(final int index) {
+			return getInt(index * 4);
+		}
+
+		/**
+		 * Put an int by index, growing the used count to cover it
+		 */
+		private void putIntAt(final int index,
+				              final int value) {
+			ensureCapacity((index + 1) * 4L);
+			putInt(index * 4, value);
+			if (index >= getUsed()) {
+				setUsed(index + 1);
+			}
+		}
+
+		private void addInt(final int value) {
+			putIntAt(getUsed(), value);
+		}
+
+		private void force() {
+			if (buffer instanceof MappedByteBuffer mappedByteBuffer) {
+				mappedByteBuffer.force();
+			}
+		}
+
+		private void close() throws IOException {
+			if (fileChannel != null) {
+				fileChannel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package dev.webfx.parse;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of package.Class names, a miss means the name is
+ * definitely not known so the resolve probe can be skipped
+ *
+ * @author Alexander Belch
+ */
+public class PackageClassBloomFilter {
+
+	private static final double LN2 = Math.log(2);
+
+	private final long[] bits;
+	private final int bitCount;
+	private final int hashCount;
+
+	private int insertionCount;
+
+	private final LongAdder rejectedProbeCount;
+	private final LongAdder passedProbeCount;
+	private final LongAdder falsePositiveCount;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param expectedInsertions Expected number of package.Class names
+	 * @param falsePositiveRate Target false positive rate e.g. 0.01
+	 */
+	public PackageClassBloomFilter(final int expectedInsertions,
+			                       final double falsePositiveRate) {
+		final int insertions = Math.max(expectedInsertions, 1);
+		final long optimalBitCount = (long) (-insertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+
+		bitCount = (int) Math.max(64, Math.min(optimalBitCount, Integer.MAX_VALUE - 63L));
+		hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * LN2));
+		bits = new long[(bitCount + 63) >>> 6];
+
+		rejectedProbeCount = new LongAdder();
+		passedProbeCount = new LongAdder();
+		falsePositiveCount = new LongAdder();
+	}
+
+	/**
+	 * Add a package and class name
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 */
+	public void add(final String packageName,
+			        final String className) {
+		final long hash = hash(packageName, className);
+		final int hash1 = (int) hash;
+		final int hash2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < hashCount; i++) {
+			final int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+			bits[bitIndex >>> 6] |= 1L << bitIndex;
+		}
+
+		insertionCount++;
+	}
+
+	/**
+	 * Test if the package and class name may have been added
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 *
+	 * @return False if definitely not added, true if possibly added
+	 */
+	public boolean mightContain(final String packageName,
+			                    final String className) {
+		final long hash = hash(packageName, className);
+		final int hash1 = (int) hash;
+		final int hash2 = (int) (hash >>> 32);
+
+		for (int i = 0; i < hashCount; i++) {
+			final int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+			if ((bits[bitIndex >>> 6] & (1L << bitIndex)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Record a probe rejected by the filter
+	 */
+	public void recordRejectedProbe() {
+		rejectedProbeCount.increment();
+	}
+
+	/**
+	 * Record a probe passed by the filter and the resolver outcome,
+	 * a failed outcome is a false positive
+	 *
+	 * @param success The resolver outcome
+	 */
+	public void recordPassedProbe(final boolean success) {
+		passedProbeCount.increment();
+		if (! success) {
+			falsePositiveCount.increment();
+		}
+	}
+
+	/**
+	 * @return Number of probes rejected without calling the resolver
+	 */
+	public long getRejectedProbeCount() {
+		return rejectedProbeCount.sum();
+	}
+
+	/**
+	 * @return Number of probes passed on to the resolver
+	 */
+	public long getPassedProbeCount() {
+		return passedProbeCount.sum();
+	}
+
+	/**
+	 * @return Number of probes passed on to the resolver that then failed
+	 */
+	public long getFalsePositiveCount() {
+		return falsePositiveCount.sum();
+	}
+
+	/**
+	 * Observed false positive rate, false positives as a share of all
+	 * probes for names that were not known
+	 *
+	 * @return Observed false positive rate 0.0 to 1.0
+	 */
+	public double getFalsePositiveRate() {
+		final long falsePositives = getFalsePositiveCount();
+		final long negatives = falsePositives + getRejectedProbeCount();
+		return negatives == 0 ? 0.0 : (double) falsePositives / negatives;
+	}
+
+	/**
+	 * Expected false positive rate for the current number of insertions
+	 *
+	 * @return Expected false positive rate 0.0 to 1.0
+	 */
+	public double getExpectedFalsePositiveRate() {
+		return Math.pow(1.0 - Math.exp(-(double) hashCount * insertionCount / bitCount), hashCount);
+	}
+
+	/**
+	 * @return Number of package.Class names added
+	 */
+	public int getInsertionCount() {
+		return insertionCount;
+	}
+
+	/**
+	 * Hash of packageName + "." + className without building the string,
+	 * two independent 32 bit hashes are returned in one long
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 *
+	 * @return Two 32 bit hashes
+	 */
+	private static long hash(final String packageName,
+			                 final String className) {
+		int fnv = 0x811C9DC5;
+		int mix = 0x9747B28C;
+
+		for (int i = 0; i < packageName.length(); i++) {
+			final char c = packageName.charAt(i);
+			fnv = (fnv ^ c) * 0x01000193;
+			mix = Integer.rotateLeft(mix ^ (c * 0xCC9E2D51), 15) * 0x1B873593;
+		}
+
+		fnv = (fnv ^ '.') * 0x01000193;
+		mix = Integer.rotateLeft(mix ^ ('.' * 0xCC9E2D51), 15) * 0x1B873593;
+
+		for (int i = 0; i < className.length(); i++) {
+			final char c = className.charAt(i);
+			fnv = (fnv ^ c) * 0x01000193;
+			mix = Integer.rotateLeft(mix ^ (c * 0xCC9E2D51), 15) * 0x1B873593;
+		}
+
+		mix ^= mix >>> 16;
+		mix *= 0x85EBCA6B;
+		mix ^= mix >>> 13;
+
+		return ((long) (mix | 1) << 32) | (fnv & 0xFFFFFFFFL);
+	}
+}
@@ -1,67 +1,114 @@
 package dev.webfx.parse;
 
 /**
+ * View of one record in a package class store, package and class
+ * names are held as symbol dictionary ids
+ * 
  * @author Alexander Belch
  */
 public class PackageClassData {
-    private String packageName;
-    private String className;
-    private boolean resolved; 
+    private final PackageClassStore packageClassStore;
+    private final int record;
 	
     /**
-     * Parameter constructor
+     * Parameter constructor, creates a standalone record
      * 
 	 * @param packageName
 	 * @param className
 	 * @param resolved
+	 * @param symbolDictionary Dictionary of the run the names are interned in
 	 */
 	public PackageClassData(final String packageName, 
 			                final String className, 
-			                final boolean resolved) {
-		this.packageName = packageName;
-		this.className = className;
-		this.resolved = resolved;
+			                final boolean resolved,
+			                final SymbolDictionary symbolDictionary) {
+		this.packageClassStore = new PackageClassStore(symbolDictionary, 1);
+		this.record = packageClassStore.add(0, 
+				                            symbolDictionary.intern(packageName), 
+				                            symbolDictionary.intern(className), 
+				                            resolved);
+	}
+	
+    /**
+     * Parameter constructor, view of a stored record
+     * 
+	 * @param packageClassStore The store
+	 * @param record The record index
+	 */
+	PackageClassData(final PackageClassStore packageClassStore, 
+			         final int record) {
+		this.packageClassStore = packageClassStore;
+		this.record = record;
 	}
 
 	/**
 	 * @return the resolved true of false state
 	 */
 	public boolean  isResolved() {
-		return resolved;
+		return packageClassStore.isResolved(record);
 	}
 
 	/**
 	 * @param resolved Set the resolved state true or false to set
 	 */
 	public void setResolved(final boolean resolved) {
-		this.resolved = resolved;
+		packageClassStore.setResolved(record, resolved);
 	}
 
 	/**
 	 * @return the packageName
 	 */
 	public String getPackageName() {
-		return packageName;
+		return packageClassStore.getSymbolDictionary().getName(packageClassStore.getPackageNameId(record));
+	}
+	
+	/**
+	 * @return the packageName id or SymbolDictionary.NO_ID if not set
+	 */
+	public int getPackageNameId() {
+		return packageClassStore.getPackageNameId(record);
 	}
 	
 	/**
 	 * @param packageName the packageName to set
 	 */
 	public void setPackageName(String packageName) {
-		this.packageName = packageName;
+		packageClassStore.setPackageNameId(record, packageClassStore.getSymbolDictionary().intern(packageName));
 	}
 
 	/**
 	 * @return the className
 	 */
 	public String getClassName() {
-		return className;
+		return packageClassStore.getSymbolDictionary().getName(packageClassStore.getClassNameId(record));
+	}
+
+	/**
+	 * @return the className id
+	 */
+	public int getClassNameId() {
+		return packageClassStore.getClassNameId(record);
+	}
+
+	/**
+	 * @return the path and file the class resolved to, null if resolved
+	 *         without a file e.g. JDK or class path
+	 */
+	public String getPathFile() {
+		return packageClassStore.getSymbolDictionary().getName(packageClassStore.getPathFileId(record));
+	}
+
+	/**
+	 * @param pathFile the path and file the class resolved to
+	 */
+	public void setPathFile(final String pathFile) {
+		packageClassStore.setPathFileId(record, packageClassStore.getSymbolDictionary().intern(pathFile));
 	}
 
 	/**
 	 * @param className the className to set
 	 */
 	public void setClassName(String className) {
-		this.className = className;
+		packageClassStore.setClassNameId(record, packageClassStore.getSymbolDictionary().intern(className));
 	}
 }
@@ -0,0 +1,282 @@
+package dev.webfx.parse;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Columnar store of referenced type records. Each record is a file index,
+ * a package name id, a class name id, the id of the path and file the
+ * reference resolved to and a resolved bit held in parallel primitive
+ * arrays, so resolve and aggregation passes loop over arrays instead of
+ * following one object per reference. PackageClassData is a view of one
+ * record.
+ *
+ * Records of one file are contiguous.
+ *
+ * @author Alexander Belch
+ */
+public class PackageClassStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final SymbolDictionary symbolDictionary;
+
+	private int[] fileIndexes;
+	private int[] packageNameIds;
+	private int[] classNameIds;
+	private int[] pathFileIds;
+	private final BitSet resolvedBitSet;
+
+	private int size;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param symbolDictionary Dictionary the name ids belong to
+	 */
+	public PackageClassStore(final SymbolDictionary symbolDictionary) {
+		this(symbolDictionary, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param symbolDictionary Dictionary the name ids belong to
+	 * @param initialCapacity Initial number of records
+	 */
+	public PackageClassStore(final SymbolDictionary symbolDictionary,
+			                 final int initialCapacity) {
+		this.symbolDictionary = symbolDictionary;
+		final int capacity = Math.max(1, initialCapacity);
+		fileIndexes = new int[capacity];
+		packageNameIds = new int[capacity];
+		classNameIds = new int[capacity];
+		pathFileIds = new int[capacity];
+		resolvedBitSet = new BitSet(capacity);
+	}
+
+	/**
+	 * Add a record
+	 *
+	 * @param fileIndex Index of the file holding the reference
+	 * @param packageNameId Package name id or SymbolDictionary.NO_ID
+	 * @param classNameId Class name id
+	 * @param resolved Resolved state
+	 *
+	 * @return The record index
+	 */
+	public int add(final int fileIndex,
+			       final int packageNameId,
+			       final int classNameId,
+			       final boolean resolved) {
+		ensureCapacity(size + 1);
+
+		fileIndexes[size] = fileIndex;
+		packageNameIds[size] = packageNameId;
+		classNameIds[size] = classNameId;
+		pathFileIds[size] = SymbolDictionary.NO_ID;
+		resolvedBitSet.set(size, resolved);
+
+		return size++;
+	}
+
+	/**
+	 * Append a range of records from another store under a new file index
+	 *
+	 * @param packageClassStore Store to copy from
+	 * @param fromRecord First record, inclusive
+	 * @param toRecord Last record, exclusive
+	 * @param fileIndex File index of the copied records
+	 *
+	 * @return Record index of the first copied record
+	 *
+	 * @throws IllegalArgumentException If the stores have different dictionaries
+	 */
+	public int addAll(final PackageClassStore packageClassStore,
+			          final int fromRecord,
+			          final int toRecord,
+			          final int fileIndex) {
+		if (packageClassStore.symbolDictionary != symbolDictionary) {
+			throw new IllegalArgumentException("Name ids of another symbol dictionary cannot be copied");
+		}
+
+		final int count = toRecord - fromRecord;
+		final int start = size;
+		ensureCapacity(size + count);
+
+		Arrays.fill(fileIndexes, start, start + count, fileIndex);
+		System.arraycopy(packageClassStore.packageNameIds, fromRecord, packageNameIds, start, count);
+		System.arraycopy(packageClassStore.classNameIds, fromRecord, classNameIds, start, count);
+		System.arraycopy(packageClassStore.pathFileIds, fromRecord, pathFileIds, start, count);
+		for (int i = 0; i < count; i++) {
+			resolvedBitSet.set(start + i, packageClassStore.resolvedBitSet.get(fromRecord + i));
+		}
+
+		size += count;
+
+		return start;
+	}
+
+	/**
+	 * @return Dictionary the name ids belong to
+	 */
+	public SymbolDictionary getSymbolDictionary() {
+		return symbolDictionary;
+	}
+
+	/**
+	 * Find a class name id within a range of records
+	 *
+	 * @param fromRecord First record, inclusive
+	 * @param toRecord Last record, exclusive
+	 * @param classNameId Class name id to find
+	 *
+	 * @return The record index or -1 if not found
+	 */
+	public int indexOfClassNameId(final int fromRecord,
+			                      final int toRecord,
+			                      final int classNameId) {
+		for (int record = fromRecord; record < toRecord; record++) {
+			if (classNameIds[record] == classNameId) {
+				return record;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Add the package name ids of the resolved records in a range
+	 *
+	 * @param fromRecord First record, inclusive
+	 * @param toRecord Last record, exclusive
+	 * @param packageNameSet Set to add to
+	 */
+	public void addResolvedPackageNameIds(final int fromRecord,
+			                              final int toRecord,
+			                              final PackageNameSet packageNameSet) {
+		for (int record = resolvedBitSet.nextSetBit(fromRecord);
+			 record >= 0 && record < toRecord;
+			 record = resolvedBitSet.nextSetBit(record + 1)) {
+			packageNameSet.addId(packageNameIds[record]);
+		}
+	}
+
+	/**
+	 * @return Number of records
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return Number of resolved records
+	 */
+	public int getResolvedCount() {
+		return resolvedBitSet.cardinality();
+	}
+
+	/**
+	 * Remove all records
+	 */
+	public void clear() {
+		size = 0;
+		resolvedBitSet.clear();
+	}
+
+	/**
+	 * @param record The record index
+	 *
+	 * @return Index of the file holding the reference
+	 */
+	public int getFileIndex(final int record) {
+		return fileIndexes[record];
+	}
+
+	/**
+	 * @param record The record index
+	 *
+	 * @return Package name id or SymbolDictionary.NO_ID if not resolved
+	 */
+	public int getPackageNameId(final int record) {
+		return packageNameIds[record];
+	}
+
+	/**
+	 * @param record The record index
+	 * @param packageNameId Package name id
+	 */
+	public void setPackageNameId(final int record,
+			                     final int packageNameId) {
+		packageNameIds[record] = packageNameId;
+	}
+
+	/**
+	 * @param record The record index
+	 *
+	 * @return Class name id
+	 */
+	public int getClassNameId(final int record) {
+		return classNameIds[record];
+	}
+
+	/**
+	 * @param record The record index
+	 * @param classNameId Class name id
+	 */
+	public void setClassNameId(final int record,
+			                   final int classNameId) {
+		classNameIds[record] = classNameId;
+	}
+
+	/**
+	 * @param record The record index
+	 *
+	 * @return Id of the path and file the reference resolved to or
+	 *         SymbolDictionary.NO_ID if resolved without a file e.g. JDK
+	 */
+	public int getPathFileId(final int record) {
+		return pathFileIds[record];
+	}
+
+	/**
+	 * @param record The record index
+	 * @param pathFileId Id of the path and file the reference resolved to
+	 */
+	public void setPathFileId(final int record,
+			                  final int pathFileId) {
+		pathFileIds[record] = pathFileId;
+	}
+
+	/**
+	 * @param record The record index
+	 *
+	 * @return Resolved state
+	 */
+	public boolean isResolved(final int record) {
+		return resolvedBitSet.get(record);
+	}
+
+	/**
+	 * @param record The record index
+	 * @param resolved Resolved state
+	 */
+	public void setResolved(final int record,
+			                final boolean resolved) {
+		resolvedBitSet.set(record, resolved);
+	}
+
+	/**
+	 * Grow the columns, doubling the capacity
+	 *
+	 * @param capacity Minimum number of records
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (capacity > fileIndexes.length) {
+			final int newCapacity = Math.max(capacity, fileIndexes.length * 2);
+			fileIndexes = Arrays.copyOf(fileIndexes, newCapacity);
+			packageNameIds = Arrays.copyOf(packageNameIds, newCapacity);
+			classNameIds = Arrays.copyOf(classNameIds, newCapacity);
+			pathFileIds = Arrays.copyOf(pathFileIds, newCapacity);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package dev.webfx.parse;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Set of package names held as a bit set of symbol dictionary ids.
+ * Sets, e.g. the packages of two modules, are unioned, intersected and
+ * diffed with word level bit operations.
+ *
+ * @author Alexander Belch
+ */
+public class PackageNameSet {
+
+	private final SymbolDictionary symbolDictionary;
+	private final BitSet packageNameIdBitSet;
+
+	/**
+	 * Create an empty set
+	 *
+	 * @param symbolDictionary Dictionary the package name ids belong to
+	 */
+	public PackageNameSet(final SymbolDictionary symbolDictionary) {
+		this.symbolDictionary = symbolDictionary;
+		this.packageNameIdBitSet = new BitSet();
+	}
+
+	/**
+	 * Add a package name, the default (null) package is not held
+	 *
+	 * @param packageName The package name
+	 *
+	 * @return True if the package name was not already in the set
+	 */
+	public boolean add(final String packageName) {
+		return addId(symbolDictionary.intern(packageName));
+	}
+
+	/**
+	 * Add a package name id
+	 *
+	 * @param packageNameId The package name id
+	 *
+	 * @return True if the id was not already in the set
+	 */
+	public boolean addId(final int packageNameId) {
+		if (packageNameId == SymbolDictionary.NO_ID || packageNameIdBitSet.get(packageNameId)) {
+			return false;
+		}
+
+		packageNameIdBitSet.set(packageNameId);
+		return true;
+	}
+
+	/**
+	 * Test for a package name
+	 *
+	 * @param packageName The package name
+	 *
+	 * @return True if in the set
+	 */
+	public boolean contains(final String packageName) {
+		final int packageNameId = symbolDictionary.getId(packageName);
+		return packageNameId != SymbolDictionary.NO_ID && packageNameIdBitSet.get(packageNameId);
+	}
+
+	/**
+	 * Add every package name of another set
+	 *
+	 * @param packageNameSet The other set
+	 */
+	public void addAll(final PackageNameSet packageNameSet) {
+		packageNameIdBitSet.or(packageNameSet.packageNameIdBitSet);
+	}
+
+	/**
+	 * Remove every package name of another set
+	 *
+	 * @param packageNameSet The other set
+	 */
+	public void removeAll(final PackageNameSet packageNameSet) {
+		packageNameIdBitSet.andNot(packageNameSet.packageNameIdBitSet);
+	}
+
+	/**
+	 * Keep only the package names also in another set
+	 *
+	 * @param packageNameSet The other set
+	 */
+	public void retainAll(final PackageNameSet packageNameSet) {
+		packageNameIdBitSet.and(packageNameSet.packageNameIdBitSet);
+	}
+
+	/**
+	 * Remove all package names
+	 */
+	public void clear() {
+		packageNameIdBitSet.clear();
+	}
+
+	/**
+	 * @return Number of package names
+	 */
+	public int size() {
+		return packageNameIdBitSet.cardinality();
+	}
+
+	/**
+	 * @return True if no package names
+	 */
+	public boolean isEmpty() {
+		return packageNameIdBitSet.isEmpty();
+	}
+
+	/**
+	 * @return A copy of this set
+	 */
+	public PackageNameSet copy() {
+		final PackageNameSet packageNameSet = new PackageNameSet(symbolDictionary);
+		packageNameSet.packageNameIdBitSet.or(packageNameIdBitSet);
+		return packageNameSet;
+	}
+
+	/**
+	 * @return Package names in alphabetical order
+	 */
+	public List<String> toSortedList() {
+		final List<String> packageNameList = new ArrayList<>(size());
+		for (int id = packageNameIdBitSet.nextSetBit(0); id >= 0; id = packageNameIdBitSet.nextSetBit(id + 1)) {
+			packageNameList.add(symbolDictionary.getName(id));
+		}
+
+		Collections.sort(packageNameList);
+
+		return packageNameList;
+	}
+
+	@Override
+	public boolean equals(final Object object) {
+		return object instanceof PackageNameSet packageNameSet &&
+			   symbolDictionary == packageNameSet.symbolDictionary &&
+			   packageNameIdBitSet.equals(packageNameSet.packageNameIdBitSet);
+	}
+
+	@Override
+	public int hashCode() {
+		return packageNameIdBitSet.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toSortedList().toString();
+	}
+}
@@ -1,5 +1,8 @@
  package dev.webfx.parse;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 
@@ -10,19 +13,67 @@ public class PackageResolve {
 	
 	private static final String JAVA_LANG_PACKAGE_NAME = "java.lang";
 	
+	private static final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.01;
+	
 	private final Log log;
 	
 	private final PackageResolveOnClassPath packageResolveOnClassPath; 
 
 	private PackageResolveCallback cliPackageResolveCallback;
 	
+	private SymbolTable symbolTable;
+	
+	private final PackageTrie packageTrie;
+	
+	private PackageClassBloomFilter packageClassBloomFilter;
+	private boolean packageClassBloomFilterBuilt;
+	private final Set<PackageResolveCallback> bloomFilterCallbackSet;
+	private long cliIndexVersion;
+	
+	private ProcessorMetrics processorMetrics;
+	
+	private ResolveGuard resolveGuard;
+	
+	private final ProcessorEngine processorEngine;
+	
+	private ModuleScope moduleScope;
+	private String resolvePathFile;
+	private final List<MissingRequiresData> missingRequiresList;
+	
 	public PackageResolve() {
+		this(new ProcessorEngine());
+	}
+	
+	/**
+	 * Parameter constructor, the class path resolver and index are
+	 * shared through the engine
+	 * 
+	 * @param processorEngine The engine
+	 */
+	public PackageResolve(final ProcessorEngine processorEngine) {
 		log = new Log();
 		log.setLogLevel(LogType.INFO);
 
-		packageResolveOnClassPath = new PackageResolveOnClassPath();
+		this.processorEngine = processorEngine;
+		packageResolveOnClassPath = processorEngine.getPackageResolveOnClassPath();
+		
+		// Packages found by this resolve go over the shared boot layer and class path packages
+		packageTrie = new PackageTrie(processorEngine.getPackageTrie());
+		
+		bloomFilterCallbackSet = Collections.newSetFromMap(new IdentityHashMap<>());
+		
+		processorMetrics = new ProcessorMetrics();
+		
+		missingRequiresList = new ArrayList<>();
 	}
 
+	/**
+	 * @return The CLI resolve callback or null if none
+	 */
+	public PackageResolveCallback getCliPackageResolveCallback() {
+		return cliPackageResolveCallback;
+	}
+	
 	/**
 	 * Set resolve callback for CLI interface
 	 * 
@@ -30,6 +81,151 @@ public class PackageResolve {
 	 */
 	public void setCliPackageResolveCallback(final PackageResolveCallback cliPackageResolveCallback) {
 		this.cliPackageResolveCallback = cliPackageResolveCallback;
+		
+		// Rebuilt on next resolve to include or drop the CLI index
+		packageClassBloomFilter = null;
+		packageClassBloomFilterBuilt = false;
+	}
+	
+	/**
+	 * Set the symbol table of types declared in already parsed files,
+	 * consulted before any resolve callback
+	 * 
+	 * @param symbolTable
+	 */
+	public void setSymbolTable(final SymbolTable symbolTable) {
+		this.symbolTable = symbolTable;
+	}
+	
+	/**
+	 * Set the metrics that strategy attempts and resolver probes are recorded to
+	 * 
+	 * @param processorMetrics The metrics
+	 */
+	public void setProcessorMetrics(final ProcessorMetrics processorMetrics) {
+		this.processorMetrics = processorMetrics;
+	}
+	
+	/**
+	 * Set the latency budget the CLI resolver is called within, probes it
+	 * skips fall back to the class path resolvers
+	 * 
+	 * @param resolveGuard The guard or null to call the CLI resolver directly
+	 */
+	public void setResolveGuard(final ResolveGuard resolveGuard) {
+		this.resolveGuard = resolveGuard;
+	}
+	
+	/**
+	 * Set the scope of the source module of the next files resolved.
+	 * Packages of system modules are not probed on the CLI resolver, and
+	 * wildcard imports of packages the module cannot read are not probed
+	 * at all. Explicit references to such packages are still resolved and
+	 * listed as missing requires
+	 * 
+	 * @param moduleScope The module scope or null for the class path rules
+	 */
+	public void setModuleScope(final ModuleScope moduleScope) {
+		this.moduleScope = moduleScope;
+	}
+	
+	/**
+	 * Return the references to packages of modules not read,
+	 * cleared by the caller between runs
+	 * 
+	 * @return Missing requires found
+	 */
+	public List<MissingRequiresData> getMissingRequiresList() {
+		return missingRequiresList;
+	}
+	
+	/**
+	 * Rescan an indexed CLI resolver, files may have been added or removed
+	 * since its last scan, the bloom filter follows on the next resolve
+	 */
+	public void refreshIndexes() {
+		if (cliPackageResolveCallback instanceof PackageResolveIndex cliPackageResolveIndex) {
+			cliPackageResolveIndex.refresh();
+		}
+	}
+	
+	/**
+	 * Rescan an indexed CLI resolver only if its files changed since
+	 * its last scan, the bloom filter follows on the next resolve
+	 */
+	public void refreshIndexesIfModified() {
+		if (cliPackageResolveCallback instanceof PackageResolveIndex cliPackageResolveIndex) {
+			cliPackageResolveIndex.refreshIfModified();
+		}
+	}
+	
+	/**
+	 * Return the trie of known package names, callers add packages
+	 * found in parsed files and source roots
+	 * 
+	 * @return The package trie
+	 */
+	public PackageTrie getPackageTrie() {
+		return packageTrie;
+	}
+	
+	/**
+	 * Return the bloom filter of package.Class names known to the
+	 * resolvers with a complete index, built on first resolve
+	 * 
+	 * @return The bloom filter or null if not yet built or no complete index
+	 */
+	public PackageClassBloomFilter getPackageClassBloomFilter() {
+		return packageClassBloomFilter;
+	}
+	
+	/**
+	 * Compute a fingerprint of what references can resolve to: the
+	 * runtime version, the class path, the CLI resolver and, for an
+	 * indexed CLI resolver, every package and class name it knows. Stored
+	 * file summaries are only reused under the fingerprint they were
+	 * resolved with, it is the same across restarts for the same inputs
+	 * 
+	 * @return The fingerprint
+	 */
+	public long computeResolverFingerprint() {
+		long fingerprint = mixFingerprint(0, Runtime.version().toString().hashCode());
+		fingerprint = mixFingerprint(fingerprint, String.valueOf(System.getProperty("java.class.path")).hashCode());
+		
+		if (cliPackageResolveCallback != null) {
+			fingerprint = mixFingerprint(fingerprint, cliPackageResolveCallback.onPackgeResolveDescription().hashCode());
+			
+			if (cliPackageResolveCallback instanceof PackageResolveIndex packageResolveIndex) {
+				// Order independent, the index is a hash map
+				final long[] nameFingerprint = new long[2];
+				packageResolveIndex.forEachPackageClassName((packageName, className) -> {
+					nameFingerprint[0] += mixFingerprint(0, SymbolTable.toQualifiedName(packageName, className).hashCode());
+					nameFingerprint[1]++;
+				});
+				fingerprint = mixFingerprint(mixFingerprint(fingerprint, nameFingerprint[0]), nameFingerprint[1]);
+			}
+		}
+		
+		return fingerprint;
+	}
+	
+	/**
+	 * Mix a value into a fingerprint, the 64 bit finalizer of MurmurHash3
+	 * 
+	 * @param fingerprint The fingerprint so far
+	 * @param value The value
+	 * 
+	 * @return The new fingerprint
+	 */
+	private static long mixFingerprint(final long fingerprint,
+			                           final long value) {
+		long mixed = (fingerprint * 31) ^ value;
+		mixed ^= mixed >>> 33;
+		mixed *= 0xff51afd7ed558ccdL;
+		mixed ^= mixed >>> 33;
+		mixed *= 0xc4ceb3fe1a85ec53L;
+		mixed ^= mixed >>> 33;
+		return mixed;
 	}
 	
 	/**
@@ -44,22 +240,41 @@ public class PackageResolve {
 		
 		log.verbose ("resolve: Called...");
 		
+		resolvePathFile = classDefinitionData.getPathFile();
+		
+		// An indexed CLI resolver that rescanned may know names the filter does not
+		if (! packageClassBloomFilterBuilt || 
+			(cliPackageResolveCallback instanceof PackageResolveIndex cliPackageResolveIndex &&
+			 cliPackageResolveIndex.getIndexVersion() != cliIndexVersion)) {
+			buildPackageClassBloomFilter();
+		}
+		
 		for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
 		
 			boolean resolved = false;
 			
+			// Types declared in already parsed files need no callback...
+			if (symbolTable != null) {
+				resolved = resolveUseSymbolTable(classDefinitionData,
+						                         packageClassData,
+						                         pathFileList);
+				recordAttempt(ResolveStrategy.SYMBOL_TABLE, null, resolved);
+			}
+			
 		    // External CLI resolving is done first to get any
 		    // source files for further parsing...
-		    if (cliPackageResolveCallback != null) {
+		    if (! resolved && cliPackageResolveCallback != null) {
 	    	    resolved = resolveUsePackageDotClassName(packageClassData,
                                                          cliPackageResolveCallback,
                                                          pathFileList);
+	    	    recordAttempt(ResolveStrategy.PACKAGE_DOT_CLASS_NAME, cliPackageResolveCallback, resolved);
 
 	    	    if (! resolved) {
 	    		    resolved = resolveUseClassNameImports(classDefinitionData.getImportList(),
 	    		    		                              packageClassData, 
                                                           cliPackageResolveCallback,
                                                           pathFileList);
+	    		    recordAttempt(ResolveStrategy.CLASS_NAME_IMPORT, cliPackageResolveCallback, resolved);
 	    	    }
 	    	    
 	    	    if (! resolved) {
@@ -67,6 +282,7 @@ public class PackageResolve {
 	    	        		                             packageClassData,
                                                          cliPackageResolveCallback,
                                                          pathFileList);
+	    	        recordAttempt(ResolveStrategy.WILDCARD_IMPORT, cliPackageResolveCallback, resolved);
 	    	    }
 	    	    
 	    	    if (! resolved) {
@@ -74,6 +290,7 @@ public class PackageResolve {
 	    	        		                          packageClassData, 
 	    		                                      cliPackageResolveCallback, 
                                                       pathFileList);
+	    	        recordAttempt(ResolveStrategy.CLASS_PACKAGE, cliPackageResolveCallback, resolved);
 	    	    }
 	        }
 		
@@ -84,6 +301,7 @@ public class PackageResolve {
 	    	    resolved = resolveUsePackageDotClassName(packageClassData,
 				                                         packageResolveOnClassPath,
 		                                                 null);
+	    	    recordAttempt(ResolveStrategy.PACKAGE_DOT_CLASS_NAME, packageResolveOnClassPath, resolved);
 		    }
 		    
 		    if (! resolved) {
@@ -91,6 +309,7 @@ public class PackageResolve {
 		        		                              packageClassData, 
 				                                      packageResolveOnClassPath,
                                                       null);
+		        recordAttempt(ResolveStrategy.CLASS_NAME_IMPORT, packageResolveOnClassPath, resolved);
 		    }
 		    
 		    if (! resolved) {
@@ -98,6 +317,7 @@ public class PackageResolve {
 		        		                             packageClassData,
 				                                     packageResolveOnClassPath,
 				                                     null);
+		        recordAttempt(ResolveStrategy.WILDCARD_IMPORT, packageResolveOnClassPath, resolved);
 		    }
 		    
 		    if (! resolved) {
@@ -105,28 +325,123 @@ public class PackageResolve {
 		        		                          packageClassData, 
 				                                  packageResolveOnClassPath, 
                                                   null);
+		        recordAttempt(ResolveStrategy.CLASS_PACKAGE, packageResolveOnClassPath, resolved);
 		    }
 		    
 		    if (! resolved) {
 		        resolved = resolveUsePrimaryClassName(classDefinitionData.getPackageName(),
 		        		                              classDefinitionData.getPrimaryClassName(),
 		        		                              packageClassData);
+		        recordAttempt(ResolveStrategy.PRIMARY_CLASS_NAME, null, resolved);
 		    }
 		    
 		    if (! resolved) {
 		        resolved = resolveUseSecondaryClassNameList(classDefinitionData.getPackageName(),
 		        		                                    classDefinitionData.getSecondaryClassNameHashSet(),
 		        		                                    packageClassData);
+		        recordAttempt(ResolveStrategy.SECONDARY_CLASS_NAME, null, resolved);
 		    }
 		    
 		    if (! resolved) {
-		        resolveUseJavaLangPackage(packageClassData);
+		        resolved = resolveUseJavaLangPackage(packageClassData);
+		        recordAttempt(ResolveStrategy.JAVA_LANG, packageResolveOnClassPath, resolved);
 		    }
 		}
 		
 	    log.verbose ("resolve: Done.");
 	}
 
+	/**
+	 * Resolve against the types declared in already parsed files, candidate
+	 * qualified names are tried in Java scoping order: nested types of this
+	 * file, class name imports, same package, wildcard imports and finally
+	 * the class name itself as a fully qualified name
+	 * 
+	 * The table only holds the files parsed so far, so a candidate missing
+	 * from it may still exist and shadow the candidates after it. Past the
+	 * nested types, which this file declares, only the first candidate is
+	 * taken from the table, otherwise the resolvers decide
+	 * 
+	 * @param classDefinitionData
+	 * @param packageClassData
+	 * @param pathFileList
+	 * 
+	 * @return True if resolved, false if not
+	 */
+	private boolean resolveUseSymbolTable(final ClassDefinitionData classDefinitionData,
+			                              final PackageClassData packageClassData,
+			                              final List<String> pathFileList) {
+		log.verbose("resolveUseSymbolTable: Called...");
+		
+		final String packageName = classDefinitionData.getPackageName();
+		final String className = packageClassData.getClassName();
+		
+		// First part of the name is the type to look up, any remainder
+		// is a nested type within it
+		final int index = className.indexOf('.');
+		final String firstClassName = index >= 0 ? className.substring(0, index) : className;
+		final String remainder = index >= 0 ? className.substring(index) : "";
+		
+		final List<String> qualifiedNameList = new ArrayList<>();
+		
+		for (final String nestedClassName : classDefinitionData.getNestedClassNameHashSet()) {
+			if (nestedClassName.endsWith("." + firstClassName)) {
+				qualifiedNameList.add(SymbolTable.toQualifiedName(packageName, nestedClassName + remainder));
+			}
+		}
+		final int nestedCount = qualifiedNameList.size();
+		
+		for (final ImportData importData : classDefinitionData.getImportList()) {
+			if (importData.getImportType() == ImportType.CLASS_NAME &&
+				importData.getImportName().endsWith("." + firstClassName)) {
+				qualifiedNameList.add(importData.getImportName() + remainder);
+			}
+		}
+		
+		qualifiedNameList.add(SymbolTable.toQualifiedName(packageName, className));
+		
+		for (final ImportData importData : classDefinitionData.getImportList()) {
+			if (importData.getImportType() == ImportType.WILDCARD) {
+				qualifiedNameList.add(importData.getImportName() + "." + className);
+			}
+		}
+		
+		if (index >= 0) {
+			qualifiedNameList.add(className);
+		}
+		
+		for (int i = 0; i < qualifiedNameList.size(); i++) {
+			final String qualifiedName = qualifiedNameList.get(i);
+			final SymbolTableEntry symbolTableEntry = symbolTable.lookup(qualifiedName);
+			if (symbolTableEntry == null) {
+				if (i >= nestedCount) {
+					// Not parsed yet but may exist, it shadows the rest
+					break;
+				}
+				continue;
+			}
+			
+			addUniquePathFileToList(symbolTableEntry.getPathFile(), packageClassData, pathFileList);
+			
+			packageClassData.setPackageName(symbolTableEntry.getPackageName());
+			if (qualifiedName.equals(className)) {
+				packageClassData.setClassName(symbolTableEntry.getClassName());
+			}
+			packageClassData.setResolved(true);
+			
+			log.info("resolveUseSymbolTable: " +
+			         "resolved=true, pathFile=" + symbolTableEntry.getPathFile() +
+			         ", packageName=" + symbolTableEntry.getPackageName() +
+			         ", className=" + packageClassData.getClassName() + " return true.");
+			
+			return true;
+		}
+		
+		log.verbose("resolveUseSymbolTable: return false.");
+		
+		return false;
+	}
+	
 	/**
 	 * Case where the class name contains '.' as it is
      * fully resolved to start with, need to determine the
@@ -148,6 +463,21 @@ public class PackageResolve {
 		final String packageClassName = packageClassData.getClassName();
 		    
 		if (packageClassName.contains(".")) {
+			
+			// Known package prefix gives the split directly, only
+			// deeper packages the trie does not know yet are then tried
+			final int prefixIndex = packageTrie.getLongestPackagePrefixIndex(packageClassName);
+			if (prefixIndex >= 0) {
+				log.verbose("resolveUsePackageDotClassName: [" + description + "] known packageName=" +
+				            packageClassName.substring(0, prefixIndex));
+				
+				if (resolveUsePackageDotClassNameSplit(packageClassData,
+						                               prefixIndex,
+						                               packageResolveCallback,
+						                               pathFileList)) {
+					return true;
+				}
+			}
 		           
 			// Split into parts gradually build up string working
 	     	// forwards until a class found - the primary class
@@ -155,41 +485,15 @@ public class PackageResolve {
 		   	final int dotCount = getDotCountInString(packageClassName);
 		   	for (int i = 1; i <= dotCount; i++) {
 		   		final int index = getDotIndexFromEndOfString(packageClassName, i);
-		    	if (index >= 0) {
-		   		    final String packageName = packageClassName.substring(0, index);
-		   		    final String classNamePart = packageClassName.substring(index + 1);
-		   		    
-		   		    final String classNameFile;
-		   		    final String className;
-		   		    
-		   		    final int fileIndex = classNamePart.indexOf(".");
-		   		    if (fileIndex >= 0) {
-		   		    	classNameFile = classNamePart.substring(0, fileIndex);
-		   		    	className = classNamePart.substring(fileIndex +  1);	
-		   		    }
-		   		    else {
-		   		    	classNameFile = classNamePart;
-		   		    	className = classNamePart;
-		   		    }
-		   		    
-		   		    log.verbose("resolveUsePackageDotClassName: [" + description + "] try packageName=" + 
-		   		                packageName + ", classNameFile=" + classNameFile);
-		   		    
-		   		    final PackageResolveResult result = packageResolveCallback.onPackageResolveCallback(packageName, classNameFile);
-		   		    if (result.isSuccess()) {    			
-		   			    addUniquePathFileToList(result.getPathFile(), pathFileList);
-		   			
-		    		    packageClassData.setPackageName(packageName);
-                	    packageClassData.setClassName(className);
-		    		    packageClassData.setResolved(true);
-		    		
-		    		    log.info ("resolveUsePackageDotClassName: [" + description + "] " + 
-		    		              "resolved=true, pathFile=" + result.getPathFile() + 
-		    		              ", packageName=" + packageName + ", className=" + className +
-		    		              " return true."); // NOSONAR
-		   			
-		    	    	return true;
-			 		}
+		   		if (index <= prefixIndex) {
+		   			break;
+		   		}
+		   		
+		   		if (resolveUsePackageDotClassNameSplit(packageClassData,
+		   				                               index,
+		   				                               packageResolveCallback,
+		   				                               pathFileList)) {
+		   			return true;
 			    }
 			}
 		}
@@ -198,6 +502,252 @@ public class PackageResolve {
 		return false;
 	}
 	
+	/**
+	 * Try a single package and class name split of a fully resolved name
+	 * 
+	 * @param packageClassData
+	 * @param index Index of the '.' separating the package and class name
+	 * @param packageResolveCallback
+	 * @param pathFileList
+	 * 
+	 * @return true if resolved, false if not
+	 */
+	private boolean resolveUsePackageDotClassNameSplit(final PackageClassData packageClassData,
+			                                           final int index,
+			                                           final PackageResolveCallback packageResolveCallback,
+			                                           final List<String> pathFileList) {
+
+		final String description = packageResolveCallback.onPackgeResolveDescription();
+		final String packageClassName = packageClassData.getClassName();
+		
+	    final String packageName = packageClassName.substring(0, index);
+	    final String classNamePart = packageClassName.substring(index + 1);
+	    
+	    final String classNameFile;
+	    final String className;
+	    
+	    final int fileIndex = classNamePart.indexOf(".");
+	    if (fileIndex >= 0) {
+	    	classNameFile = classNamePart.substring(0, fileIndex);
+	    	className = classNamePart.substring(fileIndex +  1);	
+	    }
+	    else {
+	    	classNameFile = classNamePart;
+	    	className = classNamePart;
+	    }
+	    
+	    log.verbose("resolveUsePackageDotClassName: [" + description + "] try packageName=" + 
+	                packageName + ", classNameFile=" + classNameFile);
+	    
+	    final PackageResolveResult result = probe(ResolveStrategy.PACKAGE_DOT_CLASS_NAME, packageResolveCallback, packageName, classNameFile);
+	    if (result.isSuccess()) {    			
+		    addUniquePathFileToList(result.getPathFile(), packageClassData, pathFileList);
+		
+		    packageClassData.setPackageName(packageName);
+    	    packageClassData.setClassName(className);
+		    packageClassData.setResolved(true);
+		
+		    log.info ("resolveUsePackageDotClassName: [" + description + "] " + 
+		              "resolved=true, pathFile=" + result.getPathFile() + 
+		              ", packageName=" + packageName + ", className=" + className +
+		              " return true."); // NOSONAR
+			
+	    	return true;
+		}
+	    
+	    return false;
+	}
+	
+	/**
+	 * Record a strategy attempt to the metrics
+	 * 
+	 * @param resolveStrategy The strategy
+	 * @param packageResolveCallback The resolver tried or null if none
+	 * @param resolved True if the strategy resolved the class
+	 */
+	private void recordAttempt(final ResolveStrategy resolveStrategy,
+			                   final PackageResolveCallback packageResolveCallback,
+			                   final boolean resolved) {
+		processorMetrics.recordAttempt(resolveStrategy, getResolveSource(packageResolveCallback), resolved);
+	}
+	
+	/**
+	 * @param packageResolveCallback The resolver or null if none
+	 * 
+	 * @return Source of the resolver for the metrics
+	 */
+	private ResolveSource getResolveSource(final PackageResolveCallback packageResolveCallback) {
+		if (packageResolveCallback == null) {
+			return ResolveSource.LOCAL;
+		}
+		return packageResolveCallback == packageResolveOnClassPath ? ResolveSource.CLASS_PATH : ResolveSource.CLI;
+	}
+	
+	/**
+	 * Call a resolver unless the bloom filter covers it and
+	 * shows the package and class name is definitely unknown, the CLI
+	 * resolver is called through the resolve guard if set
+	 * 
+	 * @param resolveStrategy The strategy probing, for the metrics
+	 * @param packageResolveCallback The resolver
+	 * @param packageName The package name
+	 * @param className The class name
+	 * 
+	 * @return The resolver result
+	 */
+	private PackageResolveResult probe(final ResolveStrategy resolveStrategy,
+			                           final PackageResolveCallback packageResolveCallback,
+			                           final String packageName,
+			                           final String className) {
+		
+		final ResolveProbeEvent resolveProbeEvent = new ResolveProbeEvent();
+		resolveProbeEvent.begin();
+		
+		// Not a probe, the resolver could not answer it within the module rules
+		if (moduleScope != null && isPrunedByModuleScope(resolveStrategy, packageResolveCallback, packageName)) {
+			commitProbeEvent(resolveProbeEvent, resolveStrategy, packageResolveCallback, packageName, className, 
+			                 ResolveProbeEvent.OUTCOME_MODULE_PRUNED);
+			log.verbose("probe: [" + packageResolveCallback.onPackgeResolveDescription() + "] " +
+			            "pruned packageName=" + packageName + ", className=" + className);
+			return new PackageResolveResult(false, null);
+		}
+		
+		final boolean filtered = packageClassBloomFilter != null && 
+		                         bloomFilterCallbackSet.contains(packageResolveCallback);
+		
+		if (filtered && ! packageClassBloomFilter.mightContain(packageName, className)) {
+			packageClassBloomFilter.recordRejectedProbe();
+			processorMetrics.recordProbe(resolveStrategy, getResolveSource(packageResolveCallback), true);
+			commitProbeEvent(resolveProbeEvent, resolveStrategy, packageResolveCallback, packageName, className, 
+					         ResolveProbeEvent.OUTCOME_BLOOM_FILTER_REJECTED);
+			log.verbose("probe: [" + packageResolveCallback.onPackgeResolveDescription() + "] " +
+			            "rejected packageName=" + packageName + ", className=" + className);
+			return new PackageResolveResult(false, null);
+		}
+		
+		processorMetrics.recordProbe(resolveStrategy, getResolveSource(packageResolveCallback), false);
+		final PackageResolveResult result = resolveGuard != null && packageResolveCallback == cliPackageResolveCallback ?
+			resolveGuard.probe(resolveStrategy, packageResolveCallback, packageName, className) :
+			packageResolveCallback.onPackageResolveCallback(packageName, className);
+		commitProbeEvent(resolveProbeEvent, resolveStrategy, packageResolveCallback, packageName, className, 
+				         result.isSuccess() ? ResolveProbeEvent.OUTCOME_RESOLVED : ResolveProbeEvent.OUTCOME_NOT_RESOLVED);
+		
+		if (filtered) {
+			packageClassBloomFilter.recordPassedProbe(result.isSuccess());
+		}
+		
+		if (moduleScope != null && result.isSuccess() && ! moduleScope.isReadable(packageName)) {
+			final MissingRequiresData missingRequiresData = 
+				new MissingRequiresData(moduleScope.getModuleDescriptorData().getModuleName(), resolvePathFile, 
+				                        packageName, className, moduleScope.getSystemModuleName(packageName));
+			missingRequiresList.add(missingRequiresData);
+			log.verbose("probe: " + missingRequiresData);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Test if the module scope rules out a probe. A package of a system
+	 * module can only be in that module, so the CLI resolver is never
+	 * asked for it. Wildcard imports are searched only in packages the
+	 * module reads, explicit references are probed to be reported
+	 * 
+	 * @param resolveStrategy The strategy probing
+	 * @param packageResolveCallback The resolver
+	 * @param packageName The package name
+	 * 
+	 * @return True if the probe is not made
+	 */
+	private boolean isPrunedByModuleScope(final ResolveStrategy resolveStrategy,
+			                              final PackageResolveCallback packageResolveCallback,
+			                              final String packageName) {
+		if (moduleScope.getSystemModuleName(packageName) == null) {
+			return false;
+		}
+		
+		if (packageResolveCallback == cliPackageResolveCallback) {
+			return true;
+		}
+		
+		return resolveStrategy == ResolveStrategy.WILDCARD_IMPORT && ! moduleScope.isReadable(packageName);
+	}
+	
+	/**
+	 * Commit a probe event if a recording has it enabled, the fields are
+	 * only set then
+	 * 
+	 * @param resolveProbeEvent The begun event
+	 * @param resolveStrategy Strategy probing
+	 * @param packageResolveCallback The resolver
+	 * @param packageName The package name
+	 * @param className The class name
+	 * @param outcome Outcome of the probe
+	 */
+	private static void commitProbeEvent(final ResolveProbeEvent resolveProbeEvent,
+			                             final ResolveStrategy resolveStrategy,
+			                             final PackageResolveCallback packageResolveCallback,
+			                             final String packageName,
+			                             final String className,
+			                             final String outcome) {
+		if (resolveProbeEvent.shouldCommit()) {
+			resolveProbeEvent.strategy = resolveStrategy.name();
+			resolveProbeEvent.packageName = packageName;
+			resolveProbeEvent.className = className;
+			resolveProbeEvent.resolver = packageResolveCallback.onPackgeResolveDescription();
+			resolveProbeEvent.outcome = outcome;
+			resolveProbeEvent.commit();
+		}
+	}
+	
+	/**
+	 * Build the bloom filter from the CLI resolver if it has a complete
+	 * index, the packages found are also added to the package trie. The
+	 * class path resolver is not filtered, its class loader may load more
+	 * than its index holds, and its packages are in the engine's trie
+	 */
+	private void buildPackageClassBloomFilter() {
+		log.verbose("buildPackageClassBloomFilter: Called...");
+		
+		packageClassBloomFilterBuilt = true;
+		packageClassBloomFilter = null;
+		bloomFilterCallbackSet.clear();
+		
+		if (! (cliPackageResolveCallback instanceof PackageResolveIndex cliPackageResolveIndex) ||
+			! cliPackageResolveIndex.isComplete()) {
+			return;
+		}
+		bloomFilterCallbackSet.add(cliPackageResolveCallback);
+		cliIndexVersion = cliPackageResolveIndex.getIndexVersion();
+		
+		final List<String> packageNameList = new ArrayList<>();
+		final List<String> classNameList = new ArrayList<>();
+		
+		cliPackageResolveIndex.forEachPackageClassName((packageName, className) -> {
+			packageNameList.add(packageName);
+			classNameList.add(className);
+		});
+		
+		final PackageClassBloomFilter bloomFilter = 
+			new PackageClassBloomFilter(classNameList.size(), BLOOM_FILTER_FALSE_POSITIVE_RATE);
+		
+		String lastPackageName = null;
+		for (int i = 0; i < classNameList.size(); i++) {
+			final String packageName = packageNameList.get(i);
+			bloomFilter.add(packageName, classNameList.get(i));
+			
+			if (! packageName.equals(lastPackageName)) {
+				packageTrie.addPackageName(packageName);
+				lastPackageName = packageName;
+			}
+		}
+		
+		packageClassBloomFilter = bloomFilter;
+		
+		log.verbose("buildPackageClassBloomFilter: insertionCount=" + bloomFilter.getInsertionCount() +
+		            ", expectedFalsePositiveRate=" + bloomFilter.getExpectedFalsePositiveRate());
+	}
+	
 	/**
 	 * Search string count number of '.' in string
 	 * 
@@ -242,13 +792,20 @@ public class PackageResolve {
 	}
 
 	/**
-	 * Append unique path and file name to list of paths and filenames
+	 * Record the path and file a class resolved to and append it, if
+	 * unique, to list of paths and filenames
 	 * 
 	 * @param pathFile
+	 * @param packageClassData
 	 * @param pathFileList
 	 */
 	private void addUniquePathFileToList(final String pathFile,
+			                             final PackageClassData packageClassData,
 			                             final List<String> pathFileList) {
+		if (pathFile != null && ! pathFile.isBlank()) {
+			packageClassData.setPathFile(pathFile);
+		}
+		
 		if (pathFileList != null && pathFile != null && ! pathFile.isBlank() &&
 		    ! pathFileList.contains(pathFile)) {
 			
@@ -290,9 +847,9 @@ public class PackageResolve {
 				    log.verbose("resolveUseClassNameImports: [" + description + "] try packageName=" +
 			                    packageName);
 
-				    final PackageResolveResult result = packageResolveCallback.onPackageResolveCallback(packageName, className);
+				    final PackageResolveResult result = probe(ResolveStrategy.CLASS_NAME_IMPORT, packageResolveCallback, packageName, className);
 				    if (result.isSuccess()) {
-				    	addUniquePathFileToList(result.getPathFile(), pathFileList);
+				    	addUniquePathFileToList(result.getPathFile(), packageClassData, pathFileList);
 				       	packageClassData.setPackageName(packageName);
 			    	    packageClassData.setResolved(true);
 
@@ -336,10 +893,10 @@ public class PackageResolve {
 		for (final ImportData importData : importList) {
 			if (importData.getImportType() == ImportType.WILDCARD) {
 			    final PackageResolveResult result = 
-			    	packageResolveCallback.onPackageResolveCallback(importData.getImportName(), className);
+			    	probe(ResolveStrategy.WILDCARD_IMPORT, packageResolveCallback, importData.getImportName(), className);
 			    
 			    if (result.isSuccess()) {	
-			    	addUniquePathFileToList(result.getPathFile(), pathFileList);
+			    	addUniquePathFileToList(result.getPathFile(), packageClassData, pathFileList);
                             
 			    	final String packageName = importData.getImportName();			    		
 			        packageClassData.setPackageName(packageName);
@@ -434,7 +991,7 @@ public class PackageResolve {
 		            JAVA_LANG_PACKAGE_NAME + ". className=" + className);
 				
 		final PackageResolveResult result = 
-			packageResolveOnClassPath.onPackageResolveCallback(JAVA_LANG_PACKAGE_NAME, className);
+			probe(ResolveStrategy.JAVA_LANG, packageResolveOnClassPath, JAVA_LANG_PACKAGE_NAME, className);
 	    
 		if (result.isSuccess()) {
 	        packageClassData.setPackageName(JAVA_LANG_PACKAGE_NAME);
@@ -485,10 +1042,10 @@ public class PackageResolve {
 		            defaultPackageName + ", primaryClassName=" + primaryClassName);
 		    		    
 		final PackageResolveResult result = 
-			packageResolveCallback.onPackageResolveCallback(defaultPackageName, primaryClassName);
+			probe(ResolveStrategy.CLASS_PACKAGE, packageResolveCallback, defaultPackageName, primaryClassName);
 		 
 		if (result.isSuccess()) {    			
-		    addUniquePathFileToList(result.getPathFile(), pathFileList);
+		    addUniquePathFileToList(result.getPathFile(), packageClassData, pathFileList);
 		    			
 			packageClassData.setPackageName(defaultPackageName);
         	packageClassData.setClassName(primaryClassName);
@@ -0,0 +1,56 @@
+package dev.webfx.parse;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Implemented by resolvers that know up front every package and
+ * class name they can resolve, so probes for anything else can be
+ * rejected without calling the resolver
+ *
+ * @author Alexander Belch
+ */
+public interface PackageResolveIndex {
+
+	/**
+	 * Supply every package and class name that the resolver
+	 * can return success for
+	 *
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	public void forEachPackageClassName(final BiConsumer<String, String> packageClassNameConsumer);
+
+	/**
+	 * Return whether the names supplied are all the resolver can return
+	 * success for, only then may its probes be rejected by a filter of them
+	 *
+	 * @return True if complete
+	 */
+	public default boolean isComplete() {
+		return true;
+	}
+
+	/**
+	 * Return a version that changes whenever the names supplied change,
+	 * filters built from the names are rebuilt when it does
+	 *
+	 * @return The version, constant for an index that does not change
+	 */
+	public default long getIndexVersion() {
+		return 0;
+	}
+
+	/**
+	 * Rescan the names, for an index of files that may change
+	 */
+	public default void refresh() {
+		// Nothing to rescan
+	}
+
+	/**
+	 * Rescan the names if the files changed since the last scan, called
+	 * at the start of each run so files added between runs are found
+	 */
+	public default void refreshIfModified() {
+		refresh();
+	}
+}
@@ -1,9 +1,25 @@
- package dev.webfx.parse;
+package dev.webfx.parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleReader;
+import java.lang.module.ResolvedModule;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * @author Alexander Belch
  */
-public class PackageResolveOnClassPath implements PackageResolveCallback {
+public class PackageResolveOnClassPath implements PackageResolveCallback, PackageResolveIndex {
+
+	private static final String CLASS_FILE_SUFFIX = ".class";
+	private static final String VERSIONS_PREFIX = "META-INF/versions/";
 
 	private final Log log;
 
@@ -16,11 +32,12 @@ public class PackageResolveOnClassPath implements PackageResolveCallback {
 	}
 
 	/**
-	 * Test if class exists on the class loader path
-	 * 
+	 * Test if class exists on the class loader path, JDK packages are
+	 * answered from the JDK package index without loading the class
+	 *
 	 * @param packageName The package name
 	 * @param className The class name
-	 * 
+	 *
 	 * @return Package resolve result
 	 */
 	@Override
@@ -29,10 +46,18 @@ public class PackageResolveOnClassPath implements PackageResolveCallback {
 
 		log.verbose("PackageResolveOnClassPath.onPackageResolveCallback: packageName=" + packageName + ", className=" + className);
 
+		final JdkPackageIndex jdkPackageIndex = JdkPackageIndex.getInstance();
+		if (jdkPackageIndex.containsPackageName(packageName)) {
+			final boolean resolved = jdkPackageIndex.containsClassName(packageName, className);
+			log.verbose("PackageResolveOnClassPath.onPackageResolveCallback: " +
+		                "jdkPackageIndex resolved=" + resolved);
+			return new PackageResolveResult(resolved, null);
+		}
+
 		final String packageClassName = packageName + "." + className;
 		try {
 			if (Class.forName(packageClassName, false, getClass().getClassLoader()) != null) {
-				log.verbose("PackageResolveOnClassPath.onPackageResolveCallback: " + 
+				log.verbose("PackageResolveOnClassPath.onPackageResolveCallback: " +
 			                   "resolved=true packageName=" + packageName +
 			                   ", className=" + className);
 		        return new PackageResolveResult(true, null);
@@ -43,7 +68,7 @@ public class PackageResolveOnClassPath implements PackageResolveCallback {
 		}
 
 		log.verbose("PackageResolveOnClassPath.onPackageResolveCallback: Done.");
-		
+
 		return new PackageResolveResult(false, null);
 	}
 
@@ -54,4 +79,114 @@ public class PackageResolveOnClassPath implements PackageResolveCallback {
 	public String onPackgeResolveDescription() {
 		return "CLASSPATH";
 	}
+
+	/**
+	 * Supply the JDK package index, then scan every other module in the
+	 * boot layer and every class path entry for top level class files
+	 *
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	@Override
+	public void forEachPackageClassName(final BiConsumer<String, String> packageClassNameConsumer) {
+		log.verbose("PackageResolveOnClassPath.forEachPackageClassName: Called...");
+
+		final JdkPackageIndex jdkPackageIndex = JdkPackageIndex.getInstance();
+		jdkPackageIndex.forEachPackageClassName(packageClassNameConsumer);
+
+		for (final ResolvedModule resolvedModule : ModuleLayer.boot().configuration().modules()) {
+			if (jdkPackageIndex.containsModuleName(resolvedModule.name())) {
+				continue;
+			}
+
+			try (final ModuleReader moduleReader = resolvedModule.reference().open();
+				 final Stream<String> resourceNames = moduleReader.list()) {
+				resourceNames.forEach(resourceName -> acceptClassResourceName(resourceName, packageClassNameConsumer));
+			}
+			catch (final IOException | UncheckedIOException e) {
+				log.warn("PackageResolveOnClassPath.forEachPackageClassName: module=" +
+			             resolvedModule.name() + ", Exception " + e.getMessage());
+			}
+		}
+
+		final String classPath = System.getProperty("java.class.path", "");
+		for (final String classPathEntry : classPath.split(File.pathSeparator)) {
+			if (! classPathEntry.isBlank()) {
+				forEachClassPathEntryClassName(Path.of(classPathEntry), packageClassNameConsumer);
+			}
+		}
+
+		log.verbose("PackageResolveOnClassPath.forEachPackageClassName: Done.");
+	}
+
+	/**
+	 * The names are those of the boot layer and java.class.path, while
+	 * the probes load through the class loader of this class. Under any
+	 * other loader, an application server or plugin host, it can load
+	 * classes the names miss
+	 *
+	 * @return False, probes are not filtered
+	 */
+	@Override
+	public boolean isComplete() {
+		return false;
+	}
+
+	/**
+	 * Convert a class file resource name e.g. java/util/Map.class to package
+	 * and class name, nested classes, module-info and package-info are skipped
+	 *
+	 * @param resourceName The resource name using '/' separators
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	public static void acceptClassResourceName(final String resourceName,
+			                                   final BiConsumer<String, String> packageClassNameConsumer) {
+		if (! resourceName.endsWith(CLASS_FILE_SUFFIX) || resourceName.indexOf('$') >= 0) {
+			return;
+		}
+
+		String name = resourceName;
+		if (name.startsWith(VERSIONS_PREFIX)) {
+			final int index = name.indexOf('/', VERSIONS_PREFIX.length());
+			name = name.substring(index + 1);
+		}
+
+		final int index = name.lastIndexOf('/');
+		final String className = name.substring(index + 1, name.length() - CLASS_FILE_SUFFIX.length());
+		if (index < 0 || className.endsWith("-info")) {
+			return;
+		}
+
+		packageClassNameConsumer.accept(name.substring(0, index).replace('/', '.'), className);
+	}
+
+	/**
+	 * List class files in a class path directory or jar
+	 *
+	 * @param classPathEntry Directory or jar file
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	private void forEachClassPathEntryClassName(final Path classPathEntry,
+			                                    final BiConsumer<String, String> packageClassNameConsumer) {
+		try {
+			if (Files.isDirectory(classPathEntry)) {
+				try (final Stream<Path> paths = Files.walk(classPathEntry)) {
+					paths.forEach(path ->
+						acceptClassResourceName(classPathEntry.relativize(path).toString().replace(File.separatorChar, '/'),
+								                packageClassNameConsumer));
+				}
+			}
+			else if (Files.isRegularFile(classPathEntry)) {
+				try (final ZipFile zipFile = new ZipFile(classPathEntry.toFile())) {
+					final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+					while (zipEntries.hasMoreElements()) {
+						acceptClassResourceName(zipEntries.nextElement().getName(), packageClassNameConsumer);
+					}
+				}
+			}
+		}
+		catch (final IOException | UncheckedIOException e) {
+			log.warn("PackageResolveOnClassPath.forEachClassPathEntryClassName: classPathEntry=" +
+		             classPathEntry + ", Exception " + e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,321 @@
+package dev.webfx.parse;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Resolve package and class names to class files inside an explicit list
+ * of jar files. Each jar's ZIP central directory is read through a memory
+ * map, without inflating any entry or loading any class, into a package to
+ * class index. Jars are indexed in parallel. Resolvers created with an
+ * engine share its jar index cache, keyed by jar path and rebuilt when the
+ * jar's size or modified time changes, the old index is then replaced.
+ * Without an engine the indexes are the resolver's own.
+ *
+ * Resolved path and file is in the form /path/lib.jar!/com/abc/SomeClass.class
+ *
+ * @author Alexander Belch
+ */
+public class PackageResolveOnJars implements PackageResolveCallback, PackageResolveIndex {
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054B50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064B50;
+	private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064B50;
+	private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014B50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+	private static final int ZIP64_LOCATOR_LENGTH = 20;
+	private static final int CENTRAL_DIRECTORY_HEADER_LENGTH = 46;
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+	private final Log log;
+
+	private final Map<String, JarIndex> jarIndexCache;
+	private final List<JarIndex> jarIndexList;
+
+	/**
+	 * Parameter constructor, indexes the jars
+	 *
+	 * @param jarPathFileList Jar path and files
+	 */
+	public PackageResolveOnJars(final List<String> jarPathFileList) {
+		this(jarPathFileList, new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Parameter constructor, indexes the jars through the engine's cache
+	 *
+	 * @param jarPathFileList Jar path and files
+	 * @param processorEngine The engine whose jar index cache is used
+	 */
+	public PackageResolveOnJars(final List<String> jarPathFileList,
+			                    final ProcessorEngine processorEngine) {
+		this(jarPathFileList, processorEngine.getJarIndexCache());
+	}
+
+	/**
+	 * Parameter constructor, indexes the jars through a cache
+	 *
+	 * @param jarPathFileList Jar path and files
+	 * @param jarIndexCache Jar indexes by jar path
+	 */
+	private PackageResolveOnJars(final List<String> jarPathFileList,
+			                     final Map<String, JarIndex> jarIndexCache) {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		this.jarIndexCache = jarIndexCache;
+		jarIndexList = jarPathFileList.parallelStream()
+			.map(jarPathFile -> getJarIndex(Path.of(jarPathFile).toAbsolutePath().normalize()))
+			.filter(Objects::nonNull)
+			.toList();
+
+		log.verbose("PackageResolveOnJars: jarCount=" + jarIndexList.size());
+	}
+
+	/**
+	 * Resolve from the index
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 *
+	 * @return Package resolve result with the jar entry path and file
+	 */
+	@Override
+	public PackageResolveResult onPackageResolveCallback(final String packageName,
+			                                             final String className) {
+		log.verbose("PackageResolveOnJars.onPackageResolveCallback: packageName=" + packageName + ", className=" + className);
+
+		for (final JarIndex jarIndex : jarIndexList) {
+			final Map<String, String> classEntryLookup = jarIndex.packageClassEntryLookup.get(packageName);
+			if (classEntryLookup != null) {
+				final String entryName = classEntryLookup.get(className);
+				if (entryName != null) {
+					final String pathFile = jarIndex.jarPathFile + ClassFileParse.JAR_ENTRY_SEPARATOR + entryName;
+					log.verbose("PackageResolveOnJars.onPackageResolveCallback: resolved pathFile=" + pathFile);
+					return new PackageResolveResult(true, pathFile);
+				}
+			}
+		}
+
+		log.verbose("PackageResolveOnJars.onPackageResolveCallback: Not resolved");
+
+		return new PackageResolveResult(false, null);
+	}
+
+	/**
+	 * @return description
+	 */
+	@Override
+	public String onPackgeResolveDescription() {
+		return "JARS";
+	}
+
+	/**
+	 * Supply every indexed package and class name
+	 *
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	@Override
+	public void forEachPackageClassName(final BiConsumer<String, String> packageClassNameConsumer) {
+		for (final JarIndex jarIndex : jarIndexList) {
+			for (final Map.Entry<String, Map<String, String>> entry : jarIndex.packageClassEntryLookup.entrySet()) {
+				for (final String className : entry.getValue().keySet()) {
+					packageClassNameConsumer.accept(entry.getKey(), className);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Paths of the jars indexed
+	 */
+	public List<Path> getJarPathList() {
+		return jarIndexList.stream().map(jarIndex -> Path.of(jarIndex.jarPathFile)).toList();
+	}
+
+	/**
+	 * Get the cached index for a jar or build it if the jar is new or changed
+	 *
+	 * @param jarPath The jar path
+	 *
+	 * @return The jar index or null if the jar cannot be read
+	 */
+	private JarIndex getJarIndex(final Path jarPath) {
+		try {
+			final long size = Files.size(jarPath);
+			final long lastModifiedTime = Files.getLastModifiedTime(jarPath).toMillis();
+
+			final JarIndex cachedJarIndex = jarIndexCache.get(jarPath.toString());
+			if (cachedJarIndex != null && cachedJarIndex.size == size &&
+				cachedJarIndex.lastModifiedTime == lastModifiedTime) {
+				return cachedJarIndex;
+			}
+
+			final JarIndex jarIndex = new JarIndex(jarPath.toString(), size, lastModifiedTime,
+					                               readCentralDirectory(jarPath, size));
+			jarIndexCache.put(jarIndex.jarPathFile, jarIndex);
+
+			log.verbose("PackageResolveOnJars.getJarIndex: jarPathFile=" + jarPath +
+					    ", packageCount=" + jarIndex.packageClassEntryLookup.size());
+
+			return jarIndex;
+		}
+		catch (final IOException | RuntimeException e) {
+			jarIndexCache.remove(jarPath.toString());
+			log.warn("PackageResolveOnJars.getJarIndex: jarPathFile=" + jarPath + ", Exception " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Read the class entry names from the ZIP central directory
+	 *
+	 * @param jarPath The jar path
+	 * @param size The jar file size
+	 *
+	 * @return Package to class name to entry name lookup
+	 *
+	 * @throws IOException Thrown on error or invalid jar
+	 */
+	private Map<String, Map<String, String>> readCentralDirectory(final Path jarPath,
+			                                                      final long size) throws IOException {
+		try (final FileChannel fileChannel = FileChannel.open(jarPath, StandardOpenOption.READ)) {
+
+			// End of central directory record is in the tail, before any comment
+			final long tailLength = Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_COMMENT_LENGTH + ZIP64_LOCATOR_LENGTH);
+			final MappedByteBuffer tail = fileChannel.map(FileChannel.MapMode.READ_ONLY, size - tailLength, tailLength);
+			tail.order(ByteOrder.LITTLE_ENDIAN);
+
+			int endIndex = -1;
+			for (int i = (int) tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--) {
+				if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+					endIndex = i;
+					break;
+				}
+			}
+			if (endIndex < 0) {
+				throw new IOException("No end of central directory");
+			}
+
+			long entryCount = tail.getShort(endIndex + 10) & 0xFFFFL;
+			long directoryLength = tail.getInt(endIndex + 12) & 0xFFFFFFFFL;
+			long directoryOffset = tail.getInt(endIndex + 16) & 0xFFFFFFFFL;
+
+			// Zip64 holds the real values in a separate record
+			final int locatorIndex = endIndex - ZIP64_LOCATOR_LENGTH;
+			if (locatorIndex >= 0 && tail.getInt(locatorIndex) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+				final long recordOffset = tail.getLong(locatorIndex + 8);
+				final MappedByteBuffer record = fileChannel.map(FileChannel.MapMode.READ_ONLY, recordOffset, 56);
+				record.order(ByteOrder.LITTLE_ENDIAN);
+				if (record.getInt(0) == ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+					entryCount = record.getLong(32);
+					directoryLength = record.getLong(40);
+					directoryOffset = record.getLong(48);
+				}
+			}
+
+			final MappedByteBuffer directory = fileChannel.map(FileChannel.MapMode.READ_ONLY, directoryOffset, directoryLength);
+			directory.order(ByteOrder.LITTLE_ENDIAN);
+
+			final Map<String, Map<String, String>> packageClassEntryLookup = new HashMap<>();
+			final byte[] nameBytes = new byte[MAX_COMMENT_LENGTH];
+
+			int position = 0;
+			for (long i = 0; i < entryCount && position + CENTRAL_DIRECTORY_HEADER_LENGTH <= directoryLength; i++) {
+				if (directory.getInt(position) != CENTRAL_DIRECTORY_SIGNATURE) {
+					throw new IOException("Invalid central directory entry");
+				}
+
+				final int nameLength = directory.getShort(position + 28) & 0xFFFF;
+				final int extraLength = directory.getShort(position + 30) & 0xFFFF;
+				final int commentLength = directory.getShort(position + 32) & 0xFFFF;
+
+				directory.get(position + CENTRAL_DIRECTORY_HEADER_LENGTH, nameBytes, 0, nameLength);
+				if (isTopLevelClassEntry(nameBytes, nameLength)) {
+					final String entryName = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+					PackageResolveOnClassPath.acceptClassResourceName(entryName, (packageName, className) ->
+						packageClassEntryLookup.computeIfAbsent(packageName, key -> new HashMap<>())
+						                       .merge(className, entryName, PackageResolveOnJars::preferBaseEntry));
+				}
+
+				position += CENTRAL_DIRECTORY_HEADER_LENGTH + nameLength + extraLength + commentLength;
+			}
+
+			return packageClassEntryLookup;
+		}
+	}
+
+	/**
+	 * Test entry name bytes end in .class and hold no '$', so only
+	 * top level class names are decoded into strings
+	 *
+	 * @param nameBytes Entry name bytes
+	 * @param nameLength Entry name length
+	 *
+	 * @return True if a top level class entry
+	 */
+	private static boolean isTopLevelClassEntry(final byte[] nameBytes,
+			                                    final int nameLength) {
+		final int suffixLength = ClassFileParse.CLASS_FILE_SUFFIX.length();
+		if (nameLength <= suffixLength) {
+			return false;
+		}
+
+		for (int i = 0; i < suffixLength; i++) {
+			if (nameBytes[nameLength - suffixLength + i] != ClassFileParse.CLASS_FILE_SUFFIX.charAt(i)) {
+				return false;
+			}
+		}
+
+		for (int i = 0; i < nameLength; i++) {
+			if (nameBytes[i] == '$') {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Multi release jars may hold a class in the base and versioned
+	 * directories, keep the base entry
+	 */
+	private static String preferBaseEntry(final String entryName,
+			                              final String otherEntryName) {
+		return entryName.startsWith("META-INF/") ? otherEntryName : entryName;
+	}
+
+	/**
+	 * Index of one jar, held by the engine's cache
+	 */
+	static class JarIndex {
+		private final String jarPathFile;
+		private final long size;
+		private final long lastModifiedTime;
+		private final Map<String, Map<String, String>> packageClassEntryLookup;
+
+		private JarIndex(final String jarPathFile,
+				         final long size,
+				         final long lastModifiedTime,
+				         final Map<String, Map<String, String>> packageClassEntryLookup) {
+			this.jarPathFile = jarPathFile;
+			this.size = size;
+			this.lastModifiedTime = lastModifiedTime;
+			this.packageClassEntryLookup = Collections.unmodifiableMap(packageClassEntryLookup);
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package dev.webfx.parse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Resolve package and class names to Java source files found under a list
+ * of source roots, class files are used where there is no source file. The roots are scanned once, in parallel, into a
+ * package to class to path index so probes are answered from memory.
+ * Package directories are rescanned lazily when their modified time changes,
+ * all roots are rescanned at the start of a run if any directory changed.
+ *
+ * @author Alexander Belch
+ */
+public class PackageResolveOnSourceRoots implements PackageResolveCallback, PackageResolveIndex {
+
+	private static final String JAVA_FILE_SUFFIX = ".java";
+
+	private static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 1000;
+
+	private final Log log;
+
+	private final List<Path> sourceRootList;
+
+	private final Map<String, List<PackageDirectory>> packageDirectoryLookup;
+
+	private final Map<Path, Long> directoryModifiedTimeLookup;
+
+	private long refreshIntervalNanos;
+
+	private final AtomicLong indexVersion;
+
+	/**
+	 * Parameter constructor, scans the source roots
+	 *
+	 * @param sourceRootList Source root directories e.g. /project/src/main/java
+	 */
+	public PackageResolveOnSourceRoots(final List<String> sourceRootList) {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		this.sourceRootList = new ArrayList<>();
+		for (final String sourceRoot : sourceRootList) {
+			this.sourceRootList.add(Path.of(sourceRoot).toAbsolutePath().normalize());
+		}
+
+		packageDirectoryLookup = new ConcurrentHashMap<>();
+		directoryModifiedTimeLookup = new ConcurrentHashMap<>();
+		indexVersion = new AtomicLong();
+		refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_REFRESH_INTERVAL_MILLIS);
+
+		refresh();
+	}
+
+	/**
+	 * Set the minimum time between checks of a package directory modified time
+	 *
+	 * @param refreshIntervalMillis Interval in milliseconds, 0 to check on every probe
+	 */
+	public void setRefreshIntervalMillis(final long refreshIntervalMillis) {
+		refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+	}
+
+	/**
+	 * Rescan all source roots, needed to find packages added after the scan
+	 */
+	@Override
+	public void refresh() {
+		log.verbose("PackageResolveOnSourceRoots.refresh: Called...");
+
+		final List<Path[]> scanList = new ArrayList<>();
+		for (final Path sourceRoot : sourceRootList) {
+			scanList.add(new Path[] { sourceRoot, sourceRoot });
+			forEachSubDirectory(sourceRoot, directory -> scanList.add(new Path[] { sourceRoot, directory }));
+		}
+
+		final Map<String, List<PackageDirectory>> lookup = new ConcurrentHashMap<>();
+		final Map<Path, Long> modifiedTimeLookup = new ConcurrentHashMap<>();
+
+		// Each root and each directory below a root is walked as its own task,
+		// the root entry itself only picks up files in the default package
+		scanList.parallelStream().forEach(scan -> {
+			final Path sourceRoot = scan[0];
+			final Path startDirectory = scan[1];
+			final boolean rootOnly = sourceRoot.equals(startDirectory);
+
+			try {
+				Files.walkFileTree(startDirectory, new SimpleFileVisitor<Path>() {
+					@Override
+					public FileVisitResult preVisitDirectory(final Path directory,
+							                                 final BasicFileAttributes attributes) {
+						if (rootOnly && ! directory.equals(sourceRoot)) {
+							return FileVisitResult.SKIP_SUBTREE;
+						}
+
+						final PackageDirectory packageDirectory = new PackageDirectory(sourceRoot, directory);
+						packageDirectory.lastModifiedTime = attributes.lastModifiedTime().toMillis();
+						modifiedTimeLookup.put(directory, packageDirectory.lastModifiedTime);
+						packageDirectory.classPathFileLookup = scanPackageDirectory(directory);
+
+						if (! packageDirectory.classPathFileLookup.isEmpty()) {
+							lookup.computeIfAbsent(packageDirectory.packageName, key -> Collections.synchronizedList(new ArrayList<>()))
+							      .add(packageDirectory);
+						}
+						return FileVisitResult.CONTINUE;
+					}
+				});
+			}
+			catch (final IOException ioe) {
+				log.warn("PackageResolveOnSourceRoots.refresh: directory=" + startDirectory + ", IOException " + ioe.getMessage());
+			}
+		});
+
+		// Keep source root order so the first root wins for duplicate classes
+		for (final List<PackageDirectory> packageDirectoryList : lookup.values()) {
+			packageDirectoryList.sort((a, b) -> Integer.compare(sourceRootList.indexOf(a.sourceRoot),
+					                                            sourceRootList.indexOf(b.sourceRoot)));
+		}
+
+		packageDirectoryLookup.clear();
+		packageDirectoryLookup.putAll(lookup);
+		directoryModifiedTimeLookup.clear();
+		directoryModifiedTimeLookup.putAll(modifiedTimeLookup);
+		indexVersion.incrementAndGet();
+
+		log.verbose("PackageResolveOnSourceRoots.refresh: packageCount=" + packageDirectoryLookup.size());
+	}
+
+	/**
+	 * Rescan all source roots if the modified time of any directory
+	 * scanned has changed. Adding or removing a file or a directory
+	 * changes the modified time of its parent directory, so only
+	 * the directories already scanned are checked
+	 */
+	@Override
+	public void refreshIfModified() {
+		for (final Map.Entry<Path, Long> entry : directoryModifiedTimeLookup.entrySet()) {
+			long lastModifiedTime;
+			try {
+				lastModifiedTime = Files.getLastModifiedTime(entry.getKey()).toMillis();
+			}
+			catch (final IOException ioe) {
+				// Directory removed
+				lastModifiedTime = -1;
+			}
+
+			if (lastModifiedTime != entry.getValue()) {
+				log.verbose("PackageResolveOnSourceRoots.refreshIfModified: directory=" + entry.getKey());
+				refresh();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Resolve from the index
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 *
+	 * @return Package resolve result with the source path and file
+	 */
+	@Override
+	public PackageResolveResult onPackageResolveCallback(final String packageName,
+			                                             final String className) {
+		log.verbose("PackageResolveOnSourceRoots.onPackageResolveCallback: packageName=" + packageName + ", className=" + className);
+
+		final List<PackageDirectory> packageDirectoryList = packageDirectoryLookup.get(packageName);
+		if (packageDirectoryList != null) {
+			for (final PackageDirectory packageDirectory : packageDirectoryList) {
+				refreshIfModified(packageDirectory);
+
+				final String pathFile = packageDirectory.classPathFileLookup.get(className);
+				if (pathFile != null) {
+					log.verbose("PackageResolveOnSourceRoots.onPackageResolveCallback: resolved pathFile=" + pathFile);
+					return new PackageResolveResult(true, pathFile);
+				}
+			}
+		}
+
+		log.verbose("PackageResolveOnSourceRoots.onPackageResolveCallback: Not resolved");
+
+		return new PackageResolveResult(false, null);
+	}
+
+	/**
+	 * @return description
+	 */
+	@Override
+	public String onPackgeResolveDescription() {
+		return "SOURCEROOTS";
+	}
+
+	/**
+	 * Supply every indexed package and class name
+	 *
+	 * @param packageClassNameConsumer Accepts package name and class name
+	 */
+	@Override
+	public void forEachPackageClassName(final BiConsumer<String, String> packageClassNameConsumer) {
+		for (final Map.Entry<String, List<PackageDirectory>> entry : packageDirectoryLookup.entrySet()) {
+			for (final PackageDirectory packageDirectory : entry.getValue()) {
+				for (final String className : packageDirectory.classPathFileLookup.keySet()) {
+					packageClassNameConsumer.accept(entry.getKey(), className);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Version incremented by each rescan of all roots or of a package directory
+	 */
+	@Override
+	public long getIndexVersion() {
+		return indexVersion.get();
+	}
+
+	/**
+	 * @return The source roots
+	 */
+	public List<Path> getSourceRootList() {
+		return Collections.unmodifiableList(sourceRootList);
+	}
+
+	/**
+	 * Rescan a package directory if the refresh interval has passed
+	 * and the directory modified time has changed
+	 *
+	 * @param packageDirectory The package directory
+	 */
+	private void refreshIfModified(final PackageDirectory packageDirectory) {
+		final long nowNanos = System.nanoTime();
+		if (nowNanos - packageDirectory.checkedNanoTime < refreshIntervalNanos) {
+			return;
+		}
+		packageDirectory.checkedNanoTime = nowNanos;
+
+		try {
+			final long lastModifiedTime = Files.getLastModifiedTime(packageDirectory.directory).toMillis();
+			if (lastModifiedTime != packageDirectory.lastModifiedTime) {
+				log.verbose("PackageResolveOnSourceRoots.refreshIfModified: directory=" + packageDirectory.directory);
+
+				packageDirectory.classPathFileLookup = scanPackageDirectory(packageDirectory.directory);
+				packageDirectory.lastModifiedTime = lastModifiedTime;
+				directoryModifiedTimeLookup.put(packageDirectory.directory, lastModifiedTime);
+				indexVersion.incrementAndGet();
+			}
+		}
+		catch (final IOException ioe) {
+			// Directory removed
+			packageDirectory.classPathFileLookup = Collections.emptyMap();
+			indexVersion.incrementAndGet();
+		}
+	}
+
+	/**
+	 * List the Java source and class files directly within a directory
+	 *
+	 * @param directory The package directory
+	 *
+	 * @return Class name to path and file lookup
+	 */
+	private Map<String, String> scanPackageDirectory(final Path directory) {
+		final Map<String, String> classPathFileLookup = new HashMap<>();
+
+		try (final DirectoryStream<Path> directoryStream = 
+				Files.newDirectoryStream(directory, "*{" + JAVA_FILE_SUFFIX + "," + ClassFileParse.CLASS_FILE_SUFFIX + "}")) {
+			for (final Path path : directoryStream) {
+				final String fileName = path.getFileName().toString();
+				final boolean javaFile = fileName.endsWith(JAVA_FILE_SUFFIX);
+				final String className = fileName.substring(0, fileName.lastIndexOf('.'));
+				
+				// Source files win over compiled classes, nested classes
+				// are read along with their top level class file
+				if (className.indexOf('-') < 0 && className.indexOf('$') < 0 &&
+					(javaFile || ! classPathFileLookup.containsKey(className))) {
+					classPathFileLookup.put(className, path.toString());
+				}
+			}
+		}
+		catch (final IOException | UncheckedIOException e) {
+			log.warn("PackageResolveOnSourceRoots.scanPackageDirectory: directory=" + directory + ", Exception " + e.getMessage());
+		}
+
+		return classPathFileLookup;
+	}
+
+	/**
+	 * Call consumer for each directory directly within a directory
+	 *
+	 * @param directory The directory
+	 * @param directoryConsumer Accepts each sub directory
+	 */
+	private void forEachSubDirectory(final Path directory,
+			                         final Consumer<Path> directoryConsumer) {
+		try (final Stream<Path> paths = Files.list(directory)) {
+			paths.filter(Files::isDirectory).forEach(directoryConsumer);
+		}
+		catch (final IOException | UncheckedIOException e) {
+			log.warn("PackageResolveOnSourceRoots.forEachSubDirectory: directory=" + directory + ", Exception " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A package directory within a source root
+	 */
+	private static class PackageDirectory {
+		private final Path sourceRoot;
+		private final Path directory;
+		private final String packageName;
+
+		private volatile long lastModifiedTime;
+		private volatile long checkedNanoTime;
+		private volatile Map<String, String> classPathFileLookup;
+
+		private PackageDirectory(final Path sourceRoot,
+				                 final Path directory) {
+			this.sourceRoot = sourceRoot;
+			this.directory = directory;
+			this.packageName = sourceRoot.relativize(directory).toString().replace(directory.getFileSystem().getSeparator(), ".");
+			this.checkedNanoTime = System.nanoTime();
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package dev.webfx.parse;
+
+import java.util.Arrays;
+
+/**
+ * Character trie of known package names, used to split a qualified
+ * name such as a.b.c.Outer.Inner into package and class parts with a
+ * single forward scan and no string allocation. A trie may sit over a
+ * base trie shared between processors, names are added to the top
+ * trie and lookups see both.
+ *
+ * @author Alexander Belch
+ */
+public class PackageTrie {
+
+	private final Node rootNode;
+
+	private final PackageTrie baseTrie;
+
+	private int packageCount;
+
+	/**
+	 * Default constructor
+	 */
+	public PackageTrie() {
+		this(null);
+	}
+
+	/**
+	 * Parameter constructor, a trie over a base trie that must not
+	 * be modified while this trie is in use
+	 *
+	 * @param baseTrie The base trie or null for none
+	 */
+	public PackageTrie(final PackageTrie baseTrie) {
+		rootNode = new Node();
+		this.baseTrie = baseTrie;
+	}
+
+	/**
+	 * Add a package name
+	 *
+	 * @param packageName The package name e.g. com.abc
+	 */
+	public void addPackageName(final String packageName) {
+		if (packageName == null || packageName.isEmpty() ||
+			(baseTrie != null && baseTrie.containsPackageName(packageName))) {
+			return;
+		}
+
+		Node node = rootNode;
+		for (int i = 0; i < packageName.length(); i++) {
+			node = node.getOrAddChild(packageName.charAt(i));
+		}
+
+		if (! node.packageEnd) {
+			node.packageEnd = true;
+			packageCount++;
+		}
+	}
+
+	/**
+	 * Add all packages in the boot module layer i.e. the runtime JDK
+	 * and anything on the module path
+	 */
+	public void addBootLayerPackageNames() {
+		for (final Module module : ModuleLayer.boot().modules()) {
+			for (final String packageName : module.getPackages()) {
+				addPackageName(packageName);
+			}
+		}
+	}
+
+	/**
+	 * Test if the package name is known
+	 *
+	 * @param packageName The package name
+	 *
+	 * @return True if known, false if not
+	 */
+	public boolean containsPackageName(final String packageName) {
+		final Node node = findNode(packageName);
+		return (node != null && node.packageEnd) ||
+			   (baseTrie != null && baseTrie.containsPackageName(packageName));
+	}
+
+	/**
+	 * Find the longest known package at the start of a qualified name that
+	 * is followed by at least one class name part
+	 *
+	 * @param qualifiedName The qualified name e.g. com.abc.Outer.Inner
+	 *
+	 * @return Index of the '.' following the package or -1 if no known package prefix
+	 */
+	public int getLongestPackagePrefixIndex(final String qualifiedName) {
+		int index = -1;
+
+		Node node = rootNode;
+		for (int i = 0; i < qualifiedName.length() && node != null; i++) {
+			final char c = qualifiedName.charAt(i);
+			if (c == '.' && node.packageEnd) {
+				index = i;
+			}
+			node = node.getChild(c);
+		}
+
+		return baseTrie != null ? Math.max(index, baseTrie.getLongestPackagePrefixIndex(qualifiedName)) : index;
+	}
+
+	/**
+	 * @return Number of known packages
+	 */
+	public int size() {
+		return baseTrie != null ? packageCount + baseTrie.size() : packageCount;
+	}
+
+	/**
+	 * Walk the trie for all characters of a name
+	 *
+	 * @param name The name
+	 *
+	 * @return The node reached or null if not present
+	 */
+	private Node findNode(final String name) {
+		Node node = rootNode;
+		for (int i = 0; i < name.length() && node != null; i++) {
+			node = node.getChild(name.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Trie node, children are held in small parallel arrays as
+	 * package names have a narrow branching factor
+	 */
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean packageEnd;
+
+		private Node getChild(final char c) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node getOrAddChild(final char c) {
+			Node child = getChild(c);
+			if (child == null) {
+				child = new Node();
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				children = Arrays.copyOf(children, children.length + 1);
+				keys[keys.length - 1] = c;
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+}
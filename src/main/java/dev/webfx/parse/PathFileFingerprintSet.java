@@ -0,0 +1,160 @@
+package dev.webfx.parse;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+/**
+ * Set of path and files held as 64 bit fingerprints in an open addressing
+ * table, 8 to 16 bytes a path instead of the path string and its node.
+ * Used for the visited files in low memory mode, where the names are not
+ * needed again. Two paths share a fingerprint with odds of about n^2/2^65
+ * for n paths, the second would then be taken as visited.
+ *
+ * The names are not kept so the set cannot be iterated. Thread safe.
+ *
+ * @author Alexander Belch
+ */
+class PathFileFingerprintSet extends AbstractSet<String> {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final long EMPTY = 0;
+
+	private long[] fingerprints;
+	private int size;
+
+	/**
+	 * Default constructor
+	 */
+	PathFileFingerprintSet() {
+		fingerprints = new long[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public synchronized boolean add(final String pathFile) {
+		final long fingerprint = fingerprint(pathFile);
+
+		int slot = findSlot(fingerprints, fingerprint);
+		if (fingerprints[slot] == fingerprint) {
+			return false;
+		}
+
+		// Keep the load at most three quarters
+		if ((size + 1) * 4L > fingerprints.length * 3L) {
+			resize();
+			slot = findSlot(fingerprints, fingerprint);
+		}
+
+		fingerprints[slot] = fingerprint;
+		size++;
+		return true;
+	}
+
+	@Override
+	public synchronized boolean contains(final Object object) {
+		if (! (object instanceof String pathFile)) {
+			return false;
+		}
+		final long fingerprint = fingerprint(pathFile);
+		return fingerprints[findSlot(fingerprints, fingerprint)] == fingerprint;
+	}
+
+	@Override
+	public synchronized boolean remove(final Object object) {
+		if (! (object instanceof String pathFile)) {
+			return false;
+		}
+		final long fingerprint = fingerprint(pathFile);
+		int slot = findSlot(fingerprints, fingerprint);
+		if (fingerprints[slot] != fingerprint) {
+			return false;
+		}
+
+		// Shift later entries of the probe run back over the hole
+		final int mask = fingerprints.length - 1;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			if (fingerprints[next] == EMPTY) {
+				break;
+			}
+			final int home = getHomeSlot(fingerprints[next], mask);
+			if (((next - home) & mask) >= ((next - slot) & mask)) {
+				fingerprints[slot] = fingerprints[next];
+				slot = next;
+			}
+		}
+		fingerprints[slot] = EMPTY;
+		size--;
+		return true;
+	}
+
+	@Override
+	public synchronized void clear() {
+		fingerprints = new long[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * The names are not kept
+	 *
+	 * @throws UnsupportedOperationException Always
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		throw new UnsupportedOperationException("Path and files are held as fingerprints only");
+	}
+
+	/**
+	 * Double the table
+	 */
+	private void resize() {
+		final long[] resizedFingerprints = new long[fingerprints.length * 2];
+		for (final long fingerprint : fingerprints) {
+			if (fingerprint != EMPTY) {
+				resizedFingerprints[findSlot(resizedFingerprints, fingerprint)] = fingerprint;
+			}
+		}
+		fingerprints = resizedFingerprints;
+	}
+
+	/**
+	 * Find the slot holding a fingerprint or the empty slot ending its probe run
+	 */
+	private static int findSlot(final long[] table,
+			                    final long fingerprint) {
+		final int mask = table.length - 1;
+		int slot = getHomeSlot(fingerprint, mask);
+		while (table[slot] != EMPTY && table[slot] != fingerprint) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static int getHomeSlot(final long fingerprint,
+			                       final int mask) {
+		return (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+	}
+
+	/**
+	 * 64 bit FNV-1a of the characters with the MurmurHash3 finalizer,
+	 * never the empty marker
+	 */
+	private static long fingerprint(final String pathFile) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < pathFile.length(); i++) {
+			hash ^= pathFile.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb3fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash != EMPTY ? hash : 1;
+	}
+}
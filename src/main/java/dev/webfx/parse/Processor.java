@@ -1,35 +1,139 @@
 package dev.webfx.parse;
 
+import java.lang.module.ModuleDescriptor;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
+ * Processes one request, its start files, frontier, symbol table and
+ * results. Parsers and the class path index come from a processor engine
+ * that may be shared, processors of one engine run concurrently while
+ * each processor is used by one thread at a time.
+ * 
  * @author Alexander Belch
  */
 public class Processor {
+	private static final String MODULE_INFO_FILE_NAME = "module-info.java";
+	private static final int LOW_MEMORY_SYMBOL_TABLE_SIZE = 1 << 14;
+	
 	private final Log log;
 
-	private final JavaParse javaParse;
+	private final ProcessorEngine processorEngine;
+	private final ClassFileParse classFileParse;
 	private final PackageResolve packageResolve;
+	private final SymbolTable symbolTable;
 	
 	private final Deque<String> pathFileDeque;
-	private final List<String> pathFileProcessedList;
+	private Set<String> pathFileProcessedSet;
+	
+	private final List<ProcessorListener> processorListenerList;
+	
+	private final List<ClassDefinitionData> classDefinitionList;
+	private SymbolDictionary symbolDictionary;
+	private PackageClassStore packageClassStore;
+	private DependencyGraph dependencyGraph;
+	private final Set<String> unresolvedClassNameSet;
+	private boolean lowMemory;
+	private int parallelism;
+	
+	private final Object resolveLock;
+	
+	private final List<String> rootPathFileList;
+	private final Map<String, FileEntry> fileEntryLookup;
+	private PackageNameSet packageNameSet;
+	private int[] packageNameCounts;
+	private boolean updating;
+	
+	private OffHeapStore offHeapStore;
+	private long resolverFingerprint;
+	
+	private ResolveGuard resolveGuard;
+	
+	private ProcessorCancelToken cancelToken;
+	private ProcessorCancelToken runCancelToken;
+	private final List<String> frontierPathFileList;
+	
+	private final Map<Path, Optional<ModuleScope>> moduleScopeLookup;
+	private Map<String, ModuleDescriptor> moduleDescriptorLookup;
+	
+	private TraversalScope traversalScope;
+	private boolean breadthFirst;
+	private final Map<String, Integer> pathFileDepthLookup;
+	private final Set<String> excludedPathFileSet;
+	
+	private final ProcessorMetrics processorMetrics;
+	private ProcessorMetricsSnapshot runMetricsSnapshot;
 	
 	/**
-	 * Create new processor
+	 * Create new processor with an engine of its own
 	 */
 	public Processor() {
+		this(new ProcessorEngine());
+	}
+	
+	/**
+	 * Create new processor sharing an engine's parsers and class path
+	 * index, see ProcessorEngine.createProcessor
+	 * 
+	 * @param processorEngine The engine
+	 */
+	public Processor(final ProcessorEngine processorEngine) {
 		log = new Log();
 		log.setLogLevel(LogType.INFO);
 
-		javaParse = new JavaParse();
-		packageResolve = new PackageResolve();
+		this.processorEngine = processorEngine;
+		classFileParse = processorEngine.getClassFileParse();
+		packageResolve = new PackageResolve(processorEngine);
+		symbolTable = new SymbolTable();
+		packageResolve.setSymbolTable(symbolTable);
+		
+		processorMetrics = new ProcessorMetrics();
+		packageResolve.setProcessorMetrics(processorMetrics);
+		runMetricsSnapshot = processorMetrics.snapshot();
 		
 		pathFileDeque = new ArrayDeque<>();
-		pathFileProcessedList = new ArrayList<>();
+		pathFileProcessedSet = ConcurrentHashMap.newKeySet();
+		processorListenerList = new CopyOnWriteArrayList<>();
+		
+		classDefinitionList = new ArrayList<>();
+		symbolDictionary = new SymbolDictionary();
+		packageClassStore = new PackageClassStore(symbolDictionary);
+		dependencyGraph = new DependencyGraph(symbolDictionary);
+		unresolvedClassNameSet = new HashSet<>();
+		
+		rootPathFileList = new ArrayList<>();
+		fileEntryLookup = new LinkedHashMap<>();
+		packageNameSet = new PackageNameSet(symbolDictionary);
+		packageNameCounts = new int[0];
+		
+		parallelism = 1;
+		resolveLock = new Object();
+		
+		frontierPathFileList = Collections.synchronizedList(new ArrayList<>());
+		
+		moduleScopeLookup = new HashMap<>();
+		
+		pathFileDepthLookup = new ConcurrentHashMap<>();
+		excludedPathFileSet = ConcurrentHashMap.newKeySet();
 	}
 	
 	/**
@@ -42,18 +146,335 @@ public class Processor {
 		packageResolve.setCliPackageResolveCallback(packageResolveCallback);
 	}
 	
+	/**
+	 * Set low memory mode, each file's class definition is released once
+	 * it has been folded into the package names and unresolved class names.
+	 * Each file's names are interned in a dictionary of its own, visited
+	 * paths are held as 64 bit fingerprints and the symbol table keeps the
+	 * most recently used types only, so memory is bounded by distinct
+	 * packages and unresolved names and 8 to 16 bytes per visited path. A
+	 * reference to a secondary or nested type dropped from the symbol table
+	 * is left to the resolvers. Listeners still receive each class
+	 * definition. Default false, definitions are kept and returned by
+	 * getClassDefinitionList
+	 * 
+	 * The visited paths are held in the new mode only if set before
+	 * files are added
+	 * 
+	 * @param lowMemory True for low memory mode
+	 */
+	public void setLowMemory(final boolean lowMemory) {
+		this.lowMemory = lowMemory;
+		
+		if (pathFileProcessedSet.isEmpty()) {
+			pathFileProcessedSet = lowMemory ? new PathFileFingerprintSet() : ConcurrentHashMap.newKeySet();
+		}
+		symbolTable.setMaxSize(lowMemory ? LOW_MEMORY_SYMBOL_TABLE_SIZE : SymbolTable.UNBOUNDED_SIZE);
+	}
+	
+	/**
+	 * @return True if low memory mode
+	 */
+	public boolean isLowMemory() {
+		return lowMemory;
+	}
+	
+	/**
+	 * Set the number of threads walking the files, above 1 each file found
+	 * is a fork join task that parses the file then resolves it and forks
+	 * tasks for the new files its references resolve to. Files are parsed
+	 * concurrently, resolving and publishing are serialised. Class
+	 * definitions and the dependency graph are merged in path and file
+	 * order once all files are done, listeners receive results in the
+	 * order files complete. Default 1, files are walked depth first on
+	 * the calling thread
+	 * 
+	 * @param parallelism Number of threads
+	 */
+	public void setParallelism(final int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * @return Number of threads walking the files
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Set a store of file summaries kept outside the heap. Each resolved
+	 * file is summarised into the store, and a file whose summary is
+	 * current is taken from the store without being parsed or resolved.
+	 * Listeners are not sent class definitions for such files. Types of
+	 * stored files reached in the run also resolve through the symbol
+	 * table.
+	 * 
+	 * @param offHeapStore The store or null for none
+	 */
+	public void setOffHeapStore(final OffHeapStore offHeapStore) {
+		this.offHeapStore = offHeapStore;
+		symbolTable.setOffHeapStore(offHeapStore, pathFile -> pathFileProcessedSet.contains(pathFile));
+	}
+	
+	/**
+	 * Set the latency budget the CLI resolver is called within, probe
+	 * timeout, run deadline and circuit breaker. Probes the guard skips
+	 * fall back to the class path resolvers and the run is flagged as a
+	 * partial result. Files resolved with skipped probes are not
+	 * summarised into the off heap store.
+	 * 
+	 * @param resolveGuard The guard or null to call the CLI resolver directly
+	 */
+	public void setResolveGuard(final ResolveGuard resolveGuard) {
+		this.resolveGuard = resolveGuard;
+		packageResolve.setResolveGuard(resolveGuard);
+	}
+	
+	/**
+	 * Set the token that stops process and resume runs, checked between
+	 * files and between syntax subtrees of a file being parsed. A stopped
+	 * run returns the package names found so far, the files not yet
+	 * processed are left in the frontier for resume. Update runs do not
+	 * stop on the token.
+	 * 
+	 * @param cancelToken The token or null for none
+	 */
+	public void setCancelToken(final ProcessorCancelToken cancelToken) {
+		this.cancelToken = cancelToken;
+	}
+	
+	/**
+	 * Return the files a stopped run did not process, the file being
+	 * parsed when it stopped first
+	 * 
+	 * @return Path and files left to process, empty if the run completed
+	 */
+	public List<String> getFrontierPathFileList() {
+		synchronized (frontierPathFileList) {
+			return new ArrayList<>(frontierPathFileList);
+		}
+	}
+	
+	/**
+	 * Return the CLI resolver probes skipped during the last process or
+	 * update run, timed out, failed, skipped by the open circuit or after
+	 * the run deadline
+	 * 
+	 * @return Skipped probes, empty without a resolve guard
+	 */
+	public List<SkippedProbeData> getSkippedProbeList() {
+		return resolveGuard != null ? resolveGuard.getSkippedProbeList() : Collections.emptyList();
+	}
+	
+	/**
+	 * Return whether the last run stopped with files left in the frontier
+	 * or skipped CLI resolver probes, its package names may then miss
+	 * packages a complete run would have found
+	 * 
+	 * @return True if the result is partial
+	 */
+	public boolean isPartialResult() {
+		return ! frontierPathFileList.isEmpty() || 
+			   (resolveGuard != null && resolveGuard.getSkippedProbeCount() > 0);
+	}
+	
+	/**
+	 * Set the scope of files followed, files reached outside it are
+	 * not parsed but the references to them still add package names
+	 * 
+	 * @param traversalScope The scope or null to follow every file
+	 */
+	public void setTraversalScope(final TraversalScope traversalScope) {
+		this.traversalScope = traversalScope;
+	}
+	
+	/**
+	 * Set whether files are processed breadth first, as they are with
+	 * a depth bound, so a file is reached through the fewest references
+	 * 
+	 * @param breadthFirst True for breadth first
+	 */
+	void setBreadthFirst(final boolean breadthFirst) {
+		this.breadthFirst = breadthFirst;
+	}
+	
+	/**
+	 * @return True if files are processed breadth first
+	 */
+	private boolean isBreadthFirst() {
+		return breadthFirst || (traversalScope != null && traversalScope.isDepthBounded());
+	}
+	
+	/**
+	 * Return the files reached in the last run that were not followed,
+	 * outside the traversal scope or beyond its maximum depth
+	 * 
+	 * @return Sorted path and files not followed
+	 */
+	public List<String> getExcludedPathFileList() {
+		final List<String> excludedPathFileList = new ArrayList<>(excludedPathFileSet);
+		Collections.sort(excludedPathFileList);
+		return excludedPathFileList;
+	}
+	
+	/**
+	 * Return the references from files of a source module, one with a
+	 * module-info.java at its source root, to packages of system modules
+	 * it does not read
+	 * 
+	 * @return Missing requires of the files resolved, empty without module-info.java
+	 */
+	public List<MissingRequiresData> getMissingRequiresList() {
+		return new ArrayList<>(packageResolve.getMissingRequiresList());
+	}
+	
+	/**
+	 * Return the class definitions of the last process run,
+	 * empty in low memory mode
+	 * 
+	 * @return Class definitions in processing order
+	 */
+	public List<ClassDefinitionData> getClassDefinitionList() {
+		return Collections.unmodifiableList(classDefinitionList);
+	}
+	
+	/**
+	 * Return the package class records of the last process run, indexed
+	 * by the position of each file in getClassDefinitionList, empty in
+	 * low memory mode
+	 * 
+	 * @return The package class store
+	 */
+	public PackageClassStore getPackageClassStore() {
+		return packageClassStore;
+	}
+	
+	/**
+	 * Return the file dependency graph of the last process run, empty
+	 * in low memory mode
+	 * 
+	 * @return The dependency graph
+	 */
+	public DependencyGraph getDependencyGraph() {
+		return dependencyGraph;
+	}
+	
+	/**
+	 * Return the path and files whose results make up the current package
+	 * names, the start files and every file they reach, empty in low
+	 * memory mode
+	 * 
+	 * @return Path and files in processing order
+	 */
+	public List<String> getPathFileList() {
+		return new ArrayList<>(fileEntryLookup.keySet());
+	}
+	
+	/**
+	 * Return the package a file in the current result declares
+	 * 
+	 * @param pathFile The path and file
+	 * 
+	 * @return The package name or null if the default package, the file
+	 *         is not in the result or in low memory mode
+	 */
+	public String getPackageName(final String pathFile) {
+		final FileEntry fileEntry = fileEntryLookup.get(pathFile);
+		return fileEntry != null ? symbolDictionary.getName(fileEntry.packageNameId) : null;
+	}
+	
+	/**
+	 * Return the metrics of every run of this processor, to read directly
+	 * or register as an MXBean
+	 * 
+	 * @return The processor metrics
+	 */
+	public ProcessorMetrics getProcessorMetrics() {
+		return processorMetrics;
+	}
+	
+	/**
+	 * Return the metrics of the last process or update run
+	 * 
+	 * @return The metrics snapshot
+	 */
+	public ProcessorMetricsSnapshot getMetricsSnapshot() {
+		return runMetricsSnapshot;
+	}
+	
+	/**
+	 * Return the class names that failed to resolve in the last process run
+	 * 
+	 * @return Sorted unresolved class names
+	 */
+	public List<String> getUnresolvedClassNameList() {
+		final List<String> unresolvedClassNameList = new ArrayList<>(unresolvedClassNameSet);
+		Collections.sort(unresolvedClassNameList);
+		return unresolvedClassNameList;
+	}
+	
+	/**
+	 * Add a listener to receive class definitions and package
+	 * names as they are resolved
+	 * 
+	 * @param processorListener The listener
+	 */
+	public void addProcessorListener(final ProcessorListener processorListener) {
+		processorListenerList.add(processorListener);
+	}
+	
+	/**
+	 * Remove a listener
+	 * 
+	 * @param processorListener The listener
+	 */
+	public void removeProcessorListener(final ProcessorListener processorListener) {
+		processorListenerList.remove(processorListener);
+	}
+	
 	/**
 	 * Add path and file(s) to start processing
 	 * 
-	 * @param pathFile Java path and file 
+	 * @param pathFile Java source or class path and file 
 	 */
 	public void addFile(final String pathFile) {
-		if (pathFileProcessedList.contains(pathFile)) {
-			return;
+		addFile(pathFile, 0);
+	}
+	
+	/**
+	 * Add a path and file to process at a depth of references from a
+	 * start file, with a depth bound the files are processed breadth
+	 * first so each is reached at its least depth
+	 * 
+	 * @param pathFile Java source or class path and file
+	 * @param depth Depth of the file
+	 */
+	private void addFile(final String pathFile,
+			             final int depth) {
+		if (pathFileProcessedSet.add(pathFile)) {
+			putDepth(pathFile, depth);
+			if (isBreadthFirst()) {
+				pathFileDeque.addLast(pathFile);
+			}
+			else {
+				pathFileDeque.push(pathFile);
+			}
+		}
+	}
+	
+	/**
+	 * Record the depth of a file, depths only bound a traversal scope so
+	 * low memory mode keeps none without one
+	 * 
+	 * @param pathFile Java source or class path and file
+	 * @param depth Depth of the file
+	 */
+	private void putDepth(final String pathFile,
+			              final int depth) {
+		if (! lowMemory || traversalScope != null) {
+			pathFileDepthLookup.put(pathFile, depth);
 		}
-		
-		pathFileProcessedList.add(pathFile);
-		pathFileDeque.push(pathFile);
 	}
 	
 	/**
@@ -61,79 +482,1140 @@ public class Processor {
 	 */
 	public void clearFiles() {
 		pathFileDeque.clear();
-		pathFileProcessedList.clear();
+		pathFileProcessedSet.clear();
+		pathFileDepthLookup.clear();
 	}
 	
 	/**
-	 * Process all files and request other files as needed
+	 * Process all files and request other files as needed, listeners
+	 * receive each file's class definition and each new package name
+	 * as soon as the file is resolved. A run stopped by the cancel token
+	 * returns the package names found so far, see resume
 	 * 
 	 * @return List of package names for all files supplied
 	 */
-	public List<String> process() { // NOSONAR
-		final List<ClassDefinitionData> classDefinitionList = new ArrayList<>(); 
-		
-	    while (! pathFileDeque.isEmpty()) {
-	    	final String pathFile = pathFileDeque.pop();
-	    	final ClassDefinitionData classDefinitionData = javaParse.parse(pathFile);
-	    	if (classDefinitionData != null) {
-	    	    final List<String> newPathFilesToProcessList = new ArrayList<>();
-	    		
-	    	    packageResolve.resolve(classDefinitionData, newPathFilesToProcessList);
-	    	    classDefinitionList.add(classDefinitionData);
-
-	    	    printClassDefinition(classDefinitionData);
-	    		
-	    		for (final String newPathFileToProcess : newPathFilesToProcessList) {
-	    			addFile(newPathFileToProcess);
-	    		}
-	    	}
-	    }
-	    
-	    final List<String> packageNameList = new ArrayList<>();
-	    
-	    for (final ClassDefinitionData classDefinitionData : classDefinitionList) {
-	    
-	    	String packageName = classDefinitionData.getPackageName();
-			if (! packageNameList.contains(packageName)) {
-				packageNameList.add(packageName);
-			}
-			
-	    	for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
-	    		if (packageClassData.isResolved()) {
-	    			
-	    			packageName = packageClassData.getPackageName();
-	    			if (! packageNameList.contains(packageName)) {
-	    				packageNameList.add(packageName);
-	    			}
-	    		}
-	    		else {
-	    			log.warn ("process: Failed to resolve className= " + packageClassData.getClassName());
-	    		}
-	    	}
-	    }
-	    
-	    // Sort in alphabetical order
-	    Collections.sort(packageNameList);
-	    
-	    return packageNameList;
+	public List<String> process() {
+		final ProcessorMetricsSnapshot startMetricsSnapshot = processorMetrics.snapshot();
+		final long startNanoTime = System.nanoTime();
+		final ProcessorStageEvent processorStageEvent = new ProcessorStageEvent();
+		processorStageEvent.begin();
+		
+		// Files may have been added since the last run, an indexed
+		// resolver rescans and its bloom filter is rebuilt
+		packageResolve.refreshIndexesIfModified();
+		
+		if (resolveGuard != null) {
+			resolveGuard.startRun();
+		}
+		if (offHeapStore != null) {
+			resolverFingerprint = packageResolve.computeResolverFingerprint();
+		}
+		
+		// Names of the run are dropped with it, updates and resumes
+		// of the run keep its dictionary
+		classDefinitionList.clear();
+		symbolTable.clear();
+		symbolDictionary = new SymbolDictionary();
+		packageClassStore = new PackageClassStore(symbolDictionary);
+		dependencyGraph = new DependencyGraph(symbolDictionary);
+		unresolvedClassNameSet.clear();
+		
+		rootPathFileList.clear();
+		rootPathFileList.addAll(pathFileDeque);
+		frontierPathFileList.clear();
+		fileEntryLookup.clear();
+		packageNameSet = new PackageNameSet(symbolDictionary);
+		packageNameCounts = new int[0];
+		moduleScopeLookup.clear();
+		moduleDescriptorLookup = null;
+		packageResolve.getMissingRequiresList().clear();
+		excludedPathFileSet.clear();
+		
+		processFiles();
+		
+		commitStageEvent(processorStageEvent, ProcessorStageEvent.STAGE_PROCESS, null, pathFileProcessedSet.size());
+		processorMetrics.recordRun(System.nanoTime() - startNanoTime, unresolvedClassNameSet.size());
+		runMetricsSnapshot = processorMetrics.snapshot().minus(startMetricsSnapshot);
+		
+		return complete();
 	}
 	
-	private void printClassDefinition(final ClassDefinitionData classDefinitionData) {
+	/**
+	 * Bring the result of the last process run up to date after files
+	 * have changed, been added or been removed. Only the changed files
+	 * are parsed and resolved again, along with files that reference
+	 * types whose declarations changed and files with unresolved types.
+	 * Files no longer reached from the start files are dropped.
+	 * 
+	 * Listeners receive the class definition of each file parsed, then
+	 * each package name added and removed, then the complete list.
+	 * 
+	 * @param changedPathFiles Path and files that changed
+	 * 
+	 * @return List of package names for all files supplied
+	 * 
+	 * @throws IllegalStateException In low memory mode, no per file
+	 *         results are kept to update, or if the last run stopped
+	 *         and has not been resumed to completion
+	 */
+	public List<String> update(final Collection<String> changedPathFiles) {
+		if (lowMemory) {
+			throw new IllegalStateException("update is not supported in low memory mode");
+		}
+		if (! frontierPathFileList.isEmpty()) {
+			throw new IllegalStateException("update is not supported until the stopped run is resumed");
+		}
+		log.verbose ("update: changedPathFiles=" + changedPathFiles);
 		
-		log.info ("----------------------------------------------------------");
-		log.info ("package: " + classDefinitionData.getPackageName());
-		log.info ("primaryClass: " + classDefinitionData.getPrimaryClassName());
+		final ProcessorMetricsSnapshot startMetricsSnapshot = processorMetrics.snapshot();
+		final long startNanoTime = System.nanoTime();
+		final ProcessorStageEvent processorStageEvent = new ProcessorStageEvent();
+		processorStageEvent.begin();
 		
-		for (final String secondaryClass : classDefinitionData.getSecondaryClassNameHashSet()) {
-			log.info ("secondaryClass: " + secondaryClass);
+		// Changes may add types in packages an indexed resolver has not
+		// scanned, its bloom filter is rebuilt from the rescan
+		packageResolve.refreshIndexes();
+		
+		if (resolveGuard != null) {
+			resolveGuard.startRun();
+		}
+		if (offHeapStore != null) {
+			resolverFingerprint = packageResolve.computeResolverFingerprint();
 		}
 		
-		for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
-			log.info ("packageClassData: package=" + 
-	                  packageClassData.getPackageName() + ", class=" +
-                      packageClassData.getClassName() + ", resolved=" + 
-	                  packageClassData.isResolved());
+		// A module-info.java may be among the changes
+		moduleScopeLookup.clear();
+		moduleDescriptorLookup = null;
+		
+		updating = true;
+		try {
+			final Map<String, FileEntry> previousFileEntryLookup = new LinkedHashMap<>();
+			final List<String> reprocessPathFileList = new ArrayList<>();
+			boolean declarationsChanged = false;
+			
+			for (final String pathFile : changedPathFiles) {
+				final FileEntry fileEntry = fileEntryLookup.get(pathFile);
+				if (fileEntry != null) {
+					previousFileEntryLookup.put(pathFile, fileEntry);
+				}
+				
+				// Removed files are only dropped
+				if (! Files.exists(Path.of(pathFile))) {
+					continue;
+				}
+				
+				if (fileEntry != null || rootPathFileList.contains(pathFile)) {
+					reprocessPathFileList.add(pathFile);
+				}
+				else {
+					// Not reached yet, declare its types so files that
+					// reference them resolve to it
+					declarationsChanged |= declareClassNames(pathFile);
+				}
+			}
+			
+			removeFiles(previousFileEntryLookup.keySet());
+			reprocessFiles(reprocessPathFileList);
+			
+			for (final Map.Entry<String, FileEntry> entry : previousFileEntryLookup.entrySet()) {
+				declarationsChanged |= ! entry.getValue().equals(fileEntryLookup.get(entry.getKey()));
+			}
+			
+			// References to changed declarations may now resolve differently
+			if (declarationsChanged) {
+				final Set<String> affectedPathFileSet = new LinkedHashSet<>();
+				for (final String pathFile : previousFileEntryLookup.keySet()) {
+					affectedPathFileSet.addAll(dependencyGraph.getDependentPathFiles(pathFile));
+				}
+				affectedPathFileSet.addAll(getUnresolvedPathFiles());
+				affectedPathFileSet.removeAll(reprocessPathFileList);
+				affectedPathFileSet.retainAll(fileEntryLookup.keySet());
+				
+				removeFiles(affectedPathFileSet);
+				reprocessFiles(affectedPathFileSet);
+			}
+			
+			removeUnreachableFiles();
+			compactClassDefinitions();
+			
+			unresolvedClassNameSet.clear();
+			unresolvedClassNameSet.addAll(getUnresolvedClassNames());
+		}
+		finally {
+			updating = false;
+		}
+		
+		publishPackageNameDelta();
+		
+		commitStageEvent(processorStageEvent, ProcessorStageEvent.STAGE_UPDATE, null, pathFileProcessedSet.size());
+		processorMetrics.recordRun(System.nanoTime() - startNanoTime, unresolvedClassNameSet.size());
+		runMetricsSnapshot = processorMetrics.snapshot().minus(startMetricsSnapshot);
+		
+		return complete();
+	}
+	
+	/**
+	 * Continue a stopped run from its frontier, keeping the results found
+	 * so far. The cancel token is checked again, so a new or cleared
+	 * token is needed unless the deadline is to stop it again.
+	 * 
+	 * @return List of package names for all files supplied
+	 */
+	public List<String> resume() {
+		log.verbose ("resume: frontierPathFileList=" + frontierPathFileList);
+		
+		final ProcessorMetricsSnapshot startMetricsSnapshot = processorMetrics.snapshot();
+		final long startNanoTime = System.nanoTime();
+		final ProcessorStageEvent processorStageEvent = new ProcessorStageEvent();
+		processorStageEvent.begin();
+		
+		if (resolveGuard != null) {
+			resolveGuard.startRun();
+		}
+		if (offHeapStore != null) {
+			resolverFingerprint = packageResolve.computeResolverFingerprint();
+		}
+		
+		// Frontier files are already in the processed set
+		for (final String pathFile : getFrontierPathFileList()) {
+			pathFileDeque.addLast(pathFile);
+		}
+		frontierPathFileList.clear();
+		
+		processFiles();
+		
+		commitStageEvent(processorStageEvent, ProcessorStageEvent.STAGE_RESUME, null, pathFileProcessedSet.size());
+		processorMetrics.recordRun(System.nanoTime() - startNanoTime, unresolvedClassNameSet.size());
+		runMetricsSnapshot = processorMetrics.snapshot().minus(startMetricsSnapshot);
+		
+		return complete();
+	}
+	
+	/**
+	 * Parse, resolve and publish files until none are left, or until
+	 * the cancel token stops the run leaving the rest in the frontier
+	 */
+	private void processFiles() {
+		final List<ClassDefinitionData> processedClassDefinitionList = new ArrayList<>();
+		
+		runCancelToken = updating ? null : cancelToken;
+		
+		if (parallelism > 1) {
+			processFilesForkJoin(processedClassDefinitionList);
+		}
+		else {
+			// Files read by the parser are released with it, so an
+			// update reads changed content afresh
+			final JavaParse javaParse = processorEngine.acquireJavaParse();
+			javaParse.setCancelToken(runCancelToken);
+			try {
+			    while (! pathFileDeque.isEmpty()) {
+			    	final String pathFile = pathFileDeque.pop();
+			    	final int depth = pathFileDepthLookup.getOrDefault(pathFile, 0);
+			    	
+			    	for (final String newPathFileToProcess : processFile(pathFile, javaParse, processedClassDefinitionList)) {
+			    		addFile(newPathFileToProcess, depth + 1);
+			    	}
+			    }
+			}
+			finally {
+				processorEngine.releaseJavaParse(javaParse);
+			}
+		}
+		
+		// Records move to the run store so all files are held in one set
+		// of columns, in low memory mode they go with the file
+	    for (final ClassDefinitionData classDefinitionData : processedClassDefinitionList) {
+	    	classDefinitionData.movePackageClassRecords(packageClassStore, classDefinitionList.size());
+	    	classDefinitionList.add(classDefinitionData);
+	    }
+	}
+	
+	/**
+	 * Walk the files with a fork join task per file, then put the results
+	 * in path and file order
+	 * 
+	 * @param processedClassDefinitionList List to add the class definitions to
+	 */
+	private void processFilesForkJoin(final List<ClassDefinitionData> processedClassDefinitionList) {
+		// The compiler's parser and file manager are not thread safe
+		final List<JavaParse> acquiredJavaParseList = Collections.synchronizedList(new ArrayList<>());
+		final ThreadLocal<JavaParse> javaParseThreadLocal = ThreadLocal.withInitial(() -> {
+			final JavaParse threadJavaParse = processorEngine.acquireJavaParse();
+			threadJavaParse.setCancelToken(runCancelToken);
+			acquiredJavaParseList.add(threadJavaParse);
+			return threadJavaParse;
+		});
+		
+		// With a depth bound the tasks of one depth complete before the
+		// next depth starts, so each file is reached at its least depth
+		final List<String> nextPathFileList = isBreadthFirst() ?
+			Collections.synchronizedList(new ArrayList<>()) : null;
+		
+		final List<ProcessFileTask> processFileTaskList = new ArrayList<>();
+		while (! pathFileDeque.isEmpty()) {
+			processFileTaskList.add(new ProcessFileTask(pathFileDeque.pop(), javaParseThreadLocal, 
+					                                    processedClassDefinitionList, nextPathFileList));
+		}
+		
+		final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+		try {
+			while (! processFileTaskList.isEmpty()) {
+				forkJoinPool.invoke(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+					
+					@Override
+					protected void compute() {
+						invokeAll(processFileTaskList);
+					}
+				});
+				
+				processFileTaskList.clear();
+				if (nextPathFileList != null) {
+					for (final String pathFile : nextPathFileList) {
+						processFileTaskList.add(new ProcessFileTask(pathFile, javaParseThreadLocal, 
+								                                    processedClassDefinitionList, nextPathFileList));
+					}
+					nextPathFileList.clear();
+				}
+			}
+		}
+		finally {
+			forkJoinPool.shutdown();
+			acquiredJavaParseList.forEach(processorEngine::releaseJavaParse);
+		}
+		
+		processedClassDefinitionList.sort((classDefinitionData1, classDefinitionData2) -> 
+			classDefinitionData1.getPathFile().compareTo(classDefinitionData2.getPathFile()));
+		
+		final Map<String, FileEntry> sortedFileEntryLookup = new TreeMap<>(fileEntryLookup);
+		fileEntryLookup.clear();
+		fileEntryLookup.putAll(sortedFileEntryLookup);
+		
+		dependencyGraph = dependencyGraph.sortedCopy();
+		
+		synchronized (frontierPathFileList) {
+			Collections.sort(frontierPathFileList);
+		}
+	}
+	
+	/**
+	 * Parse, resolve and publish one file, files are parsed outside
+	 * the lock so they may be parsed concurrently. Once the run is
+	 * stopped the file goes to the frontier instead
+	 * 
+	 * @param pathFile Java source or class path and file
+	 * @param fileJavaParse Java parser for the calling thread
+	 * @param processedClassDefinitionList List to add the class definition to
+	 * 
+	 * @return Path and files the file's references resolved to
+	 */
+	private List<String> processFile(final String pathFile,
+			                         final JavaParse fileJavaParse,
+			                         final List<ClassDefinitionData> processedClassDefinitionList) {
+		if (runCancelToken != null && runCancelToken.isStopped()) {
+			frontierPathFileList.add(pathFile);
+			return Collections.emptyList();
+		}
+		
+		if (offHeapStore != null) {
+			synchronized (resolveLock) {
+	    		final int fileRecord = offHeapStore.getFileRecord(pathFile);
+	    		if (fileRecord >= 0 && offHeapStore.isSummaryCurrent(fileRecord, resolverFingerprint)) {
+	    			final ProcessorStageEvent fileSummaryEvent = new ProcessorStageEvent();
+	    			fileSummaryEvent.begin();
+	    			processorMetrics.recordFileSummary();
+	    			final Map<String, String> dependencyPackageNameLookup = new HashMap<>();
+	    			final List<String> dependencyPathFileList = publishFileSummary(fileRecord, dependencyPackageNameLookup);
+	    			commitStageEvent(fileSummaryEvent, ProcessorStageEvent.STAGE_FILE_SUMMARY, pathFile, 0);
+	    			return limitTraversal(pathFile, dependencyPathFileList, dependencyPackageNameLookup);
+	    		}
+			}
+		}
+		
+		final boolean classFile = ClassFileParse.isClassFile(pathFile);
+		final long parseNanoTime = System.nanoTime();
+		final ProcessorStageEvent parseEvent = new ProcessorStageEvent();
+		parseEvent.begin();
+		// In low memory mode the file's names go with it
+		final SymbolDictionary fileSymbolDictionary = lowMemory ? new SymbolDictionary() : symbolDictionary;
+		final ClassDefinitionData classDefinitionData = classFile ?
+			classFileParse.parse(pathFile, fileSymbolDictionary) : fileJavaParse.parse(pathFile, fileSymbolDictionary);
+		if (classDefinitionData == null) {
+			if (! classFile && fileJavaParse.isParseCancelled()) {
+				frontierPathFileList.add(pathFile);
+			}
+			return Collections.emptyList();
+		}
+		commitStageEvent(parseEvent, ProcessorStageEvent.STAGE_PARSE, pathFile, 0);
+		processorMetrics.recordParse(classFile, System.nanoTime() - parseNanoTime, 
+				                     classFile ? 0 : fileJavaParse.getVisitedNodeCount());
+		
+	    final List<String> newPathFilesToProcessList = new ArrayList<>();
+	    
+		synchronized (resolveLock) {
+		    symbolTable.addClassDefinition(classDefinitionData);
+		    packageResolve.getPackageTrie().addPackageName(classDefinitionData.getPackageName());
+			
+		    final int skippedProbeCount = resolveGuard != null ? resolveGuard.getSkippedProbeCount() : 0;
+		    packageResolve.getMissingRequiresList().removeIf(missingRequiresData -> 
+		    	missingRequiresData.getPathFile().equals(pathFile));
+		    final Path sourceRoot = classFile ? null : findSourceRoot(classDefinitionData);
+		    packageResolve.setModuleScope(sourceRoot != null ? findModuleScope(classDefinitionData, sourceRoot, fileJavaParse) : null);
+		    final long resolveNanoTime = System.nanoTime();
+		    final ProcessorStageEvent resolveEvent = new ProcessorStageEvent();
+		    resolveEvent.begin();
+		    packageResolve.resolve(classDefinitionData, newPathFilesToProcessList);
+		    commitStageEvent(resolveEvent, ProcessorStageEvent.STAGE_RESOLVE, pathFile, 0);
+		    processorMetrics.recordResolve(System.nanoTime() - resolveNanoTime);
+		    
+		    // A summary resolved with skipped probes or unresolved references
+		    // would outlive the run, those may resolve once the CLI recovers
+		    // or the missing type is written
+		    if (offHeapStore != null && isFullyResolved(classDefinitionData) &&
+		    	(resolveGuard == null || resolveGuard.getSkippedProbeCount() == skippedProbeCount)) {
+		    	// A module-info.java written or changed later changes the module scope
+		    	final List<String> stampPathFileList = sourceRoot != null ? 
+		    		List.of(sourceRoot.resolve(MODULE_INFO_FILE_NAME).toString()) : Collections.emptyList();
+		    	offHeapStore.putFileSummary(classDefinitionData, newPathFilesToProcessList, stampPathFileList, 
+		    			                    resolverFingerprint);
+		    }
+	
+		    printClassDefinition(classDefinitionData);
+		    
+		    final long publishNanoTime = System.nanoTime();
+		    final ProcessorStageEvent publishEvent = new ProcessorStageEvent();
+		    publishEvent.begin();
+		    final int resolvedCount = publishClassDefinition(classDefinitionData);
+		    commitStageEvent(publishEvent, ProcessorStageEvent.STAGE_PUBLISH, pathFile, 0);
+		    processorMetrics.recordPublish(System.nanoTime() - publishNanoTime, 
+		    		                       classDefinitionData.getPackageClassCount(), resolvedCount);
+		    
+		    if (lowMemory) {
+		    	fileJavaParse.clearFileManagerCache();
+		    }
+		    else {
+		    	processedClassDefinitionList.add(classDefinitionData);
+		    }
+		}
+		
+		return traversalScope != null ? 
+			limitTraversal(pathFile, newPathFilesToProcessList, getDependencyPackageNameLookup(classDefinitionData)) : 
+			newPathFilesToProcessList;
+	}
+	
+	/**
+	 * Keep the files reached from a file that the traversal scope
+	 * follows, the others are listed as excluded
+	 * 
+	 * @param pathFile The file reaching them
+	 * @param dependencyPathFileList Path and files its references resolved to
+	 * @param dependencyPackageNameLookup Package name of each of those files
+	 * 
+	 * @return Path and files to process
+	 */
+	private List<String> limitTraversal(final String pathFile,
+			                            final List<String> dependencyPathFileList,
+			                            final Map<String, String> dependencyPackageNameLookup) {
+		if (traversalScope == null || dependencyPathFileList.isEmpty()) {
+			return dependencyPathFileList;
+		}
+		
+		if (! traversalScope.isFollowed(pathFileDepthLookup.getOrDefault(pathFile, 0))) {
+			excludedPathFileSet.addAll(dependencyPathFileList);
+			return Collections.emptyList();
+		}
+		
+		final List<String> followedPathFileList = new ArrayList<>(dependencyPathFileList.size());
+		for (final String dependencyPathFile : dependencyPathFileList) {
+			if (traversalScope.isInScope(dependencyPathFile, dependencyPackageNameLookup.get(dependencyPathFile))) {
+				followedPathFileList.add(dependencyPathFile);
+			}
+			else {
+				excludedPathFileSet.add(dependencyPathFile);
+			}
+		}
+		return followedPathFileList;
+	}
+	
+	/**
+	 * Map the files a class definition's references resolved to onto
+	 * the package names they resolved to
+	 * 
+	 * @param classDefinitionData The resolved class definition
+	 * 
+	 * @return Package name by path and file
+	 */
+	private static Map<String, String> getDependencyPackageNameLookup(final ClassDefinitionData classDefinitionData) {
+		final Map<String, String> dependencyPackageNameLookup = new HashMap<>();
+		for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
+			final String dependencyPathFile = packageClassData.getPathFile();
+			if (dependencyPathFile != null) {
+				dependencyPackageNameLookup.put(dependencyPathFile, packageClassData.getPackageName());
+			}
+		}
+		return dependencyPackageNameLookup;
+	}
+	
+	/**
+	 * Find the source root of a parsed source file, its directory less
+	 * one directory per package name part
+	 * 
+	 * @param classDefinitionData The parsed file
+	 * 
+	 * @return The source root or null if the path is too short for the package
+	 */
+	private static Path findSourceRoot(final ClassDefinitionData classDefinitionData) {
+		Path sourceRoot = Path.of(classDefinitionData.getPathFile()).toAbsolutePath().getParent();
+		final String packageName = classDefinitionData.getPackageName();
+		if (classDefinitionData.getModuleDescriptorData() == null && packageName != null && ! packageName.isEmpty()) {
+			for (int i = packageName.split("\\.").length; i > 0 && sourceRoot != null; i--) {
+				sourceRoot = sourceRoot.getParent();
+			}
+		}
+		return sourceRoot;
+	}
+	
+	/**
+	 * Test if every reference of a resolved class definition resolved
+	 * 
+	 * @param classDefinitionData The resolved class definition
+	 * 
+	 * @return True if none is unresolved
+	 */
+	private static boolean isFullyResolved(final ClassDefinitionData classDefinitionData) {
+		final PackageClassStore store = classDefinitionData.getPackageClassStore();
+		final int packageClassEnd = classDefinitionData.getPackageClassStart() + classDefinitionData.getPackageClassCount();
+		for (int record = classDefinitionData.getPackageClassStart(); record < packageClassEnd; record++) {
+			if (! store.isResolved(record)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Find the scope of the source module a file is in, from the
+	 * module-info.java at its source root, parsed once per source
+	 * root. Called with the resolve lock held
+	 * 
+	 * @param classDefinitionData The parsed file
+	 * @param sourceRoot Source root of the file
+	 * @param fileJavaParse Java parser for the calling thread
+	 * 
+	 * @return The module scope or null if the source root has no module-info.java
+	 */
+	private ModuleScope findModuleScope(final ClassDefinitionData classDefinitionData,
+			                            final Path sourceRoot,
+			                            final JavaParse fileJavaParse) {
+		final Optional<ModuleScope> cachedModuleScope = moduleScopeLookup.get(sourceRoot);
+		if (cachedModuleScope != null) { // NOSONAR
+			return cachedModuleScope.orElse(null);
+		}
+		
+		ModuleDescriptorData moduleDescriptorData = classDefinitionData.getModuleDescriptorData();
+		final Path moduleInfoPathFile = sourceRoot.resolve(MODULE_INFO_FILE_NAME);
+		if (moduleDescriptorData == null && Files.isRegularFile(moduleInfoPathFile)) {
+			final ClassDefinitionData moduleInfoClassDefinitionData = fileJavaParse.parse(moduleInfoPathFile.toString(), symbolDictionary);
+			if (moduleInfoClassDefinitionData == null && fileJavaParse.isParseCancelled()) {
+				// Not cached, found again once resumed
+				return null;
+			}
+			if (moduleInfoClassDefinitionData != null) {
+				moduleDescriptorData = moduleInfoClassDefinitionData.getModuleDescriptorData();
+			}
+		}
+		
+		ModuleScope moduleScope = null;
+		if (moduleDescriptorData != null) {
+			final Map<String, ModuleDescriptor> foundModuleDescriptorLookup = findModuleDescriptorLookup(fileJavaParse);
+			if (foundModuleDescriptorLookup == null) {
+				// Not cached, found again once resumed
+				return null;
+			}
+			moduleScope = new ModuleScope(moduleDescriptorData, processorEngine, foundModuleDescriptorLookup);
+			
+			log.verbose("findModuleScope: sourceRoot=" + sourceRoot + ", moduleName=" + moduleDescriptorData.getModuleName() + 
+			            ", readModuleNameSet=" + moduleScope.getReadModuleNameSet());
+			
+			// An unknown module may make any system package readable
+			if (! moduleScope.isComplete()) {
+				log.info("findModuleScope: moduleName=" + moduleDescriptorData.getModuleName() + 
+				         " not pruned, unknown modules " + moduleScope.getUnknownModuleNameSet());
+				moduleScope = null;
+			}
+		}
+		moduleScopeLookup.put(sourceRoot, Optional.ofNullable(moduleScope));
+		
+		return moduleScope;
+	}
+	
+	/**
+	 * Find the descriptors of the modules other than system modules a
+	 * source module may read: those of the source roots or jars of the
+	 * CLI resolver, then those of the class path. Called with the resolve
+	 * lock held
+	 * 
+	 * @param fileJavaParse Java parser for the calling thread
+	 * 
+	 * @return Module descriptors by module name or null if a parse was cancelled
+	 */
+	private Map<String, ModuleDescriptor> findModuleDescriptorLookup(final JavaParse fileJavaParse) {
+		if (moduleDescriptorLookup != null) {
+			return moduleDescriptorLookup;
+		}
+		
+		final Map<String, ModuleDescriptor> foundModuleDescriptorLookup = new HashMap<>();
+		final List<Path> modulePathList = new ArrayList<>();
+		
+		final PackageResolveCallback cliPackageResolveCallback = packageResolve.getCliPackageResolveCallback();
+		if (cliPackageResolveCallback instanceof PackageResolveOnSourceRoots packageResolveOnSourceRoots) {
+			for (final Path sourceRoot : packageResolveOnSourceRoots.getSourceRootList()) {
+				final Path moduleInfoPathFile = sourceRoot.resolve(MODULE_INFO_FILE_NAME);
+				if (! Files.isRegularFile(moduleInfoPathFile)) {
+					// May be a directory of compiled classes
+					modulePathList.add(sourceRoot);
+					continue;
+				}
+				
+				final ClassDefinitionData moduleInfoClassDefinitionData = 
+					fileJavaParse.parse(moduleInfoPathFile.toString(), symbolDictionary);
+				if (moduleInfoClassDefinitionData == null && fileJavaParse.isParseCancelled()) {
+					return null;
+				}
+				if (moduleInfoClassDefinitionData != null && moduleInfoClassDefinitionData.getModuleDescriptorData() != null) {
+					try {
+						final ModuleDescriptor moduleDescriptor = moduleInfoClassDefinitionData.getModuleDescriptorData().toModuleDescriptor();
+						foundModuleDescriptorLookup.putIfAbsent(moduleDescriptor.name(), moduleDescriptor);
+					}
+					catch (final IllegalArgumentException | IllegalStateException e) {
+						log.warn("findModuleDescriptorLookup: moduleInfoPathFile=" + moduleInfoPathFile + ", Exception " + e.getMessage());
+					}
+				}
+			}
+		}
+		else if (cliPackageResolveCallback instanceof PackageResolveOnJars packageResolveOnJars) {
+			modulePathList.addAll(packageResolveOnJars.getJarPathList());
+		}
+		
+		processorEngine.readModuleDescriptors(modulePathList).forEach(foundModuleDescriptorLookup::putIfAbsent);
+		processorEngine.getClassPathModuleDescriptorLookup().forEach(foundModuleDescriptorLookup::putIfAbsent);
+		
+		moduleDescriptorLookup = foundModuleDescriptorLookup;
+		return moduleDescriptorLookup;
+	}
+	
+	/**
+	 * Commit a stage event if a recording has it enabled, the fields are
+	 * only set then
+	 * 
+	 * @param processorStageEvent The begun event
+	 * @param stage The stage
+	 * @param pathFile File of a per file stage, null for a run
+	 * @param fileCount Files processed by a run, 0 for a per file stage
+	 */
+	private static void commitStageEvent(final ProcessorStageEvent processorStageEvent,
+			                             final String stage,
+			                             final String pathFile,
+			                             final int fileCount) {
+		if (processorStageEvent.shouldCommit()) {
+			processorStageEvent.stage = stage;
+			processorStageEvent.pathFile = pathFile;
+			processorStageEvent.fileCount = fileCount;
+			processorStageEvent.commit();
+		}
+	}
+	
+	/**
+	 * Sort the package names and notify listeners the run is complete
+	 * 
+	 * @return Sorted list of package names
+	 */
+	private List<String> complete() {
+	    // Sort in alphabetical order
+	    final List<String> packageNameList = packageNameSet.toSortedList();
+	    
+	    if (isPartialResult()) {
+	    	log.warn("complete: partial result, frontierSize=" + frontierPathFileList.size() + 
+	    			 ", skippedProbeCount=" + (resolveGuard != null ? resolveGuard.getSkippedProbeCount() : 0));
+	    }
+	    
+	    for (final MissingRequiresData missingRequiresData : packageResolve.getMissingRequiresList()) {
+	    	log.warn("complete: " + missingRequiresData + " in " + missingRequiresData.getPathFile());
+	    }
+	    
+	    for (final ProcessorListener processorListener : processorListenerList) {
+	    	processorListener.onComplete(Collections.unmodifiableList(packageNameList));
+	    }
+	    
+	    return packageNameList;
+	}
+	
+	/**
+	 * Fold a resolved class definition into the package names and
+	 * unresolved class names and notify listeners of the definition and any new package names
+	 * 
+	 * @param classDefinitionData The resolved class definition
+	 * 
+	 * @return Number of referenced classes resolved
+	 */
+	private int publishClassDefinition(final ClassDefinitionData classDefinitionData) {
+		for (final ProcessorListener processorListener : processorListenerList) {
+			processorListener.onClassDefinition(classDefinitionData);
+		}
+		
+		final SymbolDictionary fileSymbolDictionary = classDefinitionData.getSymbolDictionary();
+		publishPackageName(toRunNameId(fileSymbolDictionary, classDefinitionData.getPackageNameId()));
+		
+		final String pathFile = classDefinitionData.getPathFile();
+		final PackageClassStore store = classDefinitionData.getPackageClassStore();
+		final int packageClassEnd = classDefinitionData.getPackageClassStart() + classDefinitionData.getPackageClassCount();
+		
+		if (! lowMemory) {
+			final Set<String> classNameSet = new HashSet<>();
+			classNameSet.add(classDefinitionData.getPrimaryClassName());
+			classNameSet.addAll(classDefinitionData.getSecondaryClassNameHashSet());
+			classNameSet.addAll(classDefinitionData.getNestedClassNameHashSet());
+			
+			fileEntryLookup.put(pathFile, new FileEntry(classDefinitionData.getPackageNameId(), classNameSet, symbolDictionary));
+			dependencyGraph.addFile(pathFile);
+		}
+		
+		int resolvedCount = 0;
+		for (int record = classDefinitionData.getPackageClassStart(); record < packageClassEnd; record++) {
+			if (! lowMemory) {
+				dependencyGraph.addEdge(pathFile, store.getPackageNameId(record), store.getClassNameId(record),
+						                store.isResolved(record), symbolDictionary.getName(store.getPathFileId(record)));
+			}
+			
+			if (store.isResolved(record)) {
+				publishPackageName(toRunNameId(fileSymbolDictionary, store.getPackageNameId(record)));
+				resolvedCount++;
+			}
+			else {
+				final String className = fileSymbolDictionary.getName(store.getClassNameId(record));
+				log.warn ("process: Failed to resolve className= " + className);
+				unresolvedClassNameSet.add(className);
+			}
+		}
+		
+		return resolvedCount;
+	}
+	
+	/**
+	 * Return the run dictionary id for the id of a name in a file's
+	 * dictionary, the same id unless in low memory mode
+	 * 
+	 * @param fileSymbolDictionary Dictionary of the file
+	 * @param nameId Id in the file's dictionary
+	 * 
+	 * @return Id in the run dictionary
+	 */
+	private int toRunNameId(final SymbolDictionary fileSymbolDictionary,
+			                final int nameId) {
+		return fileSymbolDictionary == symbolDictionary ? 
+			nameId : symbolDictionary.intern(fileSymbolDictionary.getName(nameId));
+	}
+	
+	/**
+	 * Fold a stored file summary into the package names and unresolved
+	 * class names, as for a parsed file
+	 * 
+	 * @param fileRecord The file record in the off heap store
+	 * @param dependencyPackageNameLookup Map to add the package name of each file resolved to
+	 * 
+	 * @return Path and files the file's references resolved to
+	 */
+	private List<String> publishFileSummary(final int fileRecord,
+			                                final Map<String, String> dependencyPackageNameLookup) {
+		
+		final String pathFile = offHeapStore.getPathFile(fileRecord);
+		final String packageName = offHeapStore.getName(offHeapStore.getPackageNameId(fileRecord));
+		log.verbose ("process: offHeapStore pathFile=" + pathFile);
+		
+		final Set<String> classNameSet = new HashSet<>();
+		final int typeCount = offHeapStore.getTypeCount(fileRecord);
+		for (int i = 0; i < typeCount; i++) {
+			final String className = offHeapStore.getName(offHeapStore.getTypeNameId(fileRecord, i));
+			symbolTable.addClassName(packageName, className, pathFile);
+			classNameSet.add(className);
+		}
+		packageResolve.getPackageTrie().addPackageName(packageName);
+		
+		publishPackageName(symbolDictionary.intern(packageName));
+		
+		if (! lowMemory) {
+			fileEntryLookup.put(pathFile, new FileEntry(symbolDictionary.intern(packageName), classNameSet, symbolDictionary));
+			dependencyGraph.addFile(pathFile);
+		}
+		
+		final int edgeCount = offHeapStore.getEdgeCount(fileRecord);
+		for (int i = 0; i < edgeCount; i++) {
+			final boolean resolved = offHeapStore.isEdgeResolved(fileRecord, i);
+			final int packageNameId = symbolDictionary.intern(offHeapStore.getName(offHeapStore.getEdgePackageNameId(fileRecord, i)));
+			final String className = offHeapStore.getName(offHeapStore.getEdgeClassNameId(fileRecord, i));
+			
+			final String edgePathFile = offHeapStore.getName(offHeapStore.getEdgePathFileId(fileRecord, i));
+			if (! lowMemory) {
+				dependencyGraph.addEdge(pathFile, packageNameId, symbolDictionary.intern(className), resolved, edgePathFile);
+			}
+			if (edgePathFile != null) {
+				dependencyPackageNameLookup.put(edgePathFile, symbolDictionary.getName(packageNameId));
+			}
+			
+			if (resolved) {
+				publishPackageName(packageNameId);
+			}
+			else {
+				log.warn ("process: Failed to resolve className= " + className);
+				unresolvedClassNameSet.add(className);
+			}
+		}
+		
+		final int dependencyCount = offHeapStore.getDependencyCount(fileRecord);
+		final List<String> dependencyPathFileList = new ArrayList<>(dependencyCount);
+		for (int i = 0; i < dependencyCount; i++) {
+			dependencyPathFileList.add(offHeapStore.getName(offHeapStore.getDependencyPathFileId(fileRecord, i)));
+		}
+		return dependencyPathFileList;
+	}
+	
+	/**
+	 * Count a reference to a package name and notify listeners
+	 * the first time it is seen, during an update listeners are
+	 * notified of the net change once the update is done
+	 * 
+	 * @param packageNameId The package name id
+	 */
+	private void publishPackageName(final int packageNameId) {
+		countPackageName(packageNameId, 1);
+		
+		if (! updating && packageNameSet.addId(packageNameId)) {
+			final String packageName = symbolDictionary.getName(packageNameId);
+			for (final ProcessorListener processorListener : processorListenerList) {
+				processorListener.onPackageName(packageName);
+			}
+		}
+	}
+	
+	/**
+	 * Bring the package names in line with the reference counts and
+	 * notify listeners of each package name added and removed
+	 */
+	private void publishPackageNameDelta() {
+		final PackageNameSet currentPackageNameSet = new PackageNameSet(symbolDictionary);
+		for (int packageNameId = 0; packageNameId < packageNameCounts.length; packageNameId++) {
+			if (packageNameCounts[packageNameId] > 0) {
+				currentPackageNameSet.addId(packageNameId);
+			}
+		}
+		
+		final PackageNameSet addedPackageNameSet = currentPackageNameSet.copy();
+		addedPackageNameSet.removeAll(packageNameSet);
+		final PackageNameSet removedPackageNameSet = packageNameSet.copy();
+		removedPackageNameSet.removeAll(currentPackageNameSet);
+		
+		packageNameSet.clear();
+		packageNameSet.addAll(currentPackageNameSet);
+		
+		for (final String packageName : addedPackageNameSet.toSortedList()) {
+			log.verbose ("update: added packageName=" + packageName);
+			for (final ProcessorListener processorListener : processorListenerList) {
+				processorListener.onPackageName(packageName);
+			}
+		}
+		
+		for (final String packageName : removedPackageNameSet.toSortedList()) {
+			log.verbose ("update: removed packageName=" + packageName);
+			for (final ProcessorListener processorListener : processorListenerList) {
+				processorListener.onPackageNameRemoved(packageName);
+			}
+		}
+	}
+	
+	/**
+	 * Add to the number of references to a package name, the default
+	 * package is not counted
+	 * 
+	 * @param packageNameId The package name id
+	 * @param count Number to add, negative to remove references
+	 */
+	private void countPackageName(final int packageNameId,
+			                      final int count) {
+		if (packageNameId == SymbolDictionary.NO_ID) {
+			return;
+		}
+		
+		if (packageNameId >= packageNameCounts.length) {
+			packageNameCounts = Arrays.copyOf(packageNameCounts, 
+					                          Math.max(packageNameId + 1, symbolDictionary.size()));
+		}
+		packageNameCounts[packageNameId] += count;
+	}
+	
+	/**
+	 * Parse a file that is not yet reached and declare its types in the
+	 * symbol table, it is processed once a reference resolves to it
+	 * 
+	 * @param pathFile Java source or class path and file
+	 * 
+	 * @return True if any types were declared
+	 */
+	private boolean declareClassNames(final String pathFile) {
+		final ClassDefinitionData classDefinitionData;
+		if (ClassFileParse.isClassFile(pathFile)) {
+			classDefinitionData = classFileParse.parse(pathFile, symbolDictionary);
+		}
+		else {
+			final JavaParse javaParse = processorEngine.acquireJavaParse();
+			try {
+				classDefinitionData = javaParse.parse(pathFile, symbolDictionary);
+			}
+			finally {
+				processorEngine.releaseJavaParse(javaParse);
+			}
+		}
+		if (classDefinitionData == null) {
+			return false;
+		}
+		
+		symbolTable.addClassDefinition(classDefinitionData);
+		packageResolve.getPackageTrie().addPackageName(classDefinitionData.getPackageName());
+		return true;
+	}
+	
+	/**
+	 * Remove the results of files, their references, package name counts
+	 * and declared types, so they can be processed again
+	 * 
+	 * @param pathFiles Path and files to remove
+	 */
+	private void removeFiles(final Collection<String> pathFiles) {
+		
+		final List<String> removedPathFileList = new ArrayList<>();
+		for (final String pathFile : pathFiles) {
+			final FileEntry fileEntry = fileEntryLookup.remove(pathFile);
+			if (fileEntry == null) {
+				continue;
+			}
+			removedPathFileList.add(pathFile);
+			pathFileProcessedSet.remove(pathFile);
+			
+			countPackageName(fileEntry.packageNameId, -1);
+			
+			final int fileIndex = dependencyGraph.getFileIndex(pathFile);
+			for (int edge = dependencyGraph.getEdgeStart(fileIndex); edge < dependencyGraph.getEdgeEnd(fileIndex); edge++) {
+				if (dependencyGraph.isEdgeResolved(edge)) {
+					countPackageName(dependencyGraph.getEdgePackageNameId(edge), -1);
+				}
+			}
+			
+			final String packageName = symbolDictionary.getName(fileEntry.packageNameId);
+			for (final int classNameId : fileEntry.classNameIds) {
+				symbolTable.removeClassName(packageName, symbolDictionary.getName(classNameId), pathFile);
+			}
+		}
+		
+		dependencyGraph.removeEdges(removedPathFileList);
+	}
+	
+	/**
+	 * Process files again, along with any new files they reach
+	 * 
+	 * @param pathFiles Path and files to process
+	 */
+	private void reprocessFiles(final Collection<String> pathFiles) {
+		for (final String pathFile : pathFiles) {
+			pathFileProcessedSet.remove(pathFile);
+			addFile(pathFile, pathFileDepthLookup.getOrDefault(pathFile, 0));
+		}
+		processFiles();
+	}
+	
+	/**
+	 * Remove the files no longer reached from the start files
+	 */
+	private void removeUnreachableFiles() {
+		final Set<String> reachedPathFileSet = new HashSet<>();
+		final Deque<String> reachDeque = new ArrayDeque<>();
+		for (final String rootPathFile : rootPathFileList) {
+			if (reachedPathFileSet.add(rootPathFile)) {
+				reachDeque.push(rootPathFile);
+			}
+		}
+		
+		while (! reachDeque.isEmpty()) {
+			final String pathFile = reachDeque.pop();
+			if (fileEntryLookup.containsKey(pathFile)) {
+				for (final String dependencyPathFile : dependencyGraph.getDependencyPathFiles(pathFile)) {
+					if (reachedPathFileSet.add(dependencyPathFile)) {
+						reachDeque.push(dependencyPathFile);
+					}
+				}
+			}
+		}
+		
+		final List<String> unreachablePathFileList = new ArrayList<>(fileEntryLookup.keySet());
+		unreachablePathFileList.removeAll(reachedPathFileSet);
+		if (! unreachablePathFileList.isEmpty()) {
+			log.verbose ("update: unreachablePathFileList=" + unreachablePathFileList);
+			removeFiles(unreachablePathFileList);
+		}
+	}
+	
+	/**
+	 * Keep the latest class definition of each current file and move
+	 * their records to a new store, dropping records of replaced files
+	 */
+	private void compactClassDefinitions() {
+		final Set<String> keptPathFileSet = new HashSet<>();
+		final List<ClassDefinitionData> keptClassDefinitionList = new ArrayList<>();
+		for (int i = classDefinitionList.size() - 1; i >= 0; i--) {
+			final ClassDefinitionData classDefinitionData = classDefinitionList.get(i);
+			if (fileEntryLookup.containsKey(classDefinitionData.getPathFile()) && 
+				keptPathFileSet.add(classDefinitionData.getPathFile())) {
+				keptClassDefinitionList.add(classDefinitionData);
+			}
+		}
+		Collections.reverse(keptClassDefinitionList);
+		
+		final PackageClassStore compactPackageClassStore = new PackageClassStore(symbolDictionary, packageClassStore.size());
+		for (int i = 0; i < keptClassDefinitionList.size(); i++) {
+			keptClassDefinitionList.get(i).movePackageClassRecords(compactPackageClassStore, i);
+		}
+		
+		classDefinitionList.clear();
+		classDefinitionList.addAll(keptClassDefinitionList);
+		packageClassStore = compactPackageClassStore;
+	}
+	
+	/**
+	 * @return Current files with any unresolved reference
+	 */
+	private List<String> getUnresolvedPathFiles() {
+		final List<String> unresolvedPathFileList = new ArrayList<>();
+		for (final String pathFile : fileEntryLookup.keySet()) {
+			final int fileIndex = dependencyGraph.getFileIndex(pathFile);
+			for (int edge = dependencyGraph.getEdgeStart(fileIndex); edge < dependencyGraph.getEdgeEnd(fileIndex); edge++) {
+				if (! dependencyGraph.isEdgeResolved(edge)) {
+					unresolvedPathFileList.add(pathFile);
+					break;
+				}
+			}
+		}
+		return unresolvedPathFileList;
+	}
+	
+	/**
+	 * @return Class names that failed to resolve in current files
+	 */
+	private Set<String> getUnresolvedClassNames() {
+		
+		final Set<String> unresolvedClassNames = new HashSet<>();
+		for (final String pathFile : fileEntryLookup.keySet()) {
+			final int fileIndex = dependencyGraph.getFileIndex(pathFile);
+			for (int edge = dependencyGraph.getEdgeStart(fileIndex); edge < dependencyGraph.getEdgeEnd(fileIndex); edge++) {
+				if (! dependencyGraph.isEdgeResolved(edge)) {
+					unresolvedClassNames.add(symbolDictionary.getName(dependencyGraph.getEdgeClassNameId(edge)));
+				}
+			}
+		}
+		return unresolvedClassNames;
+	}
+	
+	private void printClassDefinition(final ClassDefinitionData classDefinitionData) {
+		
+		log.info ("----------------------------------------------------------");
+		log.info ("package: " + classDefinitionData.getPackageName());
+		log.info ("primaryClass: " + classDefinitionData.getPrimaryClassName());
+		
+		for (final String secondaryClass : classDefinitionData.getSecondaryClassNameHashSet()) {
+			log.info ("secondaryClass: " + secondaryClass);
+		}
+		
+		for (final PackageClassData packageClassData : classDefinitionData.getPackageClassList()) {
+			log.info ("packageClassData: package=" + 
+	                  packageClassData.getPackageName() + ", class=" +
+                      packageClassData.getClassName() + ", resolved=" + 
+	                  packageClassData.isResolved());
+		}
+		log.info ("----------------------------------------------------------");
+	}
+	
+	/**
+	 * Fork join task processing one file, then forking a task for each
+	 * new file its references resolve to. The processed set is shared so
+	 * each file is processed once
+	 */
+	private class ProcessFileTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final String pathFile;
+		private final transient ThreadLocal<JavaParse> javaParseThreadLocal;
+		private final transient List<ClassDefinitionData> processedClassDefinitionList;
+		private final transient List<String> nextPathFileList;
+		
+		private ProcessFileTask(final String pathFile,
+				                final ThreadLocal<JavaParse> javaParseThreadLocal,
+				                final List<ClassDefinitionData> processedClassDefinitionList,
+				                final List<String> nextPathFileList) {
+			this.pathFile = pathFile;
+			this.javaParseThreadLocal = javaParseThreadLocal;
+			this.processedClassDefinitionList = processedClassDefinitionList;
+			this.nextPathFileList = nextPathFileList;
+		}
+		
+		@Override
+		protected void compute() {
+			final int depth = pathFileDepthLookup.getOrDefault(pathFile, 0);
+			
+			final List<ProcessFileTask> processFileTaskList = new ArrayList<>();
+			for (final String newPathFileToProcess : processFile(pathFile, javaParseThreadLocal.get(), processedClassDefinitionList)) {
+				if (pathFileProcessedSet.add(newPathFileToProcess)) {
+					putDepth(newPathFileToProcess, depth + 1);
+					if (nextPathFileList != null) {
+						nextPathFileList.add(newPathFileToProcess);
+					}
+					else {
+						processFileTaskList.add(new ProcessFileTask(newPathFileToProcess, javaParseThreadLocal, 
+								                                    processedClassDefinitionList, null));
+					}
+				}
+			}
+			invokeAll(processFileTaskList);
+		}
+	}
+	
+	/**
+	 * Package and declared types of a current file, kept so the file's
+	 * results can be removed and declaration changes detected on update
+	 */
+	private static class FileEntry {
+		private final int packageNameId;
+		private final int[] classNameIds;
+		
+		private FileEntry(final int packageNameId,
+				          final Set<String> classNameSet,
+				          final SymbolDictionary symbolDictionary) {
+			
+			this.packageNameId = packageNameId;
+			this.classNameIds = classNameSet.stream()
+					                        .filter(className -> className != null && ! className.isEmpty())
+					                        .mapToInt(symbolDictionary::intern)
+					                        .sorted()
+					                        .toArray();
+		}
+		
+		@Override
+		public boolean equals(final Object object) {
+			return object instanceof FileEntry fileEntry && 
+				   packageNameId == fileEntry.packageNameId &&
+				   Arrays.equals(classNameIds, fileEntry.classNameIds);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * packageNameId + Arrays.hashCode(classNameIds);
 		}
-		log.info ("----------------------------------------------------------");
 	}
 }
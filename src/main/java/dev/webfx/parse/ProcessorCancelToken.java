@@ -0,0 +1,75 @@
+package dev.webfx.parse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative stop of a processor run, cancelled from any thread or
+ * stopped by a wall clock deadline. The processor checks it between
+ * files and the Java parser between syntax subtrees, a stopped run
+ * returns the package names found so far and leaves the unvisited
+ * files as a frontier to resume from.
+ * 
+ * A cancelled token stays cancelled, use a new token for the next run.
+ * 
+ * @author Alexander Belch
+ */
+public class ProcessorCancelToken {
+	
+	private volatile boolean cancelled;
+	private volatile boolean deadlineSet;
+	private volatile long deadlineNanoTime;
+	
+	/**
+	 * Default constructor, not cancelled and no deadline
+	 */
+	public ProcessorCancelToken() {
+		// Nothing to set
+	}
+	
+	/**
+	 * Cancel the run, returns at once and the run stops at the next check
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+	
+	/**
+	 * Set a deadline from now
+	 * 
+	 * @param timeout Time the run may take from now
+	 * @param timeUnit Unit of the timeout
+	 */
+	public void setDeadline(final long timeout,
+			                final TimeUnit timeUnit) {
+		deadlineNanoTime = System.nanoTime() + timeUnit.toNanos(timeout);
+		deadlineSet = true;
+	}
+	
+	/**
+	 * Remove the deadline
+	 */
+	public void clearDeadline() {
+		deadlineSet = false;
+	}
+	
+	/**
+	 * @return True if cancel has been called
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+	
+	/**
+	 * @return True if a deadline is set and has passed
+	 */
+	public boolean isDeadlineExceeded() {
+		return deadlineSet && System.nanoTime() - deadlineNanoTime >= 0;
+	}
+	
+	/**
+	 * @return True if the run should stop, cancelled or past the deadline
+	 */
+	public boolean isStopped() {
+		return cancelled || isDeadlineExceeded();
+	}
+}
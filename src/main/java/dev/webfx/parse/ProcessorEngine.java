@@ -0,0 +1,272 @@
+package dev.webfx.parse;
+
+import java.io.File;
+import java.lang.module.FindException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared, thread safe part of processing that is costly to build and the
+ * same for every request: a pool of Java parsers, the class file parser,
+ * the class path resolver, the package trie of the boot layer and class
+ * path, the system module descriptors and the indexes of the jars read by
+ * jar resolvers created with the engine. A server
+ * creates one engine and a processor per request with createProcessor,
+ * the processors hold their own files, frontier, symbol table and
+ * results and run concurrently.
+ *
+ * The class path index is built on first use and not modified after,
+ * processors add the packages they find to their own trie over it.
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorEngine {
+
+	private final Log log;
+
+	private final PackageResolveOnClassPath packageResolveOnClassPath;
+	private final ClassFileParse classFileParse;
+
+	private final Queue<JavaParse> javaParsePool;
+	private final AtomicInteger javaParseCreatedCount;
+
+	private final Map<String, PackageResolveOnJars.JarIndex> jarIndexCache;
+
+	private PackageTrie packageTrie;
+
+	private Map<String, ModuleDescriptor> systemModuleDescriptorLookup;
+	private Map<String, String> systemPackageModuleLookup;
+	private Map<String, ModuleDescriptor> classPathModuleDescriptorLookup;
+
+	/**
+	 * Default constructor
+	 */
+	public ProcessorEngine() {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		packageResolveOnClassPath = new PackageResolveOnClassPath();
+		classFileParse = new ClassFileParse();
+
+		javaParsePool = new ConcurrentLinkedQueue<>();
+		javaParseCreatedCount = new AtomicInteger();
+
+		jarIndexCache = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Create a processor that shares this engine, cheap after the
+	 * first as the class path index is already built
+	 *
+	 * @return A new processor
+	 */
+	public Processor createProcessor() {
+		return new Processor(this);
+	}
+
+	/**
+	 * @return Number of Java parsers created, the most used at once
+	 */
+	public int getJavaParseCreatedCount() {
+		return javaParseCreatedCount.get();
+	}
+
+	/**
+	 * Take a Java parser from the pool or create one, a parser is used
+	 * by one thread at a time
+	 *
+	 * @return The Java parser
+	 */
+	JavaParse acquireJavaParse() {
+		final JavaParse javaParse = javaParsePool.poll();
+		if (javaParse != null) {
+			return javaParse;
+		}
+
+		javaParseCreatedCount.incrementAndGet();
+		return new JavaParse();
+	}
+
+	/**
+	 * Return a Java parser to the pool, the files it read are released
+	 * so another request reads them afresh
+	 *
+	 * @param javaParse The Java parser
+	 */
+	void releaseJavaParse(final JavaParse javaParse) {
+		javaParse.setCancelToken(null);
+		javaParse.clearFileManagerCache();
+		javaParsePool.offer(javaParse);
+	}
+
+	/**
+	 * @return The class file parser, it holds no state
+	 */
+	ClassFileParse getClassFileParse() {
+		return classFileParse;
+	}
+
+	/**
+	 * @return Jar indexes by jar path, shared by the jar resolvers of the engine
+	 */
+	Map<String, PackageResolveOnJars.JarIndex> getJarIndexCache() {
+		return jarIndexCache;
+	}
+
+	/**
+	 * @return The class path resolver, it holds no state
+	 */
+	PackageResolveOnClassPath getPackageResolveOnClassPath() {
+		return packageResolveOnClassPath;
+	}
+
+	/**
+	 * Return the trie of boot layer and class path package names,
+	 * built on first call and not modified after
+	 *
+	 * @return The package trie
+	 */
+	synchronized PackageTrie getPackageTrie() {
+		if (packageTrie == null) {
+			buildClassPathIndex();
+		}
+		return packageTrie;
+	}
+
+	/**
+	 * Return the descriptors of the system modules by module name,
+	 * read on first call
+	 *
+	 * @return Module descriptors by module name
+	 */
+	synchronized Map<String, ModuleDescriptor> getSystemModuleDescriptorLookup() {
+		if (systemModuleDescriptorLookup == null) {
+			readSystemModules();
+		}
+		return systemModuleDescriptorLookup;
+	}
+
+	/**
+	 * Return the system module holding each system package,
+	 * read on first call
+	 *
+	 * @return Module names by package name
+	 */
+	synchronized Map<String, String> getSystemPackageModuleLookup() {
+		if (systemPackageModuleLookup == null) {
+			readSystemModules();
+		}
+		return systemPackageModuleLookup;
+	}
+
+	/**
+	 * Return the descriptors of the modules on the class path, explicit
+	 * or automatic, read on first call
+	 *
+	 * @return Module descriptors by module name
+	 */
+	synchronized Map<String, ModuleDescriptor> getClassPathModuleDescriptorLookup() {
+		if (classPathModuleDescriptorLookup == null) {
+			final List<Path> classPathList = new ArrayList<>();
+			for (final String classPathEntry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+				if (! classPathEntry.isEmpty()) {
+					classPathList.add(Path.of(classPathEntry));
+				}
+			}
+			classPathModuleDescriptorLookup = Collections.unmodifiableMap(readModuleDescriptors(classPathList));
+		}
+		return classPathModuleDescriptorLookup;
+	}
+
+	/**
+	 * Read the descriptors of the modules in jars and in directories of
+	 * compiled classes with a module-info.class, a jar without one is an
+	 * automatic module. Other entries and unreadable modules are skipped
+	 *
+	 * @param modulePathList Jar and class directory paths
+	 *
+	 * @return Module descriptors by module name, the first of a name wins
+	 */
+	Map<String, ModuleDescriptor> readModuleDescriptors(final Collection<Path> modulePathList) {
+		final Map<String, ModuleDescriptor> moduleDescriptorLookup = new HashMap<>();
+
+		for (final Path modulePath : modulePathList) {
+			final boolean jar = Files.isRegularFile(modulePath) && modulePath.toString().endsWith(".jar");
+			if (! jar && ! Files.isRegularFile(modulePath.resolve("module-info.class"))) {
+				continue;
+			}
+
+			try {
+				for (final ModuleReference moduleReference : ModuleFinder.of(modulePath).findAll()) {
+					moduleDescriptorLookup.putIfAbsent(moduleReference.descriptor().name(), moduleReference.descriptor());
+				}
+			}
+			catch (final FindException fe) {
+				log.warn("readModuleDescriptors: modulePath=" + modulePath + ", FindException " + fe.getMessage());
+			}
+		}
+
+		log.verbose("readModuleDescriptors: modulePathCount=" + modulePathList.size() +
+		            ", moduleCount=" + moduleDescriptorLookup.size());
+
+		return moduleDescriptorLookup;
+	}
+
+	/**
+	 * Read the descriptors of the modules of the runtime image
+	 */
+	private void readSystemModules() {
+		final Map<String, ModuleDescriptor> moduleDescriptorLookup = new HashMap<>();
+		final Map<String, String> packageModuleLookup = new HashMap<>();
+
+		for (final ModuleReference moduleReference : ModuleFinder.ofSystem().findAll()) {
+			final ModuleDescriptor moduleDescriptor = moduleReference.descriptor();
+			moduleDescriptorLookup.put(moduleDescriptor.name(), moduleDescriptor);
+			for (final String packageName : moduleDescriptor.packages()) {
+				packageModuleLookup.put(packageName, moduleDescriptor.name());
+			}
+		}
+
+		systemModuleDescriptorLookup = Collections.unmodifiableMap(moduleDescriptorLookup);
+		systemPackageModuleLookup = Collections.unmodifiableMap(packageModuleLookup);
+
+		log.verbose("readSystemModules: moduleCount=" + moduleDescriptorLookup.size() +
+		            ", packageCount=" + packageModuleLookup.size());
+	}
+
+	/**
+	 * Build the package trie from the boot layer and the class path
+	 */
+	private void buildClassPathIndex() {
+		log.verbose("buildClassPathIndex: Called...");
+
+		final PackageTrie classPathPackageTrie = new PackageTrie();
+		classPathPackageTrie.addBootLayerPackageNames();
+
+		// Names come grouped by package, add each package once
+		final String[] lastPackageName = new String[1];
+		packageResolveOnClassPath.forEachPackageClassName((packageName, className) -> {
+			if (! packageName.equals(lastPackageName[0])) {
+				classPathPackageTrie.addPackageName(packageName);
+				lastPackageName[0] = packageName;
+			}
+		});
+
+		packageTrie = classPathPackageTrie;
+
+		log.verbose("buildClassPathIndex: packageCount=" + classPathPackageTrie.size());
+	}
+}
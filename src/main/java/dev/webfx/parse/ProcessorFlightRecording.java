@@ -0,0 +1,66 @@
+package dev.webfx.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Start flight recordings with the bundled processor.jfc settings, which
+ * enable the processor stage, Java parse and resolve probe events along
+ * with CPU, GC and allocation samples
+ *
+ * @author Alexander Belch
+ */
+public final class ProcessorFlightRecording {
+
+	private static final String CONFIGURATION_RESOURCE = "processor.jfc";
+
+	/**
+	 * Private constructor
+	 */
+	private ProcessorFlightRecording() {
+	}
+
+	/**
+	 * Load the bundled settings
+	 *
+	 * @return The flight recorder configuration
+	 *
+	 * @throws IOException Thrown if the settings cannot be read
+	 */
+	public static Configuration getConfiguration() throws IOException {
+		try (final InputStream inputStream = ProcessorFlightRecording.class.getResourceAsStream(CONFIGURATION_RESOURCE)) {
+			if (inputStream == null) {
+				throw new IOException("Missing resource " + CONFIGURATION_RESOURCE);
+			}
+
+			try (final Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+				return Configuration.create(reader);
+			}
+		}
+		catch (final ParseException pe) {
+			throw new IOException("Invalid resource " + CONFIGURATION_RESOURCE + ": " + pe.getMessage(), pe);
+		}
+	}
+
+	/**
+	 * Start a recording with the bundled settings, the caller stops it
+	 * and dumps it to a file
+	 *
+	 * @return The started recording
+	 *
+	 * @throws IOException Thrown if the settings cannot be read
+	 */
+	public static Recording start() throws IOException {
+		final Recording recording = new Recording(getConfiguration());
+		recording.setName("WebFX Parse");
+		recording.start();
+		return recording;
+	}
+}
@@ -0,0 +1,49 @@
+package dev.webfx.parse;
+
+import java.util.List;
+
+/**
+ * Receives processor results as they are discovered, before the
+ * transitive closure of files is complete
+ *
+ * @author Alexander Belch
+ */
+public interface ProcessorListener {
+
+	/**
+	 * Called once a file has been parsed and its references resolved
+	 *
+	 * @param classDefinitionData The resolved class definition
+	 */
+	public default void onClassDefinition(final ClassDefinitionData classDefinitionData) {
+		// Do nothing
+	}
+
+	/**
+	 * Called the first time a package name is seen in a process run,
+	 * or when an update adds a package name
+	 *
+	 * @param packageName The package name
+	 */
+	public default void onPackageName(final String packageName) {
+		// Do nothing
+	}
+
+	/**
+	 * Called when an update leaves a package name no longer referenced
+	 *
+	 * @param packageName The package name
+	 */
+	public default void onPackageNameRemoved(final String packageName) {
+		// Do nothing
+	}
+
+	/**
+	 * Called when all files have been processed or updated
+	 *
+	 * @param packageNameList Sorted list of all package names
+	 */
+	public default void onComplete(final List<String> packageNameList) {
+		// Do nothing
+	}
+}
@@ -0,0 +1,318 @@
+package dev.webfx.parse;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of a processor: files parsed and their
+ * parse time, syntax tree nodes visited, resolve strategy attempts, hits
+ * and resolver probes split by source, references resolved and unresolved.
+ * Recording is adder increments and is safe from any thread. Exposed as
+ * an MXBean and as snapshots.
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorMetrics implements ProcessorMetricsMXBean {
+
+	private static final String OBJECT_NAME_PREFIX = "dev.webfx.parse:type=ProcessorMetrics,name=";
+
+	private static final int STRATEGY_SOURCE_COUNT = ResolveStrategy.values().length * ResolveSource.values().length;
+
+	private final LongAdder runAdder;
+	private final LongAdder javaFileParseAdder;
+	private final LongAdder classFileParseAdder;
+	private final LongAdder fileSummaryAdder;
+	private final LongAdder astNodeAdder;
+	private final LongAdder referenceAdder;
+	private final LongAdder resolvedReferenceAdder;
+	private final AtomicLong unresolvedClassNameCount;
+
+	private final LongAdder[] attemptAdders;
+	private final LongAdder[] hitAdders;
+	private final LongAdder[] probeAdders;
+	private final LongAdder[] bloomFilterRejectAdders;
+
+	private final LatencyHistogram runTimeHistogram;
+	private final LatencyHistogram parseTimeHistogram;
+	private final LatencyHistogram resolveTimeHistogram;
+	private final LatencyHistogram publishTimeHistogram;
+
+	private ObjectName objectName;
+
+	/**
+	 * Default constructor
+	 */
+	public ProcessorMetrics() {
+		runAdder = new LongAdder();
+		javaFileParseAdder = new LongAdder();
+		classFileParseAdder = new LongAdder();
+		fileSummaryAdder = new LongAdder();
+		astNodeAdder = new LongAdder();
+		referenceAdder = new LongAdder();
+		resolvedReferenceAdder = new LongAdder();
+		unresolvedClassNameCount = new AtomicLong();
+
+		attemptAdders = createAdders();
+		hitAdders = createAdders();
+		probeAdders = createAdders();
+		bloomFilterRejectAdders = createAdders();
+
+		runTimeHistogram = new LatencyHistogram();
+		parseTimeHistogram = new LatencyHistogram();
+		resolveTimeHistogram = new LatencyHistogram();
+		publishTimeHistogram = new LatencyHistogram();
+	}
+
+	/**
+	 * Register with the platform MBean server
+	 *
+	 * @param name Name distinguishing this processor e.g. the project name
+	 *
+	 * @return The object name registered
+	 *
+	 * @throws JMException Thrown if the name is invalid or already registered
+	 */
+	public synchronized ObjectName registerMBean(final String name) throws JMException {
+		unregisterMBean();
+
+		final ObjectName newObjectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+		objectName = newObjectName;
+
+		return objectName;
+	}
+
+	/**
+	 * Unregister from the platform MBean server, if registered
+	 *
+	 * @throws JMException Thrown on error
+	 */
+	public synchronized void unregisterMBean() throws JMException {
+		if (objectName != null) {
+			final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			if (mBeanServer.isRegistered(objectName)) {
+				mBeanServer.unregisterMBean(objectName);
+			}
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Record a process or update run
+	 *
+	 * @param nanos Run time in nanoseconds
+	 * @param unresolvedClassNames Number of distinct class names not resolved
+	 */
+	public void recordRun(final long nanos,
+			              final int unresolvedClassNames) {
+		runAdder.increment();
+		runTimeHistogram.record(nanos);
+		unresolvedClassNameCount.set(unresolvedClassNames);
+	}
+
+	/**
+	 * Record a file parse
+	 *
+	 * @param classFile True for a class file, false for a Java source file
+	 * @param nanos Parse time in nanoseconds
+	 * @param astNodes Number of syntax tree nodes visited
+	 */
+	public void recordParse(final boolean classFile,
+			                final long nanos,
+			                final int astNodes) {
+		(classFile ? classFileParseAdder : javaFileParseAdder).increment();
+		parseTimeHistogram.record(nanos);
+		astNodeAdder.add(astNodes);
+	}
+
+	/**
+	 * Record a file taken from the off heap store without parsing
+	 */
+	public void recordFileSummary() {
+		fileSummaryAdder.increment();
+	}
+
+	/**
+	 * Record the resolve of a file
+	 *
+	 * @param nanos Resolve time in nanoseconds
+	 */
+	public void recordResolve(final long nanos) {
+		resolveTimeHistogram.record(nanos);
+	}
+
+	/**
+	 * Record the publish of a file's results
+	 *
+	 * @param nanos Publish time in nanoseconds
+	 * @param references Number of referenced classes
+	 * @param resolvedReferences Number of referenced classes resolved
+	 */
+	public void recordPublish(final long nanos,
+			                  final int references,
+			                  final int resolvedReferences) {
+		publishTimeHistogram.record(nanos);
+		referenceAdder.add(references);
+		resolvedReferenceAdder.add(resolvedReferences);
+	}
+
+	/**
+	 * Record a resolve strategy attempt
+	 *
+	 * @param resolveStrategy The strategy
+	 * @param resolveSource What the strategy was tried against
+	 * @param resolved True if the strategy resolved the class
+	 */
+	public void recordAttempt(final ResolveStrategy resolveStrategy,
+			                  final ResolveSource resolveSource,
+			                  final boolean resolved) {
+		final int index = ProcessorMetricsSnapshot.toIndex(resolveStrategy, resolveSource);
+		attemptAdders[index].increment();
+		if (resolved) {
+			hitAdders[index].increment();
+		}
+	}
+
+	/**
+	 * Record a resolver probe
+	 *
+	 * @param resolveStrategy The strategy probing
+	 * @param resolveSource The resolver probed
+	 * @param bloomFilterRejected True if the bloom filter answered without calling the resolver
+	 */
+	public void recordProbe(final ResolveStrategy resolveStrategy,
+			                final ResolveSource resolveSource,
+			                final boolean bloomFilterRejected) {
+		final int index = ProcessorMetricsSnapshot.toIndex(resolveStrategy, resolveSource);
+		probeAdders[index].increment();
+		if (bloomFilterRejected) {
+			bloomFilterRejectAdders[index].increment();
+		}
+	}
+
+	/**
+	 * Take a copy of the metrics
+	 *
+	 * @return The snapshot
+	 */
+	public ProcessorMetricsSnapshot snapshot() {
+		final long[] counts = {
+			runAdder.sum(),
+			javaFileParseAdder.sum(),
+			classFileParseAdder.sum(),
+			fileSummaryAdder.sum(),
+			astNodeAdder.sum(),
+			referenceAdder.sum(),
+			resolvedReferenceAdder.sum(),
+			unresolvedClassNameCount.get()
+		};
+
+		return new ProcessorMetricsSnapshot(counts,
+				                            sum(attemptAdders),
+				                            sum(hitAdders),
+				                            sum(probeAdders),
+				                            sum(bloomFilterRejectAdders),
+				                            new LatencyHistogram.Snapshot[] {
+				                                runTimeHistogram.snapshot(),
+				                                parseTimeHistogram.snapshot(),
+				                                resolveTimeHistogram.snapshot(),
+				                                publishTimeHistogram.snapshot()
+				                            });
+	}
+
+	@Override
+	public ProcessorMetricsSnapshot getSnapshot() {
+		return snapshot();
+	}
+
+	@Override
+	public long getRunCount() {
+		return runAdder.sum();
+	}
+
+	@Override
+	public long getFileParseCount() {
+		return javaFileParseAdder.sum() + classFileParseAdder.sum();
+	}
+
+	@Override
+	public double getParseMeanMicros() {
+		return parseTimeHistogram.snapshot().getMeanNanos() / 1000;
+	}
+
+	@Override
+	public long getParseP99Micros() {
+		return parseTimeHistogram.snapshot().getP99Nanos() / 1000;
+	}
+
+	@Override
+	public double getResolveMeanMicros() {
+		return resolveTimeHistogram.snapshot().getMeanNanos() / 1000;
+	}
+
+	@Override
+	public long getResolveP99Micros() {
+		return resolveTimeHistogram.snapshot().getP99Nanos() / 1000;
+	}
+
+	@Override
+	public double getResolvedRate() {
+		final long references = referenceAdder.sum();
+		return references == 0 ? 0 : (double) resolvedReferenceAdder.sum() / references;
+	}
+
+	@Override
+	public long getUnresolvedClassNameCount() {
+		return unresolvedClassNameCount.get();
+	}
+
+	@Override
+	public void reset() {
+		for (final LongAdder longAdder : new LongAdder[] { runAdder, javaFileParseAdder, classFileParseAdder, fileSummaryAdder,
+				                                           astNodeAdder, referenceAdder, resolvedReferenceAdder }) {
+			longAdder.reset();
+		}
+		unresolvedClassNameCount.set(0);
+
+		for (int i = 0; i < STRATEGY_SOURCE_COUNT; i++) {
+			attemptAdders[i].reset();
+			hitAdders[i].reset();
+			probeAdders[i].reset();
+			bloomFilterRejectAdders[i].reset();
+		}
+
+		runTimeHistogram.reset();
+		parseTimeHistogram.reset();
+		resolveTimeHistogram.reset();
+		publishTimeHistogram.reset();
+	}
+
+	/**
+	 * @return An adder per strategy and source
+	 */
+	private static LongAdder[] createAdders() {
+		final LongAdder[] longAdders = new LongAdder[STRATEGY_SOURCE_COUNT];
+		for (int i = 0; i < STRATEGY_SOURCE_COUNT; i++) {
+			longAdders[i] = new LongAdder();
+		}
+		return longAdders;
+	}
+
+	/**
+	 * @param longAdders Adders per strategy and source
+	 *
+	 * @return Sums per strategy and source
+	 */
+	private static long[] sum(final LongAdder[] longAdders) {
+		final long[] sums = new long[longAdders.length];
+		for (int i = 0; i < longAdders.length; i++) {
+			sums[i] = longAdders[i].sum();
+		}
+		return sums;
+	}
+}
@@ -0,0 +1,60 @@
+package dev.webfx.parse;
+
+/**
+ * Management interface of processor metrics, registered with the platform
+ * MBean server by ProcessorMetrics.registerMBean
+ *
+ * @author Alexander Belch
+ */
+public interface ProcessorMetricsMXBean {
+
+	/**
+	 * @return All metrics since created or reset
+	 */
+	public ProcessorMetricsSnapshot getSnapshot();
+
+	/**
+	 * @return Number of process and update runs
+	 */
+	public long getRunCount();
+
+	/**
+	 * @return Number of Java source and class files parsed
+	 */
+	public long getFileParseCount();
+
+	/**
+	 * @return Mean parse time per file in microseconds
+	 */
+	public double getParseMeanMicros();
+
+	/**
+	 * @return 99th percentile parse time per file in microseconds
+	 */
+	public long getParseP99Micros();
+
+	/**
+	 * @return Mean resolve time per file in microseconds
+	 */
+	public double getResolveMeanMicros();
+
+	/**
+	 * @return 99th percentile resolve time per file in microseconds
+	 */
+	public long getResolveP99Micros();
+
+	/**
+	 * @return Resolved references as a fraction of all references
+	 */
+	public double getResolvedRate();
+
+	/**
+	 * @return Number of distinct class names not resolved in the last run
+	 */
+	public long getUnresolvedClassNameCount();
+
+	/**
+	 * Clear all metrics
+	 */
+	public void reset();
+}
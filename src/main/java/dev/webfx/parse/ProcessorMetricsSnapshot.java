@@ -0,0 +1,342 @@
+package dev.webfx.parse;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of processor metrics, either totals since the metrics
+ * were created or reset, or the difference for one process run
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorMetricsSnapshot {
+
+	private static final int SOURCE_COUNT = ResolveSource.values().length;
+
+	private final long runCount;
+	private final long javaFileParseCount;
+	private final long classFileParseCount;
+	private final long fileSummaryCount;
+	private final long astNodeCount;
+	private final long referenceCount;
+	private final long resolvedReferenceCount;
+	private final long unresolvedClassNameCount;
+
+	private final long[] attemptCounts;
+	private final long[] hitCounts;
+	private final long[] probeCounts;
+	private final long[] bloomFilterRejectCounts;
+
+	private final LatencyHistogram.Snapshot runTime;
+	private final LatencyHistogram.Snapshot parseTime;
+	private final LatencyHistogram.Snapshot resolveTime;
+	private final LatencyHistogram.Snapshot publishTime;
+
+	/**
+	 * Parameter constructor, counts by strategy and source are indexed
+	 * by strategy ordinal times source count plus source ordinal
+	 *
+	 * @param counts Run, java file, class file, file summary, syntax tree node,
+	 *               reference, resolved reference and unresolved class name counts
+	 * @param attemptCounts Strategy attempts by strategy and source
+	 * @param hitCounts Strategy hits by strategy and source
+	 * @param probeCounts Resolver probes by strategy and source
+	 * @param bloomFilterRejectCounts Probes rejected by the bloom filter by strategy and source
+	 * @param latencyHistograms Run, parse, resolve and publish times
+	 */
+	ProcessorMetricsSnapshot(final long[] counts,
+			                 final long[] attemptCounts,
+			                 final long[] hitCounts,
+			                 final long[] probeCounts,
+			                 final long[] bloomFilterRejectCounts,
+			                 final LatencyHistogram.Snapshot[] latencyHistograms) {
+		runCount = counts[0];
+		javaFileParseCount = counts[1];
+		classFileParseCount = counts[2];
+		fileSummaryCount = counts[3];
+		astNodeCount = counts[4];
+		referenceCount = counts[5];
+		resolvedReferenceCount = counts[6];
+		unresolvedClassNameCount = counts[7];
+
+		this.attemptCounts = attemptCounts;
+		this.hitCounts = hitCounts;
+		this.probeCounts = probeCounts;
+		this.bloomFilterRejectCounts = bloomFilterRejectCounts;
+
+		runTime = latencyHistograms[0];
+		parseTime = latencyHistograms[1];
+		resolveTime = latencyHistograms[2];
+		publishTime = latencyHistograms[3];
+	}
+
+	/**
+	 * @return Number of process and update runs
+	 */
+	public long getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * @return Number of Java source files parsed
+	 */
+	public long getJavaFileParseCount() {
+		return javaFileParseCount;
+	}
+
+	/**
+	 * @return Number of class files parsed
+	 */
+	public long getClassFileParseCount() {
+		return classFileParseCount;
+	}
+
+	/**
+	 * @return Number of files taken from the off heap store without parsing
+	 */
+	public long getFileSummaryCount() {
+		return fileSummaryCount;
+	}
+
+	/**
+	 * @return Number of syntax tree nodes visited parsing Java source files
+	 */
+	public long getAstNodeCount() {
+		return astNodeCount;
+	}
+
+	/**
+	 * @return Number of referenced classes resolved or not
+	 */
+	public long getReferenceCount() {
+		return referenceCount;
+	}
+
+	/**
+	 * @return Number of referenced classes resolved
+	 */
+	public long getResolvedReferenceCount() {
+		return resolvedReferenceCount;
+	}
+
+	/**
+	 * @return Number of referenced classes not resolved
+	 */
+	public long getUnresolvedReferenceCount() {
+		return referenceCount - resolvedReferenceCount;
+	}
+
+	/**
+	 * @return Resolved references as a fraction of all references, 0 if none
+	 */
+	public double getResolvedRate() {
+		return referenceCount == 0 ? 0 : (double) resolvedReferenceCount / referenceCount;
+	}
+
+	/**
+	 * @return Number of distinct class names not resolved in the last run
+	 */
+	public long getUnresolvedClassNameCount() {
+		return unresolvedClassNameCount;
+	}
+
+	/**
+	 * @return Run times
+	 */
+	public LatencyHistogram.Snapshot getRunTime() {
+		return runTime;
+	}
+
+	/**
+	 * @return Parse time per file
+	 */
+	public LatencyHistogram.Snapshot getParseTime() {
+		return parseTime;
+	}
+
+	/**
+	 * @return Resolve time per file
+	 */
+	public LatencyHistogram.Snapshot getResolveTime() {
+		return resolveTime;
+	}
+
+	/**
+	 * @return Time per file to fold results into the package names,
+	 *         dependency graph and listeners
+	 */
+	public LatencyHistogram.Snapshot getPublishTime() {
+		return publishTime;
+	}
+
+	/**
+	 * @return Strategy attempts keyed by strategy.source e.g. WILDCARD_IMPORT.CLI
+	 */
+	public Map<String, Long> getAttemptCounts() {
+		return toMap(attemptCounts);
+	}
+
+	/**
+	 * @return Strategy hits keyed by strategy.source
+	 */
+	public Map<String, Long> getHitCounts() {
+		return toMap(hitCounts);
+	}
+
+	/**
+	 * @return Hits as a fraction of attempts keyed by strategy.source
+	 */
+	public Map<String, Double> getHitRates() {
+		final Map<String, Double> hitRateMap = new TreeMap<>();
+		for (int i = 0; i < attemptCounts.length; i++) {
+			if (attemptCounts[i] > 0) {
+				hitRateMap.put(toKey(i), (double) hitCounts[i] / attemptCounts[i]);
+			}
+		}
+		return hitRateMap;
+	}
+
+	/**
+	 * @return Resolver probes keyed by strategy.source
+	 */
+	public Map<String, Long> getProbeCounts() {
+		return toMap(probeCounts);
+	}
+
+	/**
+	 * @return Probes rejected by the bloom filter without calling the
+	 *         resolver keyed by strategy.source
+	 */
+	public Map<String, Long> getBloomFilterRejectCounts() {
+		return toMap(bloomFilterRejectCounts);
+	}
+
+	/**
+	 * @param resolveStrategy The strategy
+	 * @param resolveSource The source
+	 *
+	 * @return Number of attempts
+	 */
+	public long getAttemptCount(final ResolveStrategy resolveStrategy,
+			                    final ResolveSource resolveSource) {
+		return attemptCounts[toIndex(resolveStrategy, resolveSource)];
+	}
+
+	/**
+	 * @param resolveStrategy The strategy
+	 * @param resolveSource The source
+	 *
+	 * @return Number of hits
+	 */
+	public long getHitCount(final ResolveStrategy resolveStrategy,
+			                final ResolveSource resolveSource) {
+		return hitCounts[toIndex(resolveStrategy, resolveSource)];
+	}
+
+	/**
+	 * @param resolveStrategy The strategy
+	 * @param resolveSource The source
+	 *
+	 * @return Number of probes
+	 */
+	public long getProbeCount(final ResolveStrategy resolveStrategy,
+			                  final ResolveSource resolveSource) {
+		return probeCounts[toIndex(resolveStrategy, resolveSource)];
+	}
+
+	/**
+	 * Return the metrics recorded since an earlier snapshot, the unresolved
+	 * class name count is that of this snapshot
+	 *
+	 * @param snapshot The earlier snapshot of the same metrics
+	 *
+	 * @return The difference
+	 */
+	public ProcessorMetricsSnapshot minus(final ProcessorMetricsSnapshot snapshot) {
+		final long[] counts = {
+			runCount - snapshot.runCount,
+			javaFileParseCount - snapshot.javaFileParseCount,
+			classFileParseCount - snapshot.classFileParseCount,
+			fileSummaryCount - snapshot.fileSummaryCount,
+			astNodeCount - snapshot.astNodeCount,
+			referenceCount - snapshot.referenceCount,
+			resolvedReferenceCount - snapshot.resolvedReferenceCount,
+			unresolvedClassNameCount
+		};
+
+		return new ProcessorMetricsSnapshot(counts,
+				                            minus(attemptCounts, snapshot.attemptCounts),
+				                            minus(hitCounts, snapshot.hitCounts),
+				                            minus(probeCounts, snapshot.probeCounts),
+				                            minus(bloomFilterRejectCounts, snapshot.bloomFilterRejectCounts),
+				                            new LatencyHistogram.Snapshot[] {
+				                                runTime.minus(snapshot.runTime),
+				                                parseTime.minus(snapshot.parseTime),
+				                                resolveTime.minus(snapshot.resolveTime),
+				                                publishTime.minus(snapshot.publishTime)
+				                            });
+	}
+
+	@Override
+	public String toString() {
+		return "runCount=" + runCount + ", javaFileParseCount=" + javaFileParseCount +
+		       ", classFileParseCount=" + classFileParseCount + ", fileSummaryCount=" + fileSummaryCount +
+		       ", astNodeCount=" + astNodeCount + ", referenceCount=" + referenceCount +
+		       ", resolvedReferenceCount=" + resolvedReferenceCount +
+		       ", unresolvedClassNameCount=" + unresolvedClassNameCount +
+		       ", runTime=[" + runTime + "], parseTime=[" + parseTime + "], resolveTime=[" + resolveTime +
+		       "], publishTime=[" + publishTime + "], attemptCounts=" + getAttemptCounts() +
+		       ", hitCounts=" + getHitCounts() + ", probeCounts=" + getProbeCounts() +
+		       ", bloomFilterRejectCounts=" + getBloomFilterRejectCounts();
+	}
+
+	/**
+	 * @param resolveStrategy The strategy
+	 * @param resolveSource The source
+	 *
+	 * @return Index into the counts by strategy and source
+	 */
+	static int toIndex(final ResolveStrategy resolveStrategy,
+			           final ResolveSource resolveSource) {
+		return resolveStrategy.ordinal() * SOURCE_COUNT + resolveSource.ordinal();
+	}
+
+	/**
+	 * @param index Index into the counts by strategy and source
+	 *
+	 * @return Key of the form strategy.source
+	 */
+	private static String toKey(final int index) {
+		return ResolveStrategy.values()[index / SOURCE_COUNT] + "." + ResolveSource.values()[index % SOURCE_COUNT];
+	}
+
+	/**
+	 * @param counts Counts by strategy and source
+	 *
+	 * @return Non zero counts keyed by strategy.source
+	 */
+	private static Map<String, Long> toMap(final long[] counts) {
+		final Map<String, Long> countMap = new TreeMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				countMap.put(toKey(i), counts[i]);
+			}
+		}
+		return countMap;
+	}
+
+	/**
+	 * @param counts Later counts
+	 * @param earlierCounts Earlier counts
+	 *
+	 * @return Element wise difference
+	 */
+	private static long[] minus(final long[] counts,
+			                    final long[] earlierCounts) {
+		final long[] differenceCounts = new long[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			differenceCounts[i] = counts[i] - earlierCounts[i];
+		}
+		return differenceCounts;
+	}
+}
@@ -0,0 +1,44 @@
+package dev.webfx.parse;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one processor pipeline stage, a whole process,
+ * update or resume run or the parse, resolve or publish of one file. Disabled
+ * unless enabled by a recording e.g. with processor.jfc
+ *
+ * @author Alexander Belch
+ */
+@Name("dev.webfx.parse.ProcessorStage")
+@Label("Processor Stage")
+@Description("Processor run or per file pipeline stage")
+@Category({ "WebFX", "Parse" })
+@Enabled(false)
+@StackTrace(false)
+final class ProcessorStageEvent extends Event {
+
+	static final String STAGE_PROCESS = "process";
+	static final String STAGE_UPDATE = "update";
+	static final String STAGE_RESUME = "resume";
+	static final String STAGE_PARSE = "parse";
+	static final String STAGE_RESOLVE = "resolve";
+	static final String STAGE_PUBLISH = "publish";
+	static final String STAGE_FILE_SUMMARY = "file summary";
+
+	@Label("Stage")
+	String stage;
+
+	@Label("Path and File")
+	@Description("File of a per file stage, null for a run")
+	String pathFile;
+
+	@Label("File Count")
+	@Description("Files processed by a run, 0 for a per file stage")
+	int fileCount;
+}
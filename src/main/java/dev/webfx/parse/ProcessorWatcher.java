@@ -0,0 +1,224 @@
+package dev.webfx.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the result of a processor current while files change. The
+ * directory of every file in the result is registered with a watch
+ * service and each batch of changes is passed to Processor.update, so
+ * only the changed files are parsed and resolved again. Processor
+ * listeners receive the package names added and removed.
+ *
+ * The processor must have been run with process first and must not be
+ * used by other threads while it is watched.
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorWatcher implements Closeable {
+
+	private static final String JAVA_FILE_SUFFIX = ".java";
+
+	private static final long DEFAULT_SETTLE_MILLIS = 20;
+
+	private final Log log;
+
+	private final Processor processor;
+
+	private final WatchService watchService;
+	private final Map<Path, WatchKey> watchKeyLookup;
+
+	private long settleMillis;
+	private volatile boolean closed;
+
+	/**
+	 * Parameter constructor, registers the directories of the files
+	 * in the processor result
+	 *
+	 * @param processor The processor to keep current
+	 *
+	 * @throws IOException Thrown if the watch service cannot be created
+	 */
+	public ProcessorWatcher(final Processor processor) throws IOException {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		this.processor = processor;
+
+		watchService = FileSystems.getDefault().newWatchService();
+		watchKeyLookup = new HashMap<>();
+		settleMillis = DEFAULT_SETTLE_MILLIS;
+
+		registerDirectories();
+	}
+
+	/**
+	 * Set the time to wait for further changes before updating, an editor
+	 * save is often several events on one or more files
+	 *
+	 * @param settleMillis Time in milliseconds, 0 to update on the first event
+	 */
+	public void setSettleMillis(final long settleMillis) {
+		this.settleMillis = settleMillis;
+	}
+
+	/**
+	 * Watch and update until closed, runs the updates on the calling thread
+	 *
+	 * @throws InterruptedException Thrown if the thread is interrupted while waiting
+	 */
+	public void watch() throws InterruptedException {
+		try {
+			while (! closed) {
+				update(watchService.take());
+			}
+		}
+		catch (final ClosedWatchServiceException cwse) {
+			// Closed while waiting
+		}
+	}
+
+	/**
+	 * Wait for one batch of changes and update
+	 *
+	 * @param timeout Longest time to wait for the first change
+	 * @param timeUnit Unit of the timeout
+	 *
+	 * @return True if the processor was updated
+	 *
+	 * @throws InterruptedException Thrown if the thread is interrupted while waiting
+	 */
+	public boolean poll(final long timeout,
+			            final TimeUnit timeUnit) throws InterruptedException {
+		final WatchKey watchKey = watchService.poll(timeout, timeUnit);
+		return watchKey != null && update(watchKey);
+	}
+
+	/**
+	 * @return The directories registered
+	 */
+	public List<Path> getWatchedDirectoryList() {
+		return new ArrayList<>(watchKeyLookup.keySet());
+	}
+
+	/**
+	 * Stop watching, a thread in watch returns
+	 *
+	 * @throws IOException Thrown if the watch service fails to close
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		watchService.close();
+	}
+
+	/**
+	 * Collect the changes of a watch key and of any keys signalled
+	 * before the settle time passes, then update the processor
+	 *
+	 * @param firstWatchKey The first signalled key
+	 *
+	 * @return True if the processor was updated
+	 *
+	 * @throws InterruptedException Thrown if the thread is interrupted while waiting
+	 */
+	private boolean update(final WatchKey firstWatchKey) throws InterruptedException {
+		final Set<String> changedPathFileSet = new LinkedHashSet<>();
+
+		WatchKey watchKey = firstWatchKey;
+		while (watchKey != null) {
+			addChangedPathFiles(watchKey, changedPathFileSet);
+			watchKey = watchService.poll(settleMillis, TimeUnit.MILLISECONDS);
+		}
+
+		if (changedPathFileSet.isEmpty()) {
+			return false;
+		}
+
+		final long startNanoTime = System.nanoTime();
+		processor.update(changedPathFileSet);
+		log.verbose("ProcessorWatcher.update: changedPathFileSet=" + changedPathFileSet + ", millis=" +
+		            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanoTime));
+
+		// Newly reached files may be in new directories
+		registerDirectories();
+
+		return true;
+	}
+
+	/**
+	 * Add the Java source and class files changed in a watched directory
+	 *
+	 * @param watchKey The signalled key
+	 * @param changedPathFileSet Set to add to
+	 */
+	private void addChangedPathFiles(final WatchKey watchKey,
+			                         final Set<String> changedPathFileSet) {
+		final Path directory = (Path) watchKey.watchable();
+
+		for (final WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+			if (watchEvent.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// Events were lost, treat every file of the directory as changed
+				log.verbose("ProcessorWatcher.addChangedPathFiles: overflow directory=" + directory);
+				for (final String pathFile : processor.getPathFileList()) {
+					if (directory.equals(Path.of(pathFile).getParent())) {
+						changedPathFileSet.add(pathFile);
+					}
+				}
+				continue;
+			}
+
+			final String pathFile = directory.resolve((Path) watchEvent.context()).toString();
+			if (pathFile.endsWith(JAVA_FILE_SUFFIX) || ClassFileParse.isClassFile(pathFile)) {
+				changedPathFileSet.add(pathFile);
+			}
+		}
+
+		if (! watchKey.reset()) {
+			// Directory removed
+			watchKeyLookup.remove(directory);
+		}
+	}
+
+	/**
+	 * Register the directory of each file in the processor result
+	 * that is not already watched, jar entries are not watched
+	 */
+	private void registerDirectories() {
+		for (final String pathFile : processor.getPathFileList()) {
+			if (pathFile.contains(ClassFileParse.JAR_ENTRY_SEPARATOR)) {
+				continue;
+			}
+
+			final Path directory = Path.of(pathFile).getParent();
+			if (directory == null || watchKeyLookup.containsKey(directory)) {
+				continue;
+			}
+
+			try {
+				watchKeyLookup.put(directory, directory.register(watchService,
+						                                         StandardWatchEventKinds.ENTRY_CREATE,
+						                                         StandardWatchEventKinds.ENTRY_MODIFY,
+						                                         StandardWatchEventKinds.ENTRY_DELETE));
+				log.verbose("ProcessorWatcher.registerDirectories: directory=" + directory);
+			}
+			catch (final IOException ioe) {
+				log.warn("ProcessorWatcher.registerDirectories: directory=" + directory + ", IOException " + ioe.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package dev.webfx.parse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A module of a project processed in one run, its name, the source roots
+ * holding its files and the entry files its package names are found from
+ * 
+ * @author Alexander Belch
+ */
+public class ProjectModuleData {
+	
+	private final String moduleName;
+	private final List<Path> sourceRootList;
+	private final List<String> entryPathFileList;
+	
+	/**
+	 * Parameter constructor, paths are made absolute and normalized
+	 * 
+	 * @param moduleName The module name
+	 * @param sourceRootList Source root directories e.g. /project/module/src/main/java
+	 * @param entryPathFileList Path and files to start from
+	 */
+	public ProjectModuleData(final String moduleName,
+			                 final List<String> sourceRootList,
+			                 final List<String> entryPathFileList) {
+		this.moduleName = moduleName;
+		
+		this.sourceRootList = new ArrayList<>();
+		for (final String sourceRoot : sourceRootList) {
+			this.sourceRootList.add(Path.of(sourceRoot).toAbsolutePath().normalize());
+		}
+		
+		this.entryPathFileList = new ArrayList<>();
+		for (final String entryPathFile : entryPathFileList) {
+			this.entryPathFileList.add(Path.of(entryPathFile).toAbsolutePath().normalize().toString());
+		}
+	}
+	
+	/**
+	 * @return the module name
+	 */
+	public String getModuleName() {
+		return moduleName;
+	}
+	
+	/**
+	 * @return the absolute source roots
+	 */
+	public List<Path> getSourceRootList() {
+		return Collections.unmodifiableList(sourceRootList);
+	}
+	
+	/**
+	 * @return the absolute entry path and files
+	 */
+	public List<String> getEntryPathFileList() {
+		return Collections.unmodifiableList(entryPathFileList);
+	}
+	
+	@Override
+	public String toString() {
+		return moduleName + " " + sourceRootList;
+	}
+}
@@ -0,0 +1,54 @@
+package dev.webfx.parse;
+
+/**
+ * References from the files of one project module to the files of another
+ * 
+ * @author Alexander Belch
+ */
+public class ProjectModuleEdgeData {
+	
+	private final String sourceModuleName;
+	private final String targetModuleName;
+	private final int referenceCount;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param sourceModuleName The module holding the references
+	 * @param targetModuleName The module referenced
+	 * @param referenceCount Number of references
+	 */
+	public ProjectModuleEdgeData(final String sourceModuleName,
+			                     final String targetModuleName,
+			                     final int referenceCount) {
+		this.sourceModuleName = sourceModuleName;
+		this.targetModuleName = targetModuleName;
+		this.referenceCount = referenceCount;
+	}
+	
+	/**
+	 * @return the module holding the references
+	 */
+	public String getSourceModuleName() {
+		return sourceModuleName;
+	}
+	
+	/**
+	 * @return the module referenced
+	 */
+	public String getTargetModuleName() {
+		return targetModuleName;
+	}
+	
+	/**
+	 * @return the number of references
+	 */
+	public int getReferenceCount() {
+		return referenceCount;
+	}
+	
+	@Override
+	public String toString() {
+		return sourceModuleName + " -> " + targetModuleName + " (" + referenceCount + ")";
+	}
+}
@@ -0,0 +1,249 @@
+package dev.webfx.parse;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes the modules of a project in one run. The entry files of every
+ * module are processed by one processor, so each file is parsed and
+ * resolved once however many modules reach it, and the symbol table,
+ * resolver caches and package trie are shared. The package names of a
+ * module are then those of the files reached from its entry files in the
+ * dependency graph, and references between files of different modules
+ * are the module edges.
+ *
+ * References are resolved against the source roots of all modules, then
+ * the class path.
+ *
+ * @author Alexander Belch
+ */
+public class ProjectProcessor {
+
+	private final Log log;
+
+	private final Processor processor;
+	private final List<ProjectModuleData> projectModuleList;
+
+	private PackageResolveCallback cliPackageResolveCallback;
+
+	private final List<ProjectModuleEdgeData> projectModuleEdgeList;
+
+	/**
+	 * Default constructor
+	 */
+	public ProjectProcessor() {
+		this(new ProcessorEngine());
+	}
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param processorEngine The engine, may be shared
+	 */
+	public ProjectProcessor(final ProcessorEngine processorEngine) {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		processor = processorEngine.createProcessor();
+		projectModuleList = new ArrayList<>();
+		projectModuleEdgeList = new ArrayList<>();
+	}
+
+	/**
+	 * Add a module to process
+	 *
+	 * @param projectModuleData The module
+	 */
+	public void addModule(final ProjectModuleData projectModuleData) {
+		projectModuleList.add(projectModuleData);
+	}
+
+	/**
+	 * Set the resolver to use instead of the source roots of the modules,
+	 * it must resolve to the module files for the module edges to be found
+	 *
+	 * @param cliPackageResolveCallback The resolver or null for the module source roots
+	 */
+	public void setCliPackageResolveCallback(final PackageResolveCallback cliPackageResolveCallback) {
+		this.cliPackageResolveCallback = cliPackageResolveCallback;
+	}
+
+	/**
+	 * Return the processor running the modules, for its settings,
+	 * listeners, metrics and dependency graph
+	 *
+	 * @return The processor
+	 */
+	public Processor getProcessor() {
+		return processor;
+	}
+
+	/**
+	 * Return the module edges found by the last run
+	 *
+	 * @return Edges in module order
+	 */
+	public List<ProjectModuleEdgeData> getProjectModuleEdgeList() {
+		return Collections.unmodifiableList(projectModuleEdgeList);
+	}
+
+	/**
+	 * Process the entry files of every module in one run
+	 *
+	 * @return Sorted package names by module name, in module order
+	 */
+	public Map<String, List<String>> process() {
+		final List<String> sourceRootList = new ArrayList<>();
+		for (final ProjectModuleData projectModuleData : projectModuleList) {
+			for (final Path sourceRoot : projectModuleData.getSourceRootList()) {
+				sourceRootList.add(sourceRoot.toString());
+			}
+		}
+		processor.setCliPackageResolveCallback(cliPackageResolveCallback != null ?
+			cliPackageResolveCallback : new PackageResolveOnSourceRoots(sourceRootList));
+
+		processor.clearFiles();
+		for (final ProjectModuleData projectModuleData : projectModuleList) {
+			projectModuleData.getEntryPathFileList().forEach(processor::addFile);
+		}
+		processor.process();
+
+		final DependencyGraph dependencyGraph = processor.getDependencyGraph();
+
+		final Map<String, List<String>> modulePackageNameLookup = new LinkedHashMap<>();
+		for (final ProjectModuleData projectModuleData : projectModuleList) {
+			modulePackageNameLookup.put(projectModuleData.getModuleName(),
+					                    findPackageNames(dependencyGraph, projectModuleData));
+		}
+
+		findModuleEdges(dependencyGraph);
+
+		log.verbose("ProjectProcessor.process: moduleCount=" + projectModuleList.size() +
+		            ", fileCount=" + dependencyGraph.getFileCount() + ", projectModuleEdgeList=" + projectModuleEdgeList);
+
+		return modulePackageNameLookup;
+	}
+
+	/**
+	 * Find the package names of a module, walking the dependency graph
+	 * from its entry files breadth first
+	 *
+	 * @param dependencyGraph Graph of the run
+	 * @param projectModuleData The module
+	 *
+	 * @return Sorted package names of the files reached and their resolved references
+	 */
+	private List<String> findPackageNames(final DependencyGraph dependencyGraph,
+			                              final ProjectModuleData projectModuleData) {
+		final PackageNameSet packageNameSet = new PackageNameSet(dependencyGraph.getSymbolDictionary());
+		final BitSet visitedFileBitSet = new BitSet(dependencyGraph.getFileCount());
+		final Deque<Integer> fileDeque = new ArrayDeque<>();
+
+		for (final String entryPathFile : projectModuleData.getEntryPathFileList()) {
+			final int fileIndex = dependencyGraph.getFileIndex(entryPathFile);
+			if (fileIndex != DependencyGraph.NO_FILE && ! visitedFileBitSet.get(fileIndex)) {
+				visitedFileBitSet.set(fileIndex);
+				fileDeque.add(fileIndex);
+			}
+		}
+
+		while (! fileDeque.isEmpty()) {
+			final int fileIndex = fileDeque.poll();
+
+			final String packageName = processor.getPackageName(dependencyGraph.getPathFile(fileIndex));
+			if (packageName != null) {
+				packageNameSet.add(packageName);
+			}
+
+			for (int edge = dependencyGraph.getEdgeStart(fileIndex); edge < dependencyGraph.getEdgeEnd(fileIndex); edge++) {
+				if (dependencyGraph.isEdgeResolved(edge)) {
+					packageNameSet.addId(dependencyGraph.getEdgePackageNameId(edge));
+				}
+
+				final int targetFile = dependencyGraph.getEdgeTargetFile(edge);
+				if (targetFile != DependencyGraph.NO_FILE && ! visitedFileBitSet.get(targetFile)) {
+					visitedFileBitSet.set(targetFile);
+					fileDeque.add(targetFile);
+				}
+			}
+		}
+
+		return packageNameSet.toSortedList();
+	}
+
+	/**
+	 * Count the references between files of different modules
+	 *
+	 * @param dependencyGraph Graph of the run
+	 */
+	private void findModuleEdges(final DependencyGraph dependencyGraph) {
+		projectModuleEdgeList.clear();
+
+		final int moduleCount = projectModuleList.size();
+		final int[][] referenceCounts = new int[moduleCount][moduleCount];
+
+		final int[] fileModules = new int[dependencyGraph.getFileCount()];
+		for (int fileIndex = 0; fileIndex < fileModules.length; fileIndex++) {
+			fileModules[fileIndex] = findModule(dependencyGraph.getPathFile(fileIndex));
+		}
+
+		for (int fileIndex = 0; fileIndex < fileModules.length; fileIndex++) {
+			if (fileModules[fileIndex] < 0) {
+				continue;
+			}
+
+			for (int edge = dependencyGraph.getEdgeStart(fileIndex); edge < dependencyGraph.getEdgeEnd(fileIndex); edge++) {
+				final int targetFile = dependencyGraph.getEdgeTargetFile(edge);
+				if (targetFile != DependencyGraph.NO_FILE &&
+					fileModules[targetFile] >= 0 && fileModules[targetFile] != fileModules[fileIndex]) {
+					referenceCounts[fileModules[fileIndex]][fileModules[targetFile]]++;
+				}
+			}
+		}
+
+		for (int sourceModule = 0; sourceModule < moduleCount; sourceModule++) {
+			for (int targetModule = 0; targetModule < moduleCount; targetModule++) {
+				if (referenceCounts[sourceModule][targetModule] > 0) {
+					projectModuleEdgeList.add(new ProjectModuleEdgeData(projectModuleList.get(sourceModule).getModuleName(),
+							                                            projectModuleList.get(targetModule).getModuleName(),
+							                                            referenceCounts[sourceModule][targetModule]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the module whose source root holds a file, the longest root
+	 * if roots are nested
+	 *
+	 * @param pathFile The path and file
+	 *
+	 * @return Index of the module or -1 if none, as for jar entries
+	 */
+	private int findModule(final String pathFile) {
+		if (pathFile.contains(ClassFileParse.JAR_ENTRY_SEPARATOR)) {
+			return -1;
+		}
+
+		final Path path = Path.of(pathFile).toAbsolutePath().normalize();
+
+		int foundModule = -1;
+		int foundNameCount = -1;
+		for (int module = 0; module < projectModuleList.size(); module++) {
+			for (final Path sourceRoot : projectModuleList.get(module).getSourceRootList()) {
+				if (path.startsWith(sourceRoot) && sourceRoot.getNameCount() > foundNameCount) {
+					foundModule = module;
+					foundNameCount = sourceRoot.getNameCount();
+				}
+			}
+		}
+		return foundModule;
+	}
+}
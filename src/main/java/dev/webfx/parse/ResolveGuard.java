@@ -0,0 +1,436 @@
+package dev.webfx.parse;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Latency budget for the CLI resolver. Each probe runs on a worker thread
+ * and is abandoned after the probe timeout, once the run deadline has
+ * passed no more probes are made, and a circuit breaker stops calling a
+ * resolver for a while after repeated slow or failed calls. A skipped
+ * probe returns not resolved so the reference falls back to the class
+ * path resolvers. Each skip is recorded, a run with skips is a partial
+ * result.
+ * 
+ * Without a probe timeout probes run on the calling thread and cannot be
+ * abandoned, the deadline and circuit breaker still apply.
+ * 
+ * The worker threads are bounded, probes beyond them wait within their
+ * timeout. An abandoned probe that ignores the interrupt keeps its thread,
+ * the circuit then stays open until the thread is free again rather than
+ * starting a trial probe on another thread.
+ * 
+ * @author Alexander Belch
+ */
+public class ResolveGuard implements Closeable {
+	
+	private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	private static final long DEFAULT_OPEN_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final int DEFAULT_MAX_PROBE_THREADS = 4;
+	private static final long PROBE_THREAD_KEEP_ALIVE_SECONDS = 60;
+	
+	/**
+	 * State of the circuit breaker
+	 */
+	public enum CircuitState {
+		/**
+		 * Probes are made
+		 */
+		CLOSED,
+		/**
+		 * Probes are skipped until the open time has passed
+		 */
+		OPEN,
+		/**
+		 * One trial probe is made, closes on success and opens on failure
+		 */
+		HALF_OPEN
+	}
+	
+	private final Log log;
+	
+	private long probeTimeoutNanos;
+	private long slowCallNanos;
+	private long runBudgetNanos;
+	private int failureThreshold;
+	private long openNanos;
+	private int maxProbeThreads;
+	
+	private ThreadPoolExecutor executorService;
+	private int abandonedProbeCount;
+	
+	private long deadlineNanoTime;
+	private boolean deadlineExceeded;
+	
+	private CircuitState circuitState;
+	private int consecutiveFailureCount;
+	private long openedNanoTime;
+	
+	private final List<SkippedProbeData> skippedProbeList;
+	
+	/**
+	 * Default constructor, no timeout, deadline or slow call threshold,
+	 * the circuit opens for 30 seconds after 5 consecutive failures,
+	 * probes run on up to 4 threads
+	 */
+	public ResolveGuard() {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+		
+		failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+		openNanos = DEFAULT_OPEN_NANOS;
+		maxProbeThreads = DEFAULT_MAX_PROBE_THREADS;
+		
+		circuitState = CircuitState.CLOSED;
+		skippedProbeList = new ArrayList<>();
+	}
+	
+	/**
+	 * Set the longest time to wait for one probe, a probe that takes
+	 * longer is abandoned and counts as a failure
+	 * 
+	 * @param timeout Timeout, 0 for none
+	 * @param timeUnit Unit of the timeout
+	 */
+	public synchronized void setProbeTimeout(final long timeout,
+			                                 final TimeUnit timeUnit) {
+		probeTimeoutNanos = timeUnit.toNanos(timeout);
+	}
+	
+	/**
+	 * Set the time above which a probe that returned still counts as
+	 * a failure for the circuit breaker
+	 * 
+	 * @param slowCall Slow call time, 0 for none
+	 * @param timeUnit Unit of the slow call time
+	 */
+	public synchronized void setSlowCallThreshold(final long slowCall,
+			                                      final TimeUnit timeUnit) {
+		slowCallNanos = timeUnit.toNanos(slowCall);
+	}
+	
+	/**
+	 * Set the time a run may spend from its start before further
+	 * probes are skipped
+	 * 
+	 * @param runBudget Run budget, 0 for none
+	 * @param timeUnit Unit of the run budget
+	 */
+	public synchronized void setRunBudget(final long runBudget,
+			                              final TimeUnit timeUnit) {
+		runBudgetNanos = timeUnit.toNanos(runBudget);
+	}
+	
+	/**
+	 * Set when the circuit opens and for how long
+	 * 
+	 * @param failureThreshold Consecutive slow or failed probes that open the circuit
+	 * @param openTime Time probes are skipped before a trial probe
+	 * @param timeUnit Unit of the open time
+	 */
+	public synchronized void setCircuitBreaker(final int failureThreshold,
+			                                   final long openTime,
+			                                   final TimeUnit timeUnit) {
+		this.failureThreshold = Math.max(1, failureThreshold);
+		openNanos = timeUnit.toNanos(openTime);
+	}
+	
+	/**
+	 * Set the number of worker threads probes run on with a probe
+	 * timeout, applies when the threads are next created
+	 * 
+	 * @param maxProbeThreads Maximum number of worker threads
+	 */
+	public synchronized void setMaxProbeThreads(final int maxProbeThreads) {
+		this.maxProbeThreads = Math.max(1, maxProbeThreads);
+	}
+	
+	/**
+	 * Start a run, sets the deadline and clears the skipped probes,
+	 * the circuit state carries over from the previous run
+	 */
+	public synchronized void startRun() {
+		deadlineNanoTime = System.nanoTime() + runBudgetNanos;
+		deadlineExceeded = false;
+		skippedProbeList.clear();
+	}
+	
+	/**
+	 * Call a resolver within the latency budget
+	 * 
+	 * @param resolveStrategy Strategy probing
+	 * @param packageResolveCallback The resolver
+	 * @param packageName The package name
+	 * @param className The class name
+	 * 
+	 * @return The resolver result, not resolved if skipped
+	 */
+	public PackageResolveResult probe(final ResolveStrategy resolveStrategy,
+			                          final PackageResolveCallback packageResolveCallback,
+			                          final String packageName,
+			                          final String className) {
+		final ResolveSkipReason preSkipReason = beforeProbe();
+		if (preSkipReason != null) {
+			return skip(resolveStrategy, packageResolveCallback, packageName, className, preSkipReason);
+		}
+		
+		final long startNanoTime = System.nanoTime();
+		PackageResolveResult result = null;
+		ResolveSkipReason resolveSkipReason = null;
+		
+		if (getProbeTimeoutNanos() > 0) {
+			final ProbeTask probeTask = new ProbeTask(packageResolveCallback, packageName, className);
+			final Future<PackageResolveResult> future = getExecutorService().submit(probeTask);
+			try {
+				result = future.get(getProbeTimeoutNanos(), TimeUnit.NANOSECONDS);
+			}
+			catch (final TimeoutException te) {
+				future.cancel(true);
+				abandon(probeTask);
+				resolveSkipReason = ResolveSkipReason.TIMEOUT;
+			}
+			catch (final ExecutionException ee) {
+				log.warn("probe: [" + packageResolveCallback.onPackgeResolveDescription() + "] " + 
+				         "packageName=" + packageName + ", className=" + className + ", " + ee.getCause());
+				resolveSkipReason = ResolveSkipReason.ERROR;
+			}
+			catch (final InterruptedException ie) {
+				future.cancel(true);
+				abandon(probeTask);
+				Thread.currentThread().interrupt();
+				resolveSkipReason = ResolveSkipReason.TIMEOUT;
+			}
+		}
+		else {
+			try {
+				result = packageResolveCallback.onPackageResolveCallback(packageName, className);
+			}
+			catch (final RuntimeException re) {
+				log.warn("probe: [" + packageResolveCallback.onPackgeResolveDescription() + "] " + 
+				         "packageName=" + packageName + ", className=" + className + ", " + re);
+				resolveSkipReason = ResolveSkipReason.ERROR;
+			}
+		}
+		
+		afterProbe(packageResolveCallback, resolveSkipReason != null, System.nanoTime() - startNanoTime);
+		
+		if (resolveSkipReason != null) {
+			return skip(resolveStrategy, packageResolveCallback, packageName, className, resolveSkipReason);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return Probes skipped or abandoned since the run started
+	 */
+	public synchronized List<SkippedProbeData> getSkippedProbeList() {
+		return Collections.unmodifiableList(new ArrayList<>(skippedProbeList));
+	}
+	
+	/**
+	 * @return Number of probes skipped or abandoned since the run started
+	 */
+	public synchronized int getSkippedProbeCount() {
+		return skippedProbeList.size();
+	}
+	
+	/**
+	 * @return True if the run deadline passed during the run
+	 */
+	public synchronized boolean isDeadlineExceeded() {
+		return deadlineExceeded;
+	}
+	
+	/**
+	 * @return Number of abandoned probes whose threads are still running
+	 */
+	public synchronized int getAbandonedProbeCount() {
+		return abandonedProbeCount;
+	}
+	
+	/**
+	 * @return State of the circuit breaker
+	 */
+	public synchronized CircuitState getCircuitState() {
+		return circuitState;
+	}
+	
+	/**
+	 * Stop the worker threads, probes still running are interrupted
+	 */
+	@Override
+	public synchronized void close() {
+		if (executorService != null) {
+			executorService.shutdownNow();
+			executorService = null;
+		}
+	}
+	
+	/**
+	 * Check the deadline and circuit before a probe
+	 * 
+	 * @return Reason to skip the probe or null to make it
+	 */
+	private synchronized ResolveSkipReason beforeProbe() {
+		final long nanoTime = System.nanoTime();
+		
+		if (runBudgetNanos > 0 && nanoTime - deadlineNanoTime >= 0) {
+			if (! deadlineExceeded) {
+				deadlineExceeded = true;
+				log.warn("beforeProbe: run deadline passed, CLI probes are skipped");
+			}
+			return ResolveSkipReason.DEADLINE;
+		}
+		
+		if (circuitState == CircuitState.OPEN) {
+			if (nanoTime - openedNanoTime < openNanos) {
+				return ResolveSkipReason.CIRCUIT_OPEN;
+			}
+			if (abandonedProbeCount > 0) {
+				log.verbose("beforeProbe: circuit kept open, abandonedProbeCount=" + abandonedProbeCount);
+				return ResolveSkipReason.CIRCUIT_OPEN;
+			}
+			circuitState = CircuitState.HALF_OPEN;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Update the circuit breaker after a probe
+	 * 
+	 * @param packageResolveCallback The resolver
+	 * @param failed True if the probe timed out or threw
+	 * @param probeNanos Time the probe took
+	 */
+	private synchronized void afterProbe(final PackageResolveCallback packageResolveCallback,
+			                             final boolean failed,
+			                             final long probeNanos) {
+		if (! failed && (slowCallNanos == 0 || probeNanos < slowCallNanos)) {
+			consecutiveFailureCount = 0;
+			circuitState = CircuitState.CLOSED;
+			return;
+		}
+		
+		consecutiveFailureCount++;
+		if (circuitState == CircuitState.HALF_OPEN || consecutiveFailureCount >= failureThreshold) {
+			if (circuitState != CircuitState.OPEN) {
+				log.warn("afterProbe: [" + packageResolveCallback.onPackgeResolveDescription() + "] " + 
+				         "circuit open after " + consecutiveFailureCount + " slow or failed probes");
+			}
+			circuitState = CircuitState.OPEN;
+			openedNanoTime = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Record a skipped probe
+	 * 
+	 * @param resolveStrategy Strategy probing
+	 * @param packageResolveCallback The resolver
+	 * @param packageName The package name
+	 * @param className The class name
+	 * @param resolveSkipReason Why the probe was skipped
+	 * 
+	 * @return Not resolved result
+	 */
+	private synchronized PackageResolveResult skip(final ResolveStrategy resolveStrategy,
+			                                       final PackageResolveCallback packageResolveCallback,
+			                                       final String packageName,
+			                                       final String className,
+			                                       final ResolveSkipReason resolveSkipReason) {
+		log.verbose("skip: [" + packageResolveCallback.onPackgeResolveDescription() + "] " + 
+		            resolveSkipReason + " packageName=" + packageName + ", className=" + className);
+		skippedProbeList.add(new SkippedProbeData(resolveStrategy, packageName, className, 
+				                                  packageResolveCallback.onPackgeResolveDescription(), 
+				                                  resolveSkipReason));
+		return new PackageResolveResult(false, null);
+	}
+	
+	/**
+	 * Count a timed out probe whose thread is still running, the count
+	 * drops when the probe returns
+	 * 
+	 * @param probeTask The probe
+	 */
+	private synchronized void abandon(final ProbeTask probeTask) {
+		if (probeTask.started && ! probeTask.finished) {
+			probeTask.abandoned = true;
+			abandonedProbeCount++;
+		}
+	}
+	
+	/**
+	 * @return The probe timeout in nanoseconds, 0 for none
+	 */
+	private synchronized long getProbeTimeoutNanos() {
+		return probeTimeoutNanos;
+	}
+	
+	/**
+	 * @return Executor of the probes, created with daemon threads on first
+	 *         use, idle threads end after a minute
+	 */
+	private synchronized ThreadPoolExecutor getExecutorService() {
+		if (executorService == null) {
+			executorService = new ThreadPoolExecutor(maxProbeThreads, maxProbeThreads, 
+					                                 PROBE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, 
+					                                 new LinkedBlockingQueue<>(), runnable -> {
+				final Thread thread = new Thread(runnable, "ResolveGuard");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executorService.allowCoreThreadTimeOut(true);
+		}
+		return executorService;
+	}
+	
+	/**
+	 * A probe on a worker thread, tracks whether it is still running
+	 * after being abandoned. The flags are guarded by the resolve guard
+	 */
+	private class ProbeTask implements Callable<PackageResolveResult> {
+		private final PackageResolveCallback packageResolveCallback;
+		private final String packageName;
+		private final String className;
+		
+		private boolean started;
+		private boolean finished;
+		private boolean abandoned;
+		
+		private ProbeTask(final PackageResolveCallback packageResolveCallback,
+				          final String packageName,
+				          final String className) {
+			this.packageResolveCallback = packageResolveCallback;
+			this.packageName = packageName;
+			this.className = className;
+		}
+		
+		@Override
+		public PackageResolveResult call() {
+			synchronized (ResolveGuard.this) {
+				started = true;
+			}
+			try {
+				return packageResolveCallback.onPackageResolveCallback(packageName, className);
+			}
+			finally {
+				synchronized (ResolveGuard.this) {
+					finished = true;
+					if (abandoned) {
+						abandonedProbeCount--;
+					}
+				}
+			}
+		}
+	}
+}
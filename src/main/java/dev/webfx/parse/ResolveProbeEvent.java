@@ -0,0 +1,45 @@
+package dev.webfx.parse;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one resolver probe, disabled unless
+ * enabled by a recording e.g. with processor.jfc
+ *
+ * @author Alexander Belch
+ */
+@Name("dev.webfx.parse.ResolveProbe")
+@Label("Resolve Probe")
+@Description("Probe of a package resolve callback for a package and class name")
+@Category({ "WebFX", "Parse" })
+@Enabled(false)
+@StackTrace(false)
+final class ResolveProbeEvent extends Event {
+
+	static final String OUTCOME_RESOLVED = "resolved";
+	static final String OUTCOME_NOT_RESOLVED = "not resolved";
+	static final String OUTCOME_BLOOM_FILTER_REJECTED = "rejected by bloom filter";
+	static final String OUTCOME_MODULE_PRUNED = "pruned by module scope";
+
+	@Label("Strategy")
+	String strategy;
+
+	@Label("Package Name")
+	String packageName;
+
+	@Label("Class Name")
+	String className;
+
+	@Label("Resolver")
+	@Description("Description of the package resolve callback")
+	String resolver;
+
+	@Label("Outcome")
+	String outcome;
+}
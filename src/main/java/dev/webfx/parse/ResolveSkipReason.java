@@ -0,0 +1,25 @@
+package dev.webfx.parse;
+
+/**
+ * Why a resolve guard did not return the result of a CLI resolver probe
+ * 
+ * @author Alexander Belch
+ */
+public enum ResolveSkipReason {
+	/**
+	 * The resolver did not return within the probe timeout
+	 */
+	TIMEOUT,
+	/**
+	 * The resolver threw an exception
+	 */
+	ERROR,
+	/**
+	 * The circuit breaker was open after repeated slow or failed calls
+	 */
+	CIRCUIT_OPEN,
+	/**
+	 * The run deadline had passed
+	 */
+	DEADLINE
+}
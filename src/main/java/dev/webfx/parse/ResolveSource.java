@@ -0,0 +1,21 @@
+package dev.webfx.parse;
+
+/**
+ * What a resolve strategy is tried against
+ * 
+ * @author Alexander Belch
+ */
+public enum ResolveSource {
+	/**
+	 * Parsed files only, no resolver is called
+	 */
+	LOCAL,
+	/**
+	 * The CLI resolver callback
+	 */
+	CLI,
+	/**
+	 * The class path and boot layer
+	 */
+	CLASS_PATH
+}
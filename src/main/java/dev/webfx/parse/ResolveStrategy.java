@@ -0,0 +1,41 @@
+package dev.webfx.parse;
+
+/**
+ * Strategies tried in turn by PackageResolve to resolve a referenced class
+ * 
+ * @author Alexander Belch
+ */
+public enum ResolveStrategy {
+	/**
+	 * Types declared in already parsed files
+	 */
+	SYMBOL_TABLE,
+	/**
+	 * Class name that is itself a dotted package and class name
+	 */
+	PACKAGE_DOT_CLASS_NAME,
+	/**
+	 * Class name import e.g. 'com.abc.SomeClass'
+	 */
+	CLASS_NAME_IMPORT,
+	/**
+	 * Wildcard import e.g. 'com.abc.*'
+	 */
+	WILDCARD_IMPORT,
+	/**
+	 * Package of the referencing class
+	 */
+	CLASS_PACKAGE,
+	/**
+	 * Primary class of the referencing file
+	 */
+	PRIMARY_CLASS_NAME,
+	/**
+	 * Secondary classes of the referencing file
+	 */
+	SECONDARY_CLASS_NAME,
+	/**
+	 * The java.lang default package
+	 */
+	JAVA_LANG
+}
@@ -0,0 +1,78 @@
+package dev.webfx.parse;
+
+/**
+ * A CLI resolver probe the resolve guard skipped or abandoned, the
+ * reference fell back to the class path resolvers
+ * 
+ * @author Alexander Belch
+ */
+public class SkippedProbeData {
+	
+	private final ResolveStrategy resolveStrategy;
+	private final String packageName;
+	private final String className;
+	private final String resolverDescription;
+	private final ResolveSkipReason resolveSkipReason;
+	
+	/**
+	 * Parameter constructor
+	 * 
+	 * @param resolveStrategy Strategy probing
+	 * @param packageName The package name
+	 * @param className The class name
+	 * @param resolverDescription Description of the resolver
+	 * @param resolveSkipReason Why the probe was skipped
+	 */
+	public SkippedProbeData(final ResolveStrategy resolveStrategy,
+			                final String packageName,
+			                final String className,
+			                final String resolverDescription,
+			                final ResolveSkipReason resolveSkipReason) {
+		this.resolveStrategy = resolveStrategy;
+		this.packageName = packageName;
+		this.className = className;
+		this.resolverDescription = resolverDescription;
+		this.resolveSkipReason = resolveSkipReason;
+	}
+	
+	/**
+	 * @return the strategy probing
+	 */
+	public ResolveStrategy getResolveStrategy() {
+		return resolveStrategy;
+	}
+	
+	/**
+	 * @return the packageName
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+	
+	/**
+	 * @return the className
+	 */
+	public String getClassName() {
+		return className;
+	}
+	
+	/**
+	 * @return the resolver description
+	 */
+	public String getResolverDescription() {
+		return resolverDescription;
+	}
+	
+	/**
+	 * @return why the probe was skipped
+	 */
+	public ResolveSkipReason getResolveSkipReason() {
+		return resolveSkipReason;
+	}
+	
+	@Override
+	public String toString() {
+		return resolveSkipReason + " " + resolveStrategy + " " + packageName + "." + className + 
+			   " [" + resolverDescription + "]";
+	}
+}
@@ -0,0 +1,115 @@
+package dev.webfx.parse;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary interning package names, simple class names and qualified
+ * names to compact int ids. Every holder of a name shares one String
+ * instance and names compare by id. A processor run owns its dictionary,
+ * passed to the parsers and stores of the run, and drops it with the run.
+ * Ids are never reused, so ids stay valid across the updates of a run.
+ *
+ * @author Alexander Belch
+ */
+public class SymbolDictionary {
+
+	/**
+	 * Id of the null name e.g. the default package
+	 */
+	public static final int NO_ID = -1;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final Map<String, Integer> idLookup;
+
+	private volatile String[] names;
+	private int size;
+
+	/**
+	 * Default constructor
+	 */
+	public SymbolDictionary() {
+		idLookup = new ConcurrentHashMap<>();
+		names = new String[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Return the id for a name, adding it if new
+	 *
+	 * @param name The name, may be null
+	 *
+	 * @return The id or NO_ID for null
+	 */
+	public int intern(final String name) {
+		if (name == null) {
+			return NO_ID;
+		}
+
+		final Integer id = idLookup.get(name);
+		if (id != null) {
+			return id;
+		}
+
+		synchronized (this) {
+			final Integer existingId = idLookup.get(name);
+			if (existingId != null) {
+				return existingId;
+			}
+
+			if (size == names.length) {
+				names = Arrays.copyOf(names, size * 2);
+			}
+			names[size] = name;
+			idLookup.put(name, size);
+
+			return size++;
+		}
+	}
+
+	/**
+	 * Return the shared instance of a name, adding it if new
+	 *
+	 * @param name The name, may be null
+	 *
+	 * @return The shared name instance
+	 */
+	public String internName(final String name) {
+		return getName(intern(name));
+	}
+
+	/**
+	 * Return the id for a name without adding it
+	 *
+	 * @param name The name
+	 *
+	 * @return The id or NO_ID if not in the dictionary
+	 */
+	public int getId(final String name) {
+		if (name == null) {
+			return NO_ID;
+		}
+
+		final Integer id = idLookup.get(name);
+		return id != null ? id : NO_ID;
+	}
+
+	/**
+	 * Return the name for an id
+	 *
+	 * @param id The id
+	 *
+	 * @return The shared name instance or null for NO_ID
+	 */
+	public String getName(final int id) {
+		return id == NO_ID ? null : names[id];
+	}
+
+	/**
+	 * @return Number of names in the dictionary
+	 */
+	public int size() {
+		return idLookup.size();
+	}
+}
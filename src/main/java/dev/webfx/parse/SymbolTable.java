@@ -0,0 +1,194 @@
+package dev.webfx.parse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Run wide table of every type declared in the files parsed so far,
+ * keyed by the fully qualified type name e.g. com.abc.Outer.Inner
+ *
+ * @author Alexander Belch
+ */
+public class SymbolTable {
+
+	/**
+	 * Maximum size of a table that keeps every type
+	 */
+	public static final int UNBOUNDED_SIZE = -1;
+
+	private final Log log;
+
+	private final Map<String, SymbolTableEntry> qualifiedNameLookup;
+	private int maxSize;
+
+	private OffHeapStore offHeapStore;
+	private Predicate<String> runPathFilePredicate;
+
+	/**
+	 * Default constructor
+	 */
+	public SymbolTable() {
+		log = new Log();
+		log.setLogLevel(LogType.INFO);
+
+		maxSize = UNBOUNDED_SIZE;
+
+		// Access ordered, with a maximum size the least recently used goes
+		qualifiedNameLookup = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, SymbolTableEntry> eldest) {
+				return maxSize != UNBOUNDED_SIZE && size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Set the maximum number of types held, beyond it the least recently
+	 * used type is dropped and found again by the resolvers or not at all
+	 *
+	 * @param maxSize Maximum number of types or UNBOUNDED_SIZE
+	 */
+	public void setMaxSize(final int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Set a store of types declared in summarised files, consulted when a
+	 * type is not held, as when dropped from a table with a maximum size.
+	 * Only the types of files reached in the current run are taken from
+	 * the store, the store keeps files of every run
+	 *
+	 * @param offHeapStore The store or null for none
+	 * @param runPathFilePredicate Accepts the path and files reached in the current run
+	 */
+	public void setOffHeapStore(final OffHeapStore offHeapStore,
+			                    final Predicate<String> runPathFilePredicate) {
+		this.offHeapStore = offHeapStore;
+		this.runPathFilePredicate = runPathFilePredicate;
+	}
+
+	/**
+	 * Add the primary, secondary and nested types declared in a parsed file
+	 *
+	 * @param classDefinitionData The parsed class definition
+	 */
+	public void addClassDefinition(final ClassDefinitionData classDefinitionData) {
+		final String packageName = classDefinitionData.getPackageName();
+		final String pathFile = classDefinitionData.getPathFile();
+
+		addClassName(packageName, classDefinitionData.getPrimaryClassName(), pathFile);
+
+		for (final String className : classDefinitionData.getSecondaryClassNameHashSet()) {
+			addClassName(packageName, className, pathFile);
+		}
+
+		for (final String className : classDefinitionData.getNestedClassNameHashSet()) {
+			addClassName(packageName, className, pathFile);
+		}
+	}
+
+	/**
+	 * Remove a single type if it is still declared by the given file,
+	 * used before a changed file is parsed again
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 * @param pathFile The path and file that declared the class
+	 */
+	public void removeClassName(final String packageName,
+			                    final String className,
+			                    final String pathFile) {
+		final String qualifiedName = toQualifiedName(packageName, className);
+		final SymbolTableEntry symbolTableEntry = qualifiedNameLookup.get(qualifiedName);
+		if (symbolTableEntry != null && pathFile.equals(symbolTableEntry.getPathFile())) {
+			log.verbose("removeClassName: qualifiedName=" + qualifiedName + ", pathFile=" + pathFile);
+			qualifiedNameLookup.remove(qualifiedName);
+		}
+	}
+
+	/**
+	 * Lookup a type by fully qualified name
+	 *
+	 * @param qualifiedName Fully qualified name e.g. com.abc.Outer.Inner
+	 *
+	 * @return The symbol table entry or null if not declared in any parsed file
+	 */
+	public SymbolTableEntry lookup(final String qualifiedName) {
+		final SymbolTableEntry symbolTableEntry = qualifiedNameLookup.get(qualifiedName);
+		if (symbolTableEntry != null || offHeapStore == null) {
+			return symbolTableEntry;
+		}
+
+		// Only trust a stored type while its file is unchanged
+		final int fileRecord = offHeapStore.getTypeFileRecord(qualifiedName);
+		if (fileRecord < 0 || ! offHeapStore.isFileCurrent(fileRecord)) {
+			return null;
+		}
+
+		final String pathFile = offHeapStore.getPathFile(fileRecord);
+		if (! runPathFilePredicate.test(pathFile)) {
+			return null;
+		}
+
+		final String packageName = offHeapStore.getName(offHeapStore.getPackageNameId(fileRecord));
+		final String className = packageName == null || packageName.isEmpty() ?
+			qualifiedName : qualifiedName.substring(packageName.length() + 1);
+		log.verbose("lookup: offHeapStore qualifiedName=" + qualifiedName);
+
+		return new SymbolTableEntry(packageName, className, pathFile);
+	}
+
+	/**
+	 * @return Number of types held
+	 */
+	public int size() {
+		return qualifiedNameLookup.size();
+	}
+
+	/**
+	 * Remove all types, the store is kept but its types are only taken
+	 * for files reached again
+	 */
+	public void clear() {
+		qualifiedNameLookup.clear();
+	}
+
+	/**
+	 * Join package and class name to give the fully qualified name
+	 *
+	 * @param packageName The package name, null or empty for the default package
+	 * @param className The class name
+	 *
+	 * @return The qualified name
+	 */
+	public static String toQualifiedName(final String packageName,
+			                             final String className) {
+		if (packageName == null || packageName.isEmpty()) {
+			return className;
+		}
+		return packageName + "." + className;
+	}
+
+	/**
+	 * Add a single type, anonymous classes have no name and are skipped
+	 *
+	 * @param packageName The package name
+	 * @param className The class name
+	 * @param pathFile The path and file declaring the class
+	 */
+	public void addClassName(final String packageName,
+			                  final String className,
+			                  final String pathFile) {
+		if (className == null || className.isEmpty()) {
+			return;
+		}
+
+		final String qualifiedName = toQualifiedName(packageName, className);
+		log.verbose("addClassName: qualifiedName=" + qualifiedName + ", pathFile=" + pathFile);
+
+		qualifiedNameLookup.put(qualifiedName, new SymbolTableEntry(packageName, className, pathFile));
+	}
+}
@@ -0,0 +1,47 @@
+package dev.webfx.parse;
+
+/**
+ * @author Alexander Belch
+ */
+public class SymbolTableEntry {
+
+	private final String packageName;
+	private final String className;
+	private final String pathFile;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param packageName The package name the type is declared in
+	 * @param className The type name within the package e.g. Outer or Outer.Inner
+	 * @param pathFile The path and file the type is declared in
+	 */
+	public SymbolTableEntry(final String packageName,
+			                final String className,
+			                final String pathFile) {
+		this.packageName = packageName;
+		this.className = className;
+		this.pathFile = pathFile;
+	}
+
+	/**
+	 * @return the packageName
+	 */
+	public String getPackageName() {
+		return packageName;
+	}
+
+	/**
+	 * @return the className
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	/**
+	 * @return the pathFile
+	 */
+	public String getPathFile() {
+		return pathFile;
+	}
+}
@@ -0,0 +1,150 @@
+package dev.webfx.parse;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounds the files a processor follows. A file reached through a resolved
+ * reference is parsed and its references followed only if it is under one
+ * of the source roots or in one of the package prefixes, and no more than
+ * the maximum depth of references from a start file. A reference to a file
+ * outside the scope still resolves and adds its package name.
+ *
+ * Without source roots or package prefixes every file is in scope, start
+ * files are always followed.
+ *
+ * @author Alexander Belch
+ */
+public class TraversalScope {
+
+	/**
+	 * Maximum depth of a scope with no depth limit
+	 */
+	public static final int UNBOUNDED_DEPTH = -1;
+
+	private final List<Path> sourceRootList;
+	private final List<String> packagePrefixList;
+	private int maxDepth;
+
+	/**
+	 * Default constructor, a scope of every file at any depth
+	 */
+	public TraversalScope() {
+		sourceRootList = new ArrayList<>();
+		packagePrefixList = new ArrayList<>();
+		maxDepth = UNBOUNDED_DEPTH;
+	}
+
+	/**
+	 * Add a source root whose files are followed
+	 *
+	 * @param sourceRoot Source root directory e.g. /project/src/main/java
+	 */
+	public void addSourceRoot(final String sourceRoot) {
+		sourceRootList.add(Path.of(sourceRoot).toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Add a package prefix whose files are followed, a prefix matches
+	 * the package and its sub packages
+	 *
+	 * @param packagePrefix Package prefix e.g. dev.webfx
+	 */
+	public void addPackagePrefix(final String packagePrefix) {
+		packagePrefixList.add(packagePrefix);
+	}
+
+	/**
+	 * Set the maximum number of references from a start file to a file
+	 * followed, files at the maximum depth are parsed but their
+	 * references are not followed
+	 *
+	 * @param maxDepth Maximum depth, 0 for the start files only, or UNBOUNDED_DEPTH
+	 */
+	public void setMaxDepth(final int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @return Maximum depth or UNBOUNDED_DEPTH
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return True if the depth is limited
+	 */
+	public boolean isDepthBounded() {
+		return maxDepth != UNBOUNDED_DEPTH;
+	}
+
+	/**
+	 * @return Source roots whose files are followed
+	 */
+	public List<Path> getSourceRootList() {
+		return Collections.unmodifiableList(sourceRootList);
+	}
+
+	/**
+	 * @return Package prefixes whose files are followed
+	 */
+	public List<String> getPackagePrefixList() {
+		return Collections.unmodifiableList(packagePrefixList);
+	}
+
+	/**
+	 * Test if the references of a file at a depth are followed
+	 *
+	 * @param depth Number of references from a start file to the file
+	 *
+	 * @return True if within the maximum depth
+	 */
+	public boolean isFollowed(final int depth) {
+		return maxDepth == UNBOUNDED_DEPTH || depth < maxDepth;
+	}
+
+	/**
+	 * Test if a file reached through a reference is in scope
+	 *
+	 * @param pathFile Path and file the reference resolved to
+	 * @param packageName Package name the reference resolved to
+	 *
+	 * @return True if under a source root or in a package prefix, or if neither is set
+	 */
+	public boolean isInScope(final String pathFile,
+			                 final String packageName) {
+		if (sourceRootList.isEmpty() && packagePrefixList.isEmpty()) {
+			return true;
+		}
+
+		if (packageName != null) {
+			for (final String packagePrefix : packagePrefixList) {
+				if (packageName.startsWith(packagePrefix) &&
+					(packageName.length() == packagePrefix.length() || packageName.charAt(packagePrefix.length()) == '.')) {
+					return true;
+				}
+			}
+		}
+
+		if (! sourceRootList.isEmpty()) {
+			final int jarEntryIndex = pathFile.indexOf(ClassFileParse.JAR_ENTRY_SEPARATOR);
+			final Path path = Path.of(jarEntryIndex >= 0 ? pathFile.substring(0, jarEntryIndex) : pathFile)
+			                      .toAbsolutePath().normalize();
+			for (final Path sourceRoot : sourceRootList) {
+				if (path.startsWith(sourceRoot)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "sourceRootList=" + sourceRootList + ", packagePrefixList=" + packagePrefixList + ", maxDepth=" + maxDepth;
+	}
+}
@@ -1,5 +1,9 @@
 module prototype {
 	requires java.logging;
 	requires java.compiler;
+	requires transitive java.management;
 	requires jdk.compiler;
-}
\ No newline at end of file
+	requires transitive jdk.jfr;
+	
+	exports dev.webfx.parse;
+}
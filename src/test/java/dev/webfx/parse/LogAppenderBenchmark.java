@@ -0,0 +1,156 @@
+package dev.webfx.parse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the synchronous console appender with the asynchronous ring
+ * buffer appender. Standard output is redirected to a temporary file and
+ * each round logs lines at info from a number of threads, each with its
+ * own log as processors have. Logs the time per line seen by the logging
+ * threads and the total time until the lines are written.
+ *
+ * Usage: LogAppenderBenchmark [linesPerThread] [maxThreadCount]
+ * e.g. LogAppenderBenchmark 200000 8
+ *
+ * @author Alexander Belch
+ */
+public class LogAppenderBenchmark {
+
+	private static final int DEFAULT_LINES_PER_THREAD = 100000;
+	private static final int DEFAULT_MAX_THREAD_COUNT = 4;
+	private static final int WARMUP_ROUNDS = 2;
+
+	private final Log log;
+
+	private final int linesPerThread;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param linesPerThread Lines each thread logs in a round
+	 */
+	public LogAppenderBenchmark(final int linesPerThread) {
+	    log = new Log();
+	    log.setLogLevel(LogType.INFO);
+
+	    this.linesPerThread = linesPerThread;
+	}
+
+	/**
+	 * Run the rounds for each appender and thread count
+	 *
+	 * @param maxThreadCount Most logging threads
+	 *
+	 * @throws IOException Thrown on error
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 */
+	public void runBenchmark(final int maxThreadCount) throws IOException, InterruptedException {
+		final PrintStream systemOut = System.out;
+		final LogAppender systemLogAppender = Log.getLogAppender();
+		final List<String> resultList = new ArrayList<>();
+
+		final Path outputPathFile = Files.createTempFile("log-appender-benchmark", ".log");
+		try (final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(outputPathFile));
+			 final PrintStream outputPrintStream = new PrintStream(outputStream, false)) {
+			System.setOut(outputPrintStream);
+
+			for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+				for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+					final String syncResult = runRound("sync", new ConsoleLogAppender(), threadCount);
+					final String asyncResult = runRound("async", AsyncLogAppender.toConsole(LogOverflowPolicy.BLOCK), threadCount);
+					if (round == WARMUP_ROUNDS) {
+						resultList.add(syncResult);
+						resultList.add(asyncResult);
+					}
+				}
+			}
+		}
+		finally {
+			System.setOut(systemOut);
+			Log.setLogAppender(systemLogAppender);
+			Files.deleteIfExists(outputPathFile);
+		}
+
+		for (final String result : resultList) {
+			log.info(result);
+		}
+	}
+
+	/**
+	 * Log the lines from each thread through an appender
+	 *
+	 * @param name Name of the appender for the result
+	 * @param logAppender The appender, closed at the end of the round
+	 * @param threadCount Logging threads
+	 *
+	 * @return Result line
+	 *
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 */
+	private String runRound(final String name,
+			                final LogAppender logAppender,
+			                final int threadCount) throws InterruptedException {
+		Log.setLogAppender(logAppender);
+
+		final long[] loggingNanos = new long[threadCount];
+		final List<Thread> threadList = new ArrayList<>();
+		final long startNanoTime = System.nanoTime();
+
+		for (int t = 0; t < threadCount; t++) {
+			final int threadIndex = t;
+			final Thread thread = new Thread(() -> {
+				final Log threadLog = new Log();
+				threadLog.setLogLevel(LogType.INFO);
+
+				final long threadStartNanoTime = System.nanoTime();
+				for (int i = 0; i < linesPerThread; i++) {
+					threadLog.info("resolveUseWildCardImports: [CLASSPATH] resolved=true, packageName=java.io, className=IOException " + i);
+				}
+				loggingNanos[threadIndex] = System.nanoTime() - threadStartNanoTime;
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		for (final Thread thread : threadList) {
+			thread.join();
+		}
+		final long loggedNanos = System.nanoTime() - startNanoTime;
+
+		logAppender.close();
+		System.out.flush();
+		final long writtenNanos = System.nanoTime() - startNanoTime;
+
+		long totalLoggingNanos = 0;
+		for (final long nanos : loggingNanos) {
+			totalLoggingNanos += nanos;
+		}
+
+		return "LogAppenderBenchmark: appender=" + name +
+			   ", threadCount=" + threadCount +
+			   ", nanosPerLine=" + totalLoggingNanos / ((long) threadCount * linesPerThread) +
+			   ", loggedMillis=" + TimeUnit.NANOSECONDS.toMillis(loggedNanos) +
+			   ", writtenMillis=" + TimeUnit.NANOSECONDS.toMillis(writtenNanos);
+	}
+
+	/**
+	 * Main entry point
+	 *
+	 * @param args Optional lines per thread and most logging threads
+	 *
+	 * @throws IOException Thrown on error
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 */
+	public static void main(final String[] args) throws IOException, InterruptedException {
+		final int linesPerThread = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES_PER_THREAD;
+		final int maxThreadCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_THREAD_COUNT;
+
+		new LogAppenderBenchmark(linesPerThread).runBenchmark(maxThreadCount);
+	}
+}
@@ -0,0 +1,154 @@
+package dev.webfx.parse;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput harness for processors sharing one engine. Each round runs
+ * a number of concurrent requests, each request a processor of the shared
+ * engine processing one of the test examples, checks every result against
+ * a processor with an engine of its own and logs requests per second and
+ * the speedup over one request at a time.
+ *
+ * Usage: ProcessorConcurrencyTest [maxRequestCount] [requestsPerThread]
+ * e.g. ProcessorConcurrencyTest 16 20
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorConcurrencyTest {
+
+	private static final int DEFAULT_MAX_REQUEST_COUNT = 8;
+	private static final int DEFAULT_REQUESTS_PER_THREAD = 10;
+
+	private static final String[] EXAMPLE_PATH_FILES = {
+		"/src/test/java/dev/webfx/test1/a/A1Generic.java",
+		"/src/test/java/dev/webfx/test1/b/B1.java",
+		"/src/test/java/dev/webfx/test1/c/C1Implements.java",
+		"/src/test/java/dev/webfx/test1/c/C5Extends.java",
+		"/src/test/java/dev/webfx/test1/c/C6BasicClass.java",
+		"/src/test/java/dev/webfx/test2/a/A.java"
+	};
+
+	private final Log log;
+
+	private final String userDir;
+
+	private final ProcessorEngine processorEngine;
+	private final Map<String, List<String>> expectedPackageNameLookup;
+
+	/**
+	 * Default constructor
+	 */
+	public ProcessorConcurrencyTest() {
+	    log = new Log();
+	    log.setLogLevel(LogType.INFO);
+
+	    userDir = System.getProperty("user.dir");
+
+	    processorEngine = new ProcessorEngine();
+	    expectedPackageNameLookup = new HashMap<>();
+	}
+
+	/**
+	 * Process each example with a processor of its own engine for the
+	 * expected results, and once with the shared engine to build its index
+	 */
+	public void prepare() {
+		for (final String examplePathFile : EXAMPLE_PATH_FILES) {
+			expectedPackageNameLookup.put(examplePathFile, runRequest(new Processor(), examplePathFile));
+			runRequest(processorEngine.createProcessor(), examplePathFile);
+		}
+	}
+
+	/**
+	 * Run rounds of concurrent requests, doubling the request count
+	 *
+	 * @param maxRequestCount Most concurrent requests
+	 * @param requestsPerThread Requests each thread runs in a round
+	 *
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 * @throws ExecutionException Thrown if a request fails
+	 */
+	public void runTest(final int maxRequestCount,
+			            final int requestsPerThread) throws InterruptedException, ExecutionException {
+		double singleRequestsPerSecond = 0;
+
+		for (int requestCount = 1; requestCount <= maxRequestCount; requestCount *= 2) {
+			final ExecutorService executorService = Executors.newFixedThreadPool(requestCount);
+			try {
+				final List<Future<Boolean>> futureList = new ArrayList<>();
+				final long startNanoTime = System.nanoTime();
+
+				for (int i = 0; i < requestCount * requestsPerThread; i++) {
+					final String examplePathFile = EXAMPLE_PATH_FILES[i % EXAMPLE_PATH_FILES.length];
+					futureList.add(executorService.submit(() ->
+						expectedPackageNameLookup.get(examplePathFile)
+						                         .equals(runRequest(processorEngine.createProcessor(), examplePathFile))));
+				}
+
+				int mismatchCount = 0;
+				for (final Future<Boolean> future : futureList) {
+					if (! future.get()) {
+						mismatchCount++;
+					}
+				}
+
+				final long nanos = System.nanoTime() - startNanoTime;
+				final double requestsPerSecond = futureList.size() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+				if (requestCount == 1) {
+					singleRequestsPerSecond = requestsPerSecond;
+				}
+
+				log.info("ProcessorConcurrencyTest: requestCount=" + requestCount +
+						 ", requests=" + futureList.size() +
+						 ", mismatchCount=" + mismatchCount +
+						 ", millis=" + TimeUnit.NANOSECONDS.toMillis(nanos) +
+						 ", requestsPerSecond=" + String.format("%.1f", requestsPerSecond) +
+						 ", speedup=" + String.format("%.2f", requestsPerSecond / singleRequestsPerSecond) +
+						 ", javaParseCreatedCount=" + processorEngine.getJavaParseCreatedCount());
+			}
+			finally {
+				executorService.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Process one example, each request has its own CLI resolver
+	 *
+	 * @param processor The processor
+	 * @param examplePathFile Example source path and file
+	 *
+	 * @return Package names
+	 */
+	private List<String> runRequest(final Processor processor,
+			                        final String examplePathFile) {
+		processor.setCliPackageResolveCallback(new PackageResolveDummyCli());
+		processor.addFile(userDir + examplePathFile.replace('/', File.separatorChar));
+		return processor.process();
+	}
+
+	/**
+	 * Main entry point
+	 *
+	 * @param args Optional most concurrent requests and requests per thread
+	 *
+	 * @throws InterruptedException Thrown if interrupted while waiting
+	 * @throws ExecutionException Thrown if a request fails
+	 */
+	public static void main(final String[] args) throws InterruptedException, ExecutionException {
+		final int maxRequestCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_REQUEST_COUNT;
+		final int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REQUESTS_PER_THREAD;
+
+		final ProcessorConcurrencyTest processorConcurrencyTest = new ProcessorConcurrencyTest();
+		processorConcurrencyTest.prepare();
+		processorConcurrencyTest.runTest(maxRequestCount, requestsPerThread);
+	}
+}
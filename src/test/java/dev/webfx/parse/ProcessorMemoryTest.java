@@ -0,0 +1,218 @@
+package dev.webfx.parse;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Heap harness for low memory mode. Processes a chain of source files
+ * where each class references the next and logs used heap after every
+ * tenth of the files. Each file is written when the resolver is first
+ * asked for it and deleted once parsed, so a million files take little
+ * disk. In low memory mode the heap stays flat over the run.
+ *
+ * Usage: ProcessorMemoryTest [fileCount] [lowMemory]
+ * e.g. ProcessorMemoryTest 1000000 true
+ *
+ * @author Alexander Belch
+ */
+public class ProcessorMemoryTest {
+
+	private static final int DEFAULT_FILE_COUNT = 1000000;
+	private static final int PACKAGE_COUNT = 100;
+
+	private final Log log;
+
+	private final Path sourceRoot;
+	private final int fileCount;
+
+	/**
+	 * Parameter constructor
+	 *
+	 * @param sourceRoot Directory for the generated files
+	 * @param fileCount Number of files in the chain
+	 */
+	public ProcessorMemoryTest(final Path sourceRoot, final int fileCount) {
+	    log = new Log();
+	    log.setLogLevel(LogType.INFO);
+
+	    this.sourceRoot = sourceRoot;
+	    this.fileCount = fileCount;
+	}
+
+	/**
+	 * Write one source file of the chain
+	 *
+	 * @param index Index of the file in the chain
+	 *
+	 * @return The path and file written
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	private Path generateFile(final int index) throws IOException {
+		final String packageName = getPackageName(index);
+		final String className = getClassName(index);
+
+		final StringBuilder source = new StringBuilder();
+		source.append("package ").append(packageName).append(";\n");
+		source.append("public class ").append(className).append(" {\n");
+		if (index + 1 < fileCount) {
+			source.append("    ").append(getPackageName(index + 1)).append('.')
+			      .append(getClassName(index + 1)).append(" next;\n");
+		}
+		source.append("}\n");
+
+		final Path pathFile = getPathFile(packageName, className);
+		Files.createDirectories(pathFile.getParent());
+		return Files.writeString(pathFile, source);
+	}
+
+	/**
+	 * Find the index of a class of the chain
+	 *
+	 * @return The index or -1 if not a class of the chain
+	 */
+	private int getIndex(final String packageName, final String className) {
+		if (className == null || ! className.startsWith("C")) {
+			return -1;
+		}
+		try {
+			final int index = Integer.parseInt(className.substring(1));
+			return index < fileCount && getPackageName(index).equals(packageName) ? index : -1;
+		}
+		catch (final NumberFormatException nfe) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Process the chain and log used heap as files are resolved
+	 *
+	 * @param lowMemory True for low memory mode
+	 */
+	public void runTest(final boolean lowMemory) {
+		final Processor processor = new Processor();
+		processor.setLowMemory(lowMemory);
+		processor.setCliPackageResolveCallback(new PackageResolveCallback() {
+			@Override
+			public PackageResolveResult onPackageResolveCallback(final String packageName,
+					                                             final String className) {
+				final int index = getIndex(packageName, className);
+				if (index < 0) {
+					return new PackageResolveResult(false, null);
+				}
+				try {
+					return new PackageResolveResult(true, generateFile(index).toString());
+				}
+				catch (final IOException ioe) {
+					log.error("ProcessorMemoryTest: IOException " + ioe.getMessage());
+					return new PackageResolveResult(false, null);
+				}
+			}
+
+			@Override
+			public String onPackgeResolveDescription() {
+				return "MEMORYTEST";
+			}
+		});
+
+		final int sampleInterval = Math.max(1, fileCount / 10);
+		final long[] firstUsedHeapMegaBytes = new long[1];
+		processor.addProcessorListener(new ProcessorListener() {
+			private int count;
+
+			@Override
+			public void onClassDefinition(final ClassDefinitionData classDefinitionData) {
+				// Parsed, the file is not read again
+				try {
+					Files.delete(Path.of(classDefinitionData.getPathFile()));
+				}
+				catch (final IOException ioe) {
+					log.error("ProcessorMemoryTest: IOException " + ioe.getMessage());
+				}
+
+				if (++count % sampleInterval == 0) {
+					final long usedHeapMegaBytes = getUsedHeapMegaBytes();
+					if (count == sampleInterval) {
+						firstUsedHeapMegaBytes[0] = usedHeapMegaBytes;
+					}
+					log.info("ProcessorMemoryTest: files=" + count + ", usedHeapMB=" + usedHeapMegaBytes);
+				}
+			}
+		});
+
+		final long startNanoTime = System.nanoTime();
+		try {
+			processor.addFile(generateFile(0).toString());
+		}
+		catch (final IOException ioe) {
+			log.error("ProcessorMemoryTest: IOException " + ioe.getMessage());
+			return;
+		}
+		final List<String> packageNameList = processor.process();
+
+		final long usedHeapMegaBytes = getUsedHeapMegaBytes();
+		log.info("ProcessorMemoryTest: lowMemory=" + lowMemory +
+				 ", files=" + processor.getMetricsSnapshot().getJavaFileParseCount() +
+				 ", packageCount=" + packageNameList.size() +
+				 ", unresolvedCount=" + processor.getUnresolvedClassNameList().size() +
+				 ", retainedDefinitions=" + processor.getClassDefinitionList().size() +
+				 ", usedHeapMB=" + usedHeapMegaBytes +
+				 ", growthSinceFirstSampleMB=" + (usedHeapMegaBytes - firstUsedHeapMegaBytes[0]) +
+				 ", seconds=" + (System.nanoTime() - startNanoTime) / 1000000000L);
+	}
+
+	/**
+	 * Delete the generated files
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	public void deleteFiles() throws IOException {
+		try (final Stream<Path> paths = Files.walk(sourceRoot)) {
+			for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(path);
+			}
+		}
+	}
+
+	private Path getPathFile(final String packageName, final String className) {
+		return sourceRoot.resolve(packageName).resolve(className + ".java");
+	}
+
+	private static String getPackageName(final int index) {
+		return "p" + (index % PACKAGE_COUNT);
+	}
+
+	private static String getClassName(final int index) {
+		return "C" + index;
+	}
+
+	private static long getUsedHeapMegaBytes() {
+		final Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+	}
+
+	/**
+	 * Main entry point
+	 *
+	 * @param args Optional file count and low memory flag
+	 *
+	 * @throws IOException Thrown on error
+	 */
+	public static void main(final String[] args) throws IOException {
+		final int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILE_COUNT;
+		final boolean lowMemory = args.length <= 1 || Boolean.parseBoolean(args[1]);
+
+		final ProcessorMemoryTest processorMemoryTest =
+			new ProcessorMemoryTest(Files.createTempDirectory("webfx-memory-test"), fileCount);
+		try {
+			processorMemoryTest.runTest(lowMemory);
+		}
+		finally {
+			processorMemoryTest.deleteFiles();
+		}
+	}
+}
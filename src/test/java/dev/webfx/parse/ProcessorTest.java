@@ -1,7 +1,34 @@
 package dev.webfx.parse;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 /**
  * @author Alexander Belch
@@ -14,6 +41,8 @@ public class ProcessorTest {
 
 	private final Processor processor;
 	private final PackageResolveDummyCli packageResolveDummyCli;
+	
+	private final Processor sourceRootsProcessor;
 
 	/**
 	 * Default constructor
@@ -28,6 +57,10 @@ public class ProcessorTest {
 		packageResolveDummyCli = new PackageResolveDummyCli();		
         processor = new Processor();
 		processor.setCliPackageResolveCallback(packageResolveDummyCli);
+		
+		final String sourceRoot = userDir + "/src/test/java".replace('/', File.separatorChar);
+		sourceRootsProcessor = new Processor();
+		sourceRootsProcessor.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(sourceRoot)));
 	}
 	
 	/**
@@ -84,19 +117,1139 @@ public class ProcessorTest {
 		runTest("/src/test/java/dev/webfx/test2/a/A.java");
 	}
 	
+	/**
+	 * Run parse and resolve examples using the source root index
+	 * in place of the CLI, results match those above
+	 */
+	public void runSourceRootsTests () {
+		runTest(sourceRootsProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		runTest(sourceRootsProcessor, "/src/test/java/dev/webfx/test2/a/A.java");
+	}
+	
+	/**
+	 * Run an example with a listener, package names streamed while
+	 * processing must match the sorted results
+	 */
+	public void runStreamingTests () {
+		final List<String> streamedPackageNameList = new ArrayList<>();
+		final List<ClassDefinitionData> streamedClassDefinitionList = new ArrayList<>();
+		
+		final ProcessorListener processorListener = new ProcessorListener() {
+			@Override
+			public void onClassDefinition(final ClassDefinitionData classDefinitionData) {
+				streamedClassDefinitionList.add(classDefinitionData);
+			}
+			
+			@Override
+			public void onPackageName(final String packageName) {
+				log.info(" streamed packageName: " + packageName);
+				streamedPackageNameList.add(packageName);
+			}
+		};
+		
+		processor.addProcessorListener(processorListener);
+		runTest("/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		processor.removeProcessorListener(processorListener);
+		
+		streamedPackageNameList.sort(null);
+		log.info("streamed classDefinitionCount=" + streamedClassDefinitionList.size() + 
+				 ", packageNameList=" + streamedPackageNameList);
+	}
+	
+	/**
+	 * Run an example twice with an off heap store, the second run is
+	 * answered from the stored file summaries, results match those above
+	 */
+	public void runOffHeapStoreTests () {
+		final Processor offHeapStoreProcessor = new Processor();
+		offHeapStoreProcessor.setCliPackageResolveCallback(packageResolveDummyCli);
+		
+		try (final OffHeapStore offHeapStore = OffHeapStore.createInMemory()) {
+			offHeapStoreProcessor.setOffHeapStore(offHeapStore);
+			
+			runTest(offHeapStoreProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+			runTest(offHeapStoreProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+			
+			log.info("offHeapStore fileRecordCount=" + offHeapStore.getFileRecordCount() + 
+					 ", nameCount=" + offHeapStore.getNameCount());
+		}
+		catch (final IOException ioe) {
+			log.error("runOffHeapStoreTests: IOException " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * Run a temporary source root twice on one store, writing a missing
+	 * type and then changing a file another file's references resolved
+	 * to between runs, each second run must match a run without the store
+	 */
+	public void runOffHeapStoreChangeTests () {
+		Path sourceRoot = null;
+		try (final OffHeapStore offHeapStore = OffHeapStore.createInMemory()) {
+			sourceRoot = Files.createTempDirectory("processor-store");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java",
+				"package p; import q.D; import r.B; public class A { D d; B b; }");
+			writeSource(sourceRoot, "r/B.java", "package r; public class B { }");
+			
+			final PackageResolveOnSourceRoots packageResolveOnSourceRoots = 
+				new PackageResolveOnSourceRoots(List.of(sourceRoot.toString()));
+			packageResolveOnSourceRoots.setRefreshIntervalMillis(0);
+			
+			logResults(runOnStore(offHeapStore, packageResolveOnSourceRoots, aPathFile));
+			
+			// D is missing on the first run, so A was not stored
+			writeSource(sourceRoot, "q/D.java", "package q; import java.net.URI; public class D { URI uri; }");
+			packageResolveOnSourceRoots.refresh();
+			logResults(runOnStore(offHeapStore, packageResolveOnSourceRoots, aPathFile));
+			logResults(runOnStore(null, packageResolveOnSourceRoots, aPathFile));
+			
+			// B no longer declares B, A's stored summary resolved B to it
+			writeSource(sourceRoot, "r/B.java", "package r; class Renamed { }");
+			packageResolveOnSourceRoots.refresh();
+			final List<String> storePackageNameList = runOnStore(offHeapStore, packageResolveOnSourceRoots, aPathFile);
+			log.info("offHeapStore change matchesRunWithoutStore=" + 
+					 storePackageNameList.equals(runOnStore(null, packageResolveOnSourceRoots, aPathFile)));
+		}
+		catch (final IOException ioe) {
+			log.error("runOffHeapStoreChangeTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+		}
+	}
+	
+	/**
+	 * Process a start file with a new processor
+	 * 
+	 * @param offHeapStore Store to use or null for none
+	 * @param packageResolveCallback CLI resolver
+	 * @param startPathFile The start file
+	 * 
+	 * @return Package names found
+	 */
+	private static List<String> runOnStore(final OffHeapStore offHeapStore,
+			                               final PackageResolveCallback packageResolveCallback,
+			                               final Path startPathFile) {
+		final Processor storeProcessor = new Processor();
+		storeProcessor.setCliPackageResolveCallback(packageResolveCallback);
+		storeProcessor.setOffHeapStore(offHeapStore);
+		storeProcessor.addFile(startPathFile.toString());
+		return storeProcessor.process();
+	}
+	
+	/**
+	 * Run an example and query its dependency graph, every dependency of
+	 * the start file must list the start file as a dependent
+	 */
+	public void runDependencyGraphTests () {
+		runTest("/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		
+		final DependencyGraph dependencyGraph = processor.getDependencyGraph();
+		final String startPathFile = userDir + "/src/test/java/dev/webfx/test1/a/A1Generic.java".replace('/', File.separatorChar);
+		
+		log.info("dependencyGraph fileCount=" + dependencyGraph.getFileCount() + 
+				 ", edgeCount=" + dependencyGraph.getEdgeCount());
+		
+		for (final String pathFile : dependencyGraph.getDependencyPathFiles(startPathFile)) {
+			log.info(" dependency: " + pathFile.substring(userDir.length()) + 
+					 ", dependentOfStart=" + dependencyGraph.getDependentPathFiles(pathFile).contains(startPathFile) +
+					 ", transitiveDependentCount=" + dependencyGraph.getTransitiveDependentPathFiles(pathFile).size());
+		}
+	}
+	
+	/**
+	 * Run examples walking the files with fork join tasks,
+	 * results match those above
+	 */
+	public void runForkJoinTests () {
+		final Processor forkJoinProcessor = new Processor();
+		forkJoinProcessor.setCliPackageResolveCallback(packageResolveDummyCli);
+		forkJoinProcessor.setParallelism(4);
+		
+		runTest(forkJoinProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		runTest(forkJoinProcessor, "/src/test/java/dev/webfx/test2/a/A.java");
+		
+		log.info("forkJoin classDefinitionCount=" + forkJoinProcessor.getClassDefinitionList().size() + 
+				 ", dependencyGraph fileCount=" + forkJoinProcessor.getDependencyGraph().getFileCount() + 
+				 ", edgeCount=" + forkJoinProcessor.getDependencyGraph().getEdgeCount());
+	}
+	
+	/**
+	 * Run an example in a temporary source root, then change, remove and
+	 * add files while watching, each update publishes the package names
+	 * added and removed
+	 */
+	public void runWatchTests () {
+		Path sourceRoot = null;
+		try {
+			sourceRoot = Files.createTempDirectory("processor-watch");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java",
+				"package p; import java.util.List; import q.B; public class A { List<String> list; B b; }");
+			writeSource(sourceRoot, "q/B.java", 
+				"package q; import java.io.File; public class B { File file; }");
+			
+			final PackageResolveOnSourceRoots packageResolveOnSourceRoots = 
+				new PackageResolveOnSourceRoots(List.of(sourceRoot.toString()));
+			packageResolveOnSourceRoots.setRefreshIntervalMillis(0);
+			
+			final Processor watchProcessor = new Processor();
+			watchProcessor.setCliPackageResolveCallback(packageResolveOnSourceRoots);
+			watchProcessor.addProcessorListener(new ProcessorListener() {
+				@Override
+				public void onPackageName(final String packageName) {
+					log.info(" added packageName: " + packageName);
+				}
+				
+				@Override
+				public void onPackageNameRemoved(final String packageName) {
+					log.info(" removed packageName: " + packageName);
+				}
+			});
+			
+			watchProcessor.addFile(aPathFile.toString());
+			logResults(watchProcessor.process());
+			
+			try (final ProcessorWatcher processorWatcher = new ProcessorWatcher(watchProcessor)) {
+				// B is no longer reached and D is not yet written
+				writeSource(sourceRoot, "p/A.java",
+					"package p; import java.time.Instant; import q.D; public class A { Instant instant; D d; }");
+				log.info("updated=" + processorWatcher.poll(5, TimeUnit.SECONDS));
+				logResults(watchProcessor.update(List.of()));
+				
+				writeSource(sourceRoot, "q/D.java", 
+					"package q; import java.net.URI; public class D { URI uri; }");
+				log.info("updated=" + processorWatcher.poll(5, TimeUnit.SECONDS));
+				logResults(watchProcessor.update(List.of()));
+				
+				// E is in a directory neither watched nor scanned yet
+				writeSource(sourceRoot, "r/E.java", 
+					"package r; import java.util.UUID; public class E { UUID uuid; }");
+				writeSource(sourceRoot, "p/A.java",
+					"package p; import java.time.Instant; import q.D; import r.E; public class A { Instant instant; D d; E e; }");
+				log.info("updated=" + processorWatcher.poll(5, TimeUnit.SECONDS));
+				logResults(watchProcessor.update(List.of()));
+				
+				log.info("pathFileCount=" + watchProcessor.getPathFileList().size() + 
+						 ", classDefinitionCount=" + watchProcessor.getClassDefinitionList().size());
+			}
+		}
+		catch (final IOException ioe) {
+			log.error("runWatchTests: IOException " + ioe.getMessage());
+		}
+		catch (final InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+		}
+	}
+	
+	/**
+	 * Write a source file below a source root
+	 * 
+	 * @param sourceRoot The source root
+	 * @param relativePathFile Path and file within the source root
+	 * @param source The source text
+	 * 
+	 * @return The path and file written
+	 * 
+	 * @throws IOException Thrown on error
+	 */
+	private static Path writeSource(final Path sourceRoot,
+			                        final String relativePathFile,
+			                        final String source) throws IOException {
+		final Path pathFile = sourceRoot.resolve(relativePathFile);
+		Files.createDirectories(pathFile.getParent());
+		return Files.writeString(pathFile, source);
+	}
+	
+	/**
+	 * Delete a temporary directory and its content
+	 * 
+	 * @param directory The directory, may be null
+	 */
+	private void deleteDirectory(final Path directory) {
+		if (directory == null) {
+			return;
+		}
+		
+		try (final Stream<Path> pathStream = Files.walk(directory)) {
+			pathStream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+		catch (final IOException ioe) {
+			log.warn("deleteDirectory: IOException " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * Run an example and read its metrics from the run snapshot and
+	 * through the platform MBean server
+	 */
+	public void runMetricsTests () {
+		final Processor metricsProcessor = new Processor();
+		metricsProcessor.setCliPackageResolveCallback(packageResolveDummyCli);
+		
+		runTest(metricsProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		
+		final ProcessorMetricsSnapshot processorMetricsSnapshot = metricsProcessor.getMetricsSnapshot();
+		log.info("metrics javaFileParseCount=" + processorMetricsSnapshot.getJavaFileParseCount() + 
+				 ", referenceCount=" + processorMetricsSnapshot.getReferenceCount() + 
+				 ", unresolvedReferenceCount=" + processorMetricsSnapshot.getUnresolvedReferenceCount() + 
+				 ", astNodeCount>0=" + (processorMetricsSnapshot.getAstNodeCount() > 0));
+		log.info("metrics hitCounts=" + processorMetricsSnapshot.getHitCounts());
+		
+		try {
+			final ObjectName objectName = metricsProcessor.getProcessorMetrics().registerMBean("runMetricsTests");
+			final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			final CompositeData snapshotCompositeData = (CompositeData) mBeanServer.getAttribute(objectName, "Snapshot");
+			
+			log.info("metrics MBean fileParseCount=" + mBeanServer.getAttribute(objectName, "FileParseCount") + 
+					 ", snapshot referenceCount=" + snapshotCompositeData.get("referenceCount"));
+			
+			metricsProcessor.getProcessorMetrics().unregisterMBean();
+		}
+		catch (final JMException jme) {
+			log.error("runMetricsTests: JMException " + jme.getMessage());
+		}
+	}
+	
+	/**
+	 * Run an example under a flight recording with the bundled settings
+	 * and count the processor events recorded
+	 */
+	public void runFlightRecordingTests () {
+		final Processor recordedProcessor = new Processor();
+		recordedProcessor.setCliPackageResolveCallback(packageResolveDummyCli);
+		
+		try {
+			final Path recordingPath = Files.createTempFile("processor", ".jfr");
+			try (final Recording recording = ProcessorFlightRecording.start()) {
+				runTest(recordedProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+				recording.stop();
+				recording.dump(recordingPath);
+			}
+			
+			final Map<String, Integer> eventCountLookup = new TreeMap<>();
+			for (final RecordedEvent recordedEvent : RecordingFile.readAllEvents(recordingPath)) {
+				final String eventName = recordedEvent.getEventType().getName();
+				if (eventName.startsWith("dev.webfx.parse.")) {
+					eventCountLookup.merge(eventName + 
+							               (recordedEvent.hasField("stage") ? "." + recordedEvent.getString("stage") : ""), 
+							               1, Integer::sum);
+				}
+			}
+			log.info("flight recording eventCounts=" + eventCountLookup);
+			
+			Files.delete(recordingPath);
+		}
+		catch (final IOException ioe) {
+			log.error("runFlightRecordingTests: IOException " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * Run an example against a CLI resolver that hangs, first with a
+	 * probe timeout and circuit breaker then with a run deadline, the
+	 * runs return partial results from the class path resolvers
+	 */
+	public void runResolveGuardTests () {
+		final CountDownLatch hangLatch = new CountDownLatch(1);
+		final PackageResolveCallback hangingPackageResolveCallback = new PackageResolveCallback() {
+			@Override
+			public PackageResolveResult onPackageResolveCallback(final String packageName, 
+					                                             final String className) {
+				try {
+					hangLatch.await();
+				}
+				catch (final InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				}
+				return packageResolveDummyCli.onPackageResolveCallback(packageName, className);
+			}
+			
+			@Override
+			public String onPackgeResolveDescription() {
+				return "Hanging CLI";
+			}
+		};
+		
+		final Processor guardedProcessor = new Processor();
+		guardedProcessor.setCliPackageResolveCallback(hangingPackageResolveCallback);
+		
+		try (final ResolveGuard resolveGuard = new ResolveGuard()) {
+			resolveGuard.setProbeTimeout(50, TimeUnit.MILLISECONDS);
+			resolveGuard.setCircuitBreaker(3, 1, TimeUnit.MINUTES);
+			guardedProcessor.setResolveGuard(resolveGuard);
+			
+			runTest(guardedProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+			logSkippedProbes(guardedProcessor);
+			log.info("resolve guard circuitState=" + resolveGuard.getCircuitState());
+		}
+		
+		try (final ResolveGuard resolveGuard = new ResolveGuard()) {
+			resolveGuard.setProbeTimeout(50, TimeUnit.MILLISECONDS);
+			resolveGuard.setRunBudget(1, TimeUnit.NANOSECONDS);
+			guardedProcessor.setResolveGuard(resolveGuard);
+			
+			runTest(guardedProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+			logSkippedProbes(guardedProcessor);
+			log.info("resolve guard deadlineExceeded=" + resolveGuard.isDeadlineExceeded());
+		}
+		
+		hangLatch.countDown();
+		
+		runHungProbeTests();
+	}
+	
+	/**
+	 * Probe a CLI resolver that ignores the interrupt, the circuit stays
+	 * open while the abandoned probe holds its thread and a trial probe
+	 * is made once the thread is free
+	 */
+	private void runHungProbeTests () {
+		final CountDownLatch hungLatch = new CountDownLatch(1);
+		final PackageResolveCallback hungPackageResolveCallback = new PackageResolveCallback() {
+			@Override
+			public PackageResolveResult onPackageResolveCallback(final String packageName, 
+					                                             final String className) {
+				boolean interrupted = false;
+				while (hungLatch.getCount() > 0) {
+					try {
+						hungLatch.await();
+					}
+					catch (final InterruptedException ie) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+				return new PackageResolveResult(true, null);
+			}
+			
+			@Override
+			public String onPackgeResolveDescription() {
+				return "Hung CLI";
+			}
+		};
+		
+		try (final ResolveGuard resolveGuard = new ResolveGuard()) {
+			resolveGuard.setProbeTimeout(50, TimeUnit.MILLISECONDS);
+			resolveGuard.setCircuitBreaker(1, 1, TimeUnit.MILLISECONDS);
+			resolveGuard.setMaxProbeThreads(1);
+			resolveGuard.startRun();
+			
+			final PackageResolveResult hungResult = resolveGuard.probe(ResolveStrategy.CLASS_NAME_IMPORT, hungPackageResolveCallback, "p", "A");
+			Thread.sleep(10);
+			final PackageResolveResult openResult = resolveGuard.probe(ResolveStrategy.CLASS_NAME_IMPORT, hungPackageResolveCallback, "p", "B");
+			log.info("resolve guard hung resolved=" + hungResult.isSuccess() + "/" + openResult.isSuccess() + 
+					 ", circuitState=" + resolveGuard.getCircuitState() + 
+					 ", abandonedProbeCount=" + resolveGuard.getAbandonedProbeCount() + 
+					 ", skipReasons=" + resolveGuard.getSkippedProbeList().stream().map(SkippedProbeData::getResolveSkipReason).toList());
+			
+			hungLatch.countDown();
+			while (resolveGuard.getAbandonedProbeCount() > 0) {
+				Thread.sleep(1);
+			}
+			final PackageResolveResult trialResult = resolveGuard.probe(ResolveStrategy.CLASS_NAME_IMPORT, hungPackageResolveCallback, "p", "C");
+			log.info("resolve guard released resolved=" + trialResult.isSuccess() + 
+					 ", circuitState=" + resolveGuard.getCircuitState() + 
+					 ", abandonedProbeCount=" + resolveGuard.getAbandonedProbeCount());
+		}
+		catch (final InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			hungLatch.countDown();
+		}
+	}
+	
+	/**
+	 * Log the partial result flag and the skipped probes by reason
+	 * 
+	 * @param guardedProcessor Processor with a resolve guard
+	 */
+	private void logSkippedProbes(final Processor guardedProcessor) {
+		final Map<ResolveSkipReason, Integer> skipCountLookup = new TreeMap<>();
+		for (final SkippedProbeData skippedProbeData : guardedProcessor.getSkippedProbeList()) {
+			skipCountLookup.merge(skippedProbeData.getResolveSkipReason(), 1, Integer::sum);
+		}
+		log.info("resolve guard partialResult=" + guardedProcessor.isPartialResult() + ", skipCounts=" + skipCountLookup);
+	}
+	
+	/**
+	 * Run an example cancelled after a few files then resumed, and one
+	 * stopped by a passed deadline then resumed, the resumed results
+	 * match a complete run
+	 */
+	public void runCancelTests () {
+		final Processor cancelProcessor = new Processor();
+		cancelProcessor.setCliPackageResolveCallback(packageResolveDummyCli);
+		
+		final ProcessorCancelToken cancelToken = new ProcessorCancelToken();
+		cancelProcessor.setCancelToken(cancelToken);
+		final ProcessorListener cancelListener = new ProcessorListener() {
+			private int classDefinitionCount;
+			
+			@Override
+			public void onClassDefinition(final ClassDefinitionData classDefinitionData) {
+				if (++classDefinitionCount == 3) {
+					cancelToken.cancel();
+				}
+			}
+		};
+		cancelProcessor.addProcessorListener(cancelListener);
+		
+		runTest(cancelProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		log.info("cancel partialResult=" + cancelProcessor.isPartialResult() + 
+				 ", frontierSize=" + cancelProcessor.getFrontierPathFileList().size());
+		
+		cancelProcessor.removeProcessorListener(cancelListener);
+		cancelProcessor.setCancelToken(null);
+		logResults(cancelProcessor.resume());
+		log.info("resume partialResult=" + cancelProcessor.isPartialResult() + 
+				 ", classDefinitionCount=" + cancelProcessor.getClassDefinitionList().size());
+		
+		final ProcessorCancelToken deadlineToken = new ProcessorCancelToken();
+		deadlineToken.setDeadline(0, TimeUnit.MILLISECONDS);
+		cancelProcessor.setCancelToken(deadlineToken);
+		
+		runTest(cancelProcessor, "/src/test/java/dev/webfx/test1/a/A1Generic.java");
+		log.info("deadline partialResult=" + cancelProcessor.isPartialResult() + 
+				 ", frontierSize=" + cancelProcessor.getFrontierPathFileList().size());
+		
+		deadlineToken.clearDeadline();
+		logResults(cancelProcessor.resume());
+	}
+	
+	/**
+	 * Run an example in a temporary source root with and without a
+	 * module-info.java, the module scope prunes wildcard probes into
+	 * modules not read and CLI probes into system packages, and flags
+	 * the explicit import of a module not required
+	 */
+	public void runModuleScopeTests () {
+		Path sourceRoot = null;
+		Path libSourceRoot = null;
+		try {
+			sourceRoot = Files.createTempDirectory("processor-module");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java",
+				"package p; import java.util.*; import java.util.logging.*; import java.sql.*; import javax.swing.*; " + 
+				"import java.awt.Point; public class A { Logger logger; List<String> list; Point point; }");
+			
+			final PackageResolveOnSourceRoots packageResolveOnSourceRoots = 
+				new PackageResolveOnSourceRoots(List.of(sourceRoot.toString()));
+			
+			final Processor classPathProcessor = new Processor();
+			classPathProcessor.setCliPackageResolveCallback(packageResolveOnSourceRoots);
+			classPathProcessor.addFile(aPathFile.toString());
+			logResults(classPathProcessor.process());
+			
+			writeSource(sourceRoot, "module-info.java", "module p { requires java.logging; }");
+			
+			final Processor moduleProcessor = new Processor();
+			moduleProcessor.setCliPackageResolveCallback(packageResolveOnSourceRoots);
+			moduleProcessor.addFile(aPathFile.toString());
+			logResults(moduleProcessor.process());
+			
+			log.info("module scope classPathProbeCount=" + getProbeCount(classPathProcessor.getMetricsSnapshot()) + 
+					 ", moduleProbeCount=" + getProbeCount(moduleProcessor.getMetricsSnapshot()) + 
+					 ", missingRequiresList=" + moduleProcessor.getMissingRequiresList());
+			
+			// lib is not found, it may require java.desktop transitively
+			writeSource(sourceRoot, "module-info.java", "module p { requires java.logging; requires lib; }");
+			
+			final Processor unknownModuleProcessor = new Processor();
+			unknownModuleProcessor.setCliPackageResolveCallback(packageResolveOnSourceRoots);
+			unknownModuleProcessor.addFile(aPathFile.toString());
+			unknownModuleProcessor.process();
+			
+			log.info("module scope unknown moduleProbeCount=" + getProbeCount(unknownModuleProcessor.getMetricsSnapshot()) + 
+					 ", missingRequiresList=" + unknownModuleProcessor.getMissingRequiresList());
+			
+			// lib found in a second source root
+			libSourceRoot = Files.createTempDirectory("processor-module-lib");
+			writeSource(libSourceRoot, "module-info.java", "module lib { requires transitive java.desktop; exports l; }");
+			writeSource(libSourceRoot, "l/L.java", "package l; public class L { }");
+			
+			final Processor libModuleProcessor = new Processor();
+			libModuleProcessor.setCliPackageResolveCallback(
+				new PackageResolveOnSourceRoots(List.of(sourceRoot.toString(), libSourceRoot.toString())));
+			libModuleProcessor.addFile(aPathFile.toString());
+			libModuleProcessor.process();
+			
+			log.info("module scope lib moduleProbeCount=" + getProbeCount(libModuleProcessor.getMetricsSnapshot()) + 
+					 ", missingRequiresList=" + libModuleProcessor.getMissingRequiresList());
+		}
+		catch (final IOException ioe) {
+			log.error("runModuleScopeTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+			deleteDirectory(libSourceRoot);
+		}
+	}
+	
+	/**
+	 * Run three modules of a temporary project in one run, each file is
+	 * parsed once and every module gets the package names it reaches
+	 */
+	public void runProjectTests () {
+		Path projectRoot = null;
+		try {
+			projectRoot = Files.createTempDirectory("processor-project");
+			final Path aSourceRoot = projectRoot.resolve("a/src/main/java");
+			final Path bSourceRoot = projectRoot.resolve("b/src/main/java");
+			final Path cSourceRoot = projectRoot.resolve("c/src/main/java");
+			final Path aPathFile = writeSource(aSourceRoot, "pa/A.java",
+				"package pa; import java.util.List; import pb.B; public class A { List<String> list; B b; }");
+			final Path bPathFile = writeSource(bSourceRoot, "pb/B.java", 
+				"package pb; import java.io.File; import pc.C; public class B { File file; C c; }");
+			final Path cPathFile = writeSource(cSourceRoot, "pc/C.java", 
+				"package pc; import java.time.Instant; public class C { Instant instant; }");
+			
+			final ProjectProcessor projectProcessor = new ProjectProcessor();
+			projectProcessor.addModule(new ProjectModuleData("a", List.of(aSourceRoot.toString()), List.of(aPathFile.toString())));
+			projectProcessor.addModule(new ProjectModuleData("b", List.of(bSourceRoot.toString()), List.of(bPathFile.toString())));
+			projectProcessor.addModule(new ProjectModuleData("c", List.of(cSourceRoot.toString()), List.of(cPathFile.toString())));
+			
+			for (final Map.Entry<String, List<String>> entry : projectProcessor.process().entrySet()) {
+				log.info("project module=" + entry.getKey());
+				logResults(entry.getValue());
+			}
+			log.info("project javaFileParseCount=" + 
+					 projectProcessor.getProcessor().getMetricsSnapshot().getJavaFileParseCount() + 
+					 ", projectModuleEdgeList=" + projectProcessor.getProjectModuleEdgeList());
+		}
+		catch (final IOException ioe) {
+			log.error("runProjectTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(projectRoot);
+		}
+	}
+	
+	/**
+	 * Run an example in a temporary source root whose references reach
+	 * a vendored source root, limited by root, by package prefix and by
+	 * depth, sequentially and with fork join
+	 */
+	public void runTraversalScopeTests () {
+		Path projectRoot = null;
+		try {
+			projectRoot = Files.createTempDirectory("processor-scope");
+			final Path appSourceRoot = projectRoot.resolve("app");
+			final Path vendorSourceRoot = projectRoot.resolve("vendor");
+			final Path aPathFile = writeSource(appSourceRoot, "p/A.java",
+				"package p; import v.V1; public class A { B b; V1 v1; }");
+			writeSource(appSourceRoot, "p/B.java", "package p; public class B { C c; }");
+			writeSource(appSourceRoot, "p/C.java", "package p; import java.io.File; public class C { File file; }");
+			writeSource(vendorSourceRoot, "v/V1.java", "package v; import v.w.V2; public class V1 { V2 v2; }");
+			writeSource(vendorSourceRoot, "v/w/V2.java", "package v.w; import java.sql.Date; public class V2 { Date date; }");
+			
+			final PackageResolveOnSourceRoots packageResolveOnSourceRoots = 
+				new PackageResolveOnSourceRoots(List.of(appSourceRoot.toString(), vendorSourceRoot.toString()));
+			
+			final TraversalScope rootScope = new TraversalScope();
+			rootScope.addSourceRoot(appSourceRoot.toString());
+			
+			final TraversalScope packageScope = new TraversalScope();
+			packageScope.addPackagePrefix("v");
+			
+			final TraversalScope depthScope = new TraversalScope();
+			depthScope.setMaxDepth(1);
+			
+			for (final TraversalScope traversalScope : List.of(rootScope, packageScope, depthScope)) {
+				for (final int scopeParallelism : new int[] {1, 2}) {
+					final Processor scopeProcessor = new Processor();
+					scopeProcessor.setCliPackageResolveCallback(packageResolveOnSourceRoots);
+					scopeProcessor.setTraversalScope(traversalScope);
+					scopeProcessor.setParallelism(scopeParallelism);
+					scopeProcessor.addFile(aPathFile.toString());
+					logResults(scopeProcessor.process());
+					
+					final List<String> excludedFileNameList = new ArrayList<>();
+					for (final String excludedPathFile : scopeProcessor.getExcludedPathFileList()) {
+						excludedFileNameList.add(Path.of(excludedPathFile).getFileName().toString());
+					}
+					log.info("traversal scope parallelism=" + scopeParallelism + 
+							 ", pathFileCount=" + scopeProcessor.getPathFileList().size() + 
+							 ", excludedFileNameList=" + excludedFileNameList);
+				}
+			}
+		}
+		catch (final IOException ioe) {
+			log.error("runTraversalScopeTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(projectRoot);
+		}
+	}
+	
+	/**
+	 * Query a temporary source root for targets reached through other
+	 * files, a hit stops the run and gives the chain of files to it
+	 */
+	public void runDependencyQueryTests () {
+		Path sourceRoot = null;
+		try {
+			sourceRoot = Files.createTempDirectory("processor-query");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java",
+				"package p; import q.Q1; public class A { B b; Q1 q1; }");
+			writeSource(sourceRoot, "p/B.java", "package p; public class B { C c; }");
+			writeSource(sourceRoot, "p/C.java", "package p; import java.io.File; public class C { File file; D d; }");
+			writeSource(sourceRoot, "p/D.java", "package p; public class D { E e; }");
+			writeSource(sourceRoot, "p/E.java", "package p; public class E { }");
+			writeSource(sourceRoot, "q/Q1.java", "package q; public class Q1 { Q2 q2; }");
+			writeSource(sourceRoot, "q/Q2.java", "package q; import java.sql.Date; public class Q2 { Date date; }");
+			
+			final DependencyQuery dependencyQuery = new DependencyQuery();
+			dependencyQuery.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(sourceRoot.toString())));
+			
+			dependencyQuery.addTargetPackageName("java.sql");
+			logWitness(dependencyQuery.query(List.of(aPathFile.toString())));
+			
+			dependencyQuery.setTargetPredicate(packageClassData -> "File".equals(packageClassData.getClassName()));
+			logWitness(dependencyQuery.query(List.of(aPathFile.toString())));
+			
+			final DependencyQuery negativeDependencyQuery = new DependencyQuery();
+			negativeDependencyQuery.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(sourceRoot.toString())));
+			negativeDependencyQuery.addTargetPackageName("java.nio");
+			logWitness(negativeDependencyQuery.query(List.of(aPathFile.toString())));
+			
+			// Files beyond the depth are not followed, the negative is partial
+			final TraversalScope depthTraversalScope = new TraversalScope();
+			depthTraversalScope.setMaxDepth(1);
+			negativeDependencyQuery.setTraversalScope(depthTraversalScope);
+			logWitness(negativeDependencyQuery.query(List.of(aPathFile.toString())));
+			negativeDependencyQuery.setTraversalScope(null);
+			
+			// An unresolved reference may be a target, the negative is partial
+			final Path uPathFile = writeSource(sourceRoot, "p/U.java", "package p; import z.Z; public class U { Z z; E e; }");
+			logWitness(negativeDependencyQuery.query(List.of(uPathFile.toString())));
+		}
+		catch (final IOException ioe) {
+			log.error("runDependencyQueryTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+		}
+	}
+	
+	/**
+	 * Follow references into compiled classes of a class directory, one
+	 * complete and one truncated, the truncated class fails alone
+	 */
+	public void runClassFileTests () {
+		Path directory = null;
+		try {
+			directory = Files.createTempDirectory("processor-class");
+			final Path sourceRoot = directory.resolve("src");
+			final Path classesRoot = directory.resolve("classes");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java",
+				"package p; import q.B; import r.C; public class A { B b; C c; }");
+			final Path bPathFile = writeSource(directory, "compile/q/B.java", 
+				"package q; import java.net.URI; public class B { URI uri; class Inner { java.util.UUID uuid; } }");
+			final Path cPathFile = writeSource(directory, "compile/r/C.java", 
+				"package r; import java.time.Instant; public class C { Instant instant; }");
+			
+			final JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+			if (javaCompiler.run(null, null, null, "-d", classesRoot.toString(), bPathFile.toString(), cPathFile.toString()) != 0) {
+				log.error("runClassFileTests: compile failed");
+				return;
+			}
+			
+			// Cut C within its constant pool
+			final Path cClassPathFile = classesRoot.resolve("r/C.class");
+			Files.write(cClassPathFile, Arrays.copyOf(Files.readAllBytes(cClassPathFile), 24));
+			
+			final Processor classFileProcessor = new Processor();
+			classFileProcessor.setCliPackageResolveCallback(
+				new PackageResolveOnSourceRoots(List.of(sourceRoot.toString(), classesRoot.toString())));
+			classFileProcessor.addFile(aPathFile.toString());
+			logResults(classFileProcessor.process());
+			
+			log.info("classFile classFileParseCount=" + classFileProcessor.getMetricsSnapshot().getClassFileParseCount() + 
+					 ", pathFileCount=" + classFileProcessor.getPathFileList().size());
+		}
+		catch (final IOException ioe) {
+			log.error("runClassFileTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/**
+	 * Generate the JDK package index into a temporary resource directory
+	 * and load it, for the runtime JDK version from the resource, for
+	 * another version by a live scan, and for a resource holding another
+	 * version by a live scan. The committed index of the runtime JDK
+	 * must be the one read by the shared instance
+	 */
+	public void runJdkPackageIndexTests () {
+		Path resourceRoot = null;
+		try {
+			resourceRoot = Files.createTempDirectory("processor-index");
+			final Path indexDirectory = resourceRoot.resolve(JdkPackageIndex.class.getPackageName().replace('.', '/'));
+			JdkPackageIndex.main(new String[] { indexDirectory.toString() });
+			
+			final int featureVersion = Runtime.version().feature();
+			
+			try (final URLClassLoader classLoader = new URLClassLoader(new URL[] { resourceRoot.toUri().toURL() }, null)) {
+				logJdkPackageIndex("current", JdkPackageIndex.load(classLoader, featureVersion));
+				logJdkPackageIndex("other", JdkPackageIndex.load(classLoader, featureVersion + 1));
+				
+				// The resource of the next version holds the current one
+				Files.copy(indexDirectory.resolve(JdkPackageIndex.getResourceName(featureVersion)),
+						   indexDirectory.resolve(JdkPackageIndex.getResourceName(featureVersion + 1)));
+				logJdkPackageIndex("mismatch", JdkPackageIndex.load(classLoader, featureVersion + 1));
+			}
+		}
+		catch (final IOException ioe) {
+			log.error("runJdkPackageIndexTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(resourceRoot);
+		}
+		
+		// The committed resource of the runtime JDK is read, not scanned
+		final JdkPackageIndex jdkPackageIndex = JdkPackageIndex.getInstance();
+		logJdkPackageIndex("shipped", jdkPackageIndex);
+		if (! jdkPackageIndex.isPrebuilt()) {
+			log.error("runJdkPackageIndexTests: no prebuilt index for featureVersion=" + jdkPackageIndex.getFeatureVersion());
+		}
+	}
+	
+	/**
+	 * Log how a JDK package index was loaded and a lookup in it
+	 * 
+	 * @param description Description of the case
+	 * @param jdkPackageIndex The index
+	 */
+	private void logJdkPackageIndex(final String description,
+			                        final JdkPackageIndex jdkPackageIndex) {
+		log.info("jdk package index " + description + " prebuilt=" + jdkPackageIndex.isPrebuilt() + 
+				 ", java.util.List=" + jdkPackageIndex.containsClassName("java.util", "List") + 
+				 ", java.util.Missing=" + jdkPackageIndex.containsClassName("java.util", "Missing") + 
+				 ", java.sql=" + jdkPackageIndex.containsPackageName("java.sql"));
+	}
+	
+	/**
+	 * Resolve against generated jars through the engine's jar index cache,
+	 * a small jar and one with more than 65535 entries that holds its
+	 * entry count and central directory in the Zip64 records. A changed
+	 * jar replaces its cached index
+	 */
+	public void runJarTests () {
+		Path directory = null;
+		try {
+			directory = Files.createTempDirectory("processor-jar");
+			final Path smallJarPathFile = directory.resolve("small.jar");
+			final Path zip64JarPathFile = directory.resolve("zip64.jar");
+			writeJar(smallJarPathFile, List.of("s/A.class", "s/A$Inner.class", "s/package-info.class", "META-INF/versions/11/s/A.class"));
+			
+			final List<String> zip64EntryNameList = new ArrayList<>();
+			for (int i = 0; i < 70000; i++) {
+				zip64EntryNameList.add("z/C" + i + ".class");
+			}
+			writeJar(zip64JarPathFile, zip64EntryNameList);
+			
+			final ProcessorEngine processorEngine = new ProcessorEngine();
+			final PackageResolveOnJars packageResolveOnJars = 
+				new PackageResolveOnJars(List.of(smallJarPathFile.toString(), zip64JarPathFile.toString()), processorEngine);
+			logJarResolve(packageResolveOnJars, "s", "A");
+			logJarResolve(packageResolveOnJars, "s", "Inner");
+			logJarResolve(packageResolveOnJars, "z", "C0");
+			logJarResolve(packageResolveOnJars, "z", "C69999");
+			
+			writeJar(smallJarPathFile, List.of("s/B.class"));
+			final PackageResolveOnJars changedPackageResolveOnJars = 
+				new PackageResolveOnJars(List.of(smallJarPathFile.toString()), processorEngine);
+			logJarResolve(changedPackageResolveOnJars, "s", "A");
+			logJarResolve(changedPackageResolveOnJars, "s", "B");
+			log.info("jar jarIndexCacheSize=" + processorEngine.getJarIndexCache().size());
+		}
+		catch (final IOException ioe) {
+			log.error("runJarTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/**
+	 * Write a jar of empty entries
+	 * 
+	 * @param jarPathFile Jar path and file
+	 * @param entryNameList Entry names
+	 * 
+	 * @throws IOException Thrown on error
+	 */
+	private void writeJar(final Path jarPathFile,
+			              final List<String> entryNameList) throws IOException {
+		try (final OutputStream outputStream = Files.newOutputStream(jarPathFile);
+			 final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+			for (final String entryName : entryNameList) {
+				zipOutputStream.putNextEntry(new ZipEntry(entryName));
+				zipOutputStream.closeEntry();
+			}
+		}
+	}
+	
+	/**
+	 * Log a jar resolve with the jar file name and entry only
+	 * 
+	 * @param packageResolveOnJars The jar resolver
+	 * @param packageName The package name
+	 * @param className The class name
+	 */
+	private void logJarResolve(final PackageResolveOnJars packageResolveOnJars,
+			                   final String packageName,
+			                   final String className) {
+		final PackageResolveResult packageResolveResult = packageResolveOnJars.onPackageResolveCallback(packageName, className);
+		final String pathFile = packageResolveResult.getPathFile();
+		final String jarEntryName = pathFile != null ? 
+			Path.of(pathFile.substring(0, pathFile.indexOf(ClassFileParse.JAR_ENTRY_SEPARATOR))).getFileName() + 
+			pathFile.substring(pathFile.indexOf(ClassFileParse.JAR_ENTRY_SEPARATOR)) : null;
+		log.info("jar " + packageName + "." + className + " resolved=" + packageResolveResult.isSuccess() + 
+				 ", jarEntryName=" + jarEntryName);
+	}
+	
+	/**
+	 * Resolve a class name import whose type is not parsed yet while a
+	 * same package type of the same name is, the import shadows it. Then
+	 * process another root on the same processor, the types of the first
+	 * run are not resolved against
+	 */
+	public void runSymbolTableTests () {
+		Path sourceRoot = null;
+		try {
+			sourceRoot = Files.createTempDirectory("processor-symbol");
+			writeSource(sourceRoot, "a/Foo.java", "package a; public class Foo { }");
+			final Path fooPathFile = writeSource(sourceRoot, "p/Foo.java", "package p; public class Foo { }");
+			final Path mPathFile = writeSource(sourceRoot, "p/M.java", "package p; import a.Foo; public class M { Foo foo; }");
+			
+			final Processor symbolTableProcessor = new Processor();
+			symbolTableProcessor.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(sourceRoot.toString())));
+			
+			// Depth first, the last file added is parsed first
+			symbolTableProcessor.addFile(mPathFile.toString());
+			symbolTableProcessor.addFile(fooPathFile.toString());
+			log.info("symbol table shadowing packageNameList=" + symbolTableProcessor.process());
+			
+			// A second run on another root does not see the types of the first
+			final Path otherSourceRoot = sourceRoot.resolve("other");
+			final Path aPathFile = writeSource(otherSourceRoot, "q/A.java", "package q; import a.Foo; public class A { Foo foo; }");
+			symbolTableProcessor.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(otherSourceRoot.toString())));
+			symbolTableProcessor.clearFiles();
+			symbolTableProcessor.addFile(aPathFile.toString());
+			log.info("symbol table second root packageNameList=" + symbolTableProcessor.process() + 
+					 ", unresolvedClassNameList=" + symbolTableProcessor.getUnresolvedClassNameList());
+		}
+		catch (final IOException ioe) {
+			log.error("runSymbolTableTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+		}
+	}
+	
+	/**
+	 * Run a processor loaded by a class loader that also loads a class
+	 * outside java.class.path, the class path resolver finds it through
+	 * its loader and is not filtered by the names of java.class.path
+	 */
+	public void runClassLoaderTests () {
+		Path directory = null;
+		try {
+			directory = Files.createTempDirectory("processor-loader");
+			final Path sourceRoot = directory.resolve("src");
+			final Path extRoot = directory.resolve("ext");
+			final Path mPathFile = writeSource(sourceRoot, "m/M.java", "package m; import x.Ext; public class M { Ext ext; }");
+			final Path extPathFile = writeSource(directory, "compile/x/Ext.java", "package x; public class Ext { }");
+			
+			final JavaCompiler javaCompiler = ToolProvider.getSystemJavaCompiler();
+			if (javaCompiler.run(null, null, null, "-d", extRoot.toString(), extPathFile.toString()) != 0) {
+				log.error("runClassLoaderTests: compile failed");
+				return;
+			}
+			
+			final URL mainUrl = Processor.class.getProtectionDomain().getCodeSource().getLocation();
+			try (final URLClassLoader classLoader = 
+					new URLClassLoader(new URL[] { mainUrl, extRoot.toUri().toURL() }, ClassLoader.getPlatformClassLoader())) {
+				final Class<?> processorClass = classLoader.loadClass(Processor.class.getName());
+				final Class<?> callbackClass = classLoader.loadClass(PackageResolveCallback.class.getName());
+				final Object loadedProcessor = processorClass.getConstructor().newInstance();
+				final Object sourceRootsCallback = classLoader.loadClass(PackageResolveOnSourceRoots.class.getName())
+					.getConstructor(List.class).newInstance(List.of(sourceRoot.toString()));
+				processorClass.getMethod("setCliPackageResolveCallback", callbackClass).invoke(loadedProcessor, sourceRootsCallback);
+				processorClass.getMethod("addFile", String.class).invoke(loadedProcessor, mPathFile.toString());
+				log.info("class loader packageNameList=" + processorClass.getMethod("process").invoke(loadedProcessor));
+			}
+		}
+		catch (final IOException | ReflectiveOperationException e) {
+			log.error("runClassLoaderTests: Exception " + e);
+		}
+		finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/**
+	 * Process a source root, then add a type to a scanned package and a
+	 * type in a new package between two runs on the same processor, the
+	 * second run resolves both through the rescanned index
+	 */
+	public void runSourceRootsRefreshTests () {
+		Path sourceRoot = null;
+		try {
+			sourceRoot = Files.createTempDirectory("processor-refresh");
+			final Path aPathFile = writeSource(sourceRoot, "p/A.java", "package p; import q.*; public class A { B b; }");
+			writeSource(sourceRoot, "q/B.java", "package q; public class B { }");
+			
+			final Processor refreshProcessor = new Processor();
+			refreshProcessor.setCliPackageResolveCallback(new PackageResolveOnSourceRoots(List.of(sourceRoot.toString())));
+			refreshProcessor.addFile(aPathFile.toString());
+			log.info("source roots refresh first packageNameList=" + refreshProcessor.process());
+			
+			writeSource(sourceRoot, "q/D.java", "package q; public class D { }");
+			writeSource(sourceRoot, "r/E.java", "package r; public class E { }");
+			writeSource(sourceRoot, "p/A.java", "package p; import q.*; import r.E; public class A { B b; D d; E e; }");
+			refreshProcessor.clearFiles();
+			refreshProcessor.addFile(aPathFile.toString());
+			log.info("source roots refresh second packageNameList=" + refreshProcessor.process() + 
+					 ", unresolvedClassNameList=" + refreshProcessor.getUnresolvedClassNameList());
+		}
+		catch (final IOException ioe) {
+			log.error("runSourceRootsRefreshTests: IOException " + ioe.getMessage());
+		}
+		finally {
+			deleteDirectory(sourceRoot);
+		}
+	}
+	
+	/**
+	 * Log a dependency query answer with file names only
+	 * 
+	 * @param dependencyQueryResultData The answer
+	 */
+	private void logWitness(final DependencyQueryResultData dependencyQueryResultData) {
+		final DependencyWitnessData dependencyWitnessData = dependencyQueryResultData.getDependencyWitnessData();
+		if (dependencyWitnessData == null) {
+			final List<String> excludedFileNameList = new ArrayList<>();
+			for (final String excludedPathFile : dependencyQueryResultData.getExcludedPathFileList()) {
+				excludedFileNameList.add(Path.of(excludedPathFile).getFileName().toString());
+			}
+			log.info("dependency query not found, definiteNegative=" + dependencyQueryResultData.isDefiniteNegative() + 
+					 ", partialResult=" + dependencyQueryResultData.isPartialResult() + 
+					 ", unresolvedCount=" + dependencyQueryResultData.getUnresolvedCount() + 
+					 ", skippedProbeCount=" + dependencyQueryResultData.getSkippedProbeCount() + 
+					 ", excludedFileNameList=" + excludedFileNameList + 
+					 ", processedFileCount=" + dependencyQueryResultData.getProcessedFileCount());
+			return;
+		}
+		
+		final List<String> fileNameList = new ArrayList<>();
+		for (final String pathFile : dependencyWitnessData.getPathFileList()) {
+			fileNameList.add(Path.of(pathFile).getFileName().toString());
+		}
+		log.info("dependency query found " + dependencyWitnessData.getPackageName() + "." + dependencyWitnessData.getClassName() + 
+				 " through " + fileNameList + ", processedFileCount=" + dependencyQueryResultData.getProcessedFileCount());
+	}
+	
+	/**
+	 * @param processorMetricsSnapshot Metrics of a run
+	 * 
+	 * @return Number of resolver probes of the run
+	 */
+	private static long getProbeCount(final ProcessorMetricsSnapshot processorMetricsSnapshot) {
+		return processorMetricsSnapshot.getProbeCounts().values().stream().mapToLong(Long::longValue).sum();
+	}
+	
+	/**
+	 * Log lines through asynchronous file appenders, blocking keeps every
+	 * line and dropping from a tiny buffer accounts for every line
+	 */
+	public void runLogAppenderTests () {
+		final int lineCount = 1000;
+		
+		try {
+			final Path logPathFile = Files.createTempFile("processor", ".log");
+			
+			final LogAppender previousLogAppender = Log.setLogAppender(AsyncLogAppender.toFile(logPathFile, LogOverflowPolicy.BLOCK));
+			logLines(lineCount);
+			Log.getLogAppender().close();
+			final long blockLineCount;
+			try (final Stream<String> lineStream = Files.lines(logPathFile)) {
+				blockLineCount = lineStream.count();
+			}
+			Files.delete(logPathFile);
+			
+			final AsyncLogAppender dropLogAppender = new AsyncLogAppender(Files.newBufferedWriter(logPathFile), true, 
+					                                                      2, LogOverflowPolicy.DROP, 1);
+			Log.setLogAppender(dropLogAppender);
+			logLines(lineCount);
+			dropLogAppender.close();
+			final long dropLineCount;
+			try (final Stream<String> lineStream = Files.lines(logPathFile)) {
+				dropLineCount = lineStream.filter(line -> ! line.contains("AsyncLogAppender: dropped")).count();
+			}
+			Files.delete(logPathFile);
+			
+			Log.setLogAppender(previousLogAppender);
+			
+			log.info("log appender blockLineCount=" + blockLineCount + 
+					 ", dropLinesAccounted=" + (dropLineCount + dropLogAppender.getDroppedCount() == lineCount));
+		}
+		catch (final IOException ioe) {
+			log.error("runLogAppenderTests: IOException " + ioe.getMessage());
+		}
+	}
+	
+	/**
+	 * Log numbered lines at info
+	 * 
+	 * @param lineCount Number of lines
+	 */
+	private static void logLines(final int lineCount) {
+		final Log lineLog = new Log();
+		lineLog.setLogLevel(LogType.INFO);
+		for (int i = 0; i < lineCount; i++) {
+			lineLog.info("line " + i);
+		}
+	}
+	
 	/**
 	 * Run a single test
 	 * 
 	 * @param pathFile Source path and file
 	 */
 	private void runTest(final String pathFile) {
-		processor.clearFiles();
+		runTest(processor, pathFile);
+	}
+	
+	/**
+	 * Run a single test
+	 * 
+	 * @param testProcessor The processor to run
+	 * @param pathFile Source path and file
+	 */
+	private void runTest(final Processor testProcessor, final String pathFile) {
+		testProcessor.clearFiles();
 		
 		final String fullPathFile = userDir + pathFile.replace('/', File.separatorChar);
-		processor.addFile(fullPathFile);
-		
-	    final List<String> packageNameList = processor.process();
+		testProcessor.addFile(fullPathFile);
 		
+	    logResults(testProcessor.process());
+	}
+	
+	/**
+	 * Log the package names of a run
+	 * 
+	 * @param packageNameList Sorted package names
+	 */
+	private void logResults(final List<String> packageNameList) {
 		log.info("--------Results--------"); 
 	    for (final String packageName : packageNameList) {
 	    	log.info(" packageName: " + packageName);
@@ -114,5 +1267,27 @@ public class ProcessorTest {
 	public static void main(final String[] args) throws IOException {		
 		final ProcessorTest processorTest = new ProcessorTest();
 		processorTest.runAllTests();
+		processorTest.runSourceRootsTests();
+		processorTest.runStreamingTests();
+		processorTest.runOffHeapStoreTests();
+		processorTest.runOffHeapStoreChangeTests();
+		processorTest.runDependencyGraphTests();
+		processorTest.runWatchTests();
+		processorTest.runForkJoinTests();
+		processorTest.runMetricsTests();
+		processorTest.runFlightRecordingTests();
+		processorTest.runResolveGuardTests();
+		processorTest.runCancelTests();
+		processorTest.runLogAppenderTests();
+		processorTest.runModuleScopeTests();
+		processorTest.runProjectTests();
+		processorTest.runTraversalScopeTests();
+		processorTest.runDependencyQueryTests();
+		processorTest.runClassFileTests();
+		processorTest.runJdkPackageIndexTests();
+		processorTest.runJarTests();
+		processorTest.runSymbolTableTests();
+		processorTest.runClassLoaderTests();
+		processorTest.runSourceRootsRefreshTests();
 	}
 }